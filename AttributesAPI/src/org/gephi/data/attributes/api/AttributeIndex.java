@@ -0,0 +1,130 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes.api;
+
+import org.gephi.graph.api.Graph;
+
+/**
+ * Sorted index of the values of a number column. The index is maintained by
+ * the column's table: rows created after the index are registered, and value
+ * changes are picked up by the next query.
+ * <p>
+ * Rows of elements removed from the main graph are dropped from the index, so
+ * methods without a {@link Graph} consider all the elements of the main graph.
+ * Methods taking a graph only consider rows whose element belongs to this
+ * graph, for instance a filtered view.
+ * <p>
+ * Get the index of a column with {@link AttributeUtils#getIndex(org.gephi.data.attributes.api.AttributeColumn, org.gephi.graph.api.Graph)}.
+ *
+ * @author agent
+ */
+public interface AttributeIndex {
+
+    /**
+     * Returns the column this index belongs.
+     *
+     * @return  the column this index belongs
+     */
+    public AttributeColumn getColumn();
+
+    /**
+     * Returns the number of non-null values in the index.
+     *
+     * @return  the number of indexed values
+     */
+    public int size();
+
+    /**
+     * Returns the smallest indexed value, or <code>null</code> if the index
+     * is empty.
+     *
+     * @return  the minimum value or <code>null</code>
+     */
+    public Number getMinimumValue();
+
+    /**
+     * Returns the greatest indexed value, or <code>null</code> if the index
+     * is empty.
+     *
+     * @return  the maximum value or <code>null</code>
+     */
+    public Number getMaximumValue();
+
+    /**
+     * Returns the smallest value of the elements of <code>graph</code>, or
+     * <code>null</code> if none of them has a value.
+     *
+     * @param graph the graph elements belong to
+     * @return      the minimum value in <code>graph</code> or <code>null</code>
+     */
+    public Number getMinimumValue(Graph graph);
+
+    /**
+     * Returns the greatest value of the elements of <code>graph</code>, or
+     * <code>null</code> if none of them has a value.
+     *
+     * @param graph the graph elements belong to
+     * @return      the maximum value in <code>graph</code> or <code>null</code>
+     */
+    public Number getMaximumValue(Graph graph);
+
+    /**
+     * Returns the value at <code>quantile</code> of the indexed values, for
+     * instance <code>0.5</code> for the median. Returns <code>null</code> if
+     * the index is empty.
+     *
+     * @param quantile  a number between 0 and 1
+     * @return          the value at <code>quantile</code> or <code>null</code>
+     */
+    public Number getQuantile(double quantile);
+
+    /**
+     * Returns the objects of rows which value is between <code>lower</code> and
+     * <code>upper</code>, both inclusive, by increasing value. Objects are
+     * <code>NodeData</code> or <code>EdgeData</code> instances.
+     *
+     * @param lower the lower bound
+     * @param upper the upper bound
+     * @return      the objects in the range, sorted by value
+     */
+    public Object[] getObjects(Number lower, Number upper);
+}
@@ -122,6 +122,14 @@ public interface AttributeModel {
      */
     public void removeAttributeListener(AttributeListener listener);
 
+    /**
+     * Returns the version of values in this model. It is incremented each time
+     * a value is modified in a row or a column is removed or replaced. Unlike
+     * attribute events, it is updated at once.
+     * @return      the current version of values
+     */
+    public int getValueVersion();
+
     /**
      * Merge <code>model</code> in this model. Makes the union of tables and
      * columns of both models. Copy tables this model don't
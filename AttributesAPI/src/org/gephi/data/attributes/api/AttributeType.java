@@ -586,10 +586,17 @@ public enum AttributeType {
     private static final Pattern removeDecimalDigitsFromStringPattern = Pattern.compile("\\.[0-9]*");
 
     private static double parseDateToDouble(String date) throws ParseException {
-        Date d = dateFormat.parse(date);
+        Date d = dateFormat.get().parse(date);
         Calendar cal = Calendar.getInstance();
         cal.setTime(d);
         return cal.getTimeInMillis();
     }
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+    //SimpleDateFormat is not thread-safe, values may be parsed by importers on several threads
+    private static final ThreadLocal<SimpleDateFormat> dateFormat = new ThreadLocal<SimpleDateFormat>() {
+
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyy-MM-dd");
+        }
+    };
 }
@@ -44,6 +44,7 @@ package org.gephi.data.attributes.api;
 import java.util.GregorianCalendar;
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
+import org.gephi.graph.api.Graph;
 import org.openide.util.Lookup;
 
 /**
@@ -104,6 +105,17 @@ public abstract class AttributeUtils {
     @SuppressWarnings("rawtypes")
     public abstract Comparable getMax(AttributeColumn column, Comparable[] values);
 
+    /**
+     * Returns the sorted index of <code>column</code>, building it from the
+     * elements of <code>graph</code>'s model the first time. Returns
+     * <code>null</code> if <code>column</code> is not a number column.
+     *
+     * @param column    a number column
+     * @param graph     a graph of the model the column's rows belong to
+     * @return          the index of <code>column</code> or <code>null</code>
+     */
+    public abstract AttributeIndex getIndex(AttributeColumn column, Graph graph);
+
     public static synchronized AttributeUtils getDefault() {
         return Lookup.getDefault().lookup(AttributeUtils.class);
     }
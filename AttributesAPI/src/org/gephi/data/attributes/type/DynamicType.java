@@ -42,25 +42,30 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.data.attributes.type;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.gephi.data.attributes.api.Estimator;
 
 /**
  * A special type which provides methods of getting/setting values of any time
- * interval. It is internally implemented using Interval Tree for efficiency.
+ * interval. It is internally implemented using a packed, sorted
+ * {@link IntervalArray} for efficiency, values being immutable.
+ * <p>
+ * Intervals modified heavily before creating a value can be collected in an
+ * {@link IntervalTree}, and the value created from its {@code getIntervals()}.
  *
  * @author Cezary Bartosiak
  * 
  * @param <T> type of data
  */
 public abstract class DynamicType<T> {
-	protected IntervalTree<T> intervalTree;
+	protected IntervalArray<T> intervalArray;
 
 	/**
 	 * Constructs a new {@code DynamicType} instance with no intervals.
 	 */
 	public DynamicType() {
-		intervalTree = new IntervalTree<T>();
+		intervalArray = new IntervalArray<T>();
 	}
 
 	/**
@@ -70,9 +75,7 @@ public abstract class DynamicType<T> {
 	 * @param in interval to add (could be null)
 	 */
 	public DynamicType(Interval<T> in) {
-		this();
-		if (in != null)
-			intervalTree.insert(in);
+		intervalArray = new IntervalArray<T>(null, singletonList(in), null);
 	}
 
 	/**
@@ -82,10 +85,7 @@ public abstract class DynamicType<T> {
 	 * @param in intervals to add (could be null)
 	 */
 	public DynamicType(List<Interval<T>> in) {
-		this();
-		if (in != null)
-			for (Interval<T> interval : in)
-				intervalTree.insert(interval);
+		intervalArray = new IntervalArray<T>(null, in, null);
 	}
 
 	/**
@@ -95,9 +95,10 @@ public abstract class DynamicType<T> {
 	 *               instance is created)
 	 */
 	public DynamicType(DynamicType<T> source) {
+		// Intervals are immutable and can be shared
 		if (source == null)
-			intervalTree = new IntervalTree<T>();
-		else intervalTree = new IntervalTree<T>(source.intervalTree);
+			intervalArray = new IntervalArray<T>();
+		else intervalArray = source.intervalArray;
 	}
 
 	/**
@@ -109,9 +110,7 @@ public abstract class DynamicType<T> {
 	 * @param in     interval to add (could be null)
 	 */
 	public DynamicType(DynamicType<T> source, Interval<T> in) {
-		this(source);
-		if (in != null)
-			intervalTree.insert(in);
+		this(source, singletonList(in), null);
 	}
 
 	/**
@@ -125,11 +124,7 @@ public abstract class DynamicType<T> {
 	 * @param out    interval to remove (could be null)
 	 */
 	public DynamicType(DynamicType<T> source, Interval<T> in, Interval<T> out) {
-		this(source);
-		if (out != null)
-			intervalTree.delete(out);
-		if (in != null)
-			intervalTree.insert(in);
+		this(source, singletonList(in), singletonList(out));
 	}
 
 	/**
@@ -141,10 +136,7 @@ public abstract class DynamicType<T> {
 	 * @param in     intervals to add (could be null)
 	 */
 	public DynamicType(DynamicType<T> source, List<Interval<T>> in) {
-		this(source);
-		if (in != null)
-			for (Interval<T> interval : in)
-				intervalTree.insert(interval);
+		this(source, in, null);
 	}
 
 	/**
@@ -159,13 +151,31 @@ public abstract class DynamicType<T> {
 	 * @param out    intervals to remove (could be null)
 	 */
 	public DynamicType(DynamicType<T> source, List<Interval<T>> in, List<Interval<T>> out) {
-		this(source);
-		if (out != null)
-			for (Interval<T> interval : out)
-				intervalTree.delete(interval);
-		if (in != null)
-			for (Interval<T> interval : in)
-				intervalTree.insert(interval);
+		intervalArray = new IntervalArray<T>(
+				source != null ? source.intervalArray : null, in, out);
+	}
+
+	/**
+	 * Returns a copy of the intervals of this instance in an
+	 * {@code IntervalTree}. Modifying the tree doesn't modify this instance.
+	 *
+	 * @return a new {@code IntervalTree} with the intervals of this instance.
+	 *
+	 * @deprecated intervals are stored in {@link #intervalArray}, use it
+	 *             instead of the former {@code intervalTree} field.
+	 */
+	@Deprecated
+	protected IntervalTree<T> getIntervalTree() {
+		IntervalTree<T> intervalTree = new IntervalTree<T>();
+		for (Interval<T> interval : intervalArray.getIntervals())
+			intervalTree.insert(interval);
+		return intervalTree;
+	}
+
+	private static <T> List<Interval<T>> singletonList(Interval<T> interval) {
+		if (interval == null)
+			return null;
+		return Collections.singletonList(interval);
 	}
 
 	/**
@@ -175,7 +185,7 @@ public abstract class DynamicType<T> {
 	 * @return the leftmost point.
 	 */
 	public double getLow() {
-		return intervalTree.getLow();
+		return intervalArray.getLow();
 	}
 
 	/**
@@ -185,7 +195,7 @@ public abstract class DynamicType<T> {
 	 * @return the rightmost point.
 	 */
 	public double getHigh() {
-		return intervalTree.getHigh();
+		return intervalArray.getHigh();
 	}
 
 	/**
@@ -195,7 +205,7 @@ public abstract class DynamicType<T> {
 	 *         {@code false} otherwise.
 	 */
 	public boolean isLowExcluded() {
-		return intervalTree.isLowExcluded();
+		return intervalArray.isLowExcluded();
 	}
 
 	/**
@@ -205,7 +215,7 @@ public abstract class DynamicType<T> {
 	 *         {@code false} otherwise.
 	 */
 	public boolean isHighExcluded() {
-		return intervalTree.isHighExcluded();
+		return intervalArray.isHighExcluded();
 	}
 
 	/**
@@ -217,7 +227,7 @@ public abstract class DynamicType<T> {
 	 *         instance, otherwise {@code false}.
 	 */
 	public boolean isInRange(Interval interval) {
-		return intervalTree.overlapsWith(interval);
+		return intervalArray.overlapsWith(interval);
 	}
 
 	/**
@@ -237,7 +247,7 @@ public abstract class DynamicType<T> {
 						"The left endpoint of the interval must be less than " +
 						"the right endpoint.");
 
-		return intervalTree.overlapsWith(new Interval(low, high));
+		return intervalArray.overlapsWith(new Interval(low, high));
 	}
 
 	/**
@@ -394,8 +404,9 @@ public abstract class DynamicType<T> {
 	 */
 	public List<T> getValues(Interval interval) {
 		List<T> result = new ArrayList<T>();
-		for (Interval<T> i : intervalTree.search(interval))
-			result.add(i.getValue());
+		for (int i = intervalArray.firstIndex(interval); i != -1;
+				i = intervalArray.nextIndex(i, interval))
+			result.add(intervalArray.getValue(i));
 		return result;
 	}
         
@@ -405,7 +416,7 @@ public abstract class DynamicType<T> {
 	 * @return a list of intervals which overlap with a given time interval.
 	 */
 	public List<Interval<T>> getIntervals() {
-		return intervalTree.getIntervals();
+		return intervalArray.getIntervals();
 	}
 
 	/**
@@ -416,7 +427,7 @@ public abstract class DynamicType<T> {
 	 * @return a list of intervals which overlap with a given time interval.
 	 */
 	public List<Interval<T>> getIntervals(Interval interval) {
-		return intervalTree.search(interval);
+		return intervalArray.search(interval);
 	}
 
 	/**
@@ -432,7 +443,7 @@ public abstract class DynamicType<T> {
 	 * @throws IllegalArgumentException if {@code low} > {@code high}.
 	 */
 	public List<Interval<T>> getIntervals(double low, double high) {
-		return intervalTree.search(low, high);
+		return intervalArray.search(low, high);
 	}
 
 	/**
@@ -446,20 +457,20 @@ public abstract class DynamicType<T> {
 	 * Compares this instance with the specified object for equality.
 	 *
 	 * <p>Note that two {@code DynamicType} instances are equal if they have got
-	 * the same type {@code T} and their interval trees are equal.
+	 * the same type {@code T} and their intervals are equal.
 	 *
 	 * @param obj object to which this instance is to be compared
 	 *
 	 * @return {@code true} if and only if the specified {@code Object} is a
-	 *         {@code DynamicType} which has the same type {@code T} and an
-	 *         equal interval tree.
+	 *         {@code DynamicType} which has the same type {@code T} and the same
+	 *         intervals.
 	 * 
 	 * @see #hashCode
 	 */
 	@Override
 	public boolean equals(Object obj) {
 		if (obj != null && obj.getClass().equals(this.getClass()) &&
-				((DynamicType<T>)obj).intervalTree.equals(intervalTree))
+				((DynamicType<T>)obj).intervalArray.equals(intervalArray))
 			return true;
 		return false;
 	}
@@ -471,7 +482,7 @@ public abstract class DynamicType<T> {
 	 */
 	@Override
 	public int hashCode() {
-		return intervalTree.hashCode();
+		return intervalArray.hashCode();
 	}
 
 	/**
@@ -482,7 +493,7 @@ public abstract class DynamicType<T> {
 	 * @return a string representation with times as doubles or dates.
 	 */
 	public String toString(boolean timesAsDoubles) {
-		return intervalTree.toString(timesAsDoubles);
+		return intervalArray.toString(timesAsDoubles);
 	}
 
 	/**
@@ -494,6 +505,6 @@ public abstract class DynamicType<T> {
 	 */
 	@Override
 	public String toString() {
-		return intervalTree.toString();
+		return intervalArray.toString();
 	}
 }
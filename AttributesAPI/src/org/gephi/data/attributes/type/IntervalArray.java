@@ -0,0 +1,565 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes.type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Packed alternative to {@link IntervalTree} for intervals which are not
+ * modified once created, as values of {@link DynamicType}.
+ *
+ * <p>Intervals are kept sorted by their left endpoint in parallel primitive
+ * arrays, together with the running maximum of the right endpoints. An
+ * interval costs a few array slots instead of a tree node and an
+ * {@code Interval} instance. All intervals that overlap some interval
+ * <i>i</i> are found by binary search in <i>O</i>(lg <i>n</i> + <i>k</i>)
+ * time when intervals don't overlap each other, where <i>k</i> is the number
+ * of intervals in the output. {@link #firstIndex(Interval)} and
+ * {@link #nextIndex(int, Interval)} iterate these intervals without any
+ * allocation.
+ *
+ * <p>Instances are immutable, adding or removing intervals creates a new
+ * {@code IntervalArray} in <i>O</i>(<i>n</i>) time. {@code IntervalTree}
+ * remains the structure of choice for collections modified heavily.
+ *
+ * @author agent
+ *
+ * @param <T> type of data
+ */
+public final class IntervalArray<T> {
+
+	private static final byte LOW_EXCLUDED  = 1;
+	private static final byte HIGH_EXCLUDED = 2;
+	private static final double[] EMPTY = new double[0];
+
+	private final int      size;
+	private final double[] lows;     // the left endpoints, sorted
+	private final double[] highs;    // the right endpoints
+	private final double[] maxHighs; // the maximum right endpoint up to each
+									 // index, highs itself if already sorted
+	private final byte[]   excluded; // excluded endpoints, null if none
+	private final Object[] values;   // the values, null if none
+
+	/**
+	 * Constructs an empty {@code IntervalArray}.
+	 */
+	public IntervalArray() {
+		this(null, null, null);
+	}
+
+	/**
+	 * Constructs an {@code IntervalArray} with intervals given by
+	 * {@code List<Interval<T>>} in.
+	 *
+	 * @param in intervals to add (could be null)
+	 */
+	public IntervalArray(List<Interval<T>> in) {
+		this(null, in, null);
+	}
+
+	/**
+	 * Constructs a copy of {@code source} with additional intervals given by
+	 * {@code List<Interval<T>>} in. Before add it removes from the newly
+	 * created object all intervals that overlap with intervals given by
+	 * {@code List<Interval>} out.
+	 *
+	 * <p>Intervals which have got the same left endpoint keep the order in
+	 * which they have been added.
+	 *
+	 * @param source an object to copy from (could be null)
+	 * @param in     intervals to add (could be null)
+	 * @param out    intervals to remove (could be null)
+	 */
+	public IntervalArray(IntervalArray<T> source, List<Interval<T>> in, List<? extends Interval> out) {
+		//Kept intervals of source
+		int sourceSize = source != null ? source.size : 0;
+		boolean[] removed = new boolean[sourceSize];
+		int kept = sourceSize;
+		if (out != null) {
+			for (Interval interval : out) {
+				if (interval == null) {
+					throw new NullPointerException("Interval cannot be null.");
+				}
+				if (source == null) {
+					continue;
+				}
+				for (int i = source.firstIndex(interval); i != -1; i = source.nextIndex(i, interval)) {
+					if (!removed[i]) {
+						removed[i] = true;
+						kept--;
+					}
+				}
+			}
+		}
+
+		//Added intervals, sorted
+		List<Interval<T>> added = Collections.emptyList();
+		if (in != null && !in.isEmpty()) {
+			added = new ArrayList<Interval<T>>(in);
+			for (Interval<T> interval : added) {
+				if (interval == null) {
+					throw new NullPointerException("Interval cannot be null.");
+				}
+			}
+			Collections.sort(added, LOW_COMPARATOR);
+		}
+
+		size = kept + added.size();
+		lows = size > 0 ? new double[size] : EMPTY;
+		highs = size > 0 ? new double[size] : EMPTY;
+		byte[] excl = new byte[size];
+		Object[] vals = new Object[size];
+		boolean hasExcluded = false;
+		boolean hasValues = false;
+
+		//Merge, source first for equal left endpoints
+		int s = 0;
+		int a = 0;
+		for (int i = 0; i < size; i++) {
+			while (s < sourceSize && removed[s]) {
+				s++;
+			}
+			if (s < sourceSize && (a == added.size() || compareLow(source.lows[s], source.isLowExcluded(s),
+					added.get(a).getLow(), added.get(a).isLowExcluded()) <= 0)) {
+				lows[i] = source.lows[s];
+				highs[i] = source.highs[s];
+				excl[i] = source.excluded != null ? source.excluded[s] : 0;
+				vals[i] = source.values != null ? source.values[s] : null;
+				s++;
+			} else {
+				Interval<T> interval = added.get(a++);
+				lows[i] = interval.getLow();
+				highs[i] = interval.getHigh();
+				excl[i] = (byte) ((interval.isLowExcluded() ? LOW_EXCLUDED : 0) | (interval.isHighExcluded() ? HIGH_EXCLUDED : 0));
+				vals[i] = interval.getValue();
+			}
+			hasExcluded |= excl[i] != 0;
+			hasValues |= vals[i] != null;
+		}
+		excluded = hasExcluded ? excl : null;
+		values = hasValues ? vals : null;
+
+		//Running maximum of right endpoints
+		double[] max = highs;
+		for (int i = 1; i < size; i++) {
+			if (highs[i] < highs[i - 1]) {
+				max = new double[size];
+				max[0] = highs[0];
+				for (int j = 1; j < size; j++) {
+					max[j] = Math.max(max[j - 1], highs[j]);
+				}
+				break;
+			}
+		}
+		maxHighs = max;
+	}
+
+	private static int compareLow(double lowA, boolean lopenA, double lowB, boolean lopenB) {
+		if (lowA < lowB) {
+			return -1;
+		} else if (lowA > lowB) {
+			return 1;
+		} else if (lopenA == lopenB) {
+			return 0;
+		}
+		return lopenA ? 1 : -1;
+	}
+
+	private static final Comparator<Interval> LOW_COMPARATOR = new Comparator<Interval>() {
+
+		public int compare(Interval a, Interval b) {
+			return compareLow(a.getLow(), a.isLowExcluded(), b.getLow(), b.isLowExcluded());
+		}
+	};
+
+	/**
+	 * Returns the number of intervals.
+	 *
+	 * @return the number of intervals.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Indicates if this {@code IntervalArray} doesn't contain any interval.
+	 *
+	 * @return {@code true} if this {@code IntervalArray} is empty,
+	 *         {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the leftmost point or {@code Double.NEGATIVE_INFINITY} in case
+	 * of no intervals.
+	 *
+	 * @return the leftmost point.
+	 */
+	public double getLow() {
+		if (isEmpty())
+			return Double.NEGATIVE_INFINITY;
+		return lows[0];
+	}
+
+	/**
+	 * Returns the rightmost point or {@code Double.POSITIVE_INFINITY} in case
+	 * of no intervals.
+	 *
+	 * @return the rightmost point.
+	 */
+	public double getHigh() {
+		if (isEmpty())
+			return Double.POSITIVE_INFINITY;
+		return maxHighs[size - 1];
+	}
+
+	/**
+	 * Indicates if the leftmost point is excluded.
+	 *
+	 * @return {@code true} if the leftmost point is excluded,
+	 *         {@code false} otherwise.
+	 */
+	public boolean isLowExcluded() {
+		if (isEmpty())
+			return true;
+		return isLowExcluded(0);
+	}
+
+	/**
+	 * Indicates if the right endpoint of the interval with the greatest left
+	 * endpoint is excluded.
+	 *
+	 * @return {@code true} if the rightmost point is excluded,
+	 *         {@code false} otherwise.
+	 */
+	public boolean isHighExcluded() {
+		if (isEmpty())
+			return true;
+		return isHighExcluded(size - 1);
+	}
+
+	/**
+	 * Returns the left endpoint of the interval at {@code index}, intervals
+	 * being ordered by their left endpoint.
+	 *
+	 * @param index the index of the interval
+	 *
+	 * @return the left endpoint of the interval at {@code index}.
+	 */
+	public double getLow(int index) {
+		checkIndex(index);
+		return lows[index];
+	}
+
+	/**
+	 * Returns the right endpoint of the interval at {@code index}.
+	 *
+	 * @param index the index of the interval
+	 *
+	 * @return the right endpoint of the interval at {@code index}.
+	 */
+	public double getHigh(int index) {
+		checkIndex(index);
+		return highs[index];
+	}
+
+	/**
+	 * Indicates if the left endpoint of the interval at {@code index} is
+	 * excluded.
+	 *
+	 * @param index the index of the interval
+	 *
+	 * @return {@code true} if the left endpoint is excluded,
+	 *         {@code false} otherwise.
+	 */
+	public boolean isLowExcluded(int index) {
+		checkIndex(index);
+		return excluded != null && (excluded[index] & LOW_EXCLUDED) != 0;
+	}
+
+	/**
+	 * Indicates if the right endpoint of the interval at {@code index} is
+	 * excluded.
+	 *
+	 * @param index the index of the interval
+	 *
+	 * @return {@code true} if the right endpoint is excluded,
+	 *         {@code false} otherwise.
+	 */
+	public boolean isHighExcluded(int index) {
+		checkIndex(index);
+		return excluded != null && (excluded[index] & HIGH_EXCLUDED) != 0;
+	}
+
+	/**
+	 * Returns the value of the interval at {@code index}.
+	 *
+	 * @param index the index of the interval
+	 *
+	 * @return the value of the interval at {@code index}.
+	 */
+	public T getValue(int index) {
+		checkIndex(index);
+		return values != null ? (T) values[index] : null;
+	}
+
+	/**
+	 * Returns the interval at {@code index}, as a new {@code Interval}
+	 * instance.
+	 *
+	 * @param index the index of the interval
+	 *
+	 * @return the interval at {@code index}.
+	 */
+	public Interval<T> getInterval(int index) {
+		return new Interval<T>(getLow(index), getHigh(index),
+				isLowExcluded(index), isHighExcluded(index), getValue(index));
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	/**
+	 * Returns the index of the first interval which overlaps with a given
+	 * time interval, or {@code -1} if there is none.
+	 *
+	 * @param interval a given time interval
+	 *
+	 * @return the index of the first overlapping interval or {@code -1}.
+	 */
+	public int firstIndex(Interval interval) {
+		if (interval == null)
+			throw new NullPointerException("Interval cannot be null.");
+
+		// Skip all intervals whose right endpoint, and the right endpoint of
+		// all intervals before, is below the start of the given interval.
+		double low = interval.getLow();
+		int from = 0;
+		int to = size;
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if (maxHighs[mid] < low)
+				from = mid + 1;
+			else to = mid;
+		}
+		return scan(from, interval);
+	}
+
+	/**
+	 * Returns the index of the next interval after {@code index} which
+	 * overlaps with a given time interval, or {@code -1} if there is none.
+	 *
+	 * @param index    the index to start after, usually returned by
+	 *                 {@link #firstIndex(Interval)}
+	 * @param interval a given time interval
+	 *
+	 * @return the index of the next overlapping interval or {@code -1}.
+	 */
+	public int nextIndex(int index, Interval interval) {
+		if (interval == null)
+			throw new NullPointerException("Interval cannot be null.");
+
+		return scan(index + 1, interval);
+	}
+
+	private int scan(int from, Interval interval) {
+		// Intervals are sorted by left endpoint, stop when it is past the end
+		// of the given interval.
+		double high = interval.getHigh();
+		for (int i = from; i < size && lows[i] <= high; i++)
+			if (overlaps(i, interval))
+				return i;
+		return -1;
+	}
+
+	private boolean overlaps(int index, Interval interval) {
+		// Same as Interval.compareTo(interval) == 0
+		boolean lopen = excluded != null && (excluded[index] & LOW_EXCLUDED) != 0;
+		boolean ropen = excluded != null && (excluded[index] & HIGH_EXCLUDED) != 0;
+		if (highs[index] < interval.getLow() || highs[index] <= interval.getLow() &&
+				(ropen || interval.isLowExcluded()))
+			return false;
+		if (interval.getHigh() < lows[index] || interval.getHigh() <= lows[index] &&
+				(interval.isHighExcluded() || lopen))
+			return false;
+		return true;
+	}
+
+	/**
+	 * Indicates if a given time interval overlaps with any interval of this
+	 * {@code IntervalArray}.
+	 *
+	 * @param interval a given time interval
+	 *
+	 * @return {@code true} if a given time interval overlaps with any interval
+	 *         of this {@code IntervalArray}, otherwise {@code false}.
+	 */
+	public boolean overlapsWith(Interval interval) {
+		return firstIndex(interval) != -1;
+	}
+
+	/**
+	 * Returns all intervals overlapping with a given time interval, ordered
+	 * by their left endpoint.
+	 *
+	 * @param interval a given time interval
+	 *
+	 * @return all intervals overlapping with a given time interval.
+	 */
+	public List<Interval<T>> search(Interval interval) {
+		List<Interval<T>> overlaps = new ArrayList<Interval<T>>();
+		for (int i = firstIndex(interval); i != -1; i = nextIndex(i, interval))
+			overlaps.add(getInterval(i));
+		return overlaps;
+	}
+
+	/**
+	 * Returns all intervals overlapping with a [{@code low}, {@code high}]
+	 * time interval, ordered by their left endpoint.
+	 *
+	 * @param low  the left endpoint
+	 * @param high the right endpoint
+	 *
+	 * @return all intervals overlapping with a [{@code low}, {@code high}]
+	 *         time interval.
+	 *
+	 * @throws IllegalArgumentException if {@code low} > {@code high}.
+	 */
+	public List<Interval<T>> search(double low, double high) {
+		if (low > high)
+			throw new IllegalArgumentException(
+						"The left endpoint of the interval must be less than " +
+						"the right endpoint.");
+
+		return search(new Interval(low, high));
+	}
+
+	/**
+	 * Returns all intervals, ordered by their left endpoint.
+	 *
+	 * @return all intervals.
+	 */
+	public List<Interval<T>> getIntervals() {
+		List<Interval<T>> list = new ArrayList<Interval<T>>(size);
+		for (int i = 0; i < size; i++)
+			list.add(getInterval(i));
+		return list;
+	}
+
+	/**
+	 * Compares this instance with the specified object for equality.
+	 *
+	 * <p>Note that two {@code IntervalArray} instances are equal if they
+	 * contain the same intervals in the same order, regardless of their
+	 * values, as {@link Interval#equals(Object)}.
+	 *
+	 * @param obj object to which this instance is to be compared
+	 *
+	 * @return {@code true} if and only if the specified {@code Object} is an
+	 *         {@code IntervalArray} with the same intervals.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (obj != null && obj.getClass().equals(this.getClass())) {
+			IntervalArray<T> array = (IntervalArray<T>) obj;
+			if (size != array.size)
+				return false;
+			for (int i = 0; i < size; i++)
+				if (lows[i] != array.lows[i] || highs[i] != array.highs[i] ||
+						isLowExcluded(i) != array.isLowExcluded(i) ||
+						isHighExcluded(i) != array.isHighExcluded(i))
+					return false;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a hashcode of this instance.
+	 *
+	 * @return a hashcode of this instance.
+	 */
+	@Override
+	public int hashCode() {
+		return Arrays.deepHashCode(getIntervals().toArray());
+	}
+
+	/**
+	 * Creates a string representation of all the intervals with their values.
+	 *
+	 * @param timesAsDoubles indicates if times should be shown as doubles or dates
+	 *
+	 * @return a string representation with times as doubles or dates.
+	 */
+	public String toString(boolean timesAsDoubles) {
+		if (!isEmpty()) {
+			StringBuilder sb = new StringBuilder("<");
+			sb.append(getInterval(0).toString(timesAsDoubles));
+			for (int i = 1; i < size; ++i)
+				sb.append("; ").append(getInterval(i).toString(timesAsDoubles));
+			sb.append(">");
+			return sb.toString();
+		}
+		return "<empty>";
+	}
+
+	/**
+	 * Returns a string representation of this instance in a format
+	 * {@code <[low, high, value], ..., [low, high, value]>}. Intervals are
+	 * ordered by its left endpoint.
+	 *
+	 * @return a string representation of this instance.
+	 */
+	@Override
+	public String toString() {
+		return toString(true);
+	}
+}
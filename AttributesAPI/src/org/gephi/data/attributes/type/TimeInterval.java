@@ -267,8 +267,9 @@ public final class TimeInterval extends DynamicType<Double[]> {
 	@Override
 	public List<Double[]> getValues(Interval interval) {
 		List<Double[]> result = new ArrayList<Double[]>();
-		for (Interval<Double[]> i : intervalTree.search(interval))
-			result.add(new Double[] { i.getLow(), i.getHigh() });
+		for (int i = intervalArray.firstIndex(interval); i != -1;
+				i = intervalArray.nextIndex(i, interval))
+			result.add(new Double[] { intervalArray.getLow(i), intervalArray.getHigh(i) });
 		return result;
 	}
 
@@ -360,6 +360,24 @@ public class DynamicTypeTest {
 		System.out.println();
 	}
 
+	@Test
+	public void testGetIntervalTree() {
+		System.out.println("getIntervalTree()");
+		DynamicDouble instance = makeTree1();
+		IntervalTree<Double> tree = instance.getIntervalTree();
+		assertEquals(instance.getIntervals(), tree.getIntervals());
+		tree.delete(new Interval(0.0, 30.0));
+		assertTrue(tree.isEmpty());
+		assertEquals(makeTree1(), instance);
+
+		//Values from intervals collected in a tree
+		tree = new IntervalTree<Double>();
+		for (Interval<Double> interval : instance.getIntervals())
+			tree.insert(interval);
+		assertEquals(instance, new DynamicDouble(tree.getIntervals()));
+		System.out.println();
+	}
+
 	@Test
 	public void testGetUnderlyingType() {
 		System.out.println("getUnderlyingType");
@@ -0,0 +1,111 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes.type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for IntervalArray class.
+ *
+ * @author agent
+ */
+public class IntervalArrayTest {
+
+	@Test
+	public void testSearch() {
+		List<Interval<Integer>> in = new ArrayList<Interval<Integer>>();
+		in.add(new Interval<Integer>(7.0, 9.0, 3));
+		in.add(new Interval<Integer>(1.0, 2.0, 1));
+		in.add(new Interval<Integer>(2.0, 10.0, true, true, 2));
+		IntervalArray<Integer> array = new IntervalArray<Integer>(in);
+
+		assertEquals(3, array.size());
+		assertEquals(1.0, array.getLow(), 0.0);
+		assertEquals(10.0, array.getHigh(), 0.0);
+		assertFalse(array.isLowExcluded());
+		assertFalse(array.isHighExcluded());
+		assertEquals(Integer.valueOf(2), array.getValue(1));
+		assertTrue(array.isLowExcluded(1));
+
+		// The excluded left endpoint doesn't overlap with [2, 2]
+		Interval point = new Interval(2.0, 2.0);
+		assertEquals(0, array.firstIndex(point));
+		assertEquals(-1, array.nextIndex(0, point));
+
+		// The long interval is found after the short one has ended
+		Interval range = new Interval(5.0, 8.0);
+		assertEquals(1, array.firstIndex(range));
+		assertEquals(2, array.nextIndex(1, range));
+		assertEquals(-1, array.nextIndex(2, range));
+		assertEquals(Arrays.asList(in.get(2), in.get(0)), array.search(5.0, 8.0));
+
+		assertFalse(array.overlapsWith(new Interval(10.0, 11.0)));
+		assertTrue(array.overlapsWith(new Interval(9.5, 11.0)));
+		assertEquals(-1, new IntervalArray<Integer>().firstIndex(range));
+	}
+
+	@Test
+	public void testCopy() {
+		IntervalArray<Integer> array = new IntervalArray<Integer>(Arrays.asList(
+				new Interval<Integer>(1.0, 2.0, 1),
+				new Interval<Integer>(3.0, 4.0, 2),
+				new Interval<Integer>(5.0, 6.0, 3)));
+		IntervalArray<Integer> copy = new IntervalArray<Integer>(array,
+				Arrays.asList(new Interval<Integer>(0.0, 1.0, 4)),
+				Arrays.asList(new Interval(3.5, 5.0)));
+
+		assertEquals(3, array.size());
+		assertEquals(2, copy.size());
+		assertEquals("<[0.0, 1.0, 4]; [1.0, 2.0, 1]>", copy.toString());
+
+		IntervalTree<Integer> tree = new IntervalTree<Integer>();
+		tree.insert(new Interval<Integer>(1.0, 2.0, 1));
+		tree.insert(new Interval<Integer>(0.0, 1.0, 4));
+		assertEquals(tree.getIntervals(), copy.getIntervals());
+		assertEquals(tree.hashCode(), copy.hashCode());
+		assertEquals(new IntervalArray<Integer>(tree.getIntervals()), copy);
+	}
+}
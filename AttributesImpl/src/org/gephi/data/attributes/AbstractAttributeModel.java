@@ -43,6 +43,7 @@ package org.gephi.data.attributes;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.gephi.data.attributes.api.AttributeListener;
 import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.AttributeRowFactory;
@@ -69,6 +70,8 @@ public abstract class AbstractAttributeModel implements AttributeModel {
     private AttributeFactoryImpl factory;
     //Events
     protected AttributeEventManager eventManager;
+    //Version
+    private final AtomicInteger valueVersion = new AtomicInteger();
 
     //Data API
     public AbstractAttributeModel() {
@@ -149,6 +152,14 @@ public abstract class AbstractAttributeModel implements AttributeModel {
         eventManager.fireEvent(event);
     }
 
+    public int getValueVersion() {
+        return valueVersion.get();
+    }
+
+    public void incrementValueVersion() {
+        valueVersion.incrementAndGet();
+    }
+
     public void mergeModel(AttributeModel model) {
         if (model.getNodeTable() != null) {
             nodeTable.mergeTable(model.getNodeTable());
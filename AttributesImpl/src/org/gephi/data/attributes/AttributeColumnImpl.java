@@ -61,6 +61,7 @@ public class AttributeColumnImpl implements AttributeColumn {
     protected final AttributeOrigin origin;
     protected final AttributeValueImpl defaultValue;
     protected final AttributeValueDelegateProvider attributeValueDelegateProvider;
+    protected volatile AttributeIndexImpl valueIndex;
 
     public AttributeColumnImpl(AttributeTableImpl table, int index, String id, String title, AttributeType attributeType, AttributeOrigin origin, Object defaultValue, AttributeValueDelegateProvider attributeValueDelegateProvider) {
         this.table = table;
@@ -105,6 +106,10 @@ public class AttributeColumnImpl implements AttributeColumn {
         return attributeValueDelegateProvider;
     }
 
+    public AttributeIndexImpl getValueIndex() {
+        return valueIndex;
+    }
+
     @Override
     public String toString() {
         return title + " (" + type.toString() + ")";
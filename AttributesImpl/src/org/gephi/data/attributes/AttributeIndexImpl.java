@@ -0,0 +1,352 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.data.attributes;
+
+import java.util.List;
+import org.gephi.data.attributes.api.AttributeIndex;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeData;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.HierarchicalGraph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeData;
+
+/**
+ * Sorted index of a number column. Values are kept as primitive keys sorted
+ * together with their rows. Any value change marks the index dirty and the
+ * next query sorts the keys again.
+ * <p>
+ * When the index has a graph, rows are those of the graph elements. They are
+ * collected again when the graph version changes, so rows of removed elements
+ * are dropped. Without graph, rows are registered once, when they are created.
+ * <p>
+ * Queries never hold the index lock while calling the graph, as graph writers
+ * may create rows, which registers them here.
+ *
+ * @author agent
+ */
+public class AttributeIndexImpl implements AttributeIndex {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private final AttributeColumnImpl column;
+    private final HierarchicalGraph graph;
+    //Indexed rows
+    private AttributeRowImpl[] rows = new AttributeRowImpl[16];
+    private int rowCount;
+    //Graph version rows were collected at
+    private int nodeVersion = -1;
+    private int edgeVersion = -1;
+    //Sorted snapshot
+    private volatile boolean dirty = true;
+    private Snapshot snapshot;
+
+    public AttributeIndexImpl(AttributeColumnImpl column) {
+        this(column, null);
+    }
+
+    public AttributeIndexImpl(AttributeColumnImpl column, HierarchicalGraph graph) {
+        this.column = column;
+        this.graph = graph;
+    }
+
+    public synchronized void addRow(AttributeRowImpl row) {
+        if (graph != null) {
+            //Rows are collected from the graph once their element is added
+            return;
+        }
+        if (rowCount == rows.length) {
+            AttributeRowImpl[] newRows = new AttributeRowImpl[rowCount * 2];
+            System.arraycopy(rows, 0, newRows, 0, rowCount);
+            rows = newRows;
+        }
+        rows[rowCount++] = row;
+        dirty = true;
+    }
+
+    public synchronized int getRowCount() {
+        return rowCount;
+    }
+
+    public void setDirty() {
+        dirty = true;
+    }
+
+    public AttributeColumnImpl getColumn() {
+        return column;
+    }
+
+    public int size() {
+        return getSnapshot().size;
+    }
+
+    public Number getMinimumValue() {
+        Snapshot s = getSnapshot();
+        return s.size > 0 ? getValue(s.rows[0]) : null;
+    }
+
+    public Number getMaximumValue() {
+        Snapshot s = getSnapshot();
+        return s.size > 0 ? getValue(s.rows[s.size - 1]) : null;
+    }
+
+    public Number getMinimumValue(Graph graph) {
+        Snapshot s = getSnapshot();
+        for (int i = 0; i < s.size; i++) {
+            if (contains(graph, s.rows[i])) {
+                return getValue(s.rows[i]);
+            }
+        }
+        return null;
+    }
+
+    public Number getMaximumValue(Graph graph) {
+        Snapshot s = getSnapshot();
+        for (int i = s.size - 1; i >= 0; i--) {
+            if (contains(graph, s.rows[i])) {
+                return getValue(s.rows[i]);
+            }
+        }
+        return null;
+    }
+
+    public Number getQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1");
+        }
+        Snapshot s = getSnapshot();
+        if (s.size == 0) {
+            return null;
+        }
+        return getValue(s.rows[(int) Math.round(quantile * (s.size - 1))]);
+    }
+
+    public Object[] getObjects(Number lower, Number upper) {
+        Snapshot s = getSnapshot();
+        int from = search(s, lower.doubleValue(), false);
+        int to = search(s, upper.doubleValue(), true);
+        if (to <= from) {
+            return new Object[0];
+        }
+        Object[] objects = new Object[to - from];
+        for (int i = from; i < to; i++) {
+            objects[i - from] = s.rows[i].getObject();
+        }
+        return objects;
+    }
+
+    private Number getValue(AttributeRowImpl row) {
+        return (Number) row.getValue(column);
+    }
+
+    private Snapshot getSnapshot() {
+        if (graph != null) {
+            int currentNodeVersion = graph.getNodeVersion();
+            int currentEdgeVersion = graph.getEdgeVersion();
+            synchronized (this) {
+                if (currentNodeVersion == nodeVersion && currentEdgeVersion == edgeVersion) {
+                    return sortRows();
+                }
+            }
+            //Collect rows out of the index lock
+            List<AttributeRowImpl> graphRows;
+            graph.readLock();
+            try {
+                graphRows = column.getTable().getRows(graph);
+            } finally {
+                graph.readUnlock();
+            }
+            synchronized (this) {
+                rows = graphRows.toArray(new AttributeRowImpl[graphRows.size()]);
+                rowCount = rows.length;
+                nodeVersion = currentNodeVersion;
+                edgeVersion = currentEdgeVersion;
+                dirty = true;
+                return sortRows();
+            }
+        }
+        synchronized (this) {
+            return sortRows();
+        }
+    }
+
+    private Snapshot sortRows() {
+        if (dirty || snapshot == null) {
+            //Reset first so a concurrent change marks the index dirty again
+            dirty = false;
+            double[] keys = new double[rowCount];
+            AttributeRowImpl[] sortedRows = new AttributeRowImpl[rowCount];
+            int size = 0;
+            for (int i = 0; i < rowCount; i++) {
+                Object val = rows[i].getValue(column);
+                if (val != null) {
+                    keys[size] = ((Number) val).doubleValue();
+                    sortedRows[size++] = rows[i];
+                }
+            }
+            sort(keys, sortedRows, 0, size);
+            snapshot = new Snapshot(keys, sortedRows, size);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the position of the first key greater or equal than
+     * <code>key</code>, or strictly greater if <code>after</code> is true.
+     */
+    private static int search(Snapshot s, double key, boolean after) {
+        int low = 0;
+        int high = s.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int c = Double.compare(s.keys[mid], key);
+            if (c < 0 || (after && c == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean contains(Graph graph, AttributeRowImpl row) {
+        Object object = row.getObject();
+        int viewId = graph.getView().getViewId();
+        if (object instanceof NodeData) {
+            NodeData nodeData = (NodeData) object;
+            if (nodeData.getAttributes() != row) {
+                return false;
+            }
+            Node node = nodeData.getNode(viewId);
+            return node != null && graph.contains(node);
+        } else if (object instanceof EdgeData) {
+            EdgeData edgeData = (EdgeData) object;
+            if (edgeData.getAttributes() != row) {
+                return false;
+            }
+            Node source = edgeData.getSource().getNode(viewId);
+            Node target = edgeData.getTarget().getNode(viewId);
+            if (source == null || target == null || !graph.contains(source) || !graph.contains(target)) {
+                return false;
+            }
+            Edge edge = edgeData.getEdge();
+            if (graph.getEdge(source, target) == edge) {
+                return true;
+            }
+            return graph instanceof HierarchicalGraph && ((HierarchicalGraph) graph).getMetaEdge(source, target) == edge;
+        }
+        return false;
+    }
+
+    private static void sort(double[] keys, AttributeRowImpl[] rows, int from, int to) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            double pivot = median(keys[from], keys[(from + to) >>> 1], keys[to - 1]);
+            //Three-way partition: [from, lt) < pivot, [lt, gt] = pivot, (gt, to) > pivot
+            int lt = from;
+            int gt = to - 1;
+            int i = from;
+            while (i <= gt) {
+                int c = Double.compare(keys[i], pivot);
+                if (c < 0) {
+                    swap(keys, rows, lt++, i++);
+                } else if (c > 0) {
+                    swap(keys, rows, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            //Recurse on the smaller part
+            if (lt - from < to - gt - 1) {
+                sort(keys, rows, from, lt);
+                from = gt + 1;
+            } else {
+                sort(keys, rows, gt + 1, to);
+                to = lt;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            double key = keys[i];
+            AttributeRowImpl row = rows[i];
+            int j = i - 1;
+            while (j >= from && Double.compare(keys[j], key) > 0) {
+                keys[j + 1] = keys[j];
+                rows[j + 1] = rows[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            rows[j + 1] = row;
+        }
+    }
+
+    private static double median(double a, double b, double c) {
+        if (Double.compare(a, b) > 0) {
+            double t = a;
+            a = b;
+            b = t;
+        }
+        if (Double.compare(b, c) > 0) {
+            b = c;
+        }
+        return Double.compare(a, b) > 0 ? a : b;
+    }
+
+    private static void swap(double[] keys, AttributeRowImpl[] rows, int i, int j) {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        AttributeRowImpl row = rows[i];
+        rows[i] = rows[j];
+        rows[j] = row;
+    }
+
+    private static class Snapshot {
+
+        private final double[] keys;
+        private final AttributeRowImpl[] rows;
+        private final int size;
+
+        public Snapshot(double[] keys, AttributeRowImpl[] rows, int size) {
+            this.keys = keys;
+            this.rows = rows;
+            this.size = size;
+        }
+    }
+}
@@ -65,6 +65,9 @@ public class AttributeRowImpl implements AttributeRow {
         this.attributeTable = attributeTable;
         this.object = object;
         reset();
+        for (AttributeIndexImpl index : attributeTable.indexes) {
+            index.addRow(this);
+        }
     }
     
     public void reset() {
@@ -75,6 +78,9 @@ public class AttributeRowImpl implements AttributeRow {
             newValues[i] = attributeTable.getColumn(i).defaultValue;
         }
         this.values = newValues;
+        for (AttributeIndexImpl index : attributeTable.indexes) {
+            index.setDirty();
+        }
     }
     
     public void setValues(AttributeRow attributeRow) {
@@ -143,9 +149,15 @@ public class AttributeRowImpl implements AttributeRow {
         
         this.values[index] = value;
         
-        if (!((oldValue == null && value == null) || (oldValue != null && oldValue.equals(value)))
-                && index > 0 && !value.getColumn().getOrigin().equals(AttributeOrigin.COMPUTED)) {    //0 is the index of node id and edge id cols, not useful to send these events
-            attributeTable.model.fireAttributeEvent(new ValueEvent(EventType.SET_VALUE, attributeTable, object, value));
+        if (!((oldValue == null && value == null) || (oldValue != null && oldValue.equals(value)))) {
+            AttributeIndexImpl columnIndex = value.getColumn().valueIndex;
+            if (columnIndex != null) {
+                columnIndex.setDirty();
+            }
+            attributeTable.model.incrementValueVersion();
+            if (index > 0 && !value.getColumn().getOrigin().equals(AttributeOrigin.COMPUTED)) {    //0 is the index of node id and edge id cols, not useful to send these events
+                attributeTable.model.fireAttributeEvent(new ValueEvent(EventType.SET_VALUE, attributeTable, object, value));
+            }
         }
     }
     
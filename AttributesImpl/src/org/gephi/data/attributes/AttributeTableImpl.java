@@ -42,6 +42,7 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.data.attributes;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -54,6 +55,11 @@ import org.gephi.data.attributes.event.ColumnEvent;
 import org.gephi.data.attributes.spi.AttributeValueDelegateProvider;
 import org.gephi.data.attributes.type.TypeConvertor;
 import org.gephi.data.properties.PropertiesColumn;
+import org.gephi.graph.api.Attributes;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.HierarchicalGraph;
+import org.gephi.graph.api.Node;
 
 /**
  *
@@ -71,6 +77,8 @@ public class AttributeTableImpl implements AttributeTable {
     protected final Map<String, AttributeColumnImpl> columnsMap = new HashMap<String, AttributeColumnImpl>();
     //Version
     protected int version = 0;
+    //Indexes
+    protected volatile AttributeIndexImpl[] indexes = new AttributeIndexImpl[0];
 
     public AttributeTableImpl(AbstractAttributeModel model, String name) {
         this.name = name;
@@ -160,12 +168,14 @@ public class AttributeTableImpl implements AttributeTable {
             columnsMap.remove(column.getTitle());
         }
         columnsSet.remove(column);
+        removeIndex((AttributeColumnImpl) column);
 
         model.fireAttributeEvent(
                 new ColumnEvent(AttributeEvent.EventType.REMOVE_COLUMN, (AttributeColumnImpl) column));
 
         //Version
         version++;
+        model.incrementValueVersion();
     }
 
     public synchronized AttributeColumn replaceColumn(AttributeColumn source, AttributeColumnImpl targetImpl) {
@@ -179,6 +189,7 @@ public class AttributeTableImpl implements AttributeTable {
             columnsMap.remove(source.getTitle());
         }
         columnsSet.remove(source);
+        removeIndex((AttributeColumnImpl) source);
 
         //Add
         targetImpl.index = index;
@@ -191,6 +202,7 @@ public class AttributeTableImpl implements AttributeTable {
 
         //Version
         version++;
+        model.incrementValueVersion();
         return targetImpl;
     }
 
@@ -241,6 +253,67 @@ public class AttributeTableImpl implements AttributeTable {
         return columnsMap.containsKey(title) || columnsMap.containsKey(title.toLowerCase());
     }
 
+    /**
+     * Returns the sorted index of <code>column</code>. The index collects the
+     * rows of all the nodes or edges of <code>graph</code>'s model, and again
+     * each time the graph changes.
+     * @param column a number column of this table
+     * @param graph a graph of the model rows belong to
+     * @return the index of <code>column</code>
+     */
+    public synchronized AttributeIndexImpl getIndex(AttributeColumnImpl column, Graph graph) {
+        AttributeIndexImpl index = column.valueIndex;
+        if (index == null) {
+            index = new AttributeIndexImpl(column, graph.getGraphModel().getHierarchicalDirectedGraph());
+            AttributeIndexImpl[] newIndexes = new AttributeIndexImpl[indexes.length + 1];
+            System.arraycopy(indexes, 0, newIndexes, 0, indexes.length);
+            newIndexes[indexes.length] = index;
+            indexes = newIndexes;
+            column.valueIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the rows of this table that belong to the nodes or edges of
+     * <code>hgraph</code>, including meta edges. The caller holds the graph
+     * read lock.
+     * @param hgraph the graph to get the rows of
+     * @return the rows of the elements of <code>hgraph</code>
+     */
+    List<AttributeRowImpl> getRows(HierarchicalGraph hgraph) {
+        List<AttributeRowImpl> rows = new ArrayList<AttributeRowImpl>();
+        if (this == model.getNodeTable()) {
+            for (Node node : hgraph.getNodesTree()) {
+                addRow(rows, node.getNodeData().getAttributes());
+            }
+        } else if (this == model.getEdgeTable()) {
+            for (Edge edge : hgraph.getEdgesTree()) {
+                addRow(rows, edge.getEdgeData().getAttributes());
+            }
+            for (Edge edge : hgraph.getMetaEdges()) {
+                addRow(rows, edge.getEdgeData().getAttributes());
+            }
+        }
+        return rows;
+    }
+
+    private void addRow(List<AttributeRowImpl> rows, Attributes attributes) {
+        if (attributes instanceof AttributeRowImpl && ((AttributeRowImpl) attributes).attributeTable == this) {
+            rows.add((AttributeRowImpl) attributes);
+        }
+    }
+
+    private void removeIndex(AttributeColumnImpl column) {
+        AttributeIndexImpl index = column.valueIndex;
+        if (index != null) {
+            List<AttributeIndexImpl> newIndexes = new ArrayList<AttributeIndexImpl>(Arrays.asList(indexes));
+            newIndexes.remove(index);
+            indexes = newIndexes.toArray(new AttributeIndexImpl[0]);
+            column.valueIndex = null;
+        }
+    }
+
     public synchronized int getVersion() {
         return version;
     }
@@ -49,6 +49,7 @@ import org.gephi.data.attributes.api.AttributeTable;
 import org.gephi.data.attributes.api.AttributeType;
 import org.gephi.data.attributes.api.AttributeUtils;
 import org.gephi.data.attributes.type.NumberList;
+import org.gephi.graph.api.Graph;
 import org.openide.util.lookup.ServiceProvider;
 
 /**
@@ -250,6 +251,23 @@ public class AttributeUtilsImpl extends AttributeUtils {
         return false;
     }
 
+    @Override
+    public AttributeIndexImpl getIndex(AttributeColumn column, Graph graph) {
+        if (column == null || graph == null) {
+            throw new NullPointerException();
+        }
+        if (!isNumberColumn(column)) {
+            return null;
+        }
+        AttributeColumnImpl columnImpl = (AttributeColumnImpl) column;
+        AttributeTableImpl table = columnImpl.getTable();
+        if (table.getColumn(column.getIndex()) != column) {
+            //Removed or replaced column
+            return null;
+        }
+        return table.getIndex(columnImpl, graph);
+    }
+
     @Override
     public AttributeColumn[] getNumberColumns(AttributeTable table) {
         List<AttributeColumn> res = new ArrayList<AttributeColumn>();
@@ -0,0 +1,134 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.data.attributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.gephi.data.attributes.api.AttributeOrigin;
+import org.gephi.data.attributes.api.AttributeType;
+import org.gephi.data.attributes.model.TemporaryAttributeModel;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author agent
+ */
+public class AttributeIndexTest {
+
+    private AttributeTableImpl nodeTable;
+    private AttributeFactoryImpl factory;
+    private AttributeColumnImpl column;
+    private AttributeIndexImpl index;
+    private List<AttributeRowImpl> rows;
+
+    @Before
+    public void setUp() {
+        AbstractAttributeModel model = new TemporaryAttributeModel();
+        nodeTable = model.getNodeTable();
+        factory = new AttributeFactoryImpl(model);
+        column = nodeTable.addColumn("score", "Score", AttributeType.INT, AttributeOrigin.DATA, null);
+        rows = new ArrayList<AttributeRowImpl>();
+
+        //Values 9, 7, 5, 3, 1, 0, 2, 4, 6, 8 and a row without value
+        index = new AttributeIndexImpl(column);
+        column.valueIndex = index;
+        for (int i = 0; i < 11; i++) {
+            AttributeRowImpl row = factory.newNodeRow(null);
+            if (i < 10) {
+                row.setValue(column, i < 5 ? 9 - 2 * i : 2 * (i - 5));
+            }
+            index.addRow(row);
+            rows.add(row);
+        }
+    }
+
+    @Test
+    public void testMinMax() {
+        assertEquals(10, index.size());
+        assertEquals(0, index.getMinimumValue());
+        assertEquals(9, index.getMaximumValue());
+        assertEquals(0, index.getQuantile(0));
+        assertEquals(5, index.getQuantile(0.5));
+        assertEquals(9, index.getQuantile(1));
+    }
+
+    @Test
+    public void testRange() {
+        assertEquals(4, index.getObjects(2, 5).length);
+        assertEquals(1, index.getObjects(9, 100).length);
+        assertEquals(0, index.getObjects(-5, -1).length);
+        assertEquals(10, index.getObjects(0, 9).length);
+    }
+
+    @Test
+    public void testSetValue() {
+        assertEquals(10, index.size());
+        rows.get(0).setValue(column, -3);
+        rows.get(10).setValue(column, 12);
+        assertEquals(11, index.size());
+        assertEquals(-3, index.getMinimumValue());
+        assertEquals(12, index.getMaximumValue());
+
+        rows.get(10).setValue(column, null);
+        assertEquals(10, index.size());
+        assertEquals(8, index.getMaximumValue());
+    }
+
+    @Test
+    public void testNewRow() {
+        nodeTable.indexes = new AttributeIndexImpl[]{index};
+        AttributeRowImpl row = factory.newNodeRow(null);
+        row.setValue(column, 20);
+        assertEquals(11, index.size());
+        assertEquals(20, index.getMaximumValue());
+    }
+
+    @Test
+    public void testRemoveColumn() {
+        nodeTable.indexes = new AttributeIndexImpl[]{index};
+        nodeTable.removeColumn(column);
+        assertNull(column.getValueIndex());
+        assertEquals(0, nodeTable.indexes.length);
+    }
+}
@@ -42,11 +42,15 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.clustering.plugin.mcl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.gephi.clustering.api.Cluster;
 import org.gephi.clustering.spi.Clusterer;
 import org.gephi.graph.api.Edge;
@@ -59,7 +63,7 @@ import org.gephi.utils.progress.ProgressTicket;
 
 /**
  * MarkovClustering implements the Markov clustering (MCL) algorithm for graphs,
- * using a HashMap-based sparse representation of a Markov matrix, i.e., an
+ * using a compressed sparse row representation of a Markov matrix, i.e., an
  * adjacency matrix m that is normalised to one. Elements in a column / node can
  * be interpreted as decision probabilities of a random walker being at that
  * node. Note: whereas we explain the algorithms with columns, the actual
@@ -100,6 +104,11 @@ import org.gephi.utils.progress.ProgressTicket;
  * Description is based on the introduction of Stijn van Dongen's thesis Graph
  * Clustering by Flow Simulation (2000); for a mathematical treatment of the
  * algorithm and the associated MCL process, see there.
+ * <p>
+ * Each iteration computes the rows of the expanded matrix on several threads,
+ * with a dense accumulator per thread, and inflates and prunes every row before
+ * it is stored, so the full product is never materialised. Clusters are the
+ * connected components of the non-zero elements of the final matrix.
  */
 //Original author Gregor Heinrich
 public class MarkovClustering implements Clusterer, LongTask {
@@ -108,6 +117,7 @@ public class MarkovClustering implements Clusterer, LongTask {
     private double gammaExp = 2.0;
     private double loopGain = 0.;
     private double zeroMax = 0.001;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
     private Cluster[] clusters;
     //LongTask
     private ProgressTicket progressTicket;
@@ -118,32 +128,38 @@ public class MarkovClustering implements Clusterer, LongTask {
         Progress.start(progressTicket);
         Progress.setDisplayName(progressTicket, "MCL Clustering");
 
-        HashMap<Integer, Node> nodeMap = new HashMap<Integer, Node>();
-        HashMap<Node, Integer> intMap = new HashMap<Node, Integer>();
-
         Graph graph = graphModel.getGraphVisible();
         graph.readLock();
 
-        //Load matrix
-        SparseMatrix matrix = new SparseMatrix();
-        int nodeId = 0;
+        //Index nodes
+        Node[] nodes = graph.getNodes().toArray();
+        Map<Node, Integer> indices = new HashMap<Node, Integer>(nodes.length * 2);
+        for (int i = 0; i < nodes.length; i++) {
+            indices.put(nodes[i], i);
+        }
+
+        //Load matrix, undirected edges in both directions
+        int[] sources = new int[Math.max(16, graph.getEdgeCount())];
+        int[] targets = new int[sources.length];
+        double[] weights = new double[sources.length];
+        int count = 0;
         for (Edge e : graph.getEdges()) {
-            Node source = e.getSource();
-            Node target = e.getTarget();
-            Integer sourceId;
-            Integer targetId;
-            if ((sourceId = intMap.get(source)) == null) {
-                sourceId = nodeId++;
-                intMap.put(source, sourceId);
-                nodeMap.put(sourceId, source);
+            int source = indices.get(e.getSource());
+            int target = indices.get(e.getTarget());
+            int copies = e.isDirected() || source == target ? 1 : 2;
+            if (count + copies > sources.length) {
+                sources = Arrays.copyOf(sources, sources.length * 2);
+                targets = Arrays.copyOf(targets, sources.length);
+                weights = Arrays.copyOf(weights, sources.length);
             }
-            if ((targetId = intMap.get(target)) == null) {
-                targetId = nodeId++;
-                intMap.put(target, targetId);
-                nodeMap.put(targetId, target);
+            sources[count] = source;
+            targets[count] = target;
+            weights[count++] = e.getWeight();
+            if (copies == 2) {
+                sources[count] = target;
+                targets[count] = source;
+                weights[count++] = e.getWeight();
             }
-            double weight = e.getWeight();
-            matrix.add(sourceId, targetId, weight);
 
             if (cancelled) {
                 graph.readUnlockAll();
@@ -153,38 +169,27 @@ public class MarkovClustering implements Clusterer, LongTask {
 
         graph.readUnlock();
 
-        matrix = matrix.transpose();
+        //Transposed adjacency matrix, row i holds the edges towards i
+        SparseMatrix matrix = new SparseMatrix(nodes.length, targets, sources, weights, count);
         matrix = run(matrix, maxResidual, gammaExp, loopGain, zeroMax);
 
         if (cancelled) {
             return;
         }
 
-        Map<Integer, ArrayList<Integer>> map = getClusters(matrix);
+        int[][] components = getClusters(matrix);
 
         if (cancelled) {
             return;
         }
 
-        int clusterNumber = 1;
         List<Cluster> clustersList = new ArrayList<Cluster>();
-        Set<ArrayList<Integer>> sortedClusters = new HashSet<ArrayList<Integer>>();
-        for (ArrayList<Integer> c : map.values()) {
-            if (!sortedClusters.contains(c)) {
-                sortedClusters.add(c);
-                Node[] nodes = new Node[c.size()];
-                int i = 0;
-                for (Integer in : c) {
-                    Node node = nodeMap.get(in);
-                    nodes[i] = node;
-                    i++;
-                }
-                clustersList.add(new MCLCluster(nodes, clusterNumber));
-                clusterNumber++;
-            }
-            if (cancelled) {
-                return;
+        for (int[] c : components) {
+            Node[] clusterNodes = new Node[c.length];
+            for (int i = 0; i < c.length; i++) {
+                clusterNodes[i] = nodes[c[i]];
             }
+            clustersList.add(new MCLCluster(clusterNodes, clustersList.size() + 1));
         }
         clusters = clustersList.toArray(new Cluster[0]);
 
@@ -249,101 +254,220 @@ public class MarkovClustering implements Clusterer, LongTask {
      */
     public SparseMatrix run(SparseMatrix a, double maxResidual, double pGamma, double loopGain, double maxZero) {
 
-        //System.out.println("original matrix\n" + a.transpose().toStringDense());
-
         // add cycles
-        addLoops(a, loopGain);
+        if (loopGain > 0) {
+            a = a.addDiagonal(loopGain);
+        }
 
         // make stochastic
         a.normaliseRows();
-        //System.out.println("normalised\n" + a.transpose().toStringDense());
-
-        double residual = 1.;
-        int i = 0;
 
         if (cancelled) {
             return a;
         }
 
-        // main iteration
-        while (residual > maxResidual) {
-            i++;
-            a = expand(a);
-            residual = inflate(a, pGamma, maxZero);
-            System.out.println("residual energy = " + residual);
-            if (cancelled) {
-                return a;
+        int threads = Math.max(1, Math.min(threadCount, a.size()));
+        MCLChunk[] chunks = new MCLChunk[threads];
+        for (int i = 0; i < threads; i++) {
+            chunks[i] = new MCLChunk(a.size());
+        }
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try {
+            // main iteration
+            double residual = 1.;
+            while (residual > maxResidual) {
+                a = iterate(a, pGamma, maxZero, pool, chunks);
+                residual = 0.;
+                for (MCLChunk chunk : chunks) {
+                    residual = Math.max(residual, chunk.residual);
+                }
+                if (cancelled) {
+                    return a;
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
             }
         }
         return a;
     }
 
     /**
-     * inflate stochastic matrix by Hadamard (elementwise) exponentiation,
-     * pruning and normalisation :
+     * expand the stochastic matrix by squaring it, then inflate each row of the
+     * result by Hadamard (elementwise) exponentiation, pruning and
+     * normalisation:
      * <p>
-     * result = Gamma ( m, p ) = normalise ( prune ( m .^ p ) ).
+     * result = Gamma ( m * m, p ) = normalise ( prune ( (m * m) .^ p ) ).
      * <p>
-     * By convention, normalisation is done along rows (SparseMatrix has
-     * row-major representation)
+     * Rows are split in contiguous ranges of about the same multiplication cost,
+     * one per chunk. By convention, normalisation is done along rows.
      *
-     * @param m matrix (mutable)
+     * @param m stochastic matrix
      * @param p exponent as a double
      * @param zeromax below which elements are pruned from the sparse matrix
-     * @return residuum value, m is modified.
+     * @return new matrix, residuum values are left in the chunks
      */
-    public double inflate(SparseMatrix m, double p, double zeromax) {
-        double res = 0.;
-
-        // matlab: m = m .^ p
-        m.hadamardPower(p);
-        // matlab: m(find(m < threshold)) = 0
-        m.prune(zeromax);
-        // matlab [for cols]: dinv = diag(1./sum(m)); m = m * dinv; return
-        // sum(m)
-        SparseVector rowsums = m.normalise(1.);
-
-        // check if done: if the maximum element
-        for (int i : rowsums.keySet()) {
-            SparseVector row = m.get(i);
-            double max = row.max();
-            double sumsq = row.sum(2.);
-            res = Math.max(res, max - sumsq);
-            if (cancelled) {
-                return res;
+    private SparseMatrix iterate(SparseMatrix m, double p, double zeromax, ExecutorService pool, MCLChunk[] chunks) {
+        int size = m.size();
+        int[] rowPointers = m.getRowPointers();
+        int[] columns = m.getColumns();
+
+        //Cost of each row, the number of products it sums
+        long totalWork = 0;
+        long[] work = new long[size + 1];
+        for (int i = 0; i < size; i++) {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                totalWork += rowPointers[columns[k] + 1] - rowPointers[columns[k]] + 1;
+            }
+            work[i + 1] = totalWork;
+        }
+        int from = 0;
+        int[] rowCounts = new int[size];
+        for (int c = 0; c < chunks.length; c++) {
+            int to = from;
+            long limit = totalWork * (c + 1) / chunks.length;
+            while (to < size && (work[to + 1] <= limit || c == chunks.length - 1)) {
+                to++;
             }
+            chunks[c].setRange(m, from, to, p, zeromax, rowCounts);
+            from = to;
         }
-        return res;
+        run(pool, chunks);
+
+        //Assemble the rows of all chunks
+        int[] pointers = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            pointers[i + 1] = pointers[i] + rowCounts[i];
+        }
+        int[] resultColumns = new int[pointers[size]];
+        double[] resultValues = new double[pointers[size]];
+        for (MCLChunk chunk : chunks) {
+            System.arraycopy(chunk.columns, 0, resultColumns, pointers[chunk.from], chunk.count);
+            System.arraycopy(chunk.values, 0, resultValues, pointers[chunk.from], chunk.count);
+        }
+        return new SparseMatrix(size, pointers, resultColumns, resultValues);
     }
 
-    /**
-     * expand stochastic quadratic matrix by sqaring it with itself: result = m *
-     * m. Here normalisation is rowwise.
-     *
-     * @param matrix
-     * @return new matrix (pointer != argument)
-     */
-    public SparseMatrix expand(SparseMatrix m) {
-        m = m.times(m);
-        return m;
+    private void run(ExecutorService pool, MCLChunk[] chunks) {
+        if (pool == null) {
+            for (MCLChunk chunk : chunks) {
+                chunk.call();
+            }
+            return;
+        }
+        try {
+            List<Future<Object>> futures = pool.invokeAll(Arrays.asList(chunks));
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            cancelled = true;
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        }
     }
 
     /**
-     * add loops with specific energy, which corresponds to adding loopGain to
-     * the diagonal elements.
-     *
-     * @param a
-     * @param loopGain
+     * Expansion and inflation of a contiguous range of rows. Each row of the
+     * product is accumulated in a dense array, then inflated and appended to
+     * the chunk's buffers.
      */
-    private void addLoops(SparseMatrix a, double loopGain) {
-        if (loopGain <= 0) {
-            return;
+    private class MCLChunk implements Callable<Object> {
+
+        //Dense accumulator
+        private final double[] accumulator;
+        private final boolean[] used;
+        private final int[] touched;
+        //Range
+        private SparseMatrix matrix;
+        private int from;
+        private int to;
+        private double p;
+        private double zeromax;
+        private int[] rowCounts;
+        //Results
+        private int[] columns = new int[16];
+        private double[] values = new double[16];
+        private int count;
+        private double residual;
+
+        public MCLChunk(int size) {
+            accumulator = new double[size];
+            used = new boolean[size];
+            touched = new int[size];
         }
-        for (int i = 0; i < a.size(); i++) {
-            a.add(i, i, loopGain);
-            if (cancelled) {
-                return;
+
+        public void setRange(SparseMatrix matrix, int from, int to, double p, double zeromax, int[] rowCounts) {
+            this.matrix = matrix;
+            this.from = from;
+            this.to = to;
+            this.p = p;
+            this.zeromax = zeromax;
+            this.rowCounts = rowCounts;
+        }
+
+        public Object call() {
+            int[] rowPointers = matrix.getRowPointers();
+            int[] cols = matrix.getColumns();
+            double[] vals = matrix.getValues();
+            count = 0;
+            residual = 0.;
+            for (int i = from; i < to && !cancelled; i++) {
+                // expansion: row i of m * m
+                int n = 0;
+                for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                    int row = cols[k];
+                    double a = vals[k];
+                    for (int l = rowPointers[row]; l < rowPointers[row + 1]; l++) {
+                        int j = cols[l];
+                        if (used[j]) {
+                            accumulator[j] += a * vals[l];
+                        } else {
+                            used[j] = true;
+                            touched[n++] = j;
+                            accumulator[j] = a * vals[l];
+                        }
+                    }
+                }
+
+                // inflation: m .^ p, pruned below zeromax
+                int kept = 0;
+                double sum = 0.;
+                for (int t = 0; t < n; t++) {
+                    int j = touched[t];
+                    used[j] = false;
+                    double x = p == 2. ? accumulator[j] * accumulator[j] : Math.pow(accumulator[j], p);
+                    if (Math.abs(x) >= zeromax) {
+                        accumulator[j] = x;
+                        touched[kept++] = j;
+                        sum += x;
+                    }
+                }
+                Arrays.sort(touched, 0, kept);
+
+                // normalisation, and residual: maximum element minus square sum
+                if (count + kept > columns.length) {
+                    int capacity = Math.max(columns.length * 2, count + kept);
+                    columns = Arrays.copyOf(columns, capacity);
+                    values = Arrays.copyOf(values, capacity);
+                }
+                double max = 0.;
+                double sumsq = 0.;
+                for (int t = 0; t < kept; t++) {
+                    int j = touched[t];
+                    double x = accumulator[j] / sum;
+                    columns[count] = j;
+                    values[count++] = x;
+                    max = Math.max(max, x);
+                    sumsq += x * x;
+                }
+                if (kept > 0) {
+                    residual = Math.max(residual, max - sumsq);
+                }
+                rowCounts[i] = kept;
             }
+            return null;
         }
     }
 
@@ -391,64 +515,91 @@ public class MarkovClustering implements Clusterer, LongTask {
         this.zeroMax = zeroMax;
     }
 
-    private Map<Integer, ArrayList<Integer>> getClusters(SparseMatrix matrix) {
-
-        Map<Integer, ArrayList<Integer>> clusters = new HashMap<Integer, ArrayList<Integer>>();
-        int clusterCount = 0;
+    /**
+     * Sets the number of threads expansion and inflation are split on. Default
+     * is the number of available processors.
+     * @param threadCount the number of threads, <code>1</code> for a serial computation
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
 
-        double[][] mat = matrix.getDense();
-        for (int i = 0; i < mat.length; i++) {
-            for (int j = 0; j < mat[0].length; j++) {
-                double value = mat[i][j];
-                if (value != 0.0) {
-                    if (i == j) {
-                        continue;
-                    }
+    public int getThreadCount() {
+        return threadCount;
+    }
 
-                    if (clusters.containsKey(j)) {
-                        // Already seen "column" -- get the cluster and add column
-                        ArrayList<Integer> columnCluster = clusters.get(j);
-                        if (clusters.containsKey(i)) {
-                            // We've already seen row also -- join them
-                            ArrayList<Integer> rowCluster = clusters.get(i);
-                            if (rowCluster == columnCluster) {
-                                continue;
-                            }
-                            columnCluster.addAll(rowCluster);
-                            clusterCount--;
-                        } else {
-                            // debugln("Adding "+row+" to "+columnCluster.getClusterNumber());
-                            columnCluster.add(i);
-                        }
-                        for (Integer in : columnCluster) {
-                            clusters.put(in, columnCluster);
-                        }
-                    } else {
-                        ArrayList<Integer> rowCluster;
-                        // First time we've seen "column" -- have we already seen "row"
-                        if (clusters.containsKey(i)) {
-                            // Yes, just add column to row's cluster
-                            rowCluster = clusters.get(i);
-                            // debugln("Adding "+column+" to "+rowCluster.getClusterNumber());
-                            rowCluster.add(j);
-                        } else {
-                            rowCluster = new ArrayList<Integer>();
-                            clusterCount++;
-                            // debugln("Created new cluster "+rowCluster.getClusterNumber()+" with "+row+" and "+column);
-                            rowCluster.add(j);
-                            rowCluster.add(i);
-                        }
-                        for (Integer in : rowCluster) {
-                            clusters.put(in, rowCluster);
-                        }
+    /**
+     * Returns the connected components of the non-zero, non-diagonal elements
+     * of the matrix, each as sorted node indices. Nodes which are only attracted
+     * by themselves don't belong to any cluster. Components are ordered by their
+     * smallest node index.
+     */
+    private int[][] getClusters(SparseMatrix matrix) {
+        int size = matrix.size();
+        int[] rowPointers = matrix.getRowPointers();
+        int[] columns = matrix.getColumns();
+
+        //Union-find on the attractor structure
+        int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+        }
+        boolean[] linked = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                int j = columns[k];
+                if (i != j) {
+                    linked[i] = linked[j] = true;
+                    int ri = find(parents, i);
+                    int rj = find(parents, j);
+                    if (ri != rj) {
+                        parents[Math.max(ri, rj)] = Math.min(ri, rj);
                     }
                 }
-                if (cancelled) {
-                    return clusters;
+            }
+            if (cancelled) {
+                return new int[0][];
+            }
+        }
+
+        //Group by root, roots being the smallest index of their component
+        int[] sizes = new int[size];
+        int componentCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (linked[i]) {
+                int root = find(parents, i);
+                if (sizes[root]++ == 0) {
+                    componentCount++;
                 }
             }
         }
+        int[][] components = new int[componentCount][];
+        int[] componentIndex = new int[size];
+        int c = 0;
+        for (int i = 0; i < size; i++) {
+            if (linked[i] && parents[i] == i) {
+                componentIndex[i] = c;
+                components[c++] = new int[sizes[i]];
+                sizes[i] = 0;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (linked[i]) {
+                int root = find(parents, i);
+                components[componentIndex[root]][sizes[root]++] = i;
+            }
+        }
+        return components;
+    }
 
-        return clusters;
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
     }
 }
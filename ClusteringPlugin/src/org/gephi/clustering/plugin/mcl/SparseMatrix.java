@@ -41,394 +41,236 @@ Portions Copyrighted 2011 Gephi Consortium.
 */
 package org.gephi.clustering.plugin.mcl;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 
 /**
- * SparseMatrix is a sparse matrix with row-major format.
+ * Square sparse matrix of doubles in compressed sparse row (CSR) format.
  * <p>
- * Conventions: except for the inherited methods and normalise(double),
- * operations leave <tt>this</tt> ummodified (immutable) if there is a return
- * value. Within operations, no pruning of values close to zero is done. Pruning
- * can be controlled via the prune() method.
+ * Non-zero elements are stored row after row in two primitive arrays, their
+ * column and their value, columns being sorted within a row. The row pointers
+ * array gives the position of the first element of each row, the last pointer
+ * being the number of non-zero elements. The transpose of a matrix in this
+ * format is its compressed sparse column (CSC) representation.
+ *
+ * @author Mathieu Bastian
  */
-//Original author Gregor Heinrich
-public class SparseMatrix extends ArrayList<SparseVector> {
+public class SparseMatrix {
 
-    private static final long serialVersionUID = 1L;
-    private int maxVLength;
+    private final int size;
+    private final int[] rowPointers;
+    private final int[] columns;
+    private final double[] values;
 
     /**
-     * empty sparse matrix
-     */
-    public SparseMatrix() {
-        super();
-    }
-
-    /**
-     * empty sparse matrix with allocated number of rows
-     *
-     * @param rows
-     * @param cols
-     */
-    public SparseMatrix(int rows, int cols) {
-        this();
-        adjustMaxIndex(rows - 1, cols - 1);
-    }
-
-    /**
-     * create sparse matrix from full matrix
-     *
-     * @param x
-     */
-    public SparseMatrix(double[][] x) {
-        this(x.length - 1, x[0].length - 1);
-        for (int i = 0; i < x.length; i++) {
-            SparseVector v = new SparseVector(x[i]);
-            set(i, v);
-        }
-    }
-
-    /**
-     * copy contructor
+     * Creates a matrix from its CSR arrays, which are not copied.
      *
-     * @param matrix
+     * @param size the number of rows and columns
+     * @param rowPointers the position of the first element of each row, of
+     * length <code>size + 1</code>
+     * @param columns the column of each element, sorted within rows
+     * @param values the value of each element
      */
-    public SparseMatrix(SparseMatrix matrix) {
-        for (SparseVector s : matrix) {
-            add(s.copy());
+    public SparseMatrix(int size, int[] rowPointers, int[] columns, double[] values) {
+        if (rowPointers.length != size + 1) {
+            throw new IllegalArgumentException("Row pointers must have size + 1 elements");
         }
+        this.size = size;
+        this.rowPointers = rowPointers;
+        this.columns = columns;
+        this.values = values;
     }
 
     /**
-     * create dense representation
+     * Creates a matrix from the first <code>count</code> elements given as
+     * (row, column, value) triplets, in any order. Values of duplicate
+     * elements are summed.
      *
-     * @return
+     * @param size the number of rows and columns
+     * @param rows the row of each element
+     * @param columns the column of each element
+     * @param values the value of each element
+     * @param count the number of elements to read
      */
-    public double[][] getDense() {
-        double[][] aa = new double[size()][];
-        for (int i = 0; i < size(); i++) {
-            aa[i] = new double[maxVLength];
-            for (int j : get(i).keySet()) {
-                aa[i][j] = get(i).get(j);
+    public SparseMatrix(int size, int[] rows, int[] columns, double[] values, int count) {
+        this.size = size;
+
+        //Bucket by column then stable bucket by row, so columns are sorted within rows
+        int[] byColumn = bucket(size, columns, identity(count), count);
+        int[] order = bucket(size, rows, byColumn, count);
+
+        //Merge duplicates
+        int[] pointers = new int[size + 1];
+        int[] cols = new int[count];
+        double[] vals = new double[count];
+        int nnz = 0;
+        int row = 0;
+        for (int k = 0; k < count; k++) {
+            int e = order[k];
+            while (row < rows[e]) {
+                pointers[++row] = nnz;
+            }
+            if (nnz > pointers[row] && cols[nnz - 1] == columns[e]) {
+                vals[nnz - 1] += values[e];
+            } else {
+                cols[nnz] = columns[e];
+                vals[nnz] = values[e];
+                nnz++;
             }
         }
-        return aa;
-    }
-
-    /**
-     * set the sparse vector at index i.
-     *
-     * @param i
-     * @param x
-     * @return the old value of the element
-     */
-    public SparseVector set(int i, SparseVector x) {
-        adjustMaxIndex(i, x.getLength() - 1);
-        return super.set(i, x);
-    }
-
-    /**
-     * get number at index or 0. if not set. If index > size, returns 0.
-     *
-     * @param i
-     * @param j
-     * @return
-     */
-    public double get(int i, int j) {
-        if (i > size() - 1) {
-            return 0.;
+        while (row < size) {
+            pointers[++row] = nnz;
         }
-        return get(i).get(j);
+        this.rowPointers = pointers;
+        this.columns = nnz == count ? cols : Arrays.copyOf(cols, nnz);
+        this.values = nnz == count ? vals : Arrays.copyOf(vals, nnz);
     }
 
-    /**
-     * set the value at the index i,j, returning the old value or 0. Increase
-     * matrix size if index exceeds the dimension.
-     *
-     * @param i
-     * @param j
-     * @param a
-     * @return
-     */
-    public double set(int i, int j, double a) {
-        adjustMaxIndex(i, j);
-        double b = get(i).get(j);
-        get(i).put(j, a);
-        return b;
+    private static int[] identity(int count) {
+        int[] identity = new int[count];
+        for (int i = 0; i < count; i++) {
+            identity[i] = i;
+        }
+        return identity;
     }
 
     /**
-     * adjusts the size of the matrix.
-     *
-     * @param i index addressed
-     * @param j index addressed
+     * Counting sort of <code>order</code> by <code>keys[order[k]]</code>,
+     * keeping the current order for equal keys.
      */
-    public void adjustMaxIndex(int i, int j) {
-        if (i > size() - 1) {
-            increase(i);
+    private static int[] bucket(int size, int[] keys, int[] order, int count) {
+        int[] offsets = new int[size + 1];
+        for (int k = 0; k < count; k++) {
+            offsets[keys[order[k]] + 1]++;
         }
-        if (j >= maxVLength) {
-            maxVLength = j + 1;
-            for (int row = 0; row < size(); row++) {
-                get(row).setLength(maxVLength);
-            }
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] += offsets[i];
         }
+        int[] sorted = new int[count];
+        for (int k = 0; k < count; k++) {
+            sorted[offsets[keys[order[k]]]++] = order[k];
+        }
+        return sorted;
     }
 
     /**
-     * increase the size of the matrix with empty element SparseVectors.
-     *
-     * @param i
-     */
-    private void increase(int i) {
-        addAll(Collections.nCopies(i - size() + 1, new SparseVector()));
-    }
-
-    /**
-     * get the size of the matrix
-     *
-     * @return
+     * Returns the number of rows, which is also the number of columns.
      */
-    public int[] getSize() {
-        return new int[]{size(), maxVLength};
-
+    public int size() {
+        return size;
     }
 
     /**
-     * adds a to the specified element, growing the matrix if necessary.
-     *
-     * @param i
-     * @param j
-     * @param a
-     * @return new value
+     * Returns the number of elements stored in the matrix.
      */
-    public double add(int i, int j, double a) {
-        adjustMaxIndex(i, j);
-        double b = get(i, j);
-        a += b;
-        set(i, j, a);
-        return a;
+    public int getNonZeroCount() {
+        return rowPointers[size];
     }
 
-    /**
-     * normalise rows to rowsum
-     *
-     * @param rowsum for each row
-     * @return vector of old row sums
-     */
-    public SparseVector normalise(double rowsum) {
-        SparseVector sums = new SparseVector();
-        int i = 0;
-        for (SparseVector vec : this) {
-            sums.put(i, vec.normalise(rowsum));
-            i++;
-        }
-        return sums;
+    public double get(int i, int j) {
+        int index = Arrays.binarySearch(columns, rowPointers[i], rowPointers[i + 1], j);
+        return index >= 0 ? values[index] : 0.;
     }
 
-    /**
-     * normalise by major dimension (rows)
-     */
-    public void normaliseRows() {
-        for (SparseVector vec : this) {
-            vec.normalise();
-        }
+    int[] getRowPointers() {
+        return rowPointers;
     }
 
-    /**
-     * normalise by minor dimension (columns), expensive.
-     */
-    public void normaliseCols() {
-        double[] sums = new double[maxVLength];
-        for (int row = 0; row < size(); row++) {
-            for (int col = 0; col < get(row).getLength(); col++) {
-                sums[col] += get(row).get(col);
-            }
-        }
-        for (int row = 0; row < size(); row++) {
-            for (int col = 0; col < get(row).getLength(); col++) {
-                get(row).mult(col, 1 / sums[col]);
-            }
-        }
+    int[] getColumns() {
+        return columns;
     }
 
-    /**
-     * copy the matrix and its elements
-     */
-    public SparseMatrix copy() {
-        return new SparseMatrix(this);
+    double[] getValues() {
+        return values;
     }
 
     /**
-     * immutable multiply this times the vector: A * x, i.e., rowwise.
-     *
-     * @param v
-     * @return
+     * Returns the transpose of this matrix, in <i>O</i>(size + non-zero)
+     * time.
      */
-    public SparseVector times(SparseVector v) {
-        SparseVector w = new SparseVector();
-        for (int i = 0; i < size(); i++) {
-            w.add(i, get(i).times(v));
+    public SparseMatrix transpose() {
+        int nnz = getNonZeroCount();
+        int[] pointers = new int[size + 1];
+        for (int k = 0; k < nnz; k++) {
+            pointers[columns[k] + 1]++;
         }
-        return w;
-    }
-
-    /**
-     * immutable multiply the vector times this: x' * A, i.e., colwise.
-     *
-     * @param v
-     * @return
-     */
-    public SparseVector vectorTimes(SparseVector v) {
-        SparseVector w = new SparseVector();
-        // only the rows in A that v is nonzero
-        for (int i : v.keySet()) {
-            SparseVector a = get(i).copy();
-            a.factor(v.get(i));
-            w.add(a);
+        for (int i = 0; i < size; i++) {
+            pointers[i + 1] += pointers[i];
         }
-        return w;
-    }
-
-    /**
-     * mutable multiply this matrix (A) with M : A * M'
-     *
-     * @param m
-     * @return modified this
-     */
-    public SparseMatrix timesTransposed(SparseMatrix m) {
-        // A*M = ;( A(i,:) * M )
-        for (int i = 0; i < size(); i++) {
-            set(i, m.times(get(i)));
+        int[] next = Arrays.copyOf(pointers, size);
+        int[] cols = new int[nnz];
+        double[] vals = new double[nnz];
+        for (int i = 0; i < size; i++) {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                int position = next[columns[k]]++;
+                cols[position] = i;
+                vals[position] = values[k];
+            }
         }
-        return this;
+        return new SparseMatrix(size, pointers, cols, vals);
     }
 
     /**
-     * immutable multiply this matrix (A) with M : A * M
-     *
-     * @param m
-     * @return matrix product
+     * Returns a copy of this matrix with <code>value</code> added to all
+     * diagonal elements.
      */
-    public SparseMatrix times(SparseMatrix m) {
-        SparseMatrix s = new SparseMatrix();
-        for (int i = 0; i < size(); i++) {
-            for (int j = 0; j < m.size(); j++) {
-                for (int k : get(i).keySet()) {
-                    double a = m.get(k, j);
-                    if (a != 0.) {
-                        s.add(i, j, get(i, k) * a);
+    public SparseMatrix addDiagonal(double value) {
+        int[] pointers = new int[size + 1];
+        int[] cols = new int[getNonZeroCount() + size];
+        double[] vals = new double[cols.length];
+        int nnz = 0;
+        for (int i = 0; i < size; i++) {
+            boolean added = false;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                if (!added && columns[k] >= i) {
+                    if (columns[k] == i) {
+                        cols[nnz] = i;
+                        vals[nnz++] = values[k] + value;
+                        added = true;
+                        continue;
                     }
+                    cols[nnz] = i;
+                    vals[nnz++] = value;
+                    added = true;
                 }
+                cols[nnz] = columns[k];
+                vals[nnz++] = values[k];
             }
-        }
-        return s;
-    }
-
-    /**
-     * immutable multiply matrix M with this (A) : M * A
-     *
-     * @param m
-     * @return
-     */
-    public SparseMatrix matrixTimes(SparseMatrix m) {
-        return m.times(this);
-    }
-
-    /**
-     * immutable transpose.
-     *
-     * @return
-     */
-    public SparseMatrix transpose() {
-        SparseMatrix s = new SparseMatrix();
-        for (int i = 0; i < size(); i++) {
-            s.set(i, getColum(i));
-        }
-        return s;
-    }
-
-    /**
-     * get a column of the sparse matrix (expensive).
-     *
-     * @return
-     */
-    public SparseVector getColum(int i) {
-        SparseVector s = new SparseVector();
-        for (int row = 0; row < size(); row++) {
-            double v = get(row, i);
-            if (v != 0.) {
-                s.put(row, v);
+            if (!added) {
+                cols[nnz] = i;
+                vals[nnz++] = value;
             }
+            pointers[i + 1] = nnz;
         }
-        return s;
-    }
-
-    /**
-     * mutable Hadamard product
-     *
-     * @param m
-     */
-    public void hadamardProduct(SparseMatrix m) {
-        for (int i = 0; i < size(); i++) {
-            get(i).hadamardProduct(m.get(i));
-        }
+        return new SparseMatrix(size, pointers, Arrays.copyOf(cols, nnz), Arrays.copyOf(vals, nnz));
     }
 
     /**
-     * mutable m2 = m .^ s
-     *
-     * @param s
-     * @return
+     * Normalises each non-empty row so that its elements sum to one.
      */
-    public void hadamardPower(double s) {
-        for (int i = 0; i < size(); i++) {
-            get(i).hadamardPower(s);
+    public void normaliseRows() {
+        for (int i = 0; i < size; i++) {
+            double sum = 0.;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                sum += values[k];
+            }
+            if (sum != 0.) {
+                for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                    values[k] /= sum;
+                }
+            }
         }
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see java.lang.Object#toString()
-     */
     @Override
     public String toString() {
-        StringBuffer sb = new StringBuffer();
-        for (int i = 0; i < size(); i++) {
-            sb.append(i).append(" => ").append(get(i)).append("\n");
-        }
-        return sb.toString();
-    }
-
-    /**
-     * prints a dense representation
-     *
-     * @return
-     */
-    public String toStringDense() {
-        double[][] dense = getDense();
-        StringBuffer b = new StringBuffer();
-        for (int i = 0; i < dense.length - 1; i++) {
-            for (int j = 0; j < dense[i].length; j++) {
-                b.append(Double.toString(dense[i][j])).append(" ");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            sb.append(i).append(" => ");
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                sb.append(columns[k]).append("->").append(values[k]).append(", ");
             }
-            b.append("\n");
-        }
-        return b.toString();
-    }
-
-    /**
-     * prune all values whose magnitude is below threshold
-     */
-    public void prune(double threshold) {
-        // for (SparseVector v : this) {
-        for (int i = 0; i < size(); i++) {
-            SparseVector a = get(i);
-            a.prune(threshold);
+            sb.append("\n");
         }
-
+        return sb.toString();
     }
 }
-
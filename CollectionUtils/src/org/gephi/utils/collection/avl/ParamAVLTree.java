@@ -265,6 +265,43 @@ public class ParamAVLTree<Item> implements Iterable<Item> {
         return true;
     }
 
+    /**
+     * Adds <code>length</code> items of <code>items</code>, starting at
+     * <code>offset</code>. Items must be sorted by strictly increasing number.
+     * If the tree is empty, the balanced tree is built directly in linear time,
+     * otherwise items are added one by one.
+     * @param items the sorted items to add
+     * @param offset the index of the first item to add
+     * @param length the number of items to add
+     */
+    public void addAll(Item[] items, int offset, int length) {
+        if (root != null) {
+            for (int i = offset; i < offset + length; i++) {
+                add(items[i]);
+            }
+            return;
+        }
+        root = build(items, offset, offset + length, null);
+        count = length;
+    }
+
+    private ParamAVLNode<Item> build(Item[] items, int from, int to, ParamAVLNode<Item> parent) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        ParamAVLNode<Item> node = new ParamAVLNode<Item>(items[mid], parent);
+        node.left = build(items, from, mid, node);
+        node.right = build(items, mid + 1, to, node);
+        //The left subtree is never smaller than the right one
+        node.balance = height(to - mid - 1) - height(mid - from);
+        return node;
+    }
+
+    private static int height(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+
     public boolean remove(Item item) {
         ParamAVLNode<Item> p = this.root;
 
@@ -41,6 +41,7 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.core;
 
+import java.util.BitSet;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.gephi.data.attributes.api.AttributeController;
 import org.gephi.data.attributes.api.AttributeModel;
@@ -92,11 +93,12 @@ public class Dhns implements GraphModel {
     private final SettingsManager settingsManager;
     private final GraphFactoryImpl factory;
     private final DuplicateManager duplicateManager;
+    private final AttributeModel attributeModel;
     //Type
     private boolean directed = false;
     private boolean undirected = false;
     private boolean mixed = false;
-    //Locking
+    //Locking, a single lock for all views. Long readers should work on adjacency snapshots
     private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
     public Dhns(DhnsGraphController controller, Workspace workspace) {
@@ -112,12 +114,14 @@ public class Dhns implements GraphModel {
 
         //AttributeFactory
         AttributeRowFactory attributeRowFactory = null;
+        AttributeModel model = null;
         if (workspace != null) {
-            AttributeModel attributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel(workspace);
-            if (attributeModel != null) {
-                attributeRowFactory = attributeModel.rowFactory();
+            model = Lookup.getDefault().lookup(AttributeController.class).getModel(workspace);
+            if (model != null) {
+                attributeRowFactory = model.rowFactory();
             }
         }
+        attributeModel = model;
         factory = new GraphFactoryImpl(controller.getIDGen(), attributeRowFactory);
 
         init();
@@ -138,6 +142,15 @@ public class Dhns implements GraphModel {
         return graphVersion;
     }
 
+    /**
+     * Returns the value version of the attribute model, which changes with
+     * edge weights, or zero if there is no attribute model.
+     * @return the attribute value version
+     */
+    public int getValueVersion() {
+        return attributeModel != null ? attributeModel.getValueVersion() : 0;
+    }
+
     public EventManager getEventManager() {
         return eventManager;
     }
@@ -506,6 +519,10 @@ public class Dhns implements GraphModel {
         return graphStructure.copyView((GraphViewImpl) view);
     }
 
+    public GraphView copyView(GraphView view, BitSet nodes, BitSet edges) {
+        return graphStructure.copyView((GraphViewImpl) view, nodes, edges);
+    }
+
     public void destroyView(GraphView view) {
         graphStructure.destroyView((GraphViewImpl) view);
     }
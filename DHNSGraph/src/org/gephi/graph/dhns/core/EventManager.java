@@ -53,6 +53,7 @@ import org.gephi.graph.api.GraphListener;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.dhns.event.AbstractEvent;
+import org.gephi.graph.dhns.event.BatchEvent;
 import org.gephi.graph.dhns.event.EdgeEvent;
 import org.gephi.graph.dhns.event.GeneralEvent;
 import org.gephi.graph.dhns.event.GraphEventDataImpl;
@@ -105,7 +106,7 @@ public class EventManager implements Runnable {
             AbstractEvent evt = null;
             while ((evt = eventQueue.peek()) != null) {
                 if (precEvt != null) {
-                    if ((evt instanceof NodeEvent || evt instanceof EdgeEvent) && precEvt.getEventType().equals(evt.getEventType()) && precEvt.getView() == evt.getView()) {     //Same type
+                    if ((evt instanceof NodeEvent || evt instanceof EdgeEvent) && (precEvt instanceof NodeEvent || precEvt instanceof EdgeEvent) && precEvt.getEventType().equals(evt.getEventType()) && precEvt.getView() == evt.getView()) {     //Same type
                         if (eventCompress == null) {
                             eventCompress = new ArrayList<Object>();
                             eventCompress.add(precEvt.getData());
@@ -140,6 +141,9 @@ public class EventManager implements Runnable {
     }
 
     private GraphEvent createEvent(AbstractEvent event, List<Object> compress) {
+        if (event instanceof BatchEvent) {
+            return new GraphEventImpl(event.getView(), event.getEventType(), (GraphEventDataImpl) event.getData());
+        }
         final GraphEventDataImpl eventData = (event instanceof GeneralEvent) ? null : new GraphEventDataImpl();
         final GraphEventImpl graphEventImpl = new GraphEventImpl(event.getView(), event.getEventType(), eventData);
         if (event instanceof NodeEvent || event instanceof EdgeEvent) {
@@ -44,6 +44,7 @@ package org.gephi.graph.dhns.core;
 import gnu.trove.TIntObjectHashMap;
 import gnu.trove.TObjectIntHashMap;
 import java.lang.ref.WeakReference;
+import java.util.BitSet;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -150,6 +151,95 @@ public class GraphStructure {
         return viewCopy;
     }
 
+    /**
+     * Copies the nodes and edges of <code>view</code> whose ids are set in
+     * <code>nodes</code> and <code>edges</code>. Descendants of a node that is
+     * not copied are not copied, nor edges with a node not copied. Only copied
+     * elements are visited, and degrees and counts are computed as edges are
+     * added, so it is cheaper than copying the view and removing elements.
+     * @param nodes node ids to copy, or <code>null</code> to copy all nodes
+     * @param edges edge ids to copy, or <code>null</code> to copy all edges
+     * between copied nodes
+     */
+    public GraphViewImpl copyView(GraphViewImpl view, BitSet nodes, BitSet edges) {
+        GraphViewImpl viewCopy = new GraphViewImpl(dhns, viewId.getAndIncrement());
+        TreeStructure newStructure = viewCopy.getStructure();
+        int newViewId = viewCopy.getViewId();
+        dhns.writeLock();
+        try {
+            int nodesEnabled = 0;
+            for (TreeListIterator itr = new TreeListIterator(view.getStructure().getTree(), 1); itr.hasNext();) {
+                AbstractNode node = itr.next();
+                if (nodes != null && !nodes.get(node.getId())) {
+                    continue;
+                }
+                AbstractNode parentCopy = null;
+                if (node.parent != null) {
+                    parentCopy = node.parent.getPre() == 0 ? newStructure.getRoot() : (AbstractNode) node.parent.getNodeData().getNode(newViewId);
+                    if (parentCopy == null) {
+                        //Parent not copied
+                        continue;
+                    }
+                }
+                AbstractNode nodeCopy = new AbstractNode(node.getNodeData(), newViewId);
+                nodeCopy.setEnabled(node.isEnabled());
+                newStructure.insertAsChild(nodeCopy, parentCopy);
+                if (nodeCopy.isEnabled()) {
+                    nodesEnabled++;
+                }
+            }
+
+            //Edges
+            ParamAVLIterator<AbstractEdge> edgeIterator = new ParamAVLIterator<AbstractEdge>();
+            for (TreeListIterator itr = new TreeListIterator(newStructure.getTree(), 1); itr.hasNext();) {
+                AbstractNode sourceCopy = itr.next();
+                AbstractNode source = (AbstractNode) sourceCopy.getNodeData().getNode(view.getViewId());
+                if (source.getEdgesOutTree().isEmpty()) {
+                    continue;
+                }
+                for (edgeIterator.setNode(source.getEdgesOutTree()); edgeIterator.hasNext();) {
+                    AbstractEdge edge = edgeIterator.next();
+                    if (edges != null && !edges.get(edge.getId())) {
+                        continue;
+                    }
+                    AbstractNode targetCopy = (AbstractNode) edge.getTarget().getNodeData().getNode(newViewId);
+                    if (targetCopy == null) {
+                        continue;
+                    }
+                    boolean enabled = sourceCopy.isEnabled() && targetCopy.isEnabled();
+                    sourceCopy.getEdgesOutTree().add(edge);
+                    targetCopy.getEdgesInTree().add(edge);
+                    if (!edge.isSelfLoop() && sourceCopy.getEdgesInTree().hasNeighbour(targetCopy)) {
+                        //Mutual edge
+                        viewCopy.incMutualEdgesTotal(1);
+                        if (enabled) {
+                            sourceCopy.incEnabledMutualDegree();
+                            targetCopy.incEnabledMutualDegree();
+                            viewCopy.incMutualEdgesEnabled(1);
+                        }
+                    }
+                    viewCopy.incEdgesCountTotal(1);
+                    if (enabled) {
+                        viewCopy.incEdgesCountEnabled(1);
+                        sourceCopy.incEnabledOutDegree();
+                        targetCopy.incEnabledInDegree();
+                    }
+                    addToDictionnary(edge);
+                }
+            }
+            viewCopy.setNodesEnabled(nodesEnabled);
+
+            //Metaedges
+            viewCopy.getStructureModifier().getEdgeProcessor().computeMetaEdges();
+
+            views.add(viewCopy);
+        } finally {
+            dhns.writeUnlock();
+        }
+        dhns.getEventManager().fireEvent(new ViewEvent(EventType.NEW_VIEW, viewCopy));
+        return viewCopy;
+    }
+
     public void destroyView(final GraphViewImpl view) {
         if (views.contains(view)) {
             destroyQueue.add(view);
@@ -171,6 +261,14 @@ public class GraphStructure {
         dictionnary.addEdge(edge);
     }
 
+    public void addToDictionnary(AbstractNode[] nodes, int length) {
+        dictionnary.addNodes(nodes, length);
+    }
+
+    public void addToDictionnary(AbstractEdge[] edges, int length) {
+        dictionnary.addEdges(edges, length);
+    }
+
     public void removeFromDictionnary(AbstractEdge edge) {
         dictionnary.removeEdge(edge);
     }
@@ -311,6 +409,14 @@ public class GraphStructure {
             nodesIntMap.put(node.getId(), node.getNodeData());
         }
 
+        public synchronized void addNodes(AbstractNode[] nodes, int length) {
+            nodesMap.ensureCapacity(length);
+            nodesIntMap.ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                addNode(nodes[i]);
+            }
+        }
+
         public synchronized void removeNode(AbstractNode node) {
             if (node.getNodeData().getNodes().getCount() == 1) {
                 if (node.getNodeData().getId() != null) {
@@ -335,6 +441,14 @@ public class GraphStructure {
             }
         }
 
+        public synchronized void addEdges(AbstractEdge[] edges, int length) {
+            edgesRefCount.ensureCapacity(length);
+            edgesMap.ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                addEdge(edges[i]);
+            }
+        }
+
         public synchronized void removeEdge(AbstractEdge edge) {
             EdgeCounter edgeCounter = edgesRefCount.get(edge.getId());
             int count = edgeCounter.decAndGet();
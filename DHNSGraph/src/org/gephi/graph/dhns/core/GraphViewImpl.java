@@ -42,8 +42,10 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.graph.dhns.core;
 
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.dhns.graph.AbstractGraphImpl;
+import org.gephi.graph.dhns.graph.AdjacencySnapshotImpl;
 
 /**
  *
@@ -64,6 +66,8 @@ public class GraphViewImpl implements GraphView {
     private int mutualMetaEdgesTotal;
     //RefCounting
     private final WeakHashMap<AbstractGraphImpl, Boolean> graphsMap = new WeakHashMap<AbstractGraphImpl, Boolean>();
+    //Adjacency snapshots, by type
+    private final AtomicReferenceArray<AdjacencySnapshotImpl> adjacencySnapshots = new AtomicReferenceArray<AdjacencySnapshotImpl>(3);
 
     public GraphViewImpl(Dhns dhns, int viewId) {
         this.dhns = dhns;
@@ -90,6 +94,18 @@ public class GraphViewImpl implements GraphView {
         return !graphsMap.isEmpty();
     }
 
+    public AdjacencySnapshotImpl getAdjacencySnapshot(int type, int nodeVersion, int edgeVersion, int valueVersion) {
+        AdjacencySnapshotImpl snapshot = adjacencySnapshots.get(type);
+        if (snapshot != null && snapshot.isUpToDate(nodeVersion, edgeVersion, valueVersion)) {
+            return snapshot;
+        }
+        return null;
+    }
+
+    public void setAdjacencySnapshot(int type, AdjacencySnapshotImpl snapshot) {
+        adjacencySnapshots.set(type, snapshot);
+    }
+
     public int getViewId() {
         return viewId;
     }
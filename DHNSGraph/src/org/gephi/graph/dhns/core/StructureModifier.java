@@ -47,8 +47,10 @@ import org.gephi.graph.api.GraphEvent.EventType;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.dhns.edge.AbstractEdge;
 import org.gephi.graph.dhns.edge.MetaEdgeImpl;
+import org.gephi.graph.dhns.event.BatchEvent;
 import org.gephi.graph.dhns.event.EdgeEvent;
 import org.gephi.graph.dhns.event.GeneralEvent;
+import org.gephi.graph.dhns.event.GraphEventDataImpl;
 import org.gephi.graph.dhns.event.NodeEvent;
 import org.gephi.graph.dhns.node.AbstractNode;
 import org.gephi.graph.dhns.node.iterators.AbstractNodeIterator;
@@ -159,6 +161,38 @@ public class StructureModifier {
         dhns.getEventManager().fireEvent(new EdgeEvent(EventType.ADD_NODES_AND_EDGES, edge, view));
     }
 
+    /**
+     * Adds <code>nodes</code> and the edges of <code>edges</code> accepted by
+     * <code>checker</code> under a single write lock, and fires one event for
+     * the whole batch. Null elements in <code>nodes</code> are skipped. The
+     * parent of each node is resolved in this view when the node is inserted,
+     * so a parent can be in <code>nodes</code> if it comes before its children.
+     * @return the edges actually added
+     */
+    public AbstractEdge[] addAll(AbstractNode[] nodes, AbstractNode[] parents, AbstractEdge[] edges, EdgeChecker checker) {
+        boolean locked = dhns.conditionalWriteLock();
+        AbstractNode[] addedNodes;
+        AbstractEdge[] addedEdges;
+        try {
+            addedNodes = business.addNodes(nodes, parents);
+            addedEdges = business.addEdges(edges, checker);
+            graphVersion.incNodeAndEdgeVersion();
+        } finally {
+            dhns.conditionalWriteUnlock(locked);
+        }
+        if (addedNodes.length > 0 || addedEdges.length > 0) {
+            GraphEventDataImpl eventData = new GraphEventDataImpl();
+            if (addedNodes.length > 0) {
+                eventData.setAddedNodes(addedNodes);
+            }
+            if (addedEdges.length > 0) {
+                eventData.setAddedEdges(addedEdges);
+            }
+            dhns.getEventManager().fireEvent(new BatchEvent(EventType.ADD_NODES_AND_EDGES, eventData, view));
+        }
+        return addedEdges;
+    }
+
     public boolean deleteEdge(AbstractEdge edge) {
         boolean locked = dhns.conditionalWriteLock();
         boolean res = business.delEdge(edge);
@@ -502,6 +536,208 @@ public class StructureModifier {
             }
         }
 
+        private AbstractNode[] addNodes(AbstractNode[] nodes, AbstractNode[] parents) {
+            AbstractNode[] addedNodes = new AbstractNode[nodes.length];
+            int count = 0;
+            for (int i = 0; i < nodes.length; i++) {
+                AbstractNode node = nodes[i];
+                if (node == null || node.avlNode != null) {
+                    //Skipped or already added earlier in the batch
+                    continue;
+                }
+                if (parents != null && parents[i] != null) {
+                    node.parent = parents[i].getInView(view.getViewId());
+                } else {
+                    node.parent = treeStructure.getRoot();
+                }
+                addNode(node);
+                addedNodes[count++] = node;
+            }
+            dhns.getGraphStructure().addToDictionnary(addedNodes, count);
+            return trim(addedNodes, count);
+        }
+
+        private AbstractEdge[] addEdges(AbstractEdge[] edges, EdgeChecker checker) {
+            int viewId = view.getViewId();
+            AbstractEdge[] addedEdges = new AbstractEdge[edges.length];
+            int count = 0;
+            if (treeStructure.getTreeHeight() > 1) {
+                //Meta edges may be created, add edges one by one
+                for (int i = 0; i < edges.length; i++) {
+                    AbstractEdge edge = edges[i];
+                    AbstractNode source = edge.getSource(viewId);
+                    AbstractNode target = edge.getTarget(viewId);
+                    AbstractEdge existingEdge = source.getEdgesOutTree().getItem(target.getNumber());
+                    AbstractEdge symmetricEdge = target.getEdgesOutTree().getItem(source.getNumber());
+                    if (checker.isAddable(edge, existingEdge, symmetricEdge)) {
+                        addEdge(edge);
+                        addedEdges[count++] = edge;
+                    }
+                }
+                return trim(addedEdges, count);
+            }
+
+            //Sort edges by node pair, keeping the array order within a pair
+            int length = edges.length;
+            int[] low = new int[length];
+            int[] high = new int[length];
+            int maxNumber = 0;
+            for (int i = 0; i < length; i++) {
+                int sourceNumber = edges[i].getSource(viewId).getNumber();
+                int targetNumber = edges[i].getTarget(viewId).getNumber();
+                low[i] = Math.min(sourceNumber, targetNumber);
+                high[i] = Math.max(sourceNumber, targetNumber);
+                maxNumber = Math.max(maxNumber, high[i]);
+            }
+            int[] order = countingSort(countingSort(range(length), high, maxNumber), low, maxNumber);
+
+            //Select edges pair by pair, in array order as addEdge() would
+            boolean[] mutual = new boolean[length];
+            for (int start = 0; start < length;) {
+                int end = start + 1;
+                while (end < length && low[order[end]] == low[order[start]] && high[order[end]] == high[order[start]]) {
+                    end++;
+                }
+                AbstractEdge forwardEdge = null;
+                AbstractEdge backwardEdge = null;
+                for (int k = start; k < end; k++) {
+                    AbstractEdge edge = edges[order[k]];
+                    AbstractNode source = edge.getSource(viewId);
+                    AbstractNode target = edge.getTarget(viewId);
+                    boolean forward = source.getNumber() == low[order[k]];
+                    AbstractEdge existingEdge = forward ? forwardEdge : backwardEdge;
+                    if (existingEdge == null) {
+                        existingEdge = source.getEdgesOutTree().getItem(target.getNumber());
+                    }
+                    AbstractEdge symmetricEdge;
+                    if (edge.isSelfLoop()) {
+                        symmetricEdge = existingEdge;
+                    } else {
+                        symmetricEdge = forward ? backwardEdge : forwardEdge;
+                        if (symmetricEdge == null) {
+                            symmetricEdge = target.getEdgesOutTree().getItem(source.getNumber());
+                        }
+                    }
+                    if (checker.isAddable(edge, existingEdge, symmetricEdge)) {
+                        if (forward) {
+                            forwardEdge = edge;
+                        } else {
+                            backwardEdge = edge;
+                        }
+                        mutual[count] = !edge.isSelfLoop() && symmetricEdge != null;
+                        addedEdges[count++] = edge;
+                    }
+                }
+                start = end;
+            }
+
+            //Counting
+            int enabledCount = 0;
+            for (int i = 0; i < count; i++) {
+                AbstractEdge edge = addedEdges[i];
+                AbstractNode sourceNode = edge.getSource(viewId);
+                AbstractNode targetNode = edge.getTarget(viewId);
+                boolean enabled = sourceNode.isEnabled() && targetNode.isEnabled();
+                if (mutual[i]) {
+                    view.incMutualEdgesTotal(1);
+                    if (enabled) {
+                        sourceNode.incEnabledMutualDegree();
+                        targetNode.incEnabledMutualDegree();
+                        view.incMutualEdgesEnabled(1);
+                    }
+                }
+                if (enabled) {
+                    enabledCount++;
+                    sourceNode.incEnabledOutDegree();
+                    targetNode.incEnabledInDegree();
+                }
+            }
+            view.incEdgesCountTotal(count);
+            view.incEdgesCountEnabled(enabledCount);
+
+            //Build edge trees from edges sorted by neighbour
+            addToEdgeTrees(addedEdges, count, maxNumber, true);
+            addToEdgeTrees(addedEdges, count, maxNumber, false);
+
+            dhns.getGraphStructure().addToDictionnary(addedEdges, count);
+
+            //No meta edges in a flat tree
+            return trim(addedEdges, count);
+        }
+
+        private void addToEdgeTrees(AbstractEdge[] edges, int length, int maxNumber, boolean out) {
+            int viewId = view.getViewId();
+            int[] owners = new int[length];
+            int[] neighbours = new int[length];
+            for (int i = 0; i < length; i++) {
+                int sourceNumber = edges[i].getSource(viewId).getNumber();
+                int targetNumber = edges[i].getTarget(viewId).getNumber();
+                owners[i] = out ? sourceNumber : targetNumber;
+                neighbours[i] = out ? targetNumber : sourceNumber;
+            }
+            int[] order = countingSort(countingSort(range(length), neighbours, maxNumber), owners, maxNumber);
+            AbstractEdge[] sortedEdges = new AbstractEdge[length];
+            for (int i = 0; i < length; i++) {
+                sortedEdges[i] = edges[order[i]];
+            }
+            for (int start = 0; start < length;) {
+                int end = start + 1;
+                while (end < length && owners[order[end]] == owners[order[start]]) {
+                    end++;
+                }
+                if (out) {
+                    sortedEdges[start].getSource(viewId).getEdgesOutTree().addAll(sortedEdges, start, end - start);
+                } else {
+                    sortedEdges[start].getTarget(viewId).getEdgesInTree().addAll(sortedEdges, start, end - start);
+                }
+                start = end;
+            }
+        }
+
+        private int[] range(int length) {
+            int[] range = new int[length];
+            for (int i = 0; i < length; i++) {
+                range[i] = i;
+            }
+            return range;
+        }
+
+        /**
+         * Stable counting sort of <code>order</code> by <code>keys[order[i]]</code>.
+         */
+        private int[] countingSort(int[] order, int[] keys, int maxKey) {
+            int[] positions = new int[maxKey + 2];
+            for (int i = 0; i < order.length; i++) {
+                positions[keys[order[i]] + 1]++;
+            }
+            for (int k = 1; k < positions.length; k++) {
+                positions[k] += positions[k - 1];
+            }
+            int[] sorted = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sorted[positions[keys[order[i]]]++] = order[i];
+            }
+            return sorted;
+        }
+
+        private AbstractNode[] trim(AbstractNode[] nodes, int length) {
+            if (length == nodes.length) {
+                return nodes;
+            }
+            AbstractNode[] res = new AbstractNode[length];
+            System.arraycopy(nodes, 0, res, 0, length);
+            return res;
+        }
+
+        private AbstractEdge[] trim(AbstractEdge[] edges, int length) {
+            if (length == edges.length) {
+                return edges;
+            }
+            AbstractEdge[] res = new AbstractEdge[length];
+            System.arraycopy(edges, 0, res, 0, length);
+            return res;
+        }
+
         private AbstractNode[] deleteNode(AbstractNode node, GraphViewImpl graphView) {
             AbstractNode[] descendants = new AbstractNode[node.size + 1];
             int i = 0;
@@ -747,4 +983,14 @@ public class StructureModifier {
         }
         }*/
     }
+
+    /**
+     * Decides if an edge can be added by {@link StructureModifier#addAll}, given
+     * the edge already going from its source to its target and the one going
+     * from its target to its source, both <code>null</code> if absent.
+     */
+    public interface EdgeChecker {
+
+        public boolean isAddable(AbstractEdge edge, AbstractEdge existingEdge, AbstractEdge symmetricEdge);
+    }
 }
@@ -0,0 +1,246 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.graph.dhns.graph;
+
+import org.gephi.graph.api.AdjacencySnapshot;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.dhns.edge.AbstractEdge;
+
+/**
+ * Implementation of {@link AdjacencySnapshot}, built by a single pass on nodes
+ * and edges followed by a counting sort of the arcs.
+ * <p>
+ * Snapshots are cached on the view, see {@link org.gephi.graph.dhns.core.GraphViewImpl},
+ * and tagged with the node and edge versions they were built with.
+ *
+ * @author agent
+ */
+public class AdjacencySnapshotImpl implements AdjacencySnapshot {
+
+    public static final int DIRECTED = 0;
+    public static final int UNDIRECTED = 1;
+    public static final int MIXED = 2;
+    //Versions
+    private final int nodeVersion;
+    private final int edgeVersion;
+    private final int valueVersion;
+    //Nodes
+    private final Node[] nodes;
+    private final int[] indexById;
+    //Out
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final float[] outWeights;
+    //In
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final float[] inWeights;
+    private final boolean directed;
+
+    /**
+     * Builds the snapshot. This must be called within a read lock.
+     * @param type          either <code>DIRECTED</code>, <code>UNDIRECTED</code> or <code>MIXED</code>
+     * @param viewId        the view the nodes and edges belong to
+     * @param nodes         nodes in view
+     * @param edges         edges and meta edges between <code>nodes</code>, each edge once
+     * @param nodeVersion   the node version at build time
+     * @param edgeVersion   the edge version at build time
+     * @param valueVersion  the attribute value version at build time
+     */
+    public AdjacencySnapshotImpl(int type, int viewId, Node[] nodes, EdgeIterable edges, int nodeVersion, int edgeVersion, int valueVersion) {
+        this.nodeVersion = nodeVersion;
+        this.edgeVersion = edgeVersion;
+        this.valueVersion = valueVersion;
+        this.nodes = nodes;
+        this.directed = type != UNDIRECTED;
+        final int nodeCount = nodes.length;
+
+        //Dense index
+        int maxId = -1;
+        for (int i = 0; i < nodeCount; i++) {
+            maxId = Math.max(maxId, nodes[i].getId());
+        }
+        indexById = new int[maxId + 1];
+        for (int i = 0; i < indexById.length; i++) {
+            indexById[i] = -1;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            indexById[nodes[i].getId()] = i;
+        }
+
+        //Collect arcs
+        int arcCount = 0;
+        int[] sources = new int[Math.max(16, nodeCount)];
+        int[] targets = new int[sources.length];
+        float[] weights = new float[sources.length];
+        for (Edge edge : edges) {
+            AbstractEdge absEdge = (AbstractEdge) edge;
+            int source = indexById[absEdge.getSource(viewId).getId()];
+            int target = indexById[absEdge.getTarget(viewId).getId()];
+            boolean both = type == UNDIRECTED || (type == MIXED && !absEdge.isDirected());
+            if (arcCount + 2 > sources.length) {
+                int capacity = sources.length * 2;
+                sources = copyOf(sources, capacity);
+                targets = copyOf(targets, capacity);
+                weights = copyOf(weights, capacity);
+            }
+            float weight = absEdge.getWeight();
+            sources[arcCount] = source;
+            targets[arcCount] = target;
+            weights[arcCount] = weight;
+            arcCount++;
+            if (both && source != target) {
+                sources[arcCount] = target;
+                targets[arcCount] = source;
+                weights[arcCount] = weight;
+                arcCount++;
+            }
+        }
+
+        //Counting sort
+        outOffsets = new int[nodeCount + 1];
+        outTargets = new int[arcCount];
+        outWeights = new float[arcCount];
+        fill(outOffsets, outTargets, outWeights, sources, targets, weights, arcCount);
+        if (directed) {
+            inOffsets = new int[nodeCount + 1];
+            inSources = new int[arcCount];
+            inWeights = new float[arcCount];
+            fill(inOffsets, inSources, inWeights, targets, sources, weights, arcCount);
+        } else {
+            inOffsets = outOffsets;
+            inSources = outTargets;
+            inWeights = outWeights;
+        }
+    }
+
+    private static void fill(int[] offsets, int[] neighbours, float[] neighbourWeights, int[] keys, int[] values, float[] weights, int arcCount) {
+        final int nodeCount = offsets.length - 1;
+        for (int i = 0; i < arcCount; i++) {
+            offsets[keys[i] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] cursor = new int[nodeCount];
+        System.arraycopy(offsets, 0, cursor, 0, nodeCount);
+        for (int i = 0; i < arcCount; i++) {
+            int pos = cursor[keys[i]]++;
+            neighbours[pos] = values[i];
+            neighbourWeights[pos] = weights[i];
+        }
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        int[] res = new int[length];
+        System.arraycopy(array, 0, res, 0, Math.min(array.length, length));
+        return res;
+    }
+
+    private static float[] copyOf(float[] array, int length) {
+        float[] res = new float[length];
+        System.arraycopy(array, 0, res, 0, Math.min(array.length, length));
+        return res;
+    }
+
+    public boolean isUpToDate(int nodeVersion, int edgeVersion, int valueVersion) {
+        return this.nodeVersion == nodeVersion && this.edgeVersion == edgeVersion && this.valueVersion == valueVersion;
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public int getArcCount() {
+        return outTargets.length;
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    public Node getNode(int index) {
+        return nodes[index];
+    }
+
+    public int getIndex(Node node) {
+        int id = node.getId();
+        if (id >= 0 && id < indexById.length) {
+            return indexById[id];
+        }
+        return -1;
+    }
+
+    public int getOutDegree(int index) {
+        return outOffsets[index + 1] - outOffsets[index];
+    }
+
+    public int getInDegree(int index) {
+        return inOffsets[index + 1] - inOffsets[index];
+    }
+
+    public int[] getOutOffsets() {
+        return outOffsets;
+    }
+
+    public int[] getOutTargets() {
+        return outTargets;
+    }
+
+    public float[] getOutWeights() {
+        return outWeights;
+    }
+
+    public int[] getInOffsets() {
+        return inOffsets;
+    }
+
+    public int[] getInSources() {
+        return inSources;
+    }
+
+    public float[] getInWeights() {
+        return inWeights;
+    }
+}
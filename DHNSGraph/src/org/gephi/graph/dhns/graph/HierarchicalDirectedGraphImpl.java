@@ -92,6 +92,23 @@ public class HierarchicalDirectedGraphImpl extends HierarchicalGraphImpl impleme
         return true;
     }
 
+    @Override
+    protected void checkEdgeType(AbstractEdge edge) {
+        if (!edge.isDirected()) {
+            throw new IllegalArgumentException("Can't add an undirected egde");
+        }
+    }
+
+    @Override
+    protected boolean isEdgeAddable(AbstractEdge edge, AbstractEdge existingEdge, AbstractEdge symmetricEdge) {
+        return existingEdge == null;
+    }
+
+    @Override
+    protected void touch(AbstractEdge edge) {
+        dhns.touchDirected();
+    }
+
     //Directed
     public boolean addEdge(Node source, Node target) {
         AbstractNode absSource = checkNode(source);
@@ -372,6 +389,11 @@ public class HierarchicalDirectedGraphImpl extends HierarchicalGraphImpl impleme
         return sourceNode.getMetaEdgesOutTree().getItem(targetNode.getNumber());
     }
 
+    @Override
+    protected int getAdjacencySnapshotType() {
+        return AdjacencySnapshotImpl.DIRECTED;
+    }
+
     @Override
     public HierarchicalDirectedGraphImpl copy(Dhns dhns, GraphViewImpl view) {
         return new HierarchicalDirectedGraphImpl(dhns, view);
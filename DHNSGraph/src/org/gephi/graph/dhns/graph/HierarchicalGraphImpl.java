@@ -41,6 +41,9 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.graph;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.gephi.graph.api.AdjacencySnapshot;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.ImmutableTreeNode;
@@ -48,6 +51,7 @@ import org.gephi.graph.api.Node;
 import org.gephi.graph.api.NodeIterable;
 import org.gephi.graph.dhns.core.Dhns;
 import org.gephi.graph.dhns.core.GraphViewImpl;
+import org.gephi.graph.dhns.core.StructureModifier;
 import org.gephi.graph.dhns.edge.AbstractEdge;
 import org.gephi.graph.dhns.node.AbstractNode;
 import org.gephi.graph.dhns.node.iterators.ChildrenIterator;
@@ -78,6 +82,12 @@ public abstract class HierarchicalGraphImpl extends AbstractGraphImpl implements
 
     public abstract HierarchicalGraphImpl copy(Dhns dhns, GraphViewImpl view);
 
+    /**
+     * Returns the type of adjacency snapshot this graph builds, either
+     * <code>AdjacencySnapshotImpl.DIRECTED</code>, <code>UNDIRECTED</code> or <code>MIXED</code>.
+     */
+    protected abstract int getAdjacencySnapshotType();
+
     public boolean addNode(Node node, Node parent) {
         if (node == null) {
             throw new IllegalArgumentException("Node can't be null");
@@ -107,6 +117,98 @@ public abstract class HierarchicalGraphImpl extends AbstractGraphImpl implements
         return addNode(node, null);
     }
 
+    public void addAll(Node[] nodes, Node[] parents, Edge[] edges) {
+        if (nodes == null || edges == null) {
+            throw new IllegalArgumentException("Nodes and edges can't be null");
+        }
+        if (parents != null && parents.length != nodes.length) {
+            throw new IllegalArgumentException("Parents and nodes must have the same length");
+        }
+        int viewId = view.getViewId();
+
+        //Nodes, prepared as addNode() does
+        Map<Node, Boolean> newNodes = new IdentityHashMap<Node, Boolean>();
+        AbstractNode[] absNodes = new AbstractNode[nodes.length];
+        AbstractNode[] absParents = parents != null ? new AbstractNode[nodes.length] : null;
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] == null) {
+                throw new IllegalArgumentException("Node can't be null");
+            }
+            if (parents != null && parents[i] != null) {
+                AbstractNode absParent = (AbstractNode) parents[i];
+                if (absParent.getInView(viewId) == null && !newNodes.containsKey(absParent)) {
+                    throw new IllegalArgumentException("Parent must be in the graph or before its children");
+                }
+                absParents[i] = absParent;
+            }
+            AbstractNode absNode = (AbstractNode) nodes[i];
+            if (absNode.isValid(viewId)) {
+                continue;
+            }
+            if (absNode.avlNode != null) { //exist in another view
+                if (absNode.getInView(viewId) != null) {
+                    continue;
+                }
+                absNode = new AbstractNode(absNode.getNodeData(), viewId);
+            } else {
+                newNodes.put(absNode, Boolean.TRUE);
+            }
+            if (!absNode.getNodeData().hasAttributes()) {
+                absNode.getNodeData().setAttributes(dhns.factory().newNodeAttributes(absNode.getNodeData()));
+            }
+            absNodes[i] = absNode;
+        }
+
+        //Edges
+        AbstractEdge[] absEdges = new AbstractEdge[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            if (edges[i] == null) {
+                throw new IllegalArgumentException("edge can't be null");
+            }
+            AbstractEdge absEdge = (AbstractEdge) edges[i];
+            if (absEdge.isMetaEdge()) {
+                throw new IllegalArgumentException("Edge can't be a meta edge");
+            }
+            if ((absEdge.getSource().getInView(viewId) == null && !newNodes.containsKey(absEdge.getSource()))
+                    || (absEdge.getTarget().getInView(viewId) == null && !newNodes.containsKey(absEdge.getTarget()))) {
+                throw new IllegalArgumentException("Nodes must be in the graph");
+            }
+            checkEdgeType(absEdge);
+            if (!absEdge.hasAttributes()) {
+                absEdge.setAttributes(dhns.factory().newEdgeAttributes(absEdge.getEdgeData()));
+            }
+            absEdges[i] = absEdge;
+        }
+
+        AbstractEdge[] addedEdges = view.getStructureModifier().addAll(absNodes, absParents, absEdges, new StructureModifier.EdgeChecker() {
+
+            public boolean isAddable(AbstractEdge edge, AbstractEdge existingEdge, AbstractEdge symmetricEdge) {
+                return isEdgeAddable(edge, existingEdge, symmetricEdge);
+            }
+        });
+        for (int i = 0; i < addedEdges.length; i++) {
+            touch(addedEdges[i]);
+        }
+    }
+
+    /**
+     * Throws an <code>IllegalArgumentException</code> if <code>edge</code>'s type
+     * can't be added to this graph.
+     */
+    protected abstract void checkEdgeType(AbstractEdge edge);
+
+    /**
+     * Returns <code>true</code> if <code>edge</code> can be added to this graph, given
+     * the edge already going from its source to its target and the one going from its
+     * target to its source, both <code>null</code> if absent.
+     */
+    protected abstract boolean isEdgeAddable(AbstractEdge edge, AbstractEdge existingEdge, AbstractEdge symmetricEdge);
+
+    /**
+     * Updates the directed and undirected flags of the graph model for an added <code>edge</code>.
+     */
+    protected abstract void touch(AbstractEdge edge);
+
     public boolean contains(Node node) {
         if (node == null) {
             throw new NullPointerException();
@@ -115,7 +217,8 @@ public abstract class HierarchicalGraphImpl extends AbstractGraphImpl implements
         AbstractNode absNode = (AbstractNode) node;
         boolean res = false;
         if (absNode.isValid(view.getViewId())) {
-            res = structure.getTree().contains(absNode);
+            //Valid nodes are in a tree, check it's this one without searching it
+            res = absNode.avlNode.getList() == structure.getTree();
         } else if ((absNode = absNode.getInView(view.getViewId())) != null) {
             res = true;
         }
@@ -433,4 +536,30 @@ public abstract class HierarchicalGraphImpl extends AbstractGraphImpl implements
     public void flatten() {
         view.getStructureModifier().flatten();
     }
+
+    public AdjacencySnapshot getAdjacencySnapshot() {
+        int type = getAdjacencySnapshotType();
+
+        //An up-to-date snapshot is immutable and can be returned without the lock
+        AdjacencySnapshotImpl cached = view.getAdjacencySnapshot(type, dhns.getGraphVersion().getNodeVersion(), dhns.getGraphVersion().getEdgeVersion(), dhns.getValueVersion());
+        if (cached != null) {
+            return cached;
+        }
+
+        readLock();
+        try {
+            int nodeVersion = dhns.getGraphVersion().getNodeVersion();
+            int edgeVersion = dhns.getGraphVersion().getEdgeVersion();
+            //Weights are not written under the lock, read the version before them
+            int valueVersion = dhns.getValueVersion();
+            AdjacencySnapshotImpl snapshot = view.getAdjacencySnapshot(type, nodeVersion, edgeVersion, valueVersion);
+            if (snapshot == null) {
+                snapshot = new AdjacencySnapshotImpl(type, view.getViewId(), getNodes().toArray(), getEdgesAndMetaEdges(), nodeVersion, edgeVersion, valueVersion);
+                view.setAdjacencySnapshot(type, snapshot);
+            }
+            return snapshot;
+        } finally {
+            readUnlock();
+        }
+    }
 }
@@ -108,6 +108,28 @@ public class HierarchicalMixedGraphImpl extends HierarchicalGraphImpl implements
         return true;
     }
 
+    @Override
+    protected void checkEdgeType(AbstractEdge edge) {
+    }
+
+    @Override
+    protected boolean isEdgeAddable(AbstractEdge edge, AbstractEdge existingEdge, AbstractEdge symmetricEdge) {
+        if (existingEdge != null) {
+            return false;
+        }
+        //The symmetric edge can only exist if both are directed
+        return symmetricEdge == null || (symmetricEdge.isDirected() && edge.isDirected());
+    }
+
+    @Override
+    protected void touch(AbstractEdge edge) {
+        if (edge.isDirected()) {
+            dhns.touchDirected();
+        } else {
+            dhns.touchUndirected();
+        }
+    }
+
     public boolean addEdge(Node source, Node target, boolean directed) {
         AbstractNode absSource = checkNode(source);
         AbstractNode absTarget = checkNode(target);
@@ -309,6 +331,11 @@ public class HierarchicalMixedGraphImpl extends HierarchicalGraphImpl implements
         return view.getStructureModifier().deleteMetaEdge(absEdge);
     }
 
+    @Override
+    protected int getAdjacencySnapshotType() {
+        return AdjacencySnapshotImpl.MIXED;
+    }
+
     @Override
     public HierarchicalMixedGraphImpl copy(Dhns dhns, GraphViewImpl view) {
         return new HierarchicalMixedGraphImpl(dhns, view);
@@ -92,6 +92,23 @@ public class HierarchicalUndirectedGraphImpl extends HierarchicalGraphImpl imple
         return true;
     }
 
+    @Override
+    protected void checkEdgeType(AbstractEdge edge) {
+        if (edge instanceof MixedEdgeImpl && edge.isDirected() && !edge.isSelfLoop()) {
+            throw new IllegalArgumentException("Can't add a directed egde");
+        }
+    }
+
+    @Override
+    protected boolean isEdgeAddable(AbstractEdge edge, AbstractEdge existingEdge, AbstractEdge symmetricEdge) {
+        return existingEdge == null && symmetricEdge == null;
+    }
+
+    @Override
+    protected void touch(AbstractEdge edge) {
+        dhns.touchUndirected();
+    }
+
     public boolean addEdge(Node node1, Node node2) {
         AbstractNode absNode1 = checkNode(node1);
         AbstractNode absNode2 = checkNode(node2);
@@ -289,6 +306,11 @@ public class HierarchicalUndirectedGraphImpl extends HierarchicalGraphImpl imple
         return (MetaEdge) res;
     }
 
+    @Override
+    protected int getAdjacencySnapshotType() {
+        return AdjacencySnapshotImpl.UNDIRECTED;
+    }
+
     @Override
     public HierarchicalUndirectedGraphImpl copy(Dhns dhns, GraphViewImpl view) {
         return new HierarchicalUndirectedGraphImpl(dhns, view);
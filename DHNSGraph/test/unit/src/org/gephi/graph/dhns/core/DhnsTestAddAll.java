@@ -0,0 +1,232 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.graph.dhns.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.HierarchicalGraph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.dhns.DhnsGraphController;
+import org.gephi.graph.dhns.edge.AbstractEdge;
+import org.gephi.graph.dhns.node.AbstractNode;
+import org.gephi.graph.dhns.node.iterators.TreeListIterator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that <code>addAll()</code> builds the same structure as adding nodes
+ * and edges one by one.
+ *
+ * @author agent
+ */
+public class DhnsTestAddAll {
+
+    private static final int DIRECTED = 0;
+    private static final int UNDIRECTED = 1;
+    private static final int MIXED = 2;
+
+    @Test
+    public void testDirected() {
+        for (int seed = 0; seed < 20; seed++) {
+            assertEquals(buildGraph(DIRECTED, seed, false), buildGraph(DIRECTED, seed, true));
+        }
+    }
+
+    @Test
+    public void testUndirected() {
+        for (int seed = 0; seed < 20; seed++) {
+            assertEquals(buildGraph(UNDIRECTED, seed, false), buildGraph(UNDIRECTED, seed, true));
+        }
+    }
+
+    @Test
+    public void testMixed() {
+        for (int seed = 0; seed < 20; seed++) {
+            assertEquals(buildGraph(MIXED, seed, false), buildGraph(MIXED, seed, true));
+        }
+    }
+
+    @Test
+    public void testHierarchy() {
+        for (int seed = 20; seed < 30; seed++) {
+            assertEquals(buildGraph(DIRECTED, seed, false), buildGraph(DIRECTED, seed, true));
+            assertEquals(buildGraph(MIXED, seed, false), buildGraph(MIXED, seed, true));
+        }
+    }
+
+    @Test
+    public void testIllegalEdge() {
+        Dhns dhns = new Dhns(new DhnsGraphController(), null);
+        HierarchicalGraph graph = dhns.getHierarchicalDirectedGraph();
+        Node n1 = dhns.factory().newNode();
+        Node n2 = dhns.factory().newNode();
+        Node n3 = dhns.factory().newNode();
+        try {
+            graph.addAll(new Node[]{n1, n2}, null, new Edge[]{dhns.factory().newEdge(n1, n3)});
+            fail("Edge to a node not in the graph");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            graph.addAll(new Node[]{n1, n2}, null, new Edge[]{dhns.factory().newEdge(n1, n2, 1f, false)});
+            fail("Undirected edge in a directed graph");
+        } catch (IllegalArgumentException e) {
+        }
+        assertEquals(0, graph.getNodeCount());
+    }
+
+    /**
+     * Builds a random graph, with some nodes and edges added before and after
+     * the batch, and returns a description of its structure.
+     */
+    private String buildGraph(int type, int seed, boolean bulk) {
+        Random random = new Random(seed);
+        Dhns dhns = new Dhns(new DhnsGraphController(), null);
+        HierarchicalGraph graph = type == DIRECTED ? dhns.getHierarchicalDirectedGraph()
+                : type == UNDIRECTED ? dhns.getHierarchicalUndirectedGraph() : dhns.getHierarchicalMixedGraph();
+        boolean hierarchy = seed >= 20;
+
+        //Existing graph
+        List<Node> nodes = new ArrayList<Node>();
+        for (int i = 0; i < 10; i++) {
+            Node node = dhns.factory().newNode();
+            graph.addNode(node);
+            nodes.add(node);
+        }
+        for (int i = 0; i < 15; i++) {
+            graph.addEdge(newEdge(dhns, type, random, nodes));
+        }
+
+        //Batch, with duplicates and nodes already in the graph
+        int existing = nodes.size();
+        Node[] batchNodes = new Node[60];
+        Node[] batchParents = hierarchy ? new Node[batchNodes.length] : null;
+        for (int i = 0; i < batchNodes.length; i++) {
+            if (random.nextInt(10) == 0) {
+                batchNodes[i] = nodes.get(random.nextInt(nodes.size()));
+            } else {
+                batchNodes[i] = dhns.factory().newNode();
+                if (hierarchy && random.nextInt(3) == 0) {
+                    batchParents[i] = nodes.get(existing + random.nextInt(nodes.size() - existing + 1) - 1);
+                }
+                nodes.add(batchNodes[i]);
+            }
+        }
+        Edge[] batchEdges = new Edge[400];
+        for (int i = 0; i < batchEdges.length; i++) {
+            if (i > 0 && random.nextInt(20) == 0) {
+                batchEdges[i] = batchEdges[random.nextInt(i)];
+            } else {
+                batchEdges[i] = newEdge(dhns, type, random, nodes);
+            }
+        }
+        if (bulk) {
+            graph.addAll(batchNodes, batchParents, batchEdges);
+        } else {
+            for (int i = 0; i < batchNodes.length; i++) {
+                if (batchParents != null && batchParents[i] != null) {
+                    graph.addNode(batchNodes[i], batchParents[i]);
+                } else {
+                    graph.addNode(batchNodes[i]);
+                }
+            }
+            for (int i = 0; i < batchEdges.length; i++) {
+                graph.addEdge(batchEdges[i]);
+            }
+        }
+
+        //Trees must still be usable
+        for (int i = 0; i < 30; i++) {
+            Edge edge = graph.getEdge(nodes.get(random.nextInt(nodes.size())), nodes.get(random.nextInt(nodes.size())));
+            if (edge != null) {
+                graph.removeEdge(edge);
+            }
+            graph.addEdge(newEdge(dhns, type, random, nodes));
+        }
+        return describe(dhns);
+    }
+
+    private Edge newEdge(Dhns dhns, int type, Random random, List<Node> nodes) {
+        Node source = nodes.get(random.nextInt(nodes.size()));
+        Node target = random.nextInt(15) == 0 ? source : nodes.get(random.nextInt(nodes.size()));
+        boolean directed = type == DIRECTED || (type == MIXED && random.nextBoolean());
+        return dhns.factory().newEdge(source, target, 1f, directed);
+    }
+
+    private String describe(Dhns dhns) {
+        GraphViewImpl view = dhns.getGraphStructure().getMainView();
+        StringBuilder builder = new StringBuilder();
+        builder.append("edges=").append(view.getEdgesCountTotal()).append('/').append(view.getEdgesCountEnabled());
+        builder.append(" mutual=").append(view.getMutualEdgesTotal()).append('/').append(view.getMutualEdgesEnabled());
+        builder.append(" meta=").append(view.getMetaEdgesCountTotal());
+        builder.append(" nodes=").append(view.getNodesEnabled());
+        builder.append(" directed=").append(dhns.isDirected()).append(" undirected=").append(dhns.isUndirected()).append(" mixed=").append(dhns.isMixed());
+        builder.append('\n');
+        for (TreeListIterator itr = new TreeListIterator(view.getStructure().getTree(), 1); itr.hasNext();) {
+            AbstractNode node = itr.next();
+            builder.append(node.getId()).append(" pre=").append(node.getPre()).append(" level=").append(node.level);
+            builder.append(" parent=").append(node.parent.getId()).append(" enabled=").append(node.isEnabled());
+            builder.append(" degrees=").append(node.getEnabledInDegree()).append(',').append(node.getEnabledOutDegree()).append(',').append(node.getEnabledMutualDegree());
+            builder.append(" out=");
+            int last = Integer.MIN_VALUE;
+            for (AbstractEdge edge : node.getEdgesOutTree()) {
+                assertTrue(edge.getTarget().getNumber() > last);
+                last = edge.getTarget().getNumber();
+                assertSame(edge, node.getEdgesOutTree().getItem(last));
+                assertSame(edge, dhns.getGraphStructure().getEdgeFromDictionnary(edge.getId()));
+                builder.append(edge.getId()).append(':').append(edge.getTarget().getId()).append(edge.isDirected() ? 'd' : 'u').append(' ');
+            }
+            builder.append(" in=");
+            last = Integer.MIN_VALUE;
+            for (AbstractEdge edge : node.getEdgesInTree()) {
+                assertTrue(edge.getSource().getNumber() > last);
+                last = edge.getSource().getNumber();
+                assertSame(edge, node.getEdgesInTree().getItem(last));
+                builder.append(edge.getId()).append(' ');
+            }
+            builder.append(" metaOut=").append(node.getMetaEdgesOutTree().getCount());
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+}
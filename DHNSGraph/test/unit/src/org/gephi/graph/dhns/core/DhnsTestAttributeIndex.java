@@ -0,0 +1,161 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.graph.dhns.core;
+
+import org.gephi.data.attributes.AttributeIndexImpl;
+import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.data.attributes.api.AttributeController;
+import org.gephi.data.attributes.api.AttributeIndex;
+import org.gephi.data.attributes.api.AttributeModel;
+import org.gephi.data.attributes.api.AttributeType;
+import org.gephi.data.attributes.api.AttributeUtils;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
+import org.gephi.project.api.ProjectController;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openide.util.Lookup;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author agent
+ */
+public class DhnsTestAttributeIndex {
+
+    private GraphModel graphModel;
+    private UndirectedGraph rootGraph;
+    private AttributeColumn nodeColumn;
+    private AttributeColumn edgeColumn;
+    private Node[] nodes;
+    private Edge[] edges;
+
+    @Before
+    public void setUp() {
+        ProjectController pj = Lookup.getDefault().lookup(ProjectController.class);
+        pj.newProject();
+        AttributeModel attributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel();
+        nodeColumn = attributeModel.getNodeTable().addColumn("score", AttributeType.INT);
+        edgeColumn = attributeModel.getEdgeTable().addColumn("score", AttributeType.INT);
+        GraphController gc = Lookup.getDefault().lookup(GraphController.class);
+        graphModel = gc.getModel();
+        rootGraph = graphModel.getUndirectedGraph();
+        GraphFactory factory = graphModel.factory();
+
+        //Nodes 0 to 4 with their number as value, edges between consecutive nodes
+        nodes = new Node[5];
+        edges = new Edge[4];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = factory.newNode();
+            nodes[i].getNodeData().getAttributes().setValue(nodeColumn.getIndex(), i);
+            rootGraph.addNode(nodes[i]);
+        }
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = factory.newEdge(nodes[i], nodes[i + 1]);
+            edges[i].getEdgeData().getAttributes().setValue(edgeColumn.getIndex(), i);
+            rootGraph.addEdge(edges[i]);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        rootGraph = null;
+        graphModel = null;
+        nodes = null;
+        edges = null;
+    }
+
+    @Test
+    public void testRemoveNode() {
+        AttributeIndex index = AttributeUtils.getDefault().getIndex(nodeColumn, rootGraph);
+        assertEquals(5, index.size());
+        assertEquals(0, index.getMinimumValue());
+        assertEquals(4, index.getMaximumValue());
+
+        rootGraph.removeNode(nodes[4]);
+        rootGraph.removeNode(nodes[0]);
+        assertEquals(3, index.size());
+        assertEquals(1, index.getMinimumValue());
+        assertEquals(3, index.getMaximumValue());
+        assertEquals(3, index.getQuantile(1));
+        assertEquals(3, index.getObjects(0, 4).length);
+        assertEquals(3, ((AttributeIndexImpl) index).getRowCount());
+    }
+
+    @Test
+    public void testRemoveEdge() {
+        AttributeIndex index = AttributeUtils.getDefault().getIndex(edgeColumn, rootGraph);
+        assertEquals(4, index.size());
+        assertEquals(3, index.getMaximumValue());
+
+        rootGraph.removeEdge(edges[3]);
+        assertEquals(3, index.size());
+        assertEquals(2, index.getMaximumValue());
+
+        //Removing a node removes its edges
+        rootGraph.removeNode(nodes[0]);
+        assertEquals(2, index.size());
+        assertEquals(1, index.getMinimumValue());
+        assertEquals(2, ((AttributeIndexImpl) index).getRowCount());
+    }
+
+    @Test
+    public void testAddNode() {
+        AttributeIndex index = AttributeUtils.getDefault().getIndex(nodeColumn, rootGraph);
+        Node node = graphModel.factory().newNode();
+        node.getNodeData().getAttributes().setValue(nodeColumn.getIndex(), 10);
+        assertEquals(4, index.getMaximumValue());
+
+        rootGraph.addNode(node);
+        assertEquals(6, index.size());
+        assertEquals(10, index.getMaximumValue());
+
+        rootGraph.removeNode(node);
+        assertEquals(5, index.size());
+        assertEquals(4, index.getMaximumValue());
+    }
+}
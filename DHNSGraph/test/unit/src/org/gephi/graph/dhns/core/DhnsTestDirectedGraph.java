@@ -45,6 +45,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.gephi.graph.api.AdjacencySnapshot;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.dhns.DhnsGraphController;
@@ -668,6 +669,38 @@ public class DhnsTestDirectedGraph {
         assertEquals(2, graphGlobal.getDegree(node7));
     }
 
+    @Test
+    public void testAdjacencySnapshot() {
+        Node node4 = nodeMap.get("Node 4");
+        Node node5 = nodeMap.get("Node 5");
+        Node node6 = nodeMap.get("Node 6");
+
+        AdjacencySnapshot snapshot = graphGlobal.getAdjacencySnapshot();
+        assertEquals(graphGlobal.getNodeCount(), snapshot.getNodeCount());
+        assertEquals(graphGlobal.getEdgeCount(), snapshot.getArcCount());
+        assertTrue(snapshot.isDirected());
+        assertEquals(-1, snapshot.getIndex(nodeMap.get("Fake Node 1")));
+
+        int index4 = snapshot.getIndex(node4);
+        int index5 = snapshot.getIndex(node5);
+        assertSame(node4, snapshot.getNode(index4));
+        assertEquals(graphGlobal.getOutDegree(node4), snapshot.getOutDegree(index4));
+        assertEquals(graphGlobal.getInDegree(node5), snapshot.getInDegree(index5));
+        boolean found = false;
+        int[] offsets = snapshot.getOutOffsets();
+        for (int i = offsets[index4]; i < offsets[index4 + 1]; i++) {
+            found |= snapshot.getOutTargets()[i] == index5;
+        }
+        assertTrue(found);
+
+        //Cached until the structure changes
+        assertSame(snapshot, graphGlobal.getAdjacencySnapshot());
+        graphGlobal.removeEdge(graphGlobal.getEdge(node5, node6));
+        AdjacencySnapshot newSnapshot = graphGlobal.getAdjacencySnapshot();
+        assertNotSame(snapshot, newSnapshot);
+        assertEquals(snapshot.getArcCount() - 1, newSnapshot.getArcCount());
+    }
+
     @Test
     public void testAdjacent() {
         Node node4 = nodeMap.get("Node 4");
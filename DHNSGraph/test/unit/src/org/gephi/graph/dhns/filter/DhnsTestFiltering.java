@@ -41,11 +41,13 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.dhns.filter;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.HierarchicalDirectedGraph;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.dhns.DhnsGraphController;
@@ -180,6 +182,44 @@ public class DhnsTestFiltering {
         }
     }
 
+    @Test
+    public void testCopyViewSubset() {
+        BitSet nodes = new BitSet();
+        for (String label : new String[]{"Node 2", "Node 3", "Node 4", "Node 5", "Node 6", "Node 7"}) {
+            nodes.set(nodeMap.get(label).getId());
+        }
+        BitSet edges = new BitSet();
+        for (Edge edge : edgeMap.values()) {
+            edges.set(edge.getId());
+        }
+        edges.clear(edgeMap.get("2-5").getId());
+
+        //Same as copying the view and removing elements
+        GraphView expectedView = dhnsGlobal.newView();
+        HierarchicalDirectedGraph expected = dhnsGlobal.getHierarchicalDirectedGraph(expectedView);
+        for (String label : new String[]{"Node 0", "Node 1", "Node 8", "Node 9"}) {
+            expected.removeNode(expected.getNode(nodeMap.get(label).getId()));
+        }
+        expected.removeEdge(edgeMap.get("2-5"));
+
+        GraphView view = dhnsGlobal.copyView(dhnsGlobal.getGraphStructure().getMainView(), nodes, edges);
+        HierarchicalDirectedGraph actual = dhnsGlobal.getHierarchicalDirectedGraph(view);
+
+        assertEquals(expected.getNodeCount(), actual.getNodeCount());
+        assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+        assertEquals(expected.getTotalEdgeCount(), actual.getTotalEdgeCount());
+        assertFalse(actual.contains(edgeMap.get("2-1")));
+        assertFalse(actual.contains(edgeMap.get("2-5")));
+        assertTrue(actual.contains(edgeMap.get("2-3")));
+        for (Node n : expected.getNodes().toArray()) {
+            Node node = actual.getNode(n.getId());
+            assertNotNull(node);
+            assertEquals(expected.getInDegree(n), actual.getInDegree(node));
+            assertEquals(expected.getOutDegree(n), actual.getOutDegree(node));
+            assertEquals(expected.getMutualDegree(n), actual.getMutualDegree(node));
+        }
+    }
+
     @Test
     public void testFlatten() {
         Node[] nodeGroup = new Node[]{nodeMap.get("Node 1"), nodeMap.get("Node 2")};
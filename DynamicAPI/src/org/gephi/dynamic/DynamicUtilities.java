@@ -83,14 +83,18 @@ import org.openide.util.Exceptions;
  * @author Cezary Bartosiak
  */
 public final class DynamicUtilities {
-    private static DatatypeFactory dateFactory;
+    //DatatypeFactory is not guaranteed to be thread-safe, dates may be parsed by importers on several threads
+    private static final ThreadLocal<DatatypeFactory> dateFactory = new ThreadLocal<DatatypeFactory>() {
 
-    static {
-        try {
-            dateFactory = DatatypeFactory.newInstance();
-        } catch (DatatypeConfigurationException ex) {
+        @Override
+        protected DatatypeFactory initialValue() {
+            try {
+                return DatatypeFactory.newInstance();
+            } catch (DatatypeConfigurationException ex) {
+                return null;
+            }
         }
-    }
+    };
     
     /**
      * Used for import (parses XML date strings).
@@ -104,7 +108,7 @@ public final class DynamicUtilities {
      */
     public static double getDoubleFromXMLDateString(String str) {
         try {
-            return dateFactory.newXMLGregorianCalendar(str.length() > 23 ? str.substring(0, 23) : str).
+            return dateFactory.get().newXMLGregorianCalendar(str.length() > 23 ? str.substring(0, 23) : str).
                     toGregorianCalendar().getTimeInMillis();
         } catch (IllegalArgumentException ex) {
             //Try simple format
@@ -136,7 +140,7 @@ public final class DynamicUtilities {
         }
         GregorianCalendar gc = new GregorianCalendar();
         gc.setTimeInMillis((long) d);
-        return dateFactory.newXMLGregorianCalendar(gc).toXMLFormat().substring(0, 23);
+        return dateFactory.get().newXMLGregorianCalendar(gc).toXMLFormat().substring(0, 23);
     }
     
     /**
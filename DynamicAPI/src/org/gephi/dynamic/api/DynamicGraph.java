@@ -418,6 +418,39 @@ public interface DynamicGraph {
 	 */
 	public Graph getSnapshotGraph(Interval interval, Estimator estimator);
 
+	/**
+	 * Returns nodes added to the snapshot graph by the last call to a
+	 * {@code getSnapshotGraph()} method, compared to the previous snapshot.
+	 *
+	 * @return nodes which entered the last snapshot graph.
+	 */
+	public Node[] getAddedNodes();
+
+	/**
+	 * Returns nodes removed from the snapshot graph by the last call to a
+	 * {@code getSnapshotGraph()} method, compared to the previous snapshot.
+	 *
+	 * @return nodes which left the last snapshot graph.
+	 */
+	public Node[] getRemovedNodes();
+
+	/**
+	 * Returns edges added to the snapshot graph by the last call to a
+	 * {@code getSnapshotGraph()} method, compared to the previous snapshot.
+	 *
+	 * @return edges which entered the last snapshot graph.
+	 */
+	public Edge[] getAddedEdges();
+
+	/**
+	 * Returns edges removed from the snapshot graph by the last call to a
+	 * {@code getSnapshotGraph()} method, compared to the previous snapshot.
+	 * Edges of removed nodes are included.
+	 *
+	 * @return edges which left the last snapshot graph.
+	 */
+	public Edge[] getRemovedEdges();
+
 	/**
 	 * Returns a "strong snapshot graph", i.e. a graph for the given point of
 	 * time. "Strong" means that if EVERY time interval of considered node/edge
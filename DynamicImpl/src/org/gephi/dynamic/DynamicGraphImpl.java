@@ -41,6 +41,10 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.dynamic;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import org.gephi.data.attributes.api.AttributeController;
 import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.Estimator;
@@ -70,6 +74,17 @@ public final class DynamicGraphImpl implements DynamicGraph {
     private GraphView currentView;
     private double low;
     private double high;
+    //Incremental snapshots
+    private final DynamicIndex index;
+    private Interval snapshotInterval;
+    private int snapshotNodeVersion;
+    private int snapshotEdgeVersion;
+    private int snapshotElementVersion;
+    private int snapshotValueVersion;
+    private final List<Node> addedNodes = new ArrayList<Node>();
+    private final List<Node> removedNodes = new ArrayList<Node>();
+    private final List<Edge> addedEdges = new ArrayList<Edge>();
+    private final List<Edge> removedEdges = new ArrayList<Edge>();
 
     /**
      * Constructs a new {@code DynamicGraph} that wraps a given {@code Graph}.
@@ -93,6 +108,24 @@ public final class DynamicGraphImpl implements DynamicGraph {
      * @throws IllegalArgumentException if {@code low} > {@code high}.
      */
     public DynamicGraphImpl(Graph graph, double low, double high) {
+        this(graph, low, high, null);
+    }
+
+    /**
+     * Constructs a new {@code DynamicGraph} that wraps a given {@code Graph}
+     * and a time interval [{@code low}, {@code high}]. When {@code index} is
+     * not null, successive snapshots only update elements whose appear or
+     * disappear events lie between the previous and the new bounds.
+     *
+     * @param graph wrapped {@code Graph}
+     * @param low   the left endpoint of the interval
+     * @param high  the right endpoint of the interval
+     * @param index the elements events index, or {@code null}
+     *
+     * @throws NullPointerException     if {@code graph} is null.
+     * @throws IllegalArgumentException if {@code low} > {@code high}.
+     */
+    DynamicGraphImpl(Graph graph, double low, double high, DynamicIndex index) {
         if (graph == null) {
             throw new NullPointerException("The graph cannot be null.");
         }
@@ -112,6 +145,7 @@ public final class DynamicGraphImpl implements DynamicGraph {
 
         this.low = low;
         this.high = high;
+        this.index = index;
 
         if (low != Double.NEGATIVE_INFINITY || high != Double.POSITIVE_INFINITY) {
             Graph vgraph = model.getGraph(currentView);
@@ -286,41 +320,150 @@ public final class DynamicGraphImpl implements DynamicGraph {
 
         graph.writeLock();
 
+        addedNodes.clear();
+        removedNodes.clear();
+        addedEdges.clear();
+        removedEdges.clear();
+        if (index != null && snapshotInterval != null
+                && snapshotNodeVersion == graph.getNodeVersion()
+                && snapshotEdgeVersion == graph.getEdgeVersion()
+                && snapshotElementVersion == index.getElementVersion()
+                && snapshotValueVersion == attributeModel.getValueVersion()) {
+            //The index is fed by attribute events, it may lag behind values set since
+            updateSnapshot(graph, vgraph, interval);
+        } else {
+            buildSnapshot(graph, vgraph, interval);
+        }
+        if (index != null) {
+            snapshotInterval = interval;
+            snapshotNodeVersion = graph.getNodeVersion();
+            snapshotEdgeVersion = graph.getEdgeVersion();
+            snapshotElementVersion = index.getElementVersion();
+            snapshotValueVersion = attributeModel.getValueVersion();
+        }
+        graph.writeUnlock();
+        return vgraph;
+    }
+
+    private void buildSnapshot(Graph graph, Graph vgraph, Interval interval) {
         if (attributeModel.getNodeTable().hasColumn(DynamicModel.TIMEINTERVAL_COLUMN)) {
             for (Node n : graph.getNodes().toArray()) {
                 TimeInterval ti = (TimeInterval) n.getNodeData().getAttributes().getValue(DynamicModel.TIMEINTERVAL_COLUMN);
                 if (ti == null && !vgraph.contains(n)) {
-                    vgraph.addNode(n);
+                    addNode(vgraph, n);
                 } else if (ti != null) {
                     boolean isInRange = ti.isInRange(interval);
                     boolean isInGraph = vgraph.contains(n);
                     if (!isInRange && isInGraph) {
-                        vgraph.removeNode(n);
+                        removeNode(vgraph, n);
                     } else if (isInRange && !isInGraph) {
-                        vgraph.addNode(n);
+                        addNode(vgraph, n);
                     }
                 }
             }
         }
         if (attributeModel.getEdgeTable().hasColumn(DynamicModel.TIMEINTERVAL_COLUMN)) {
             for (Edge e : graph.getEdges().toArray()) {
-                TimeInterval ti = (TimeInterval) e.getEdgeData().getAttributes().getValue(DynamicModel.TIMEINTERVAL_COLUMN);
-                if (ti == null && !vgraph.contains(e)
-                        && vgraph.contains(e.getSource()) && vgraph.contains(e.getTarget())) {
-                    vgraph.addEdge(e);
-                } else if (ti != null) {
-                    boolean isInRange = ti.isInRange(interval);
-                    boolean isInGraph = vgraph.contains(e);
-                    if (!isInRange && isInGraph) {
-                        vgraph.removeEdge(e);
-                    } else if (isInRange && !isInGraph && vgraph.contains(e.getSource()) && vgraph.contains(e.getTarget())) {
-                        vgraph.addEdge(e);
+                updateEdge(e, vgraph, interval);
+            }
+        }
+    }
+
+    private void updateSnapshot(Graph graph, Graph vgraph, Interval interval) {
+        Set<Object> elements = new HashSet<Object>();
+        index.getElements(snapshotInterval, interval, elements);
+
+        if (attributeModel.getNodeTable().hasColumn(DynamicModel.TIMEINTERVAL_COLUMN)) {
+            for (Object element : elements) {
+                if (element instanceof Node && graph.contains((Node) element)) {
+                    Node n = (Node) element;
+                    TimeInterval ti = (TimeInterval) n.getNodeData().getAttributes().getValue(DynamicModel.TIMEINTERVAL_COLUMN);
+                    if (ti != null) {
+                        boolean isInRange = ti.isInRange(interval);
+                        boolean isInGraph = vgraph.contains(n);
+                        if (!isInRange && isInGraph) {
+                            removeNode(vgraph, n);
+                        } else if (isInRange && !isInGraph) {
+                            addNode(vgraph, n);
+                        }
                     }
                 }
             }
         }
-        graph.writeUnlock();
-        return vgraph;
+        if (attributeModel.getEdgeTable().hasColumn(DynamicModel.TIMEINTERVAL_COLUMN)) {
+            for (Object element : elements) {
+                if (element instanceof Edge && graph.contains((Edge) element)) {
+                    updateEdge((Edge) element, vgraph, interval);
+                }
+            }
+            //Edges of nodes back in the view
+            for (Node n : addedNodes.toArray(new Node[0])) {
+                for (Edge e : graph.getEdges(n).toArray()) {
+                    updateEdge(e, vgraph, interval);
+                }
+            }
+        }
+    }
+
+    private void updateEdge(Edge e, Graph vgraph, Interval interval) {
+        TimeInterval ti = (TimeInterval) e.getEdgeData().getAttributes().getValue(DynamicModel.TIMEINTERVAL_COLUMN);
+        if (ti == null && !vgraph.contains(e)
+                && vgraph.contains(e.getSource()) && vgraph.contains(e.getTarget())) {
+            addEdge(vgraph, e);
+        } else if (ti != null) {
+            boolean isInRange = ti.isInRange(interval);
+            boolean isInGraph = vgraph.contains(e);
+            if (!isInRange && isInGraph) {
+                removeEdge(vgraph, e);
+            } else if (isInRange && !isInGraph && vgraph.contains(e.getSource()) && vgraph.contains(e.getTarget())) {
+                addEdge(vgraph, e);
+            }
+        }
+    }
+
+    private void addNode(Graph vgraph, Node n) {
+        vgraph.addNode(n);
+        addedNodes.add(n);
+    }
+
+    private void removeNode(Graph vgraph, Node n) {
+        for (Edge e : vgraph.getEdges(n).toArray()) {
+            removedEdges.add(e);
+        }
+        vgraph.removeNode(n);
+        removedNodes.add(n);
+    }
+
+    private void addEdge(Graph vgraph, Edge e) {
+        if (vgraph.addEdge(e)) {
+            addedEdges.add(e);
+        }
+    }
+
+    private void removeEdge(Graph vgraph, Edge e) {
+        if (vgraph.removeEdge(e)) {
+            removedEdges.add(e);
+        }
+    }
+
+    @Override
+    public Node[] getAddedNodes() {
+        return addedNodes.toArray(new Node[0]);
+    }
+
+    @Override
+    public Node[] getRemovedNodes() {
+        return removedNodes.toArray(new Node[0]);
+    }
+
+    @Override
+    public Edge[] getAddedEdges() {
+        return addedEdges.toArray(new Edge[0]);
+    }
+
+    @Override
+    public Edge[] getRemovedEdges() {
+        return removedEdges.toArray(new Edge[0]);
     }
 
     @Override
@@ -41,8 +41,14 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.dynamic;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import org.gephi.data.attributes.type.Interval;
+import org.gephi.data.attributes.type.TimeInterval;
 import org.gephi.dynamic.api.DynamicModelEvent;
 
 /**
@@ -54,11 +60,19 @@ public class DynamicIndex {
     protected final TreeMap<Double, Integer> lowMap;
     protected final TreeMap<Double, Integer> highMap;
     protected final DynamicModelImpl model;
+    //Elements events, sorted by time
+    protected final TreeMap<Double, Set<Object>> appearMap;
+    protected final TreeMap<Double, Set<Object>> disappearMap;
+    protected final Map<Object, TimeInterval> elementIntervals;
+    protected int elementVersion;
 
     public DynamicIndex(DynamicModelImpl model) {
         this.model = model;
         lowMap = new TreeMap<Double, Integer>();
         highMap = new TreeMap<Double, Integer>();
+        appearMap = new TreeMap<Double, Set<Object>>();
+        disappearMap = new TreeMap<Double, Set<Object>>();
+        elementIntervals = new IdentityHashMap<Object, TimeInterval>();
     }
 
     public synchronized void add(Interval interval) {
@@ -129,6 +143,99 @@ public class DynamicIndex {
     public synchronized void clear() {
         lowMap.clear();
         highMap.clear();
+        appearMap.clear();
+        disappearMap.clear();
+        elementIntervals.clear();
+        elementVersion++;
+    }
+
+    /**
+     * Indexes the appear and disappear events of <code>element</code>, a node
+     * or an edge, given by its time interval. Events previously indexed for the
+     * same element are replaced.
+     * @param element the node or edge
+     * @param timeInterval the element's time interval, or <code>null</code>
+     */
+    public synchronized void addElement(Object element, TimeInterval timeInterval) {
+        removeElementEvents(element);
+        if (timeInterval != null) {
+            elementIntervals.put(element, timeInterval);
+            for (Interval interval : timeInterval.getIntervals(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)) {
+                putEvent(appearMap, interval.getLow(), element);
+                putEvent(disappearMap, interval.getHigh(), element);
+            }
+        }
+        elementVersion++;
+    }
+
+    public synchronized void removeElement(Object element) {
+        if (removeElementEvents(element)) {
+            elementVersion++;
+        }
+    }
+
+    /**
+     * Collects the elements that may enter or leave a window moved from
+     * <code>from</code> to <code>to</code>, that is elements which appear
+     * between the old and new high bounds or disappear between the old and new
+     * low bounds. Elements not collected keep the same visibility.
+     * @param from the previous window
+     * @param to the new window
+     * @param result the collection elements are added to
+     */
+    public synchronized void getElements(Interval from, Interval to, Collection<Object> result) {
+        collectEvents(appearMap, from.getHigh(), to.getHigh(), result);
+        collectEvents(disappearMap, from.getLow(), to.getLow(), result);
+    }
+
+    /**
+     * Returns a counter incremented each time elements events are modified.
+     * @return the current elements version
+     */
+    public synchronized int getElementVersion() {
+        return elementVersion;
+    }
+
+    private boolean removeElementEvents(Object element) {
+        TimeInterval timeInterval = elementIntervals.remove(element);
+        if (timeInterval != null) {
+            for (Interval interval : timeInterval.getIntervals(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)) {
+                removeEvent(appearMap, interval.getLow(), element);
+                removeEvent(disappearMap, interval.getHigh(), element);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void putEvent(TreeMap<Double, Set<Object>> map, double time, Object element) {
+        Set<Object> elements = map.get(time);
+        if (elements == null) {
+            elements = new HashSet<Object>();
+            map.put(time, elements);
+        }
+        elements.add(element);
+    }
+
+    private void removeEvent(TreeMap<Double, Set<Object>> map, double time, Object element) {
+        Set<Object> elements = map.get(time);
+        if (elements != null) {
+            elements.remove(element);
+            if (elements.isEmpty()) {
+                map.remove(time);
+            }
+        }
+    }
+
+    private void collectEvents(TreeMap<Double, Set<Object>> map, double bound1, double bound2, Collection<Object> result) {
+        if (bound1 == bound2) {
+            return;
+        }
+        double min = Math.min(bound1, bound2);
+        double max = Math.max(bound1, bound2);
+        for (Set<Object> elements : map.subMap(min, true, max, true).values()) {
+            result.addAll(elements);
+        }
     }
 
     public synchronized double getMin() {
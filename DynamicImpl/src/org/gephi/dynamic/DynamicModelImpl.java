@@ -67,12 +67,14 @@ import org.gephi.filters.plugin.dynamic.DynamicRangeBuilder.DynamicRangeFilter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.graph.api.Attributes;
 import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeData;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphEvent;
 import org.gephi.graph.api.GraphListener;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeData;
 import org.gephi.project.api.Workspace;
 import org.openide.util.Lookup;
 
@@ -181,10 +183,11 @@ public final class DynamicModelImpl implements DynamicModel {
                         break;
                     case SET_VALUE:
                         AttributeValue[] values = event.getData().getTouchedValues();
+                        Object[] objects = event.getData().getTouchedObjects();
                         for (int i = 0; i < values.length; i++) {
                             AttributeValue val = values[i];
+                            AttributeColumn col = values[i].getColumn();
                             if (val.getValue() != null) {
-                                AttributeColumn col = values[i].getColumn();
                                 if (col.getType().isDynamicType()) {
                                     DynamicType<?> dynamicType = (DynamicType) val.getValue();
                                     for (Interval interval : dynamicType.getIntervals(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)) {
@@ -192,6 +195,12 @@ public final class DynamicModelImpl implements DynamicModel {
                                     }
                                 }
                             }
+                            if (col.getId().equals(TIMEINTERVAL_COLUMN) && objects != null && i < objects.length) {
+                                Object element = getElement(objects[i]);
+                                if (element != null) {
+                                    timeIntervalIndex.addElement(element, (TimeInterval) val.getValue());
+                                }
+                            }
                         }
                         break;
                     default:
@@ -211,6 +220,7 @@ public final class DynamicModelImpl implements DynamicModel {
                             if (!edgeDynamicColumns.isEmpty() && event.getData().removedEdges() != null) {
                                 AttributeColumn[] dynamicCols = edgeDynamicColumns.toArray(new AttributeColumn[0]);
                                 for (Edge e : event.getData().removedEdges()) {
+                                    timeIntervalIndex.removeElement(e);
                                     Attributes attributeRow = e.getEdgeData().getAttributes();
                                     for (int i = 0; i < dynamicCols.length; i++) {
                                         DynamicType<?> ti = (DynamicType) attributeRow.getValue(dynamicCols[i].getIndex());
@@ -225,6 +235,7 @@ public final class DynamicModelImpl implements DynamicModel {
                             if (!nodeDynamicColumns.isEmpty() && event.getData().removedNodes() != null) {
                                 AttributeColumn[] dynamicCols = edgeDynamicColumns.toArray(new AttributeColumn[0]);
                                 for (Node n : event.getData().removedNodes()) {
+                                    timeIntervalIndex.removeElement(n);
                                     Attributes attributeRow = n.getNodeData().getAttributes();
                                     for (int i = 0; i < dynamicCols.length; i++) {
                                         DynamicType<?> ti = (DynamicType) attributeRow.getValue(dynamicCols[i].getIndex());
@@ -258,6 +269,7 @@ public final class DynamicModelImpl implements DynamicModel {
             Graph graph = graphModel.getGraph();
             for (Node n : graph.getNodes()) {
                 Attributes attributeRow = n.getNodeData().getAttributes();
+                timeIntervalIndex.addElement(n, (TimeInterval) attributeRow.getValue(TIMEINTERVAL_COLUMN));
                 for (int i = 0; i < dynamicCols.length; i++) {
                     DynamicType<?> ti = (DynamicType) attributeRow.getValue(dynamicCols[i].getIndex());
                     if (ti != null) {
@@ -268,16 +280,17 @@ public final class DynamicModelImpl implements DynamicModel {
                 }
             }
         }
-        for (AttributeColumn col : attributeModel.getNodeTable().getColumns()) {
+        for (AttributeColumn col : attributeModel.getEdgeTable().getColumns()) {
             if (col.getType().isDynamicType()) {
                 edgeDynamicColumns.add(col);
             }
         }
-        dynamicCols = nodeDynamicColumns.toArray(new AttributeColumn[0]);
+        dynamicCols = edgeDynamicColumns.toArray(new AttributeColumn[0]);
         if (dynamicCols.length > 0) {
             Graph graph = graphModel.getGraph();
             for (Edge e : graph.getEdges()) {
                 Attributes attributeRow = e.getEdgeData().getAttributes();
+                timeIntervalIndex.addElement(e, (TimeInterval) attributeRow.getValue(TIMEINTERVAL_COLUMN));
                 for (int i = 0; i < dynamicCols.length; i++) {
                     DynamicType<?> ti = (DynamicType) attributeRow.getValue(dynamicCols[i].getIndex());
                     if (ti != null) {
@@ -290,14 +303,23 @@ public final class DynamicModelImpl implements DynamicModel {
         }
     }
 
+    private Object getElement(Object object) {
+        if (object instanceof NodeData) {
+            return ((NodeData) object).getRootNode();
+        } else if (object instanceof EdgeData) {
+            return ((EdgeData) object).getEdge();
+        }
+        return null;
+    }
+
     @Override
     public DynamicGraph createDynamicGraph(Graph graph) {
-        return new DynamicGraphImpl(graph);
+        return new DynamicGraphImpl(graph, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, timeIntervalIndex);
     }
 
     @Override
     public DynamicGraph createDynamicGraph(Graph graph, Interval interval) {
-        return new DynamicGraphImpl(graph, interval.getLow(), interval.getHigh());
+        return new DynamicGraphImpl(graph, interval.getLow(), interval.getHigh(), timeIntervalIndex);
     }
 
     @Override
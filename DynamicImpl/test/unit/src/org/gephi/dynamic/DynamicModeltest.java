@@ -46,8 +46,11 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.dynamic;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.gephi.data.attributes.type.Interval;
+import org.gephi.data.attributes.type.TimeInterval;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -113,6 +116,47 @@ public class DynamicModeltest {
 
     }
 
+    @Test
+    public void testElementEvents() {
+
+        DynamicIndex dynamicIndex = new DynamicIndex(null);
+
+        Object element1 = new Object();
+        Object element2 = new Object();
+        Object element3 = new Object();
+
+        dynamicIndex.addElement(element1, new TimeInterval(2000, 2005));
+        dynamicIndex.addElement(element2, new TimeInterval(2003, 2010));
+        dynamicIndex.addElement(element3, new TimeInterval(1990, Double.POSITIVE_INFINITY));
+
+        Set<Object> elements = new HashSet<Object>();
+        dynamicIndex.getElements(new Interval(2000, 2001), new Interval(2002, 2004), elements);
+        assertEquals(1, elements.size());
+        assertTrue(elements.contains(element2));
+
+        elements.clear();
+        dynamicIndex.getElements(new Interval(2002, 2004), new Interval(2006, 2008), elements);
+        assertEquals(1, elements.size());
+        assertTrue(elements.contains(element1));
+
+        elements.clear();
+        dynamicIndex.getElements(new Interval(2002, 2004), new Interval(2002, 2004), elements);
+        assertTrue(elements.isEmpty());
+
+        int version = dynamicIndex.getElementVersion();
+        dynamicIndex.addElement(element1, new TimeInterval(2020, 2030));
+        assertTrue(dynamicIndex.getElementVersion() != version);
+        elements.clear();
+        dynamicIndex.getElements(new Interval(2002, 2004), new Interval(2006, 2008), elements);
+        assertTrue(elements.isEmpty());
+
+        dynamicIndex.removeElement(element3);
+        elements.clear();
+        dynamicIndex.getElements(new Interval(Double.NEGATIVE_INFINITY, 1980), new Interval(1995, 2040), elements);
+        assertEquals(2, elements.size());
+        assertFalse(elements.contains(element3));
+    }
+
     private void printIntervals(List<Interval<Integer>> intervals) {
         System.out.println("--");
         for (Interval<Integer> i : intervals) {
@@ -42,18 +42,17 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.io.exporter.plugin;
 
-import java.awt.Color;
 import java.io.Writer;
+import javanet.staxutils.IndentingXMLStreamWriter;
+import javax.xml.stream.XMLOutputFactory;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import org.gephi.data.attributes.api.AttributeColumn;
@@ -69,6 +68,7 @@ import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.NodeData;
+import org.gephi.graph.api.NodeIterable;
 import org.gephi.io.exporter.api.FileType;
 import org.gephi.io.exporter.spi.GraphExporter;
 import org.gephi.io.exporter.spi.CharacterExporter;
@@ -78,16 +78,20 @@ import org.gephi.utils.progress.Progress;
 import org.gephi.utils.progress.ProgressTicket;
 import org.openide.util.NbBundle;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Text;
 
 /**
+ * GraphML exporter. Elements are streamed to the writer as the graph is
+ * traversed, so no document is built in memory.
+ * <p>
+ * Attributes are written in the same alphabetical order and with the same
+ * indentation as the DOM serializer this exporter used before.
  *
  * @author Sebastien Heymann
  * @author Mathieu Bastian
  */
 public class ExporterGraphML implements GraphExporter, CharacterExporter, LongTask {
 
+    private static final String GRAPHML_NAMESPACE = "http://graphml.graphdrawing.org/xmlns";
     private boolean cancel = false;
     private ProgressTicket progressTicket;
     private Workspace workspace;
@@ -125,16 +129,29 @@ public class ExporterGraphML implements GraphExporter, CharacterExporter, LongTa
         }
         DynamicModel dynamicModel = workspace.getLookup().lookup(DynamicModel.class);
         visibleInterval = dynamicModel != null && exportVisible ? dynamicModel.getVisibleInterval() : new TimeInterval();
+
         try {
-            exportData(createDocument(), graph, attributeModel);
+            XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+            outputFactory.setProperty("javax.xml.stream.isRepairingNamespaces", Boolean.FALSE);
+
+            IndentingXMLStreamWriter indentingWriter = new IndentingXMLStreamWriter(outputFactory.createXMLStreamWriter(writer));
+            indentingWriter.setIndent("    ");
+            exportData(indentingWriter, graph);
         } catch (Exception e) {
             graph.readUnlockAll();
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
             throw new RuntimeException(e);
         }
 
         return !cancel;
     }
 
+    /**
+     * @deprecated GraphML is now streamed to the writer, use {@link #execute()}
+     */
+    @Deprecated
     public Document createDocument() throws ParserConfigurationException {
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         DocumentBuilder documentBuilder = factory.newDocumentBuilder();
@@ -144,33 +161,47 @@ public class ExporterGraphML implements GraphExporter, CharacterExporter, LongTa
         return document;
     }
 
-    private void transform(Document document) throws TransformerConfigurationException, TransformerException {
-        Source source = new DOMSource(document);
-        Result result = new StreamResult(writer);
-        Transformer transformer = TransformerFactory.newInstance().newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-        transformer.transform(source, result);
-    }
-
-    /*
-    public Schema getSchema() {
-    try {
-    SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-    return sf.newSchema(new URL("http://www.gexf.net/1.1draft/gexf.xsd"));
-    } catch (MalformedURLException ex) {
-    Exceptions.printStackTrace(ex);
-    } catch (SAXException ex) {
-    Exceptions.printStackTrace(ex);
-    }
-    return null;
-    }
+    /**
+     * Builds the GraphML tree into <code>document</code> and, unless cancelled,
+     * serializes it to the writer.
+     * @deprecated GraphML is now streamed to the writer, use {@link #execute()}
      */
+    @Deprecated
     public boolean exportData(Document document, HierarchicalGraph graph, AttributeModel model) throws Exception {
-        Progress.start(progressTicket);
+        attributeModel = model;
+        if (graphModel == null) {
+            graphModel = graph.getGraphModel();
+        }
+        if (visibleInterval == null) {
+            visibleInterval = new TimeInterval();
+        }
+
+        XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+        outputFactory.setProperty("javax.xml.stream.isRepairingNamespaces", Boolean.FALSE);
+        exportData(outputFactory.createXMLStreamWriter(new DOMResult(document)), graph);
 
+        if (!cancel) {
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+            transformer.transform(new DOMSource(document), new StreamResult(writer));
+        }
+        return !cancel;
+    }
+
+    private void exportData(XMLStreamWriter xmlWriter, HierarchicalGraph graph) throws Exception {
+        Progress.start(progressTicket);
         graph.readLock();
+        try {
+            writeData(xmlWriter, graph);
+        } finally {
+            graph.readUnlockAll();
+        }
+
+        Progress.finish(progressTicket);
+    }
 
+    private void writeData(XMLStreamWriter xmlWriter, HierarchicalGraph graph) throws Exception {
         //Options
         calculateMinMax(graph);
 
@@ -184,108 +215,41 @@ public class ExporterGraphML implements GraphExporter, CharacterExporter, LongTa
         }
         Progress.switchToDeterminate(progressTicket, max);
 
-        Element root = document.createElementNS("http://graphml.graphdrawing.org/xmlns", "graphml");
-        document.appendChild(root);
+        xmlWriter.writeStartDocument("UTF-8", "1.0");
+        xmlWriter.setDefaultNamespace(GRAPHML_NAMESPACE);
+        xmlWriter.writeStartElement("", "graphml", GRAPHML_NAMESPACE);
+        xmlWriter.writeDefaultNamespace(GRAPHML_NAMESPACE);
 
-        createKeys(document, root);
+        writeKeys(xmlWriter);
+        writeGraph(xmlWriter, graph);
 
-        Element graphE = createGraph(document, graph);
-        root.appendChild(graphE);
-
-        graph.readUnlockAll();
-
-        if (!cancel) {
-            transform(document);
-        }
-
-        Progress.finish(progressTicket);
-        return !cancel;
+        xmlWriter.writeEndElement();
+        xmlWriter.writeEndDocument();
+        xmlWriter.close();
     }
 
-    private void createKeys(Document document, Element root) {
-        Element nodeLabelKeyE = document.createElement("key");
-        nodeLabelKeyE.setAttribute("id", "label");
-        nodeLabelKeyE.setAttribute("attr.name", "label");
-        nodeLabelKeyE.setAttribute("attr.type", "string");
-        nodeLabelKeyE.setAttribute("for", "node");
-        root.appendChild(nodeLabelKeyE);
-
-        Element edgeLabelKeyE = document.createElement("key");
-        edgeLabelKeyE.setAttribute("id", "edgelabel");
-        edgeLabelKeyE.setAttribute("attr.name", "Edge Label");
-        edgeLabelKeyE.setAttribute("attr.type", "string");
-        edgeLabelKeyE.setAttribute("for", "edge");
-        root.appendChild(edgeLabelKeyE);
-
-        Element weightKeyE = document.createElement("key");
-        weightKeyE.setAttribute("id", "weight");
-        weightKeyE.setAttribute("attr.name", "weight");
-        weightKeyE.setAttribute("attr.type", "double");
-        weightKeyE.setAttribute("for", "edge");
-        root.appendChild(weightKeyE);
-
-        Element edgeIdKeyE = document.createElement("key");
-        edgeIdKeyE.setAttribute("id", "edgeid");
-        edgeIdKeyE.setAttribute("attr.name", "Edge Id");
-        edgeIdKeyE.setAttribute("attr.type", "string");
-        edgeIdKeyE.setAttribute("for", "edge");
-        root.appendChild(edgeIdKeyE);
+    private void writeKeys(XMLStreamWriter xmlWriter) throws Exception {
+        writeKey(xmlWriter, "label", "label", "string", "node");
+        writeKey(xmlWriter, "edgelabel", "Edge Label", "string", "edge");
+        writeKey(xmlWriter, "weight", "weight", "double", "edge");
+        writeKey(xmlWriter, "edgeid", "Edge Id", "string", "edge");
 
         if (exportColors) {
-            Element colorRKeyE = document.createElement("key");
-            colorRKeyE.setAttribute("id", "r");
-            colorRKeyE.setAttribute("attr.name", "r");
-            colorRKeyE.setAttribute("attr.type", "int");
-            colorRKeyE.setAttribute("for", "node");
-            root.appendChild(colorRKeyE);
-
-            Element colorGKeyE = document.createElement("key");
-            colorGKeyE.setAttribute("id", "g");
-            colorGKeyE.setAttribute("attr.name", "g");
-            colorGKeyE.setAttribute("attr.type", "int");
-            colorGKeyE.setAttribute("for", "node");
-            root.appendChild(colorGKeyE);
-
-            Element colorBKeyE = document.createElement("key");
-            colorBKeyE.setAttribute("id", "b");
-            colorBKeyE.setAttribute("attr.name", "b");
-            colorBKeyE.setAttribute("attr.type", "int");
-            colorBKeyE.setAttribute("for", "node");
-            root.appendChild(colorBKeyE);
+            writeKey(xmlWriter, "r", "r", "int", "node");
+            writeKey(xmlWriter, "g", "g", "int", "node");
+            writeKey(xmlWriter, "b", "b", "int", "node");
         }
 
         if (exportPosition) {
-            Element positionKeyE = document.createElement("key");
-            positionKeyE.setAttribute("id", "x");
-            positionKeyE.setAttribute("attr.name", "x");
-            positionKeyE.setAttribute("attr.type", "float");
-            positionKeyE.setAttribute("for", "node");
-            root.appendChild(positionKeyE);
-
-            Element positionKey2E = document.createElement("key");
-            positionKey2E.setAttribute("id", "y");
-            positionKey2E.setAttribute("attr.name", "y");
-            positionKey2E.setAttribute("attr.type", "float");
-            positionKey2E.setAttribute("for", "node");
-            root.appendChild(positionKey2E);
-            
+            writeKey(xmlWriter, "x", "x", "float", "node");
+            writeKey(xmlWriter, "y", "y", "float", "node");
             if (minZ != 0f || maxZ != 0f) {
-                Element positionKey3E = document.createElement("key");
-                positionKey3E.setAttribute("id", "z");
-                positionKey3E.setAttribute("attr.name", "z");
-                positionKey3E.setAttribute("attr.type", "float");
-                positionKey3E.setAttribute("for", "node");
-                root.appendChild(positionKey3E);
+                writeKey(xmlWriter, "z", "z", "float", "node");
             }
         }
 
         if (exportSize) {
-            Element sizeKeyE = document.createElement("key");
-            sizeKeyE.setAttribute("id", "size");
-            sizeKeyE.setAttribute("attr.name", "size");
-            sizeKeyE.setAttribute("attr.type", "float");
-            sizeKeyE.setAttribute("for", "node");
-            root.appendChild(sizeKeyE);
+            writeKey(xmlWriter, "size", "size", "float", "node");
         }
 
         //Attributes
@@ -293,137 +257,120 @@ public class ExporterGraphML implements GraphExporter, CharacterExporter, LongTa
             //Node attributes
             for (AttributeColumn column : attributeModel.getNodeTable().getColumns()) {
                 if (!column.getOrigin().equals(AttributeOrigin.PROPERTY)) {
-                    Element attributeE = createAttribute(document, column);
-                    attributeE.setAttribute("for", "node");
-                    root.appendChild(attributeE);
+                    writeAttribute(xmlWriter, column, "node");
                 }
             }
 
             for (AttributeColumn column : attributeModel.getEdgeTable().getColumns()) {
                 if (!column.getOrigin().equals(AttributeOrigin.PROPERTY)) {
                     //Data or computed
-                    Element attributeE = createAttribute(document, column);
-                    attributeE.setAttribute("for", "edge");
-                    root.appendChild(attributeE);
+                    writeAttribute(xmlWriter, column, "edge");
                 }
             }
         }
     }
 
-    private Element createGraph(Document document, Graph graph) throws Exception {
-        Element graphE = document.createElement("graph");
-
-        if (graphModel.isDirected()) {
-            graphE.setAttribute("edgedefault", "directed");
-        } else {
-            graphE.setAttribute("edgedefault", "undirected"); // defaultValue
-        }
-
-        //Nodes
-        createNodes(document, graphE, graph, null);
-
-        //Edges
-        createEdges(document, graphE, graph);
-
-        return graphE;
+    private void writeKey(XMLStreamWriter xmlWriter, String id, String name, String type, String keyFor) throws Exception {
+        xmlWriter.writeEmptyElement("key");
+        xmlWriter.writeAttribute("attr.name", name);
+        xmlWriter.writeAttribute("attr.type", type);
+        xmlWriter.writeAttribute("for", keyFor);
+        xmlWriter.writeAttribute("id", id);
     }
 
-    private Element createAttribute(Document document, AttributeColumn column) {
-        Element attributeE = document.createElement("key");
-        attributeE.setAttribute("id", column.getId());
-        attributeE.setAttribute("attr.name", column.getTitle());
+    private void writeAttribute(XMLStreamWriter xmlWriter, AttributeColumn column, String keyFor) throws Exception {
+        String type;
         switch (column.getType()) {
             case INT:
-                attributeE.setAttribute("attr.type", "int");
+                type = "int";
                 break;
             default:
-                attributeE.setAttribute("attr.type", column.getType().getTypeString().toLowerCase());
+                type = column.getType().getTypeString().toLowerCase();
                 break;
         }
-        if (column.getDefaultValue() != null) {
-            Element defaultE = document.createElement("default");
-            Text defaultTextE = document.createTextNode(column.getDefaultValue().toString());
-            defaultE.appendChild(defaultTextE);
-        }
-        return attributeE;
+        writeKey(xmlWriter, column.getId(), column.getTitle(), type, keyFor);
     }
 
-    private Element createNodeAttvalue(Document document, AttributeColumn column, Node n) throws Exception {
-        int index = column.getIndex();
-        if (n.getNodeData().getAttributes().getValue(index) != null) {
-            Object val = n.getNodeData().getAttributes().getValue(index);
-            val = DynamicUtilities.getDynamicValue(val, visibleInterval.getLow(), visibleInterval.getHigh());
-            String value = val.toString();
-            String id = column.getId();
-
-            Element attvalueE = document.createElement("data");
-            attvalueE.setAttribute("key", id);
-            attvalueE.setTextContent(value);
-            return attvalueE;
+    private void writeGraph(XMLStreamWriter xmlWriter, Graph graph) throws Exception {
+        HierarchicalGraph hgraph = graphModel.getHierarchicalGraph();
+        //Counts don't create iterables, which would keep the read lock until exhausted
+        boolean empty;
+        if (exportHierarchy && graphModel.isHierarchical()) {
+            empty = hgraph.getNodeCount() == 0;
+        } else {
+            empty = graph.getNodeCount() == 0 && hgraph.getTotalEdgeCount() == 0;
+        }
+        if (empty) {
+            xmlWriter.writeEmptyElement("graph");
+            writeEdgeDefault(xmlWriter);
+            return;
         }
-        return null;
-    }
 
-    private Element createEdgeAttvalue(Document document, AttributeColumn column, Edge e) throws Exception {
-        int index = column.getIndex();
-        if (e.getEdgeData().getAttributes().getValue(index) != null) {
-            Object val = e.getEdgeData().getAttributes().getValue(index);
-            val = DynamicUtilities.getDynamicValue(val, visibleInterval.getLow(), visibleInterval.getHigh());
-            String value = val.toString();
-            String id = column.getId();
+        xmlWriter.writeStartElement("graph");
+        writeEdgeDefault(xmlWriter);
+
+        //Nodes
+        writeNodes(xmlWriter, graph, null);
+
+        //Edges
+        writeEdges(xmlWriter);
+
+        xmlWriter.writeEndElement();
+    }
 
-            Element attvalueE = document.createElement("data");
-            attvalueE.setAttribute("key", id);
-            attvalueE.setTextContent(value);
-            return attvalueE;
+    private void writeEdgeDefault(XMLStreamWriter xmlWriter) throws Exception {
+        if (graphModel.isDirected()) {
+            xmlWriter.writeAttribute("edgedefault", "directed");
+        } else {
+            xmlWriter.writeAttribute("edgedefault", "undirected"); // defaultValue
         }
-        return null;
     }
 
-    private void createNodes(Document document, Element parentE, Graph graph, Node nodeParent) throws Exception {
+    private void writeNodes(XMLStreamWriter xmlWriter, Graph graph, Node nodeParent) throws Exception {
 
         if (nodeParent != null) {
-            Element graphE = document.createElement("graph");
+            xmlWriter.writeStartElement("graph");
+            writeEdgeDefault(xmlWriter);
 
-            if (graphModel.isDirected()) {
-                graphE.setAttribute("edgedefault", "directed");
-            } else {
-                graphE.setAttribute("edgedefault", "undirected"); // defaultValue
-            }
             // we are inside the tree
             HierarchicalGraph hgraph = graphModel.getHierarchicalGraph();
             for (Node n : hgraph.getChildren(nodeParent)) {
-                Element childE = createNode(document, graph, n);
-                graphE.appendChild(childE);
+                writeNode(xmlWriter, graph, n);
             }
-            parentE.appendChild(graphE);
+            xmlWriter.writeEndElement();
         } else if (exportHierarchy && graphModel.isHierarchical()) {
             // we are on the top of the tree
             HierarchicalGraph hgraph = graphModel.getHierarchicalGraph();
             for (Node n : hgraph.getTopNodes()) {
-                Element nodeE = createNode(document, hgraph, n);
-                parentE.appendChild(nodeE);
+                writeNode(xmlWriter, hgraph, n);
             }
         } else {
             // there is no tree
-            for (Node n : graph.getNodes()) {
+            NodeIterable nodes = graph.getNodes();
+            for (Node n : nodes) {
                 if (cancel) {
+                    nodes.doBreak();
                     break;
                 }
-                Element nodeE = createNode(document, graph, n);
-                parentE.appendChild(nodeE);
+                writeNode(xmlWriter, graph, n);
             }
         }
     }
 
-    private Element createNode(Document document, Graph graph, Node n) throws Exception {
-        Element nodeE = document.createElement("node");
-        nodeE.setAttribute("id", n.getNodeData().getId());
+    private void writeNode(XMLStreamWriter xmlWriter, Graph graph, Node n) throws Exception {
+        if (isEmptyNode(n)) {
+            xmlWriter.writeEmptyElement("node");
+            xmlWriter.writeAttribute("id", n.getNodeData().getId());
+            Progress.progress(progressTicket);
+            return;
+        }
+
+        xmlWriter.writeStartElement("node");
+        xmlWriter.writeAttribute("id", n.getNodeData().getId());
 
         //Label
         if (n.getNodeData().getLabel() != null && !n.getNodeData().getLabel().isEmpty()) {
-            Element labelE = createNodeLabel(document, n);
-            nodeE.appendChild(labelE);
+            writeData(xmlWriter, "label", n.getNodeData().getLabel());
         }
 
         //Attribute values
@@ -431,37 +378,43 @@ public class ExporterGraphML implements GraphExporter, CharacterExporter, LongTa
             for (AttributeColumn column : attributeModel.getNodeTable().getColumns()) {
                 if (!column.getOrigin().equals(AttributeOrigin.PROPERTY)) {
                     //Data or computed
-                    Element attvalueE = createNodeAttvalue(document, column, n);
-                    if (attvalueE != null) {
-                        nodeE.appendChild(attvalueE);
-                    }
+                    writeAttValue(xmlWriter, column, n.getNodeData().getAttributes().getValue(column.getIndex()));
                 }
             }
         }
 
         //Viz
         if (exportSize) {
-            Element sizeE = createNodeSize(document, n);
-            nodeE.appendChild(sizeE);
+            float size = n.getNodeData().getSize();
+            if (normalize) {
+                size = (size - minSize) / (maxSize - minSize);
+            }
+            writeData(xmlWriter, "size", "" + size);
         }
         if (exportColors) {
-            Element colorE = createNodeColorR(document, n);
-            nodeE.appendChild(colorE);
-
-            colorE = createNodeColorG(document, n);
-            nodeE.appendChild(colorE);
-
-            colorE = createNodeColorB(document, n);
-            nodeE.appendChild(colorE);
+            writeData(xmlWriter, "r", "" + Math.round(n.getNodeData().r() * 255f));
+            writeData(xmlWriter, "g", "" + Math.round(n.getNodeData().g() * 255f));
+            writeData(xmlWriter, "b", "" + Math.round(n.getNodeData().b() * 255f));
         }
         if (exportPosition) {
-            Element positionXE = createNodePositionX(document, n);
-            nodeE.appendChild(positionXE);
-            Element positionYE = createNodePositionY(document, n);
-            nodeE.appendChild(positionYE);
+            float x = n.getNodeData().x();
+            if (normalize && x != 0.0) {
+                x = (x - minX) / (maxX - minX);
+            }
+            writeData(xmlWriter, "x", "" + x);
+
+            float y = n.getNodeData().y();
+            if (normalize && y != 0.0) {
+                y = (y - minY) / (maxY - minY);
+            }
+            writeData(xmlWriter, "y", "" + y);
+
             if (minZ != 0f || maxZ != 0f) {
-                Element positionZE = createNodePositionZ(document, n);
-                nodeE.appendChild(positionZE);
+                float z = n.getNodeData().z();
+                if (normalize && z != 0.0) {
+                    z = (z - minZ) / (maxZ - minZ);
+                }
+                writeData(xmlWriter, "z", "" + z);
             }
         }
 
@@ -470,176 +423,113 @@ public class ExporterGraphML implements GraphExporter, CharacterExporter, LongTa
             HierarchicalGraph hgraph = graphModel.getHierarchicalGraph();
             int childCount = hgraph.getChildrenCount(n);
             if (childCount != 0) {
-                createNodes(document, nodeE, graph, n);
+                writeNodes(xmlWriter, graph, n);
             }
         }
-        Progress.progress(progressTicket);
 
-        return nodeE;
+        xmlWriter.writeEndElement();
+        Progress.progress(progressTicket);
     }
 
-    private void createEdges(Document document, Element edgesE, Graph graph) throws Exception {
+    /**
+     * Returns <code>true</code> if <code>n</code> has no data or nested graph
+     * to write, in which case it is written as an empty element.
+     */
+    private boolean isEmptyNode(Node n) {
+        if (exportSize || exportColors || exportPosition) {
+            return false;
+        }
+        if (n.getNodeData().getLabel() != null && !n.getNodeData().getLabel().isEmpty()) {
+            return false;
+        }
+        if (attributeModel != null && exportAttributes) {
+            for (AttributeColumn column : attributeModel.getNodeTable().getColumns()) {
+                if (!column.getOrigin().equals(AttributeOrigin.PROPERTY)
+                        && n.getNodeData().getAttributes().getValue(column.getIndex()) != null) {
+                    return false;
+                }
+            }
+        }
+        if (exportHierarchy && graphModel.isHierarchical()) {
+            return graphModel.getHierarchicalGraph().getChildrenCount(n) == 0;
+        }
+        return true;
+    }
 
-        EdgeIterable it;
+    private EdgeIterable getEdges() {
         HierarchicalGraph hgraph = graphModel.getHierarchicalGraph();
         if (exportHierarchy && graphModel.isHierarchical()) {
-            it = hgraph.getEdgesTree();
+            return hgraph.getEdgesTree();
         } else {
-            it = hgraph.getEdgesAndMetaEdges();
+            return hgraph.getEdgesAndMetaEdges();
         }
-        for (Edge e : it.toArray()) {
+    }
+
+    private void writeEdges(XMLStreamWriter xmlWriter) throws Exception {
+        EdgeIterable edges = getEdges();
+        for (Edge e : edges) {
             if (cancel) {
+                edges.doBreak();
                 break;
             }
-            Element edgeE = createEdge(document, e);
-            edgesE.appendChild(edgeE);
+            writeEdge(xmlWriter, e);
         }
     }
 
-    private Element createEdge(Document document, Edge e) throws Exception {
-        Element edgeE = document.createElement("edge");
+    private void writeEdge(XMLStreamWriter xmlWriter, Edge e) throws Exception {
+        xmlWriter.writeStartElement("edge");
 
-        edgeE.setAttribute("source", e.getSource().getNodeData().getId());
-        edgeE.setAttribute("target", e.getTarget().getNodeData().getId());
+        xmlWriter.writeAttribute("source", e.getSource().getNodeData().getId());
+        xmlWriter.writeAttribute("target", e.getTarget().getNodeData().getId());
+
+        if (e.isDirected() && !graphModel.isDirected()) {
+            xmlWriter.writeAttribute("type", "directed");
+        } else if (!e.isDirected() && graphModel.isDirected()) {
+            xmlWriter.writeAttribute("type", "undirected");
+        }
 
         if (e.getEdgeData().getId() != null && !e.getEdgeData().getId().isEmpty() && !String.valueOf(e.getId()).equals(e.getEdgeData().getId())) {
-            Element idE = createEdgeId(document, e);
-            edgeE.appendChild(idE);
+            writeData(xmlWriter, "edgeid", e.getEdgeData().getId());
         }
 
         //Label
         if (e.getEdgeData().getLabel() != null && !e.getEdgeData().getLabel().isEmpty()) {
-            Element labelE = createEdgeLabel(document, e);
-            edgeE.appendChild(labelE);
+            writeData(xmlWriter, "edgelabel", e.getEdgeData().getLabel());
         }
 
-        Element weightE = createEdgeWeight(document, e);
-        edgeE.appendChild(weightE);
-
-        if (e.isDirected() && !graphModel.isDirected()) {
-            edgeE.setAttribute("type", "directed");
-        } else if (!e.isDirected() && graphModel.isDirected()) {
-            edgeE.setAttribute("type", "undirected");
-        }
+        writeData(xmlWriter, "weight", Float.toString(e.getWeight(visibleInterval.getLow(), visibleInterval.getHigh())));
 
         //Attribute values
         if (attributeModel != null) {
             for (AttributeColumn column : attributeModel.getEdgeTable().getColumns()) {
                 if (!column.getOrigin().equals(AttributeOrigin.PROPERTY)) {
                     //Data or computed
-                    Element attvalueE = createEdgeAttvalue(document, column, e);
-                    if (attvalueE != null) {
-                        edgeE.appendChild(attvalueE);
-                    }
+                    writeAttValue(xmlWriter, column, e.getEdgeData().getAttributes().getValue(column.getIndex()));
                 }
             }
         }
-        Progress.progress(progressTicket);
-
-        return edgeE;
-    }
-
-    private Element createNodeSize(Document document, Node n) throws Exception {
-        Element sizeE = document.createElement("data");
-        float size = n.getNodeData().getSize();
-        if (normalize) {
-            size = (size - minSize) / (maxSize - minSize);
-        }
-        sizeE.setAttribute("key", "size");
-        sizeE.setTextContent("" + size);
-
-        return sizeE;
-    }
-
-    private Element createNodeColorR(Document document, Node n) throws Exception {
-        int r = Math.round(n.getNodeData().r() * 255f);
-        Element colorE = document.createElement("data");
-        colorE.setAttribute("key", "r");
-        colorE.setTextContent("" + r);
-        return colorE;
-    }
-
-    private Element createNodeColorG(Document document, Node n) throws Exception {
-        int g = Math.round(n.getNodeData().g() * 255f);
-        Element colorE = document.createElement("data");
-        colorE.setAttribute("key", "g");
-        colorE.setTextContent("" + g);
-        return colorE;
-    }
 
-    private Element createNodeColorB(Document document, Node n) throws Exception {
-        int b = Math.round(n.getNodeData().b() * 255f);
-        Element colorE = document.createElement("data");
-        colorE.setAttribute("key", "b");
-        colorE.setTextContent("" + b);
-        return colorE;
+        xmlWriter.writeEndElement();
+        Progress.progress(progressTicket);
     }
 
-    private Element createNodePositionX(Document document, Node n) throws Exception {
-        Element positionXE = document.createElement("data");
-        float x = n.getNodeData().x();
-        if (normalize && x != 0.0) {
-            x = (x - minX) / (maxX - minX);
+    private void writeAttValue(XMLStreamWriter xmlWriter, AttributeColumn column, Object val) throws Exception {
+        if (val != null) {
+            val = DynamicUtilities.getDynamicValue(val, visibleInterval.getLow(), visibleInterval.getHigh());
+            writeData(xmlWriter, column.getId(), val.toString());
         }
-        positionXE.setAttribute("key", "x");
-        positionXE.setTextContent("" + x);
-        return positionXE;
     }
 
-    private Element createNodePositionY(Document document, Node n) throws Exception {
-        Element positionYE = document.createElement("data");
-        float y = n.getNodeData().y();
-        if (normalize && y != 0.0) {
-            y = (y - minY) / (maxY - minY);
-        }
-        positionYE.setAttribute("key", "y");
-        positionYE.setTextContent("" + y);
-
-        return positionYE;
-    }
-
-    private Element createNodePositionZ(Document document, Node n) throws Exception {
-        Element positionZE = document.createElement("data");
-        float z = n.getNodeData().z();
-        if (normalize && z != 0.0) {
-            z = (z - minZ) / (maxZ - minZ);
+    private void writeData(XMLStreamWriter xmlWriter, String key, String value) throws Exception {
+        if (value.isEmpty()) {
+            xmlWriter.writeEmptyElement("data");
+            xmlWriter.writeAttribute("key", key);
+        } else {
+            xmlWriter.writeStartElement("data");
+            xmlWriter.writeAttribute("key", key);
+            xmlWriter.writeCharacters(value);
+            xmlWriter.writeEndElement();
         }
-        positionZE.setAttribute("key", "z");
-        positionZE.setTextContent("" + z);
-
-        return positionZE;
-    }
-
-    private Element createNodeLabel(Document document, Node n) throws Exception {
-        Element labelE = document.createElement("data");
-        labelE.setAttribute("key", "label");
-        labelE.setTextContent(n.getNodeData().getLabel());
-
-        return labelE;
-    }
-
-    private Element createEdgeId(Document document, Edge e) throws Exception {
-        Element idE = document.createElement("data");
-        idE.setAttribute("key", "edgeid");
-        idE.setTextContent(e.getEdgeData().getId());
-
-        return idE;
-    }
-
-    private Element createEdgeWeight(Document document, Edge e) throws Exception {
-        Element weightE = document.createElement("data");
-        weightE.setAttribute("key", "weight");
-        weightE.setTextContent(Float.toString(e.getWeight(visibleInterval.getLow(), visibleInterval.getHigh())));
-
-        return weightE;
-    }
-
-    private Element createEdgeLabel(Document document, Edge e) throws Exception {
-        Element labelE = document.createElement("data");
-        labelE.setAttribute("key", "edgelabel");
-        labelE.setTextContent(e.getEdgeData().getLabel());
-
-        return labelE;
     }
 
     private void calculateMinMax(Graph graph) {
@@ -42,36 +42,109 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.filters;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.data.attributes.api.AttributeController;
+import org.gephi.data.attributes.api.AttributeModel;
+import org.gephi.data.attributes.type.TimeInterval;
+import org.gephi.dynamic.api.DynamicController;
+import org.gephi.dynamic.api.DynamicModel;
+import org.gephi.filters.api.Range;
 import org.gephi.filters.spi.ComplexFilter;
 import org.gephi.filters.spi.EdgeFilter;
 import org.gephi.filters.spi.Filter;
+import org.gephi.filters.spi.FilterProperty;
 import org.gephi.filters.spi.NodeFilter;
 import org.gephi.filters.spi.Operator;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.HierarchicalDirectedGraph;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
+import org.openide.util.Lookup;
 
 /**
+ * Executes queries and returns the resulting graph.
+ * <p>
+ * Results of node and edge filters are memoized between two calls to
+ * {@link #process(AbstractQueryImpl, GraphModel)} as long as the graph structure
+ * attribute values, the visible interval and the filter parameters are
+ * unchanged. When only the {@link Range} of a
+ * filter changes, elements are re-evaluated only where the new range can
+ * change the result. Keep the same processor to benefit from this, as
+ * <code>FilterThread</code> does while parameters are being modified.
  *
  * @author Mathieu Bastian
  */
 public class FilterProcessor {
 
+    private static final int FULL = 0;
+    private static final int NARROW = 1;
+    private static final int WIDEN = 2;
+    //Minimum number of elements to evaluate thread-safe filters in parallel
+    private static final int PARALLEL_THRESHOLD = 20000;
+    private static ExecutorService executor;
+    //Cache
+    private final Map<Filter, CachedSubset> cache = new IdentityHashMap<Filter, CachedSubset>();
+    private int nodeVersion = -1;
+    private int edgeVersion = -1;
+    private int valueVersion = -1;
+    private TimeInterval visibleInterval;
+
     public Graph process(AbstractQueryImpl query, GraphModel graphModel) {
         List<GraphView> views = new ArrayList<GraphView>();
         query = simplifyQuery(query);
         AbstractQueryImpl[] tree = getTree(query, true);
+        //Leaf node and edge filters are evaluated on the main view and their
+        //result kept as sets of ids, copied to a view only when needed.
+        HierarchicalGraph mainGraph = graphModel.getHierarchicalGraph();
+        //Operators evaluate subsets only on flat graphs, where there are no meta edges
+        boolean flat = mainGraph.getHeight() == 0;
+        int currentValueVersion = getValueVersion(graphModel);
+        TimeInterval currentVisibleInterval = getVisibleInterval(graphModel);
+        if (mainGraph.getNodeVersion() != nodeVersion || mainGraph.getEdgeVersion() != edgeVersion
+                || currentValueVersion != valueVersion
+                || (currentVisibleInterval == null ? visibleInterval != null : !currentVisibleInterval.equals(visibleInterval))) {
+            cache.clear();
+        }
+        valueVersion = currentValueVersion;
+        visibleInterval = currentVisibleInterval;
+        Map<AbstractQueryImpl, Subset> subsets = new IdentityHashMap<AbstractQueryImpl, Subset>();
         for (int i = 0; i < tree.length; i++) {
             AbstractQueryImpl q = tree[tree.length - i - 1];
             Graph[] input = new Graph[0];
+            if (q.getChildrenCount() == 0 && q instanceof FilterQueryImpl
+                    && (q.getFilter() instanceof NodeFilter || q.getFilter() instanceof EdgeFilter)) {
+                subsets.put(q, processSubset(q.getFilter(), mainGraph));
+                continue;
+            }
             if (q.getChildrenCount() > 0) {
                 input = new Graph[q.getChildrenCount()];
                 for (int j = 0; j < input.length; j++) {
-                    input[j] = q.getChildAt(j).getResult();
+                    Subset subset = subsets.remove(q.getChildAt(j));
+                    if (subset != null) {
+                        input[j] = copySubset(subset, mainGraph, graphModel, views);
+                    } else {
+                        input[j] = q.getChildAt(j).getResult();
+                    }
                 }
             } else {
                 //Leaves
@@ -90,6 +163,10 @@ public class FilterProcessor {
                 Filter[] filters = new Filter[operatorQuery.getChildrenCount()];
                 for (int k = 0; k < filters.length; k++) {
                     filters[k] = operatorQuery.getChildAt(k).getFilter();
+                    if (flat && isCacheable(filters[k])) {
+                        //The operator evaluates the memoized result instead
+                        filters[k] = SubsetFilter.create(filters[k], processSubset(filters[k], mainGraph));
+                    }
                 }
                 GraphView newView = graphModel.newView();
                 views.add(newView);
@@ -115,7 +192,8 @@ public class FilterProcessor {
                 }
             }
         }
-        Graph finalResult = tree[0].result;
+        Subset finalSubset = subsets.remove(tree[0]);
+        Graph finalResult = finalSubset != null ? copySubset(finalSubset, mainGraph, graphModel, views) : tree[0].result;
 
         //Destroy intermediate views
         GraphView finalView = finalResult.getView();
@@ -124,20 +202,289 @@ public class FilterProcessor {
                 graphModel.destroyView(v);
             }
         }
+        //Filtering modifies versions, the cache is valid for the state after this call
+        nodeVersion = mainGraph.getNodeVersion();
+        edgeVersion = mainGraph.getEdgeVersion();
+
+        //Forget filters which are no longer in the query
+        Set<Filter> filters = Collections.newSetFromMap(new IdentityHashMap<Filter, Boolean>());
+        for (AbstractQueryImpl q : getTree(query, false)) {
+            filters.add(q.getFilter());
+            for (AbstractQueryImpl child : q.children) {
+                filters.add(child.getFilter());
+            }
+        }
+        cache.keySet().retainAll(filters);
         return finalResult;
     }
 
-    private void processNodeFilter(NodeFilter nodeFilter, Graph graph) {
-        if (nodeFilter.init(graph)) {
-            List<Node> nodesToRemove = new ArrayList<Node>();
-            for (Node n : graph.getNodes()) {
-                if (!nodeFilter.evaluate(graph, n)) {
-                    nodesToRemove.add(n);
+    private int getValueVersion(GraphModel graphModel) {
+        AttributeController attributeController = Lookup.getDefault().lookup(AttributeController.class);
+        AttributeModel attributeModel = attributeController != null ? attributeController.getModel(graphModel.getWorkspace()) : null;
+        return attributeModel != null ? attributeModel.getValueVersion() : -1;
+    }
+
+    private TimeInterval getVisibleInterval(GraphModel graphModel) {
+        DynamicController dynamicController = Lookup.getDefault().lookup(DynamicController.class);
+        DynamicModel dynamicModel = dynamicController != null ? dynamicController.getModel(graphModel.getWorkspace()) : null;
+        return dynamicModel != null ? dynamicModel.getVisibleInterval() : null;
+    }
+
+    /**
+     * Evaluates a node and/or edge filter on <code>graph</code> without modifying
+     * it, and returns the ids of nodes and edges that pass. The result of the
+     * previous call with the same filter is reused when possible.
+     */
+    private Subset processSubset(Filter filter, HierarchicalGraph graph) {
+        CachedSubset cached = null;
+        if (isCacheable(filter)) {
+            cached = cache.get(filter);
+            if (cached != null && Arrays.equals(cached.parameters, getParameters(filter))) {
+                return cached.subset;
+            }
+        }
+        Subset subset = new Subset();
+        int nodeMode = FULL;
+        int edgeMode = FULL;
+        if (filter instanceof NodeFilter) {
+            NodeFilter nodeFilter = (NodeFilter) filter;
+            if (nodeFilter.init(graph)) {
+                //Init may update the range, compare once done
+                Subset previous = cached != null ? cached.subset : null;
+                int mode = cached != null ? getMode(cached.parameters, getParameters(filter)) : FULL;
+                Node[] nodes;
+                if (mode == NARROW && previous.nodes != null) {
+                    nodeMode = NARROW;
+                    subset.nodes = new BitSet();
+                    List<Node> candidates = new ArrayList<Node>();
+                    for (int i = previous.nodes.nextSetBit(0); i >= 0; i = previous.nodes.nextSetBit(i + 1)) {
+                        Node n = graph.getNode(i);
+                        if (graph.isInView(n)) {
+                            candidates.add(n);
+                        }
+                    }
+                    nodes = candidates.toArray(new Node[0]);
+                } else if (mode == WIDEN && previous.nodes != null) {
+                    nodeMode = WIDEN;
+                    subset.nodes = (BitSet) previous.nodes.clone();
+                    List<Node> candidates = new ArrayList<Node>();
+                    for (Node n : graph.getNodes()) {
+                        if (!previous.nodes.get(n.getId())) {
+                            candidates.add(n);
+                        }
+                    }
+                    nodes = candidates.toArray(new Node[0]);
+                } else {
+                    subset.nodes = new BitSet();
+                    nodes = graph.getNodes().toArray();
+                }
+                boolean[] kept = evaluate(nodeFilter, graph, nodes);
+                for (int i = 0; i < nodes.length; i++) {
+                    if (kept[i]) {
+                        subset.nodes.set(nodes[i].getId());
+                    }
+                }
+                keepHiddenNodes(subset, graph);
+                nodeFilter.finish();
+            }
+        }
+        if (filter instanceof EdgeFilter) {
+            EdgeFilter edgeFilter = (EdgeFilter) filter;
+            if (edgeFilter.init(graph)) {
+                Subset previous = cached != null ? cached.subset : null;
+                int mode = cached != null ? getMode(cached.parameters, getParameters(filter)) : FULL;
+                if (mode != FULL && previous.edges != null && (subset.nodes == null || nodeMode == mode)) {
+                    edgeMode = mode;
+                }
+                List<Edge> candidates = new ArrayList<Edge>();
+                if (edgeMode == NARROW) {
+                    subset.edges = new BitSet();
+                    for (int i = previous.edges.nextSetBit(0); i >= 0; i = previous.edges.nextSetBit(i + 1)) {
+                        Edge e = graph.getEdge(i);
+                        if (isVisible(e, graph) && isInSubset(e, subset)) {
+                            candidates.add(e);
+                        }
+                    }
+                } else {
+                    subset.edges = edgeMode == WIDEN ? (BitSet) previous.edges.clone() : new BitSet();
+                    for (Edge e : graph.getEdges()) {
+                        if ((edgeMode != WIDEN || !previous.edges.get(e.getId())) && isInSubset(e, subset)) {
+                            candidates.add(e);
+                        }
+                    }
+                }
+                Edge[] edges = candidates.toArray(new Edge[0]);
+                boolean[] kept = evaluate(edgeFilter, graph, edges);
+                for (int i = 0; i < edges.length; i++) {
+                    if (kept[i]) {
+                        subset.edges.set(edges[i].getId());
+                    }
+                }
+                keepHiddenEdges(subset, graph);
+                if (graph.getHeight() > 0) {
+                    //Meta edges depend on the copied edges, they are filtered once copied
+                    subset.metaEdgeFilter = edgeFilter;
+                }
+                edgeFilter.finish();
+            }
+        }
+        if (isCacheable(filter)) {
+            cached = new CachedSubset();
+            cached.parameters = getParameters(filter);
+            cached.subset = subset;
+            cache.put(filter, cached);
+        }
+        return subset;
+    }
+
+    /**
+     * Nodes inside collapsed groups are not evaluated and are kept, as when
+     * nodes are removed from a view. They are dropped with their group.
+     */
+    private void keepHiddenNodes(Subset subset, HierarchicalGraph graph) {
+        if (graph.getHeight() > 0) {
+            for (Node n : graph.getNodesTree()) {
+                if (!graph.isInView(n)) {
+                    subset.nodes.set(n.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Edges inside collapsed groups are not evaluated and are kept, as when
+     * edges are removed from a view. They are dropped with their nodes.
+     */
+    private void keepHiddenEdges(Subset subset, HierarchicalGraph graph) {
+        if (graph.getHeight() > 0) {
+            //The edges tree stops at collapsed groups, hidden edges are inner or outer edges of top nodes
+            HierarchicalDirectedGraph directedGraph = graph.getGraphModel().getHierarchicalDirectedGraph(graph.getView());
+            for (Node n : graph.getTopNodes().toArray()) {
+                if (graph.getChildrenCount(n) > 0) {
+                    keepHiddenEdges(subset, graph, directedGraph.getInnerEdges(n).toArray());
+                    keepHiddenEdges(subset, graph, directedGraph.getOuterEdges(n).toArray());
+                }
+            }
+        }
+    }
+
+    private void keepHiddenEdges(Subset subset, HierarchicalGraph graph, Edge[] edges) {
+        for (Edge e : edges) {
+            if (!isVisible(e, graph)) {
+                subset.edges.set(e.getId());
+            }
+        }
+    }
+
+    private boolean isVisible(Edge edge, HierarchicalGraph graph) {
+        return graph.isInView(edge.getSource()) && graph.isInView(edge.getTarget());
+    }
+
+    private boolean isInSubset(Edge edge, Subset subset) {
+        return subset.nodes == null || (subset.nodes.get(edge.getSource().getId()) && subset.nodes.get(edge.getTarget().getId()));
+    }
+
+    /**
+     * Filters can be memoized if their parameters are all immutable values
+     * that can be compared between two calls.
+     */
+    private boolean isCacheable(Filter filter) {
+        if (!(filter instanceof NodeFilter || filter instanceof EdgeFilter)) {
+            return false;
+        }
+        FilterProperty[] properties = filter.getProperties();
+        if (properties != null) {
+            for (FilterProperty property : properties) {
+                Object value = property.getValue();
+                if (value != null && !(value instanceof Number || value instanceof String
+                        || value instanceof Boolean || value instanceof Character || value instanceof Enum
+                        || value instanceof Range || value instanceof AttributeColumn)) {
+                    return false;
                 }
             }
+        }
+        return true;
+    }
+
+    private Object[] getParameters(Filter filter) {
+        FilterProperty[] properties = filter.getProperties();
+        Object[] parameters = new Object[properties == null ? 0 : properties.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Object value = properties[i].getValue();
+            if (value instanceof Range) {
+                //Ranges are mutable, keep bounds only
+                Range range = (Range) value;
+                value = new Range(range.getLowerBound(), range.getUpperBound());
+            }
+            parameters[i] = value;
+        }
+        return parameters;
+    }
+
+    /**
+     * Returns <code>NARROW</code> if the only difference between the parameters
+     * is a range contained in the old range, <code>WIDEN</code> if it contains it
+     * and <code>FULL</code> otherwise. Range filters are assumed to keep an
+     * element only if its value is in the range.
+     */
+    private int getMode(Object[] oldParameters, Object[] newParameters) {
+        if (oldParameters.length != newParameters.length) {
+            return FULL;
+        }
+        int mode = FULL;
+        for (int i = 0; i < oldParameters.length; i++) {
+            Object oldValue = oldParameters[i];
+            Object newValue = newParameters[i];
+            if (oldValue == null ? newValue == null : oldValue.equals(newValue)) {
+                continue;
+            }
+            if (mode != FULL || !(oldValue instanceof Range) || !(newValue instanceof Range)) {
+                return FULL;
+            }
+            Range oldRange = (Range) oldValue;
+            Range newRange = (Range) newValue;
+            if (!oldRange.getLowerBound().getClass().equals(newRange.getLowerBound().getClass())) {
+                return FULL;
+            }
+            int lower = compare(newRange.getLowerBound(), oldRange.getLowerBound());
+            int upper = compare(newRange.getUpperBound(), oldRange.getUpperBound());
+            if (lower >= 0 && upper <= 0) {
+                mode = NARROW;
+            } else if (lower <= 0 && upper >= 0) {
+                mode = WIDEN;
+            } else {
+                return FULL;
+            }
+        }
+        return mode;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Number a, Number b) {
+        return ((Comparable<Number>) a).compareTo(b);
+    }
+
+    private Graph copySubset(Subset subset, HierarchicalGraph mainGraph, GraphModel graphModel, List<GraphView> views) {
+        GraphView view = graphModel.copyView(mainGraph.getView(), subset.nodes, subset.edges);
+        views.add(view);
+        if (subset.metaEdgeFilter != null) {
+            HierarchicalGraph hgraph = graphModel.getHierarchicalGraph(view);
+            if (subset.metaEdgeFilter.init(hgraph)) {
+                removeMetaEdges(subset.metaEdgeFilter, hgraph);
+                subset.metaEdgeFilter.finish();
+            }
+        }
+        return graphModel.getGraph(view);
+    }
 
-            for (Node n : nodesToRemove) {
-                graph.removeNode(n);
+    private void processNodeFilter(NodeFilter nodeFilter, Graph graph) {
+        if (nodeFilter.init(graph)) {
+            Node[] nodes = graph.getNodes().toArray();
+            boolean[] kept = evaluate(nodeFilter, graph, nodes);
+            for (int i = 0; i < nodes.length; i++) {
+                if (!kept[i]) {
+                    graph.removeNode(nodes[i]);
+                }
             }
             nodeFilter.finish();
         }
@@ -146,31 +493,116 @@ public class FilterProcessor {
     private void processEdgeFilter(EdgeFilter edgeFilter, Graph graph) {
         HierarchicalGraph hgraph = (HierarchicalGraph) graph;
         if (edgeFilter.init(hgraph)) {
-            List<Edge> edgesToRemove = new ArrayList<Edge>();
-            for (Edge e : hgraph.getEdges()) {
-                if (!edgeFilter.evaluate(hgraph, e)) {
-                    edgesToRemove.add(e);
+            Edge[] edges = hgraph.getEdges().toArray();
+            boolean[] kept = evaluate(edgeFilter, hgraph, edges);
+            for (int i = 0; i < edges.length; i++) {
+                if (!kept[i]) {
+                    hgraph.removeEdge(edges[i]);
                 }
             }
 
-            for (Edge e : edgesToRemove) {
-                hgraph.removeEdge(e);
+            removeMetaEdges(edgeFilter, hgraph);
+            edgeFilter.finish();
+        }
+    }
+
+    private void removeMetaEdges(EdgeFilter edgeFilter, HierarchicalGraph hgraph) {
+        Edge[] edges = hgraph.getMetaEdges().toArray();
+        if (edges.length > 0) {
+            boolean[] kept = evaluate(edgeFilter, hgraph, edges);
+            for (int i = 0; i < edges.length; i++) {
+                if (!kept[i]) {
+                    hgraph.removeMetaEdge(edges[i]);
+                }
             }
-            edgesToRemove.clear();
+        }
+    }
+
+    /**
+     * Evaluates <code>nodes</code> and returns which ones are kept. Thread-safe
+     * filters are evaluated in parallel on large arrays.
+     */
+    private boolean[] evaluate(final NodeFilter nodeFilter, final Graph graph, final Node[] nodes) {
+        final boolean[] kept = new boolean[nodes.length];
+        execute(new Evaluation(nodeFilter instanceof ThreadSafeFilter, nodes.length) {
 
-            for (Edge e : hgraph.getMetaEdges()) {
-                if (!edgeFilter.evaluate(hgraph, e)) {
-                    edgesToRemove.add(e);
+            @Override
+            void evaluate(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    kept[i] = nodeFilter.evaluate(graph, nodes[i]);
                 }
             }
-            for (Edge e : edgesToRemove) {
-                hgraph.removeMetaEdge(e);
+        });
+        return kept;
+    }
+
+    private boolean[] evaluate(final EdgeFilter edgeFilter, final Graph graph, final Edge[] edges) {
+        final boolean[] kept = new boolean[edges.length];
+        execute(new Evaluation(edgeFilter instanceof ThreadSafeFilter, edges.length) {
+
+            @Override
+            void evaluate(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    kept[i] = edgeFilter.evaluate(graph, edges[i]);
+                }
             }
+        });
+        return kept;
+    }
 
-            edgeFilter.finish();
+    private void execute(final Evaluation evaluation) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (!evaluation.threadSafe || threads == 1 || evaluation.size < PARALLEL_THRESHOLD) {
+            evaluation.evaluate(0, evaluation.size);
+            return;
+        }
+        int chunks = Math.min(threads * 4, evaluation.size / (PARALLEL_THRESHOLD / 4));
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int from = (int) ((long) evaluation.size * c / chunks);
+            final int to = (int) ((long) evaluation.size * (c + 1) / chunks);
+            tasks.add(Executors.callable(new Runnable() {
+
+                public void run() {
+                    evaluation.evaluate(from, to);
+                }
+            }));
+        }
+        try {
+            for (Future<Object> future : getExecutor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
         }
     }
 
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+                private int count = 0;
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Filter Processor " + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
     private AbstractQueryImpl simplifyQuery(AbstractQueryImpl query) {
         AbstractQueryImpl copy = query.copy();
         for (AbstractQueryImpl q : getTree(copy, false)) {
@@ -203,4 +635,131 @@ public class FilterProcessor {
         }
         return tree.toArray(new AbstractQueryImpl[0]);
     }
+
+    /**
+     * Ids of the nodes and edges resulting from a filter, <code>null</code>
+     * when all are kept.
+     */
+    private static class Subset {
+
+        private BitSet nodes;
+        private BitSet edges;
+        //Filter of the meta edges of the copied view, on hierarchical graphs
+        private EdgeFilter metaEdgeFilter;
+    }
+
+    /**
+     * Evaluation of a range of elements, can be split in chunks.
+     */
+    private static abstract class Evaluation {
+
+        private final boolean threadSafe;
+        private final int size;
+
+        Evaluation(boolean threadSafe, int size) {
+            this.threadSafe = threadSafe;
+            this.size = size;
+        }
+
+        abstract void evaluate(int from, int to);
+    }
+
+    private static class CachedSubset {
+
+        private Object[] parameters;
+        private Subset subset;
+    }
+
+    /**
+     * Filter evaluating a memoized {@link Subset}, given to operators in place
+     * of the original filter. Implements the same filter interfaces.
+     */
+    private static class SubsetFilter implements Filter {
+
+        protected final Filter filter;
+        protected final Subset subset;
+
+        private SubsetFilter(Filter filter, Subset subset) {
+            this.filter = filter;
+            this.subset = subset;
+        }
+
+        public static Filter create(Filter filter, Subset subset) {
+            if (filter instanceof NodeFilter && filter instanceof EdgeFilter) {
+                return new NodeEdgeSubsetFilter(filter, subset);
+            } else if (filter instanceof NodeFilter) {
+                return new NodeSubsetFilter(filter, subset);
+            }
+            return new EdgeSubsetFilter(filter, subset);
+        }
+
+        public String getName() {
+            return filter.getName();
+        }
+
+        public FilterProperty[] getProperties() {
+            return filter.getProperties();
+        }
+
+        public boolean init(Graph graph) {
+            return true;
+        }
+
+        public boolean evaluate(Graph graph, Node node) {
+            return subset.nodes.get(node.getId());
+        }
+
+        public boolean evaluate(Graph graph, Edge edge) {
+            return subset.edges.get(edge.getId());
+        }
+
+        public void finish() {
+        }
+    }
+
+    private static class NodeSubsetFilter extends SubsetFilter implements NodeFilter {
+
+        private NodeSubsetFilter(Filter filter, Subset subset) {
+            super(filter, subset);
+        }
+
+        @Override
+        public boolean init(Graph graph) {
+            return subset.nodes != null;
+        }
+    }
+
+    private static class EdgeSubsetFilter extends SubsetFilter implements EdgeFilter {
+
+        private EdgeSubsetFilter(Filter filter, Subset subset) {
+            super(filter, subset);
+        }
+
+        @Override
+        public boolean init(Graph graph) {
+            return subset.edges != null;
+        }
+    }
+
+    private static class NodeEdgeSubsetFilter extends SubsetFilter implements NodeFilter, EdgeFilter {
+
+        private NodeEdgeSubsetFilter(Filter filter, Subset subset) {
+            super(filter, subset);
+        }
+
+        @Override
+        public boolean init(Graph graph) {
+            return subset.nodes != null || subset.edges != null;
+        }
+
+        @Override
+        public boolean evaluate(Graph graph, Node node) {
+            return subset.nodes == null || subset.nodes.get(node.getId());
+        }
+
+        @Override
+        public boolean evaluate(Graph graph, Edge edge) {
+            return subset.edges == null || subset.edges.get(edge.getId());
+        }
+    }
 }
@@ -70,6 +70,7 @@ public class FilterThread extends Thread {
     private boolean running = true;
     private final Object lock = new Object();
     private final boolean filtering;
+    private final FilterProcessor processor = new FilterProcessor();
 
     public FilterThread(FilterModelImpl model) {
         super("Filter Thread");
@@ -144,7 +145,6 @@ public class FilterThread extends Thread {
     }
 
     private void filter(AbstractQueryImpl query) {
-        FilterProcessor processor = new FilterProcessor();
         GraphModel graphModel = Lookup.getDefault().lookup(GraphController.class).getModel();
         Graph result = processor.process((AbstractQueryImpl) query, graphModel);
 //        System.out.println("#Nodes: " + result.getNodeCount());
@@ -163,7 +163,6 @@ public class FilterThread extends Thread {
     }
 
     private void select(AbstractQueryImpl query) {
-        FilterProcessor processor = new FilterProcessor();
         GraphModel graphModel = Lookup.getDefault().lookup(GraphController.class).getModel();
         Graph result = processor.process((AbstractQueryImpl) query, graphModel);
 //        System.out.println("#Nodes: " + result.getNodeCount());
@@ -43,11 +43,16 @@ package org.gephi.filters.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.data.attributes.api.AttributeController;
+import org.gephi.data.attributes.api.AttributeModel;
+import org.gephi.data.attributes.api.AttributeType;
 import org.gephi.filters.AbstractQueryImpl;
 import org.gephi.filters.FilterProcessor;
 import org.gephi.filters.FilterQueryImpl;
 import org.gephi.filters.OperatorQueryImpl;
 import org.gephi.filters.api.Query;
+import org.gephi.filters.api.Range;
 import org.gephi.filters.spi.EdgeFilter;
 import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterProperty;
@@ -58,11 +63,13 @@ import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphFactory;
 import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
 import org.gephi.project.api.ProjectController;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import static org.junit.Assert.*;
 import org.openide.util.Lookup;
 
 /**
@@ -151,6 +158,89 @@ public class FilterProcessorTest {
 //        printGraph(rootGraph);
     }
 
+    @Test
+    public void testProcessMemoized() {
+        FilterProcessor filterProcessor = new FilterProcessor();
+        NodeIdRangeFilter rangeFilter = new NodeIdRangeFilter();
+        Query query = new FilterQueryImpl(rangeFilter);
+
+        rangeFilter.setRange(new Range(0, 7));
+        Graph result = filterProcessor.process((AbstractQueryImpl) query, graphModel);
+        assertEquals(8, result.getNodeCount());
+        assertEquals(9, result.getEdgeCount());
+
+        //Narrow
+        rangeFilter.setRange(new Range(2, 5));
+        result = filterProcessor.process((AbstractQueryImpl) query, graphModel);
+        assertEquals(4, result.getNodeCount());
+        assertEquals(3, result.getEdgeCount());
+
+        //Widen
+        rangeFilter.setRange(new Range(1, 6));
+        result = filterProcessor.process((AbstractQueryImpl) query, graphModel);
+        assertEquals(6, result.getNodeCount());
+        assertEquals(5, result.getEdgeCount());
+
+        //Shift
+        rangeFilter.setRange(new Range(4, 7));
+        result = filterProcessor.process((AbstractQueryImpl) query, graphModel);
+        assertEquals(4, result.getNodeCount());
+        assertEquals(4, result.getEdgeCount());
+
+        //Graph modified
+        rootGraph.removeNode(rootGraph.getNode(7));
+        result = filterProcessor.process((AbstractQueryImpl) query, graphModel);
+        assertEquals(3, result.getNodeCount());
+        assertEquals(2, result.getEdgeCount());
+    }
+
+    @Test
+    public void testProcessMemoizedValueChange() {
+        AttributeModel attributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel();
+        AttributeColumn column = attributeModel.getNodeTable().addColumn("score", AttributeType.INT);
+        for (Node n : rootGraph.getNodes().toArray()) {
+            n.getNodeData().getAttributes().setValue(column.getIndex(), n.getId());
+        }
+        FilterProcessor filterProcessor = new FilterProcessor();
+        NodeAttributeRangeFilter rangeFilter = new NodeAttributeRangeFilter(column);
+        Query query = new FilterQueryImpl(rangeFilter);
+
+        rangeFilter.setRange(new Range(0, 3));
+        Graph result = filterProcessor.process((AbstractQueryImpl) query, graphModel);
+        assertEquals(4, result.getNodeCount());
+
+        //Value modified, same parameters
+        rootGraph.getNode(7).getNodeData().getAttributes().setValue(column.getIndex(), 1);
+        result = filterProcessor.process((AbstractQueryImpl) query, graphModel);
+        assertEquals(5, result.getNodeCount());
+
+        //Narrow after the modification
+        rangeFilter.setRange(new Range(1, 3));
+        result = filterProcessor.process((AbstractQueryImpl) query, graphModel);
+        assertEquals(4, result.getNodeCount());
+    }
+
+    @Test
+    public void testProcessGrouped() {
+        HierarchicalGraph hierarchicalGraph = graphModel.getHierarchicalUndirectedGraph();
+        Node[] group = new Node[]{rootGraph.getNode(4), rootGraph.getNode(5), rootGraph.getNode(6), rootGraph.getNode(7)};
+        hierarchicalGraph.groupNodes(group);
+
+        FilterProcessor filterProcessor = new FilterProcessor();
+        Query query = new FilterQueryImpl(new EdgeWeightFilter(3));
+        Graph result = filterProcessor.process((AbstractQueryImpl) query, graphModel);
+        HierarchicalGraph resultGraph = graphModel.getHierarchicalUndirectedGraph(result.getView());
+
+        //Edges inside the group are not visible, they are kept
+        assertEquals(9, resultGraph.getNodesTree().toArray().length);
+        assertEquals(0, resultGraph.getEdgeCount());
+        assertEquals(1, resultGraph.getMetaEdges().toArray().length);
+
+        //Once expanded, the group still has its inner edges
+        resultGraph.expand(resultGraph.getParent(resultGraph.getNode(group[0].getId())));
+        assertEquals(5, resultGraph.getEdgeCount());
+    }
+
     private void printGraph(Graph graph) {
         Node[] nodes = graph.getNodes().toArray();
         Edge[] edges = graph.getEdges().toArray();
@@ -253,6 +343,88 @@ public class FilterProcessorTest {
         }
     }
 
+    public static class NodeIdRangeFilter implements NodeFilter {
+
+        private Range range;
+
+        public boolean evaluate(Graph graph, Node node) {
+            return range.isInRange(node.getId());
+        }
+
+        public String getName() {
+            return "NodeIdRangeFilter";
+        }
+
+        public FilterProperty[] getProperties() {
+            try {
+                return new FilterProperty[]{
+                            FilterProperty.createProperty(this, Range.class, "range")
+                        };
+            } catch (NoSuchMethodException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        public boolean init(Graph graph) {
+            return true;
+        }
+
+        public void finish() {
+        }
+
+        public Range getRange() {
+            return range;
+        }
+
+        public void setRange(Range range) {
+            this.range = range;
+        }
+    }
+
+    public static class NodeAttributeRangeFilter implements NodeFilter {
+
+        private final AttributeColumn column;
+        private Range range;
+
+        public NodeAttributeRangeFilter(AttributeColumn column) {
+            this.column = column;
+        }
+
+        public boolean evaluate(Graph graph, Node node) {
+            Object value = node.getNodeData().getAttributes().getValue(column.getIndex());
+            return value != null && range.isInRange((Number) value);
+        }
+
+        public String getName() {
+            return "NodeAttributeRangeFilter";
+        }
+
+        public FilterProperty[] getProperties() {
+            try {
+                return new FilterProperty[]{
+                            FilterProperty.createProperty(this, Range.class, "range")
+                        };
+            } catch (NoSuchMethodException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        public boolean init(Graph graph) {
+            return true;
+        }
+
+        public void finish() {
+        }
+
+        public Range getRange() {
+            return range;
+        }
+
+        public void setRange(Range range) {
+            this.range = range;
+        }
+    }
+
     private static class UnionOperator implements Operator {
 
         public int getInputCount() {
@@ -61,6 +61,7 @@ import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
 import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
@@ -174,7 +175,7 @@ public class AttributeEqualBuilder implements CategoryBuilder {
     public static class EdgeEqualStringFilter extends EqualStringFilter implements EdgeFilter {
     }
 
-    public static class EqualStringFilter implements Filter {
+    public static class EqualStringFilter implements Filter, ThreadSafeFilter {
 
         private FilterProperty[] filterProperties;
         private String pattern;
@@ -323,7 +324,7 @@ public class AttributeEqualBuilder implements CategoryBuilder {
         }
     }
 
-    public static class EqualNumberFilter implements Filter {
+    public static class EqualNumberFilter implements Filter, ThreadSafeFilter {
 
         private FilterProperty[] filterProperties;
         private Number match;
@@ -506,7 +507,7 @@ public class AttributeEqualBuilder implements CategoryBuilder {
     public static class EdgeEqualBooleanFilter extends EqualBooleanFilter implements EdgeFilter {
     }
 
-    public static class EqualBooleanFilter implements Filter {
+    public static class EqualBooleanFilter implements Filter, ThreadSafeFilter {
 
         private FilterProperty[] filterProperties;
         private boolean match = false;
@@ -57,6 +57,7 @@ import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
 import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.HierarchicalGraph;
@@ -148,7 +149,7 @@ public class AttributeNonNullBuilder implements CategoryBuilder {
     public static class EdgeAttributeNonNullFilter extends AttributeNonNullFilter implements EdgeFilter {
     }
 
-    public static class AttributeNonNullFilter implements Filter {
+    public static class AttributeNonNullFilter implements Filter, ThreadSafeFilter {
 
         private FilterProperty[] filterProperties;
         private AttributeColumn column;
@@ -47,6 +47,7 @@ import javax.swing.Icon;
 import javax.swing.JPanel;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeController;
+import org.gephi.data.attributes.api.AttributeIndex;
 import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.AttributeUtils;
 import org.gephi.filters.plugin.RangeFilter;
@@ -61,12 +62,14 @@ import org.gephi.filters.spi.FilterProperty;
 import org.gephi.filters.plugin.graph.RangeUI;
 import org.gephi.filters.spi.EdgeFilter;
 import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
 import org.openide.util.Exceptions;
 import org.openide.util.Lookup;
 import org.openide.util.NbBundle;
@@ -166,7 +169,7 @@ public class AttributeRangeBuilder implements CategoryBuilder {
         }
     }
 
-    public static class AttributeRangeFilter implements RangeFilter, Filter {
+    public static class AttributeRangeFilter implements RangeFilter, Filter, ThreadSafeFilter {
 
         private FilterProperty[] filterProperties;
         private Range range;
@@ -174,6 +177,7 @@ public class AttributeRangeBuilder implements CategoryBuilder {
         private DynamicAttributesHelper dynamicHelper = new DynamicAttributesHelper(this, null);
         //States
         private Comparable[] values = new Comparable[0];
+        private HierarchicalGraph valuesGraph;
 
         public AttributeRangeFilter(AttributeColumn column) {
             this.column = column;
@@ -222,6 +226,38 @@ public class AttributeRangeBuilder implements CategoryBuilder {
         }
 
         public void refreshValues(HierarchicalGraph graph) {
+            AttributeIndex index = null;
+            if (graph.getView().isMainView() && graph.getHeight() == 0
+                    && (AttributeUtils.getDefault().isNodeColumn(column) || !(graph instanceof UndirectedGraph))) {
+                index = AttributeUtils.getDefault().getIndex(column, graph);
+            }
+
+            Number min;
+            Number max;
+            if (index != null) {
+                //Values are only used by the UI, collect them when asked
+                valuesGraph = graph;
+                values = null;
+                min = index.getMinimumValue(graph);
+                max = index.getMaximumValue(graph);
+                if (min == null) {
+                    min = 0;
+                    max = 0;
+                }
+            } else {
+                valuesGraph = null;
+                values = collectValues(graph);
+                min = (Number) AttributeUtils.getDefault().getMin(column, values /*valuesArray*/);
+                max = (Number) AttributeUtils.getDefault().getMax(column, values /*valuesArray*/);
+            }
+            if (range == null) {
+                range = new Range(min, max, min, max);
+            } else {
+                range.setMinMax(min, max);
+            }
+        }
+
+        private Comparable[] collectValues(HierarchicalGraph graph) {
             List<Object> vals = new ArrayList<Object>();
             if (AttributeUtils.getDefault().isNodeColumn(column)) {
                 for (Node n : graph.getNodes()) {
@@ -245,19 +281,16 @@ public class AttributeRangeBuilder implements CategoryBuilder {
                 vals.add(0);
             }
 
-            values = ComparableArrayConverter.convert(vals);
-
-            Number min = (Number) AttributeUtils.getDefault().getMin(column, values /*valuesArray*/);
-            Number max = (Number) AttributeUtils.getDefault().getMax(column, values /*valuesArray*/);
-            if (range == null) {
-                range = new Range(min, max, min, max);
-            } else {
-                range.setMinMax(min, max);
-            }
+            return ComparableArrayConverter.convert(vals);
         }
 
         public Object[] getValues() {
-            return values;
+            Comparable[] vals = values;
+            if (vals == null) {
+                vals = collectValues(valuesGraph);
+                values = vals;
+            }
+            return vals;
         }
 
         public FilterProperty[] getProperties() {
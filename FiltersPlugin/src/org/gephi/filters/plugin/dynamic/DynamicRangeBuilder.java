@@ -64,6 +64,7 @@ import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
 import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.HierarchicalGraph;
@@ -146,7 +147,7 @@ public class DynamicRangeBuilder implements CategoryBuilder {
         }
     }
 
-    public static class DynamicRangeFilter implements NodeFilter, EdgeFilter, DynamicModelListener {
+    public static class DynamicRangeFilter implements NodeFilter, EdgeFilter, ThreadSafeFilter, DynamicModelListener {
 
         private AttributeColumn nodeColumn;
         private AttributeColumn edgeColumn;
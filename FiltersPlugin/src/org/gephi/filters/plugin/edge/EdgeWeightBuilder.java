@@ -55,6 +55,7 @@ import org.gephi.filters.spi.EdgeFilter;
 import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.HierarchicalGraph;
@@ -101,7 +102,7 @@ public class EdgeWeightBuilder implements FilterBuilder {
     public void destroy(Filter filter) {
     }
 
-    public static class EdgeWeightFilter implements RangeFilter, EdgeFilter {
+    public static class EdgeWeightFilter implements RangeFilter, EdgeFilter, ThreadSafeFilter {
 
         private Range range;
         private DynamicAttributesHelper dynamicHelper = new DynamicAttributesHelper(this, null);
@@ -53,6 +53,7 @@ import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
 import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
@@ -99,7 +100,7 @@ public class DegreeRangeBuilder implements FilterBuilder {
     public void destroy(Filter filter) {
     }
 
-    public static class DegreeRangeFilter implements RangeFilter, NodeFilter {
+    public static class DegreeRangeFilter implements RangeFilter, NodeFilter, ThreadSafeFilter {
 
         private Range range;
         //States
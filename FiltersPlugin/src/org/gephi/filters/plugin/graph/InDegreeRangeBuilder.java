@@ -53,6 +53,7 @@ import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
 import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.HierarchicalDirectedGraph;
@@ -101,7 +102,7 @@ public class InDegreeRangeBuilder implements FilterBuilder {
     public void destroy(Filter filter) {
     }
 
-    public static class InDegreeRangeFilter implements RangeFilter, NodeFilter {
+    public static class InDegreeRangeFilter implements RangeFilter, NodeFilter, ThreadSafeFilter {
 
         private Range range;
         //States
@@ -45,12 +45,15 @@ import javax.swing.Icon;
 import javax.swing.JPanel;
 import org.gephi.filters.api.FilterLibrary;
 import org.gephi.filters.spi.Category;
-import org.gephi.filters.spi.ComplexFilter;
 import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
+import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
+import org.gephi.statistics.plugin.KCore;
 import org.openide.util.Exceptions;
 import org.openide.util.Lookup;
 import org.openide.util.NbBundle;
@@ -94,23 +97,46 @@ public class KCoreBuilder implements FilterBuilder {
     public void destroy(Filter filter) {
     }
 
-    public static class KCoreFilter implements ComplexFilter {
+    /**
+     * Keeps the nodes of the k-core, i.e. nodes with a core number of at least
+     * <code>k</code>. Core numbers are computed once per graph with
+     * {@link KCore} and kept until the graph changes, so changing <code>k</code>
+     * only thresholds them again.
+     */
+    public static class KCoreFilter implements NodeFilter, ThreadSafeFilter {
 
         private FilterProperty[] filterProperties;
         private Integer k = 1;
-
-        public Graph filter(Graph graph) {
-            int removed = 0;
-            do {
-                removed = 0;
-                for (Node n : graph.getNodes().toArray()) {
-                    if (graph.getDegree(n) < k) {
-                        graph.removeNode(n);
-                        removed++;
-                    }
+        //States
+        private GraphView view;
+        private int nodeVersion = -1;
+        private int edgeVersion = -1;
+        private int[] coreness;
+
+        public boolean init(Graph graph) {
+            if (graph.getView() != view || graph.getNodeVersion() != nodeVersion || graph.getEdgeVersion() != edgeVersion) {
+                Node[] nodes = graph.getNodes().toArray();
+                int[] cores = new KCore().computeCoreness(graph, nodes);
+                int maxId = 0;
+                for (Node n : nodes) {
+                    maxId = Math.max(maxId, n.getId());
+                }
+                coreness = new int[maxId + 1];
+                for (int i = 0; i < nodes.length; i++) {
+                    coreness[nodes[i].getId()] = cores[i];
                 }
-            } while (removed > 0);
-            return graph;
+                view = graph.getView();
+                nodeVersion = graph.getNodeVersion();
+                edgeVersion = graph.getEdgeVersion();
+            }
+            return true;
+        }
+
+        public boolean evaluate(Graph graph, Node node) {
+            return coreness[node.getId()] >= k;
+        }
+
+        public void finish() {
         }
 
         public String getName() {
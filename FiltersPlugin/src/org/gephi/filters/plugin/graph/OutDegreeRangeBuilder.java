@@ -53,6 +53,7 @@ import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
 import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
@@ -103,7 +104,7 @@ public class OutDegreeRangeBuilder implements FilterBuilder {
     public void destroy(Filter filter) {
     }
 
-    public static class OutDegreeRangeFilter implements RangeFilter, NodeFilter {
+    public static class OutDegreeRangeFilter implements RangeFilter, NodeFilter, ThreadSafeFilter {
 
         private Range range;
         //States
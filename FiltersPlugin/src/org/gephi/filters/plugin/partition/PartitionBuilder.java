@@ -56,6 +56,7 @@ import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
 import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
@@ -173,7 +174,7 @@ public class PartitionBuilder implements CategoryBuilder {
         }
     }
 
-    public static abstract class PartitionFilter implements Filter {
+    public static abstract class PartitionFilter implements Filter, ThreadSafeFilter {
 
         protected Partition partition;
         protected FilterProperty[] filterProperties;
@@ -58,6 +58,7 @@ import org.gephi.filters.spi.Filter;
 import org.gephi.filters.spi.FilterBuilder;
 import org.gephi.filters.spi.FilterProperty;
 import org.gephi.filters.spi.NodeFilter;
+import org.gephi.filters.spi.ThreadSafeFilter;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.HierarchicalGraph;
@@ -172,7 +173,7 @@ public class PartitionCountBuilder implements CategoryBuilder {
         }
     }
 
-    public static class PartitionCountFilter implements Filter, RangeFilter {
+    public static class PartitionCountFilter implements Filter, RangeFilter, ThreadSafeFilter {
 
         private Partition partition;
         private FilterProperty[] filterProperties;
@@ -0,0 +1,156 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.graph.api;
+
+/**
+ * Immutable compressed-sparse-row (CSR) copy of the adjacency of a graph, designed
+ * for read-heavy algorithms like statistics and layouts.
+ * <p>
+ * Nodes are given a dense index between <code>0</code> and <code>getNodeCount() - 1</code>.
+ * Neighbours of the node at index <code>i</code> are stored in <code>getOutTargets()</code>
+ * between <code>getOutOffsets()[i]</code> (inclusive) and <code>getOutOffsets()[i + 1]</code>
+ * (exclusive), the weight of each arc at the same position in <code>getOutWeights()</code>.
+ * The same layout is used for incoming arcs with <code>getInOffsets()</code>,
+ * <code>getInSources()</code> and <code>getInWeights()</code>.
+ * <p>
+ * Edges and meta edges between nodes in view are included. For undirected graphs each
+ * edge is stored in both directions (self-loops once) and incoming arrays are the same
+ * as outgoing arrays. For mixed graphs only undirected edges are stored in both directions.
+ * <p>
+ * The snapshot doesn't reference the graph structure, so it can be read without
+ * holding the graph lock. Arrays are returned directly for performance and
+ * <b>must not be modified</b>. Edge weights are captured when the snapshot is built.
+ * Modifying an edge weight doesn't change a snapshot already returned, but the
+ * next call to <code>getAdjacencySnapshot()</code> builds a new one.
+ *
+ * @author agent
+ * @see HierarchicalGraph#getAdjacencySnapshot()
+ */
+public interface AdjacencySnapshot {
+
+    /**
+     * Returns the number of nodes in the snapshot.
+     * @return  the number of nodes
+     */
+    public int getNodeCount();
+
+    /**
+     * Returns the number of arcs stored in the outgoing arrays. For undirected
+     * edges this counts each edge twice, except self-loops.
+     * @return  the number of outgoing arcs
+     */
+    public int getArcCount();
+
+    /**
+     * Returns <code>true</code> if the snapshot has been built from a directed
+     * or mixed graph, i.e. if incoming and outgoing arrays can differ.
+     * @return  <code>true</code> if the snapshot is directed
+     */
+    public boolean isDirected();
+
+    /**
+     * Returns the node at <code>index</code>.
+     * @param index the dense index, between <code>0</code> and <code>getNodeCount() - 1</code>
+     * @return      the node at <code>index</code>
+     */
+    public Node getNode(int index);
+
+    /**
+     * Returns the dense index of <code>node</code>, or <code>-1</code> if the node
+     * is not in the snapshot.
+     * @param node  the node whose index is to be returned
+     * @return      the index of <code>node</code> or <code>-1</code>
+     */
+    public int getIndex(Node node);
+
+    /**
+     * Returns the out-degree of the node at <code>index</code>, i.e. the number of
+     * arcs stored in the outgoing arrays for this node.
+     * @param index the node index
+     * @return      the number of outgoing arcs
+     */
+    public int getOutDegree(int index);
+
+    /**
+     * Returns the in-degree of the node at <code>index</code>, i.e. the number of
+     * arcs stored in the incoming arrays for this node.
+     * @param index the node index
+     * @return      the number of incoming arcs
+     */
+    public int getInDegree(int index);
+
+    /**
+     * Returns the outgoing offsets, of length <code>getNodeCount() + 1</code>.
+     * @return      the outgoing offsets array, must not be modified
+     */
+    public int[] getOutOffsets();
+
+    /**
+     * Returns the target indices of outgoing arcs, of length <code>getArcCount()</code>.
+     * @return      the outgoing targets array, must not be modified
+     */
+    public int[] getOutTargets();
+
+    /**
+     * Returns the weights of outgoing arcs, of length <code>getArcCount()</code>.
+     * @return      the outgoing weights array, must not be modified
+     */
+    public float[] getOutWeights();
+
+    /**
+     * Returns the incoming offsets, of length <code>getNodeCount() + 1</code>.
+     * @return      the incoming offsets array, must not be modified
+     */
+    public int[] getInOffsets();
+
+    /**
+     * Returns the source indices of incoming arcs, of length <code>getArcCount()</code>.
+     * @return      the incoming sources array, must not be modified
+     */
+    public int[] getInSources();
+
+    /**
+     * Returns the weights of incoming arcs, of length <code>getArcCount()</code>.
+     * @return      the incoming weights array, must not be modified
+     */
+    public float[] getInWeights();
+}
@@ -41,6 +41,7 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.graph.api;
 
+import java.util.BitSet;
 import org.gephi.project.api.Workspace;
 
 /**
@@ -111,6 +112,20 @@ public interface GraphModel {
      */
     public GraphView copyView(GraphView view);
 
+    /**
+     * Copy the nodes and edges of <code>view</code> whose ids are set in
+     * <code>nodes</code> and <code>edges</code> to a new graph view. Descendants
+     * of nodes that are not copied and edges with a node that is not copied are
+     * not in the new view either. It is cheaper than copying the view and then
+     * removing elements, as only the elements that are kept are visited.
+     * @param view  the view to copy from
+     * @param nodes the ids of nodes to copy, or <code>null</code> for all nodes
+     * @param edges the ids of edges to copy, or <code>null</code> for all edges
+     * between copied nodes
+     * @return  a new graph view with the selected nodes and edges of <code>view</code>
+     */
+    public GraphView copyView(GraphView view, BitSet nodes, BitSet edges);
+
     /**
      * Destroy <code>view</code>, if exists. Always destroy views that are not
      * needed anymore to avoid memory overhead.
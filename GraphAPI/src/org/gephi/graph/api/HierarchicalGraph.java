@@ -76,6 +76,28 @@ public interface HierarchicalGraph extends Graph {
      */
     public boolean addNode(Node node, Node parent);
 
+    /**
+     * Add <code>nodes</code> and <code>edges</code> to the graph in a single operation. The result
+     * is the same as calling {@link #addNode(Node, Node)} for each node and then
+     * {@link #addEdge(Edge)} for each edge, in array order, but the write lock is taken once
+     * and a single event is fired for the whole batch. Nodes and edges these methods would
+     * refuse, for instance because they already exist, are skipped.
+     * <p>
+     * This is the fastest way to load a large graph, edge structures are built from sorted
+     * arrays instead of one insertion at a time.
+     * @param nodes the nodes to add
+     * @param parents the parent of each node, at the same index, or <code>null</code> to add
+     * all nodes as children of the root. A parent can itself be in <code>nodes</code> if it
+     * comes before its children
+     * @param edges the edges to add, their nodes must be in the graph or in <code>nodes</code>
+     * @throws IllegalArgumentException if <code>nodes</code>, <code>edges</code> or one of
+     * their elements is <code>null</code>, if <code>parents</code> and <code>nodes</code> have
+     * different lengths, if a parent or an edge's node is not legal in the graph, or if an
+     * edge's type doesn't match the graph
+     * @throws IllegalMonitorStateException if the current thread is holding a read lock
+     */
+    public void addAll(Node[] nodes, Node[] parents, Edge[] edges);
+
     /**
      * Remove <code>metaEdge</code> from the graph. Fails if the edge doesn't exist.
      * @param metaEdge  the meta edge that is to be removed
@@ -495,4 +517,16 @@ public interface HierarchicalGraph extends Graph {
      * @throws IllegalMonitorStateException if the current thread is holding a read lock
      */
     public void clearMetaEdges(Node node);
+
+    /**
+     * Returns an immutable compressed-sparse-row copy of the nodes in view and
+     * their edges and meta edges. The snapshot is cached on the graph view and
+     * rebuilt only when the node or edge version changes, so calling this method
+     * repeatedly on an unchanged graph is cheap.
+     * <p>
+     * The returned snapshot can be read without holding the graph lock.
+     * @return  an adjacency snapshot of this graph
+     * @see AdjacencySnapshot
+     */
+    public AdjacencySnapshot getAdjacencySnapshot();
 }
@@ -68,31 +68,35 @@ public class EdgeDraftImpl implements EdgeDraft, EdgeDraftGetter {
     private final ImportContainerImpl container;
     //Basic
     private String id;
+    private int autoIdNumber;
     private String label;
     //Flag
     private boolean autoId;
+    //Position in the container
+    private int index = -1;
     //Topology
     private NodeDraftImpl source;
     private NodeDraftImpl target;
     private float weight = 1f;
     private EdgeType edgeType;
     //Viz
-    private Color color;
+    private int color;
+    private boolean hasColor;
     private boolean visible = true;
     //Text
-    private Color labelColor;
+    private int labelColor;
+    private boolean hasLabelColor;
     private float labelSize = -1f;
     private boolean labelVisible = true;
     //Attributes
-    private final AttributeRow attributeRow;
+    private AttributeRow attributeRow;
     //Dynamic
     private TimeInterval timeInterval;
 
-    public EdgeDraftImpl(ImportContainerImpl container, String id) {
+    public EdgeDraftImpl(ImportContainerImpl container, int autoIdNumber) {
         this.container = container;
-        this.id = id;
+        this.autoIdNumber = autoIdNumber;
         this.autoId = true;
-        this.attributeRow = container.getAttributeModel().rowFactory().newEdgeRow(null);
     }
 
     //SETTERS
@@ -101,7 +105,8 @@ public class EdgeDraftImpl implements EdgeDraft, EdgeDraftGetter {
     }
 
     public void setColor(Color color) {
-        this.color = color;
+        this.hasColor = color != null;
+        this.color = hasColor ? color.getRGB() : 0;
     }
 
     public void setColor(String r, String g, String b) {
@@ -136,7 +141,8 @@ public class EdgeDraftImpl implements EdgeDraft, EdgeDraftGetter {
     }
 
     public void setLabelColor(Color color) {
-        this.labelColor = color;
+        this.hasLabelColor = color != null;
+        this.labelColor = hasLabelColor ? color.getRGB() : 0;
     }
 
     public void setLabelColor(String r, String g, String b) {
@@ -188,7 +194,7 @@ public class EdgeDraftImpl implements EdgeDraft, EdgeDraftGetter {
             //Wrap value in a dynamic type
             value = DynamicUtilities.createDynamicObject(column.getType(), new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, value));
         }
-        attributeRow.setValue(column, value);
+        ensureAttributeRow().setValue(column, value);
     }
 
     public void addAttributeValue(AttributeColumn column, Object value, String dateFrom, String dateTo) throws IllegalArgumentException {
@@ -230,7 +236,7 @@ public class EdgeDraftImpl implements EdgeDraft, EdgeDraftGetter {
             //Value needs to be parsed
             value = TypeConvertor.getStaticType(column.getType()).parse((String) value);
         }
-        Object sourceVal = attributeRow.getValue(column);
+        Object sourceVal = getAttributeRow().getValue(column);
         if (sourceVal != null && sourceVal instanceof DynamicType) {
             value = DynamicUtilities.createDynamicObject(column.getType(), (DynamicType) sourceVal, new Interval(start, end, startOpen, endOpen, value));
         } else if (sourceVal != null && !(sourceVal instanceof DynamicType)) {
@@ -241,7 +247,7 @@ public class EdgeDraftImpl implements EdgeDraft, EdgeDraftGetter {
         } else {
             value = DynamicUtilities.createDynamicObject(column.getType(), new Interval(start, end, startOpen, endOpen, value));
         }
-        attributeRow.setValue(column, value);
+        ensureAttributeRow().setValue(column, value);
     }
 
     public void addTimeInterval(String dateFrom, String dateTo) throws IllegalArgumentException {
@@ -291,9 +297,28 @@ public class EdgeDraftImpl implements EdgeDraft, EdgeDraftGetter {
 
     //GETTERS
     public AttributeRow getAttributeRow() {
+        if (attributeRow == null) {
+            //Shared row with default values, read-only
+            return container.getEmptyEdgeRow();
+        }
         return attributeRow;
     }
 
+    /**
+     * Returns the row of this draft, created on the first call. Drafts without
+     * values share the container's empty row until then.
+     */
+    AttributeRow ensureAttributeRow() {
+        if (attributeRow == null) {
+            attributeRow = container.getAttributeModel().rowFactory().newEdgeRow(null);
+        }
+        return attributeRow;
+    }
+
+    boolean hasAttributeRow() {
+        return attributeRow != null;
+    }
+
     public NodeDraftImpl getSource() {
         return source;
     }
@@ -303,10 +328,14 @@ public class EdgeDraftImpl implements EdgeDraft, EdgeDraftGetter {
     }
 
     public Color getColor() {
-        return color;
+        return hasColor ? new Color(color, true) : null;
     }
 
     public String getId() {
+        if (autoId) {
+            //Generated ids are built on demand, not stored for each edge
+            return "e" + autoIdNumber;
+        }
         return id;
     }
 
@@ -323,7 +352,7 @@ public class EdgeDraftImpl implements EdgeDraft, EdgeDraftGetter {
     }
 
     public Color getLabelColor() {
-        return labelColor;
+        return hasLabelColor ? new Color(labelColor, true) : null;
     }
 
     public float getWeight() {
@@ -346,6 +375,14 @@ public class EdgeDraftImpl implements EdgeDraft, EdgeDraftGetter {
         return timeInterval;
     }
 
+    int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     @Override
     public String toString() {
         String res = "edge";
@@ -354,7 +391,7 @@ public class EdgeDraftImpl implements EdgeDraft, EdgeDraftGetter {
         } else if (label != null) {
             res += " label=" + label;
         } else {
-            res += id;
+            res += getId();
         }
         return res;
     }
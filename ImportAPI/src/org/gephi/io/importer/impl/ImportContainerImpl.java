@@ -41,6 +41,8 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.io.importer.impl;
 
+import gnu.trove.TLongObjectHashMap;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -48,6 +50,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeController;
 import org.gephi.data.attributes.api.AttributeModel;
@@ -88,8 +91,17 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
     //Maps
     private HashMap<String, NodeDraftImpl> nodeMap;
     private HashMap<String, NodeDraftImpl> nodeLabelMap;
-    private final HashMap<String, EdgeDraftImpl> edgeMap;
-    private final HashMap<String, EdgeDraftImpl> edgeSourceTargetMap;
+    private final HashMap<String, EdgeDraftImpl> edgeMap;   //only edges with a given id
+    private HashMap<String, EdgeDraftImpl> autoIdEdgeMap;   //built on demand, null when stale
+    private final TLongObjectHashMap<EdgeDraftImpl> edgeSourceTargetMap;
+    private int nodeIndexGen = 0;
+    //Edges in insertion order, a removed edge leaves an empty slot
+    private EdgeDraftImpl[] edges;
+    private int edgesLength;
+    private int edgesCount;
+    //Rows of drafts without attribute values
+    private final AttributeRow emptyNodeRow;
+    private final AttributeRow emptyEdgeRow;
     //Attributes
     private final AttributeModel attributeModel;
     //Management
@@ -108,9 +120,12 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
         parameters = new ImportContainerParameters();
         nodeMap = new LinkedHashMap<String, NodeDraftImpl>();//to maintain the order
         nodeLabelMap = new HashMap<String, NodeDraftImpl>();
-        edgeMap = new LinkedHashMap<String, EdgeDraftImpl>();
-        edgeSourceTargetMap = new HashMap<String, EdgeDraftImpl>();
+        edgeMap = new HashMap<String, EdgeDraftImpl>();
+        edgeSourceTargetMap = new TLongObjectHashMap<EdgeDraftImpl>();
+        edges = new EdgeDraftImpl[16];
         attributeModel = Lookup.getDefault().lookup(AttributeController.class).newModel();
+        emptyNodeRow = attributeModel.rowFactory().newNodeRow(null);
+        emptyEdgeRow = attributeModel.rowFactory().newEdgeRow(null);
         factory = new FactoryImpl();
     }
 
@@ -156,6 +171,7 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
         }
 
         nodeMap.put(nodeDraftImpl.getId(), nodeDraftImpl);
+        getNodeIndex(nodeDraftImpl);
         if (nodeDraftImpl.getLabel() != null && !nodeDraftImpl.getLabel().equals(nodeDraftImpl.getId())) {
             nodeLabelMap.put(nodeDraftImpl.getLabel(), nodeDraftImpl);
         }
@@ -247,15 +263,15 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
 
 
         String id = edgeDraftImpl.getId();
-        String sourceTargetId = edgeDraftImpl.getSource().getId() + "-" + edgeDraftImpl.getTarget().getId();
-        if (edgeMap.containsKey(id) || edgeSourceTargetMap.containsKey(sourceTargetId)) {
+        long sourceTargetKey = getEdgeKey(edgeDraftImpl.getSource(), edgeDraftImpl.getTarget());
+        if ((!edgeDraftImpl.isAutoId() && edgeMap.containsKey(id)) || edgeSourceTargetMap.containsKey(sourceTargetKey)) {
             if (!parameters.isParallelEdges()) {
                 report.logIssue(new Issue(NbBundle.getMessage(ImportContainerImpl.class, "ImportContainerException_edgeExist"), Level.WARNING));
                 return;
             } else {
-                EdgeDraftImpl existingEdge = edgeMap.get(id);
+                EdgeDraftImpl existingEdge = edgeDraftImpl.isAutoId() ? null : edgeMap.get(id);
                 if (existingEdge == null) {
-                    existingEdge = edgeSourceTargetMap.get(sourceTargetId);
+                    existingEdge = edgeSourceTargetMap.get(sourceTargetKey);
                 }
 
                 //Manage parallel edges
@@ -263,7 +279,7 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
                     existingEdge.setWeight(existingEdge.getWeight() + edgeDraftImpl.getWeight());
                 }
                 if (parameters.isMergeParallelEdgesAttributes()) {
-                    mergeAttributes(existingEdge.getAttributeRow(), edgeDraftImpl.getAttributeRow());
+                    mergeAttributes(edgeDraftImpl, existingEdge);
                 }
 
                 report.logIssue(new Issue(NbBundle.getMessage(ImportContainerImpl.class, "ImportContainerException_Parallel_Edge", id), Level.INFO));
@@ -271,57 +287,154 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
             }
         }
 
-        edgeSourceTargetMap.put(sourceTargetId, edgeDraftImpl);
-        edgeMap.put(id, edgeDraftImpl);
+        edgeSourceTargetMap.put(sourceTargetKey, edgeDraftImpl);
+        if (!edgeDraftImpl.isAutoId()) {
+            edgeMap.put(id, edgeDraftImpl);
+        }
+        addToEdges(edgeDraftImpl);
+        if (edgeDraftImpl.isAutoId()) {
+            autoIdEdgeMap = null;
+        }
 
         //Mutual
         if (edgeDraftImpl.getType() != null && edgeDraftImpl.getType().equals(EdgeDraft.EdgeType.MUTUAL)) {
             id = edgeDraftImpl.getId() + "-mutual";
-            sourceTargetId = edgeDraftImpl.getTarget().getId() + "-" + edgeDraftImpl.getSource().getId();
-            if (edgeSourceTargetMap.containsKey(sourceTargetId)) {
+            sourceTargetKey = getEdgeKey(edgeDraftImpl.getTarget(), edgeDraftImpl.getSource());
+            if (edgeSourceTargetMap.containsKey(sourceTargetKey)) {
                 if (!parameters.isParallelEdges()) {
                     report.logIssue(new Issue(NbBundle.getMessage(ImportContainerImpl.class, "ImportContainerException_edgeExist"), Level.WARNING));
                     return;
                 } else {
-                    EdgeDraftImpl existingEdge = edgeSourceTargetMap.get(sourceTargetId);
+                    EdgeDraftImpl existingEdge = edgeSourceTargetMap.get(sourceTargetKey);
                     //Manage parallel edges
                     if (parameters.isMergeParallelEdgesWeight()) {
                         existingEdge.setWeight(existingEdge.getWeight() + edgeDraftImpl.getWeight());
                     }
                     if (parameters.isMergeParallelEdgesAttributes()) {
-                        mergeAttributes(existingEdge.getAttributeRow(), edgeDraftImpl.getAttributeRow());
+                        mergeAttributes(edgeDraftImpl, existingEdge);
                     }
                     report.logIssue(new Issue(NbBundle.getMessage(ImportContainerImpl.class, "ImportContainerException_Parallel_Edge", id), Level.INFO));
                     return;
                 }
             }
 
-            edgeSourceTargetMap.put(sourceTargetId, edgeDraftImpl);
-            edgeMap.put(id, edgeDraftImpl);
+            edgeSourceTargetMap.put(sourceTargetKey, edgeDraftImpl);
+            if (!edgeDraftImpl.isAutoId()) {
+                edgeMap.put(id, edgeDraftImpl);
+            }
         }
     }
 
-    private void mergeAttributes(AttributeRow srcRow, AttributeRow dstRow) {
-        for (AttributeValue v : srcRow.getValues()) {
+    /**
+     * Copies the values of <code>edge</code> that are missing in <code>existingEdge</code>.
+     */
+    private void mergeAttributes(EdgeDraftImpl edge, EdgeDraftImpl existingEdge) {
+        if (!edge.hasAttributeRow()) {
+            return;
+        }
+        for (AttributeValue v : edge.getAttributeRow().getValues()) {
             AttributeColumn col = v.getColumn();
             if (!col.getOrigin().equals(AttributeOrigin.PROPERTY)) {
-                Object existingVal = dstRow.getValue(col.getIndex());
+                Object existingVal = existingEdge.getAttributeRow().getValue(col.getIndex());
                 if (v.getValue() != null && existingVal == null) {
-                    dstRow.setValue(col.getIndex(), existingVal);
+                    existingEdge.ensureAttributeRow().setValue(col.getIndex(), v.getValue());
                 }
             }
         }
     }
 
+    /**
+     * Returns the dense index of <code>node</code>, given on first use.
+     */
+    private int getNodeIndex(NodeDraftImpl node) {
+        int index = node.getIndex();
+        if (index == -1) {
+            index = nodeIndexGen++;
+            node.setIndex(index);
+        }
+        return index;
+    }
+
+    private long getEdgeKey(NodeDraftImpl source, NodeDraftImpl target) {
+        return ((long) getNodeIndex(source) << 32) | (getNodeIndex(target) & 0xFFFFFFFFL);
+    }
+
+    private EdgeDraftImpl getEdge(NodeDraftImpl source, NodeDraftImpl target) {
+        if (source.getIndex() == -1 || target.getIndex() == -1) {
+            return null;
+        }
+        return edgeSourceTargetMap.get(getEdgeKey(source, target));
+    }
+
+    /**
+     * Returns the edge with the given id. Generated ids are not kept in
+     * <code>edgeMap</code>, so they are resolved from a map built on the
+     * first lookup after the edges changed.
+     */
+    private EdgeDraftImpl getEdgeById(String id) {
+        EdgeDraftImpl edge = edgeMap.get(id);
+        if (edge != null) {
+            return edge;
+        }
+        if (autoIdEdgeMap == null) {
+            autoIdEdgeMap = new HashMap<String, EdgeDraftImpl>();
+            for (int i = 0; i < edgesLength; i++) {
+                EdgeDraftImpl e = edges[i];
+                if (e != null && e.isAutoId()) {
+                    autoIdEdgeMap.put(e.getId(), e);
+                    if (e.getType() != null && e.getType().equals(EdgeDraft.EdgeType.MUTUAL)
+                            && edgeSourceTargetMap.get(getEdgeKey(e.getTarget(), e.getSource())) == e) {
+                        autoIdEdgeMap.put(e.getId() + "-mutual", e);
+                    }
+                }
+            }
+        }
+        return autoIdEdgeMap.get(id);
+    }
+
+    private void addToEdges(EdgeDraftImpl edge) {
+        if (edgesLength == edges.length) {
+            EdgeDraftImpl[] newEdges = new EdgeDraftImpl[edgesLength * 2];
+            System.arraycopy(edges, 0, newEdges, 0, edgesLength);
+            edges = newEdges;
+        }
+        edge.setIndex(edgesLength);
+        edges[edgesLength++] = edge;
+        edgesCount++;
+    }
+
+    private boolean containsEdge(EdgeDraftImpl edge) {
+        int index = edge.getIndex();
+        return index != -1 && edges[index] == edge;
+    }
+
+    /**
+     * Removes <code>edge</code> from the edges, from the id map and its
+     * source-target key.
+     */
+    private void unregisterEdge(EdgeDraftImpl edge) {
+        if (containsEdge(edge)) {
+            edges[edge.getIndex()] = null;
+            edge.setIndex(-1);
+            edgesCount--;
+        }
+        if (!edge.isAutoId() && edgeMap.get(edge.getId()) == edge) {
+            edgeMap.remove(edge.getId());
+        } else if (edge.isAutoId()) {
+            autoIdEdgeMap = null;
+        }
+        long key = getEdgeKey(edge.getSource(), edge.getTarget());
+        if (edgeSourceTargetMap.get(key) == edge) {
+            edgeSourceTargetMap.remove(key);
+        }
+    }
+
     public void removeEdge(EdgeDraft edgeDraft) {
         if (edgeDraft == null) {
             throw new NullPointerException();
         }
         EdgeDraftImpl edgeDraftImpl = (EdgeDraftImpl) edgeDraft;
-        String id = edgeDraftImpl.getId();
-        String sourceTargetId = edgeDraftImpl.getSource().getId() + "-" + edgeDraftImpl.getTarget().getId();
-
-        if (!edgeMap.containsKey(id) && !edgeSourceTargetMap.containsKey(sourceTargetId)) {
+        if (!containsEdge(edgeDraftImpl)) {
             return;
         }
 
@@ -340,14 +453,16 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
             }
         }
 
-        edgeSourceTargetMap.remove(sourceTargetId);
-        edgeMap.remove(id);
+        unregisterEdge(edgeDraftImpl);
 
         if (edgeDraftImpl.getType() != null && edgeDraftImpl.getType().equals(EdgeDraft.EdgeType.MUTUAL)) {
-            id = edgeDraftImpl.getId() + "-mutual";
-            sourceTargetId = edgeDraftImpl.getTarget().getId() + "-" + edgeDraftImpl.getSource().getId();
-            edgeSourceTargetMap.remove(sourceTargetId);
-            edgeMap.remove(id);
+            long key = getEdgeKey(edgeDraftImpl.getTarget(), edgeDraftImpl.getSource());
+            if (edgeSourceTargetMap.get(key) == edgeDraftImpl) {
+                edgeSourceTargetMap.remove(key);
+            }
+            if (!edgeDraftImpl.isAutoId()) {
+                edgeMap.remove(edgeDraftImpl.getId() + "-mutual");
+            }
         }
     }
 
@@ -355,35 +470,35 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
         if (id == null || id.isEmpty()) {
             throw new NullPointerException();
         }
-        return edgeMap.containsKey(id);
+        return getEdgeById(id) != null;
     }
 
     public boolean edgeExists(NodeDraft source, NodeDraft target) {
         if (source == null || target == null) {
             throw new NullPointerException();
         }
-        return edgeSourceTargetMap.containsKey(((NodeDraftImpl) source).getId() + "-" + ((NodeDraftImpl) target).getId());
+        return getEdge((NodeDraftImpl) source, (NodeDraftImpl) target) != null;
     }
 
     public EdgeDraft getEdge(String id) {
         if (id == null || id.isEmpty()) {
             throw new NullPointerException();
         }
-        return edgeMap.get(id);
+        return getEdgeById(id);
     }
 
     public EdgeDraft getEdge(NodeDraft source, NodeDraft target) {
         if (source == null || target == null) {
             throw new NullPointerException();
         }
-        return edgeSourceTargetMap.get(((NodeDraftImpl) source).getId() + "-" + ((NodeDraftImpl) target).getId());
+        return getEdge((NodeDraftImpl) source, (NodeDraftImpl) target);
     }
 
     public EdgeDraftGetter getEdge(NodeDraftGetter source, NodeDraftGetter target) {
         if (source == null || target == null) {
             throw new NullPointerException();
         }
-        return edgeSourceTargetMap.get(((NodeDraftImpl) source).getId() + "-" + ((NodeDraftImpl) target).getId());
+        return getEdge((NodeDraftImpl) source, (NodeDraftImpl) target);
     }
 
     public Collection<? extends NodeDraftGetter> getNodes() {
@@ -391,7 +506,15 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
     }
 
     public Collection<? extends EdgeDraftGetter> getEdges() {
-        return edgeMap.values();
+        return new EdgesCollection();
+    }
+
+    AttributeRow getEmptyNodeRow() {
+        return emptyNodeRow;
+    }
+
+    AttributeRow getEmptyEdgeRow() {
+        return emptyEdgeRow;
     }
 
     public AttributeModel getAttributeModel() {
@@ -452,13 +575,11 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
 
     public boolean verify() {
         //Edge weight 0
-        for (EdgeDraftImpl edge : edgeMap.values().toArray(new EdgeDraftImpl[0])) {
+        for (EdgeDraftImpl edge : new EdgesCollection()) {
             if (edge.getWeight() <= 0f) {
                 if (parameters.isRemoveEdgeWithWeightZero()) {
                     String id = edge.getId();
-                    String sourceTargetId = edge.getSource().getId() + "-" + edge.getTarget().getId();
-                    edgeMap.remove(id);
-                    edgeSourceTargetMap.remove(sourceTargetId);
+                    unregisterEdge(edge);
                     report.logIssue(new Issue(NbBundle.getMessage(ImportContainerImpl.class, "ImportContainerException_Weight_Zero_Ignored", id), Level.SEVERE));
                 }
             }
@@ -481,7 +602,7 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
             }
         }
         if (!dynamicGraph) {
-            for (EdgeDraftImpl edge : edgeMap.values()) {
+            for (EdgeDraftImpl edge : new EdgesCollection()) {
                 dynamicGraph = edge.getTimeInterval() != null;
                 if (dynamicGraph) {
                     break;
@@ -533,18 +654,18 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
                     if (val.getValue() != null && val.getValue() instanceof DynamicType) {   //is Dynamic type
                         DynamicType type = (DynamicType) val.getValue();
                         type = DynamicUtilities.removeOverlapping(type);
-                        node.getAttributeRow().setValue(val.getColumn(), type);
+                        node.ensureAttributeRow().setValue(val.getColumn(), type);
                     }
                 }
             }
-            for (EdgeDraftImpl edge : edgeMap.values()) {
+            for (EdgeDraftImpl edge : new EdgesCollection()) {
                 AttributeValue[] values = edge.getAttributeRow().getValues();
                 for (int i = 0; i < values.length; i++) {
                     AttributeValue val = values[i];
                     if (val.getValue() != null && val.getValue() instanceof DynamicType) {   //is Dynamic type
                         DynamicType type = (DynamicType) val.getValue();
                         type = DynamicUtilities.removeOverlapping(type);
-                        edge.getAttributeRow().setValue(val.getColumn(), type);
+                        edge.ensureAttributeRow().setValue(val.getColumn(), type);
                     }
                 }
             }
@@ -577,13 +698,13 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
                             if (!Double.isInfinite(type.getLow())) {
                                 issue = true;
                             }
-                            node.getAttributeRow().setValue(val.getColumn(), DynamicUtilities.fitToInterval(type, timeIntervalMin, type.getHigh()));
+                            node.ensureAttributeRow().setValue(val.getColumn(), DynamicUtilities.fitToInterval(type, timeIntervalMin, type.getHigh()));
                         }
                         if (timeIntervalMax != null && type.getHigh() > timeIntervalMax) {
                             if (!Double.isInfinite(type.getHigh())) {
                                 issue = true;
                             }
-                            node.getAttributeRow().setValue(val.getColumn(), DynamicUtilities.fitToInterval(type, type.getLow(), timeIntervalMax));
+                            node.ensureAttributeRow().setValue(val.getColumn(), DynamicUtilities.fitToInterval(type, type.getLow(), timeIntervalMax));
                         }
                     }
                 }
@@ -591,7 +712,7 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
                     report.logIssue(new Issue(NbBundle.getMessage(ImportContainerImpl.class, "ImportContainerException_TimeIntervalVerify_Node_OutOfBound", node.getId()), Level.WARNING));
                 }
             }
-            for (EdgeDraftImpl edge : edgeMap.values()) {
+            for (EdgeDraftImpl edge : new EdgesCollection()) {
                 boolean issue = false;
                 if (timeIntervalMin != null || timeIntervalMax != null) {
                     if (timeIntervalMin != null && edge.getTimeInterval() != null && edge.getTimeInterval().getLow() < timeIntervalMin) {
@@ -616,13 +737,13 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
                             if (!Double.isInfinite(type.getLow())) {
                                 issue = true;
                             }
-                            edge.getAttributeRow().setValue(val.getColumn(), DynamicUtilities.fitToInterval(type, timeIntervalMin, type.getHigh()));
+                            edge.ensureAttributeRow().setValue(val.getColumn(), DynamicUtilities.fitToInterval(type, timeIntervalMin, type.getHigh()));
                         }
                         if (timeIntervalMax != null && type.getHigh() > timeIntervalMax) {
                             if (!Double.isInfinite(type.getHigh())) {
                                 issue = true;
                             }
-                            edge.getAttributeRow().setValue(val.getColumn(), DynamicUtilities.fitToInterval(type, type.getLow(), timeIntervalMax));
+                            edge.ensureAttributeRow().setValue(val.getColumn(), DynamicUtilities.fitToInterval(type, type.getLow(), timeIntervalMax));
                         }
                     }
                 }
@@ -638,38 +759,32 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
     public void closeLoader() {
         //Clean undirected edges
         if (parameters.getEdgeDefault().equals(EdgeDefault.UNDIRECTED)) {
-            for (Iterator<EdgeDraftImpl> itr = edgeMap.values().iterator(); itr.hasNext();) {
-                EdgeDraftImpl edge = itr.next();
-                String oppositekey = edge.getTarget().getId() + "-" + edge.getSource().getId();
-                EdgeDraftImpl opposite = edgeSourceTargetMap.get(oppositekey);
+            for (EdgeDraftImpl edge : new EdgesCollection()) {
+                EdgeDraftImpl opposite = getEdge(edge.getTarget(), edge.getSource());
                 if (opposite != null) {
                     if (parameters.isUndirectedSumDirectedEdgesWeight()) {
                         opposite.setWeight(edge.getWeight() + opposite.getWeight());
                     } else {
                         opposite.setWeight(Math.max(edge.getWeight(), opposite.getWeight()));
                     }
-                    itr.remove();
-                    edgeSourceTargetMap.remove(edge.getSource().getId() + "-" + edge.getTarget().getId());
+                    unregisterEdge(edge);
                 }
             }
         } else if (parameters.getEdgeDefault().equals(EdgeDefault.MIXED)) {
             //Clean undirected edges when graph is mixed
-            for (EdgeDraftImpl edge : edgeMap.values().toArray(new EdgeDraftImpl[0])) {
+            for (EdgeDraftImpl edge : new EdgesCollection()) {
                 if (edge.getType() == null) {
                     edge.setType(EdgeDraft.EdgeType.UNDIRECTED);
                 }
                 if (edge.getType().equals(EdgeDraft.EdgeType.UNDIRECTED)) {
-                    String myKey = edge.getSource().getId() + "-" + edge.getTarget().getId();
-                    String oppositekey = edge.getTarget().getId() + "-" + edge.getSource().getId();
-                    EdgeDraftImpl opposite = edgeSourceTargetMap.get(oppositekey);
+                    EdgeDraftImpl opposite = getEdge(edge.getTarget(), edge.getSource());
                     if (opposite != null) {
                         if (parameters.isUndirectedSumDirectedEdgesWeight()) {
                             edge.setWeight(edge.getWeight() + opposite.getWeight());
                         } else {
                             edge.setWeight(Math.max(edge.getWeight(), opposite.getWeight()));
                         }
-                        edgeMap.remove(edge.getId());
-                        edgeSourceTargetMap.remove(myKey);
+                        unregisterEdge(edge);
                     }
                 }
             }
@@ -677,19 +792,36 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
 
         //Clean autoNode
         if (!allowAutoNode()) {
+            boolean removed = false;
             for (NodeDraftImpl nodeDraftImpl : nodeMap.values().toArray(new NodeDraftImpl[0])) {
                 if (nodeDraftImpl.isCreatedAuto()) {
                     nodeMap.remove(nodeDraftImpl.getId());
-                    for (Iterator<EdgeDraftImpl> itr = edgeMap.values().iterator(); itr.hasNext();) {
-                        EdgeDraftImpl edge = itr.next();
-                        if (edge.getSource() == nodeDraftImpl || edge.getTarget() == nodeDraftImpl) {
-                            itr.remove();
-                        }
+                    removed = true;
+                }
+            }
+            if (removed) {
+                for (EdgeDraftImpl edge : new EdgesCollection()) {
+                    if (edge.getSource().isCreatedAuto() || edge.getTarget().isCreatedAuto()) {
+                        unregisterEdge(edge);
                     }
                 }
             }
         }
 
+        //Compact edges
+        int length = 0;
+        for (int i = 0; i < edgesLength; i++) {
+            EdgeDraftImpl edge = edges[i];
+            if (edge != null) {
+                edge.setIndex(length);
+                edges[length++] = edge;
+            }
+        }
+        for (int i = length; i < edgesLength; i++) {
+            edges[i] = null;
+        }
+        edgesLength = length;
+
         //Sort nodes by height
         LinkedHashMap<String, NodeDraftImpl> sortedNodeMap = new LinkedHashMap<String, NodeDraftImpl>();
         ArrayList<NodeDraftImpl> sortedMapValues = new ArrayList<NodeDraftImpl>(nodeMap.values());
@@ -749,12 +881,63 @@ public class ImportContainerImpl implements Container, ContainerLoader, Containe
         }
 
         public EdgeDraftImpl newEdgeDraft() {
-            EdgeDraftImpl edge = new EdgeDraftImpl(ImportContainerImpl.this, "e" + edgeIDgen);
+            EdgeDraftImpl edge = new EdgeDraftImpl(ImportContainerImpl.this, edgeIDgen);
             edgeIDgen++;
             return edge;
         }
     }
 
+    /**
+     * Live view on the edges, in insertion order. Edges can be unregistered
+     * while iterating.
+     */
+    private class EdgesCollection extends AbstractCollection<EdgeDraftImpl> {
+
+        @Override
+        public Iterator<EdgeDraftImpl> iterator() {
+            return new Iterator<EdgeDraftImpl>() {
+
+                private int index = -1;
+                private int next = findNext(0);
+
+                private int findNext(int from) {
+                    while (from < edgesLength && edges[from] == null) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                public boolean hasNext() {
+                    if (next < edgesLength && edges[next] == null) {
+                        next = findNext(next);
+                    }
+                    return next < edgesLength;
+                }
+
+                public EdgeDraftImpl next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    index = next;
+                    next = findNext(next + 1);
+                    return edges[index];
+                }
+
+                public void remove() {
+                    if (index == -1 || edges[index] == null) {
+                        throw new IllegalStateException();
+                    }
+                    unregisterEdge(edges[index]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return edgesCount;
+        }
+    }
+
     //MANAGEMENT
     public boolean isDynamicGraph() {
         return dynamicGraph;
@@ -75,7 +75,8 @@ public class NodeDraftImpl implements NodeDraft, NodeDraftGetter {
     private String label;
     private NodeDraftImpl[] parents;
     //Viz attributes
-    private Color color;
+    private int color;
+    private boolean hasColor;
     private float size;
     private float x;
     private float y;
@@ -85,20 +86,22 @@ public class NodeDraftImpl implements NodeDraft, NodeDraftGetter {
     //Text
     private float labelSize = -1f;
     private boolean labelVisible = true;
-    private Color labelColor;
+    private int labelColor;
+    private boolean hasLabelColor;
     //Dynamic
     private TimeInterval timeInterval;
     //Attributes
-    private final AttributeRow attributeRow;
+    private AttributeRow attributeRow;
     //Result
     private Node node;
     private int height;
+    //Dense index in the container
+    private int index = -1;
 
     public NodeDraftImpl(ImportContainerImpl container, String id) {
         this.container = container;
         this.id = id;
         this.autoId = true;
-        this.attributeRow = container.getAttributeModel().rowFactory().newNodeRow(null);
     }
 
     //SETTERS
@@ -107,7 +110,8 @@ public class NodeDraftImpl implements NodeDraft, NodeDraftGetter {
     }
 
     public void setColor(Color color) {
-        this.color = color;
+        this.hasColor = color != null;
+        this.color = hasColor ? color.getRGB() : 0;
     }
 
     public void setColor(String r, String g, String b) {
@@ -173,7 +177,8 @@ public class NodeDraftImpl implements NodeDraft, NodeDraftGetter {
     }
 
     public void setLabelColor(Color color) {
-        this.labelColor = color;
+        this.hasLabelColor = color != null;
+        this.labelColor = hasLabelColor ? color.getRGB() : 0;
     }
 
     public void setLabelColor(String r, String g, String b) {
@@ -232,7 +237,7 @@ public class NodeDraftImpl implements NodeDraft, NodeDraftGetter {
             //Wrap value in a dynamic type
             value = DynamicUtilities.createDynamicObject(column.getType(), new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, value));
         }
-        attributeRow.setValue(column, value);
+        ensureAttributeRow().setValue(column, value);
     }
 
     public void addAttributeValue(AttributeColumn column, Object value, String dateFrom, String dateTo) throws IllegalArgumentException {
@@ -275,7 +280,7 @@ public class NodeDraftImpl implements NodeDraft, NodeDraftGetter {
             AttributeType staticType = TypeConvertor.getStaticType(column.getType());
             value = staticType.parse((String) value);
         }
-        Object sourceVal = attributeRow.getValue(column);
+        Object sourceVal = getAttributeRow().getValue(column);
         if (sourceVal != null && sourceVal instanceof DynamicType) {
             value = DynamicUtilities.createDynamicObject(column.getType(), (DynamicType) sourceVal, new Interval(start, end, startOpen, endOpen, value));
         } else if (sourceVal != null && !(sourceVal instanceof DynamicType)) {
@@ -286,7 +291,7 @@ public class NodeDraftImpl implements NodeDraft, NodeDraftGetter {
         } else {
             value = DynamicUtilities.createDynamicObject(column.getType(), new Interval(start, end, startOpen, endOpen, value));
         }
-        attributeRow.setValue(column, value);
+        ensureAttributeRow().setValue(column, value);
     }
 
     public void addTimeInterval(String dateFrom, String dateTo) throws IllegalArgumentException {
@@ -336,11 +341,26 @@ public class NodeDraftImpl implements NodeDraft, NodeDraftGetter {
 
     //GETTERS
     public AttributeRow getAttributeRow() {
+        if (attributeRow == null) {
+            //Shared row with default values, read-only
+            return container.getEmptyNodeRow();
+        }
+        return attributeRow;
+    }
+
+    /**
+     * Returns the row of this draft, created on the first call. Drafts without
+     * values share the container's empty row until then.
+     */
+    AttributeRow ensureAttributeRow() {
+        if (attributeRow == null) {
+            attributeRow = container.getAttributeModel().rowFactory().newNodeRow(null);
+        }
         return attributeRow;
     }
 
     public Color getColor() {
-        return color;
+        return hasColor ? new Color(color, true) : null;
     }
 
     public String getId() {
@@ -384,7 +404,7 @@ public class NodeDraftImpl implements NodeDraft, NodeDraftGetter {
     }
 
     public Color getLabelColor() {
-        return labelColor;
+        return hasLabelColor ? new Color(labelColor, true) : null;
     }
 
     public int getHeight() {
@@ -407,6 +427,14 @@ public class NodeDraftImpl implements NodeDraft, NodeDraftGetter {
         return autoId;
     }
 
+    int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     @Override
     public String toString() {
         String res = "node";
@@ -0,0 +1,278 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.importer.plugin.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.io.importer.api.Issue;
+import org.gephi.io.importer.api.Report;
+
+/**
+ * Pipeline between a single-threaded parser and the container. Elements are
+ * added in document order by the parsing thread, converted in batches by a
+ * pool of threads and committed back on the parsing thread in the same order.
+ * <p>
+ * {@link Element#convert()} may run on any thread and must only touch the
+ * element itself, {@link Element#commit()} always runs on the thread calling
+ * <code>add()</code> and <code>flush()</code>, which makes it the only place
+ * where the container can be modified. Attribute values are parsed during the
+ * conversion but only set on the drafts at commit, as attribute rows are
+ * created and filled through the container's attribute model. With one
+ * thread, elements are converted and committed directly in <code>add()</code>.
+ *
+ * @author agent
+ */
+final class ImportPipeline<E extends ImportPipeline.Element> {
+
+    private static final int BATCH_SIZE = 512;
+    private final ExecutorService executor;
+    private final LinkedList<Future<List<E>>> pending = new LinkedList<Future<List<E>>>();
+    private final int maxPending;
+    private List<E> batch;
+
+    ImportPipeline(int threads) {
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+                private int count = 0;
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Import Pipeline " + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            maxPending = threads * 2;
+        } else {
+            executor = null;
+            maxPending = 0;
+        }
+    }
+
+    public void add(E element) throws Exception {
+        if (executor == null) {
+            element.convert();
+            element.commit();
+            return;
+        }
+        if (batch == null) {
+            batch = new ArrayList<E>(BATCH_SIZE);
+        }
+        batch.add(element);
+        if (batch.size() == BATCH_SIZE) {
+            submit();
+            //Commit converted batches, and wait when the parser is too far ahead
+            while (!pending.isEmpty() && (pending.size() > maxPending || pending.getFirst().isDone())) {
+                commit(pending.removeFirst());
+            }
+        }
+    }
+
+    /**
+     * Waits until all elements added so far are committed. Must be called before
+     * anything the conversion depends on is modified, and at the end.
+     */
+    public void flush() throws Exception {
+        if (batch != null) {
+            submit();
+        }
+        while (!pending.isEmpty()) {
+            commit(pending.removeFirst());
+        }
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void submit() {
+        final List<E> elements = batch;
+        batch = null;
+        pending.add(executor.submit(new Callable<List<E>>() {
+
+            public List<E> call() throws Exception {
+                for (E element : elements) {
+                    element.convert();
+                }
+                return elements;
+            }
+        }));
+    }
+
+    private void commit(Future<List<E>> future) throws Exception {
+        List<E> elements;
+        try {
+            elements = future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
+        }
+        for (E element : elements) {
+            element.commit();
+        }
+    }
+
+    /**
+     * Node or edge read by the parser. Issues found during the conversion are
+     * kept with the element and reported at commit, in document order.
+     */
+    abstract static class Element {
+
+        protected final XMLElement element;
+        private List<Issue> issues;
+        private List<AttributeValueDraft> values;
+        private int insertedIssues;
+
+        public Element(XMLElement element) {
+            this.element = element;
+        }
+
+        /**
+         * Converts the values of the element, possibly on another thread.
+         */
+        protected abstract void convert();
+
+        /**
+         * Pushes the converted element to the container, on the parsing thread.
+         */
+        protected abstract void commit();
+
+        protected void logIssue(Issue issue) {
+            if (issues == null) {
+                issues = new ArrayList<Issue>(2);
+            }
+            issues.add(issue);
+        }
+
+        /**
+         * Queues an attribute value, to be set on the draft at commit.
+         */
+        protected void addAttributeValue(String key, AttributeColumn column, Object value) {
+            addAttributeValue(key, column, value, null, null);
+        }
+
+        protected void addAttributeValue(String key, AttributeColumn column, Object value, String startDate, String endDate) {
+            if (values == null) {
+                values = new ArrayList<AttributeValueDraft>(4);
+            }
+            int issueIndex = issues != null ? issues.size() : 0;
+            values.add(new AttributeValueDraft(key, column, value, startDate, endDate, issueIndex));
+        }
+
+        /**
+         * Logs an issue found while setting <code>value</code> at commit, where
+         * it would have been logged during the conversion. Values must be
+         * committed in the order they were added.
+         */
+        protected void logIssue(AttributeValueDraft value, Issue issue) {
+            if (issues == null) {
+                issues = new ArrayList<Issue>(2);
+            }
+            issues.add(value.issueIndex + insertedIssues++, issue);
+        }
+
+        protected List<AttributeValueDraft> getAttributeValues() {
+            if (values == null) {
+                return Collections.emptyList();
+            }
+            return values;
+        }
+
+        /**
+         * Drops the issues and values of a previous conversion.
+         */
+        protected void clear() {
+            issues = null;
+            values = null;
+            insertedIssues = 0;
+        }
+
+        protected void commitIssues(Report report) {
+            if (issues != null) {
+                for (Issue issue : issues) {
+                    report.logIssue(issue);
+                }
+                issues = null;
+            }
+        }
+    }
+
+    /**
+     * Attribute value read during the conversion. Values with a start or an
+     * end date are dynamic and still hold the unparsed string.
+     */
+    static final class AttributeValueDraft {
+
+        final String key;
+        final AttributeColumn column;
+        final Object value;
+        final String startDate;
+        final String endDate;
+        final int issueIndex;
+
+        AttributeValueDraft(String key, AttributeColumn column, Object value, String startDate, String endDate, int issueIndex) {
+            this.key = key;
+            this.column = column;
+            this.value = value;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.issueIndex = issueIndex;
+        }
+
+        boolean isDynamic() {
+            return startDate != null || endDate != null;
+        }
+    }
+}
@@ -41,148 +41,295 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.io.importer.plugin.file;
 
-import java.io.LineNumberReader;
+import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.gephi.io.importer.api.ContainerLoader;
 import org.gephi.io.importer.api.EdgeDraft;
-import org.gephi.io.importer.api.ImportUtils;
+import org.gephi.io.importer.api.Issue;
 import org.gephi.io.importer.api.NodeDraft;
 import org.gephi.io.importer.api.Report;
 import org.gephi.io.importer.spi.FileImporter;
 import org.gephi.utils.longtask.spi.LongTask;
 import org.gephi.utils.progress.Progress;
 import org.gephi.utils.progress.ProgressTicket;
+import org.openide.util.NbBundle;
 
 /**
+ * Edge list, adjacency list and matrix CSV importer.
+ * <p>
+ * The file is tokenized while it is read and each record is pushed to the
+ * container straight away, so the content is never buffered as a whole.
+ * Fields are separated by the field delimiter, or by any of <code>,</code>
+ * <code>;</code>, tab and space when the delimiter is {@link #AUTO_DELIMITER}.
+ * Fields can be enclosed in one of the quote characters, a quote is escaped
+ * inside a quoted field either by doubling it or with a backslash.
  *
  * @author Mathieu Bastian, Sebastien Heymann
  */
 public class ImporterCSV implements FileImporter, LongTask {
 
+    public static final char AUTO_DELIMITER = '\0';
+    private static final int BUFFER_SIZE = 8192;
+    private static final int PROGRESS_STEP = 1 << 20;
     //Architecture
     private Reader reader;
     private ContainerLoader container;
     private Report report;
     private ProgressTicket progressTicket;
     private boolean cancel = false;
+    //Settings
+    private char fieldDelimiter = AUTO_DELIMITER;
+    private String quoteCharacters = "\"'";
+    //Tokenizer
+    private char[] buffer;
+    private int bufferPos;
+    private int bufferLength;
+    private long charsRead;
+    private long nextProgress;
+    private int lineNumber;
+    private boolean lastWasCR;
+    private boolean recordDelimited;
+    private final StringBuilder field = new StringBuilder();
 
     public boolean execute(ContainerLoader container) {
         this.container = container;
         this.report = new Report();
-        LineNumberReader lineReader = ImportUtils.getTextReader(reader);
         try {
-            importData(lineReader);
+            importData();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         return !cancel;
     }
 
-    private void importData(LineNumberReader reader) throws Exception {
+    private void importData() throws Exception {
         Progress.start(progressTicket);        //Progress
 
-        List<String> lines = new ArrayList<String>();
-        for (; reader.ready();) {
-            String line = reader.readLine();
-            if (line != null && !line.isEmpty()) {
-                lines.add(line);
-            }
-        }
+        buffer = new char[BUFFER_SIZE];
+        bufferPos = 0;
+        bufferLength = 0;
+        charsRead = 0;
+        nextProgress = PROGRESS_STEP;
+        lineNumber = 0;
+        lastWasCR = false;
 
-        Progress.switchToDeterminate(progressTicket, lines.size());
-
-        //Magix regex
-        Pattern pattern = Pattern.compile("(?<=(?:,|;|\\s|^)\")(.*?)(?=(?<=(?:[^\\\\]))\",|;|\"\\s|\"$)|(?<=(?:,|;|\\s|^)')(.*?)(?=(?<=(?:[^\\\\]))',|;|'\\s|'$)|(?<=(?:,|;|\\s|^))(?=[^'\"])(.*?)(?=(?:,|;|\\s|$))|(?<=,|;)($)");
+        List<String> record = new ArrayList<String>();
+        if (!readRecord(record)) {
+            Progress.finish(progressTicket);
+            return;
+        }
 
-        if (lines.get(0).startsWith(";")) { //Matrix
-            //Fill the Labels array
-            String line0 = lines.get(0);
-            line0 = line0.substring(1, line0.length());
-            lines.remove(0);
-            Matcher m = pattern.matcher(line0); //Remove the first ";"
+        if (recordDelimited) { //Matrix
+            //Fill the Labels array, the first cell is empty
             List<String> labels = new ArrayList<String>();
-            while (m.find()) {
-                int start = m.start();
-                int end = m.end();
-                if (start != end) {
-                    String data = line0.substring(start, end);
-                    data = data.trim();
-                    if (!data.isEmpty() && !data.toLowerCase().equals("null")) {
-                        labels.add(data);
-                    }
+            for (int i = 1; i < record.size(); i++) {
+                String data = record.get(i);
+                if (isValue(data)) {
+                    labels.add(data);
                 }
             }
 
-            int size = lines.size();
-            if (size != labels.size()) {
-                throw new Exception("Inconsistent number of matrix lines compared to the number of labels.");
-            }
-
-            for (int i = 0; i < size; i++) {
-                if (cancel) {
-                    return;
+            int row = 0;
+            while (!cancel && readRecord(record)) {
+                if (row >= labels.size()) {
+                    throw new Exception(NbBundle.getMessage(ImporterCSV.class, "importerCSV_error_matrixrowscount"));
                 }
-                String line = lines.get(i);
-                m = pattern.matcher(line);
                 int count = -1;
                 String sourceID = "";
-                while (m.find()) {
-                    int start = m.start();
-                    int end = m.end();
-                    if (start != end) {
-                        String data = line.substring(start, end);
-                        data = data.trim();
-                        if (!data.isEmpty() && !data.toLowerCase().equals("null")) {
-                            if (count == -1) {
-                                sourceID = data;
-                                addNode(sourceID, labels.get(i));
-                            } else if (!data.equals("0")) {
-                                //Create Edge
-                                addEdge(sourceID, labels.get(count), Float.parseFloat(data));
-                            }
+                for (String data : record) {
+                    if (isValue(data)) {
+                        if (count == -1) {
+                            sourceID = data;
+                            addNode(sourceID, labels.get(row));
+                        } else if (!data.equals("0") && count < labels.size()) {
+                            //Create Edge
+                            addEdge(sourceID, labels.get(count), parseWeight(data));
                         }
                     }
                     count++;
                 }
-                Progress.progress(progressTicket);      //Progress
+                row++;
+            }
+            if (!cancel && row != labels.size()) {
+                throw new Exception(NbBundle.getMessage(ImporterCSV.class, "importerCSV_error_matrixrowscount"));
             }
         } else { //Edge or Adjacency list
-            Matcher m;
-            for (String line : lines) {
-                if (cancel) {
-                    return;
-                }
-                m = pattern.matcher(line);
-                int count = 0;
-                String sourceID = "";
-                while (m.find()) {
-                    int start = m.start();
-                    int end = m.end();
-                    if (start != end) {
-                        String data = line.substring(start, end);
-                        data = data.trim();
-                        if (!data.isEmpty() && !data.toLowerCase().equals("null")) {
-                            if (count == 0) {
-                                sourceID = data;
-                                addNode(sourceID, data);
-                            } else {
-                                //Create Edge
-                                addEdge(sourceID, data);
-                            }
+            do {
+                if (!record.isEmpty() && isValue(record.get(0))) {
+                    String sourceID = record.get(0);
+                    addNode(sourceID, sourceID);
+                    for (int i = 1; i < record.size(); i++) {
+                        String data = record.get(i);
+                        if (isValue(data)) {
+                            //Create Edge
+                            addEdge(sourceID, data);
                         }
                     }
-                    count++;
                 }
-                Progress.progress(progressTicket);      //Progress
+            } while (!cancel && readRecord(record));
+        }
+
+        Progress.finish(progressTicket);
+    }
+
+    private boolean isValue(String data) {
+        return !data.isEmpty() && !data.equalsIgnoreCase("null");
+    }
+
+    private float parseWeight(String data) {
+        try {
+            return Float.parseFloat(data);
+        } catch (NumberFormatException e) {
+            report.logIssue(new Issue(NbBundle.getMessage(ImporterCSV.class, "importerCSV_error_weightparseerror", data, lineNumber), Issue.Level.WARNING));
+            return 1f;
+        }
+    }
+
+    /**
+     * Reads the next non-empty record into <code>record</code>. Whether the
+     * record starts with a delimiter is kept in <code>recordDelimited</code>.
+     * @return <code>false</code> at the end of the stream
+     */
+    private boolean readRecord(List<String> record) throws IOException {
+        record.clear();
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '\n' && lastWasCR) {
+                //Second half of a \r\n line end
+                lastWasCR = false;
+                continue;
+            }
+            lastWasCR = false;
+            if (c == '\r' || c == '\n') {
+                lastWasCR = c == '\r';
+                lineNumber++;
+                if (!record.isEmpty()) {
+                    return true;
+                }
+                continue;
             }
+            recordDelimited = isHardDelimiter(c);
+            unread();
+            readFields(record);
         }
+        return !record.isEmpty();
+    }
 
+    /**
+     * Reads the fields of a line, stops before the line end.
+     */
+    private void readFields(List<String> record) throws IOException {
+        boolean whitespaceDelimiter = fieldDelimiter == AUTO_DELIMITER;
+        boolean quoted = false;
+        boolean softEnd = false;       //field ended by whitespace, waiting for a delimiter or the next field
+        field.setLength(0);
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '\r' || c == '\n') {
+                unread();
+                break;
+            }
+            if (isHardDelimiter(c)) {
+                record.add(endField());
+                quoted = false;
+                softEnd = false;
+            } else if (c == ' ' || c == '\t') {
+                if (whitespaceDelimiter && (quoted || field.length() > 0)) {
+                    softEnd = true;
+                } else if (!whitespaceDelimiter && field.length() > 0) {
+                    field.append((char) c);
+                }
+            } else {
+                if (softEnd) {
+                    //The whitespace was the delimiter
+                    record.add(endField());
+                    quoted = false;
+                    softEnd = false;
+                }
+                if (field.length() == 0 && !quoted && quoteCharacters.indexOf(c) != -1) {
+                    readQuoted((char) c);
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+            }
+        }
+        if (quoted || field.length() > 0 || !record.isEmpty()) {
+            record.add(endField());
+        }
+    }
+
+    /**
+     * Appends the quoted field content to the field buffer, the opening quote
+     * has already been read. Line ends within quotes belong to the field.
+     */
+    private void readQuoted(char quote) throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '\\') {
+                int next = read();
+                if (next == quote) {
+                    field.append(quote);
+                } else {
+                    field.append('\\');
+                    if (next != -1) {
+                        unread();
+                    }
+                }
+            } else if (c == quote) {
+                int next = read();
+                if (next == quote) {
+                    field.append(quote);
+                } else {
+                    if (next != -1) {
+                        unread();
+                    }
+                    return;
+                }
+            } else {
+                if (c == '\n') {
+                    lineNumber++;
+                }
+                field.append((char) c);
+            }
+        }
+    }
+
+    private String endField() {
+        String data = field.toString().trim();
+        field.setLength(0);
+        return data;
+    }
+
+    private boolean isHardDelimiter(int c) {
+        if (fieldDelimiter == AUTO_DELIMITER) {
+            return c == ',' || c == ';';
+        }
+        return c == fieldDelimiter;
     }
 
+    private int read() throws IOException {
+        if (bufferPos == bufferLength) {
+            int length = reader.read(buffer, 0, buffer.length);
+            if (length <= 0) {
+                return -1;
+            }
+            bufferPos = 0;
+            bufferLength = length;
+            charsRead += length;
+            if (charsRead >= nextProgress) {
+                nextProgress = charsRead + PROGRESS_STEP;
+                Progress.progress(progressTicket, NbBundle.getMessage(ImporterCSV.class, "importerCSV_progress", charsRead >> 20));
+            }
+        }
+        return buffer[bufferPos++];
+    }
+
+    private void unread() {
+        bufferPos--;
+    }
     private void addNode(String id, String label) {
         NodeDraft node;
         if (!container.nodeExists(id)) {
@@ -226,6 +373,35 @@ public class ImporterCSV implements FileImporter, LongTask {
         }
     }
 
+    public char getFieldDelimiter() {
+        return fieldDelimiter;
+    }
+
+    /**
+     * Sets the character fields are separated with, or {@link #AUTO_DELIMITER}
+     * to accept any of <code>,</code> <code>;</code>, tab and space.
+     * @param fieldDelimiter    the field delimiter
+     */
+    public void setFieldDelimiter(char fieldDelimiter) {
+        this.fieldDelimiter = fieldDelimiter;
+    }
+
+    public String getQuoteCharacters() {
+        return quoteCharacters;
+    }
+
+    /**
+     * Sets the characters a field can be enclosed in. An empty string disables
+     * quoting, quote characters are then read as any other character.
+     * @param quoteCharacters   the quote characters
+     */
+    public void setQuoteCharacters(String quoteCharacters) {
+        if (quoteCharacters == null) {
+            throw new NullPointerException();
+        }
+        this.quoteCharacters = quoteCharacters;
+    }
+
     public void setReader(Reader reader) {
         this.reader = reader;
     }
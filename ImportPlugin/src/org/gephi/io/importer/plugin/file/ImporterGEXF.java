@@ -124,11 +124,15 @@ public class ImporterGEXF implements FileImporter, LongTask {
     private Report report;
     private ProgressTicket progress;
     private XMLStreamReader xmlReader;
+    private ImportPipeline<ImportPipeline.Element> pipeline;
+    //Settings
+    private int threadCount = Runtime.getRuntime().availableProcessors();
 
     public boolean execute(ContainerLoader container) {
         this.container = container;
         this.report = new Report();
         Progress.start(progress);
+        pipeline = new ImportPipeline<ImportPipeline.Element>(threadCount);
         try {
 
             XMLInputFactory inputFactory = XMLInputFactory.newInstance();
@@ -150,22 +154,22 @@ public class ImporterGEXF implements FileImporter, LongTask {
                 if (eventType.equals(XMLEvent.START_ELEMENT)) {
                     String name = xmlReader.getLocalName();
                     if (GEXF.equalsIgnoreCase(name)) {
+                        pipeline.flush();
                         readGexf(xmlReader);
                     } else if (GRAPH.equalsIgnoreCase(name)) {
+                        pipeline.flush();
                         readGraph(xmlReader);
                     } else if (NODE.equalsIgnoreCase(name)) {
-                        readNode(xmlReader, null);
+                        addNode(XMLElement.read(xmlReader), null);
                     } else if (EDGE.equalsIgnoreCase(name)) {
-                        readEdge(xmlReader);
+                        addEdge(XMLElement.read(xmlReader));
                     } else if (ATTRIBUTES.equalsIgnoreCase(name)) {
+                        pipeline.flush();
                         readAttributes(xmlReader);
                     }
-                } else if (eventType.equals(XMLStreamReader.END_ELEMENT)) {
-                    String name = xmlReader.getLocalName();
-                    if (NODE.equalsIgnoreCase(name)) {
-                    }
                 }
             }
+            pipeline.flush();
             xmlReader.close();
 
         } catch (Exception e) {
@@ -173,6 +177,9 @@ public class ImporterGEXF implements FileImporter, LongTask {
                 throw (RuntimeException) e;
             }
             throw new RuntimeException(e);
+        } finally {
+            pipeline.shutdown();
+            pipeline = null;
         }
         Progress.finish(progress);
         return !cancel;
@@ -253,131 +260,175 @@ public class ImporterGEXF implements FileImporter, LongTask {
         }
     }
 
-    private void readNode(XMLStreamReader reader, NodeDraft parent) throws Exception {
-        String id = "";
-        String label = "";
-        String startDate = "";
-        String endDate = "";
-        String pid = "";
-        boolean startOpen = false;
-        boolean endOpen = false;
+    private void addNode(XMLElement element, NodeElement parent) throws Exception {
+        NodeElement node = new NodeElement(element, parent);
+        pipeline.add(node);
+        addNestedElements(element, node.id.isEmpty() ? null : node);
+    }
 
-        //Attributes
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
-            if (NODE_ID.equalsIgnoreCase(attName)) {
-                id = reader.getAttributeValue(i);
-            } else if (NODE_LABEL.equalsIgnoreCase(attName)) {
-                label = reader.getAttributeValue(i);
-            } else if (START.equalsIgnoreCase(attName)) {
-                startDate = reader.getAttributeValue(i);
-            } else if (START_OPEN.equalsIgnoreCase(attName)) {
-                startDate = reader.getAttributeValue(i);
-                startOpen = true;
-            } else if (END.equalsIgnoreCase(attName)) {
-                endDate = reader.getAttributeValue(i);
-            } else if (END_OPEN.equalsIgnoreCase(attName)) {
-                endDate = reader.getAttributeValue(i);
-                endOpen = true;
-            } else if (NODE_PID.equalsIgnoreCase(attName)) {
-                pid = reader.getAttributeValue(i);
+    private void addNestedElements(XMLElement element, NodeElement parent) throws Exception {
+        for (XMLElement child : element.getChildren()) {
+            String name = child.getLocalName();
+            if (NODE.equalsIgnoreCase(name)) {
+                addNode(child, parent);
+            } else if (parent == null && EDGE.equalsIgnoreCase(name)) {
+                //Edges are only read outside of valid nodes
+                addEdge(child);
+            } else {
+                addNestedElements(child, parent);
             }
         }
+    }
 
-        if (id.isEmpty()) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeid"), Issue.Level.SEVERE));
-            return;
-        }
+    private void addEdge(XMLElement element) throws Exception {
+        pipeline.add(new EdgeElement(element));
+    }
 
-        NodeDraft node = null;
-        if (container.nodeExists(id)) {
-            node = container.getNode(id);
-        } else {
-            node = container.factory().newNodeDraft();
-        }
-        node.setId(id);
-        node.setLabel(label);
-
-        //Parent
-        if (parent != null) {
-            node.setParent(parent);
-        } else if (!pid.isEmpty()) {
-            NodeDraft parentNode = container.getNode(pid);
-            if (parentNode == null) {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_pid_notfound", pid, id), Issue.Level.SEVERE));
-            } else {
-                node.setParent(parentNode);
+    private class NodeElement extends ImportPipeline.Element {
+
+        private final NodeElement parent;
+        private NodeDraft node;
+        private String id = "";
+        private String label = "";
+        private String startDate = "";
+        private String endDate = "";
+        private String pid = "";
+        private boolean startOpen = false;
+        private boolean endOpen = false;
+
+        public NodeElement(XMLElement element, NodeElement parent) {
+            super(element);
+            this.parent = parent;
+
+            //Attributes
+            for (int i = 0; i < element.getAttributeCount(); i++) {
+                String attName = element.getAttributeName(i);
+                if (NODE_ID.equalsIgnoreCase(attName)) {
+                    id = element.getAttributeValue(i);
+                } else if (NODE_LABEL.equalsIgnoreCase(attName)) {
+                    label = element.getAttributeValue(i);
+                } else if (START.equalsIgnoreCase(attName)) {
+                    startDate = element.getAttributeValue(i);
+                } else if (START_OPEN.equalsIgnoreCase(attName)) {
+                    startDate = element.getAttributeValue(i);
+                    startOpen = true;
+                } else if (END.equalsIgnoreCase(attName)) {
+                    endDate = element.getAttributeValue(i);
+                } else if (END_OPEN.equalsIgnoreCase(attName)) {
+                    endDate = element.getAttributeValue(i);
+                    endOpen = true;
+                } else if (NODE_PID.equalsIgnoreCase(attName)) {
+                    pid = element.getAttributeValue(i);
+                }
+            }
+            if (!id.isEmpty()) {
+                node = container.factory().newNodeDraft();
             }
         }
 
-        if (!container.nodeExists(id)) {
-            container.addNode(node);
+        @Override
+        protected void convert() {
+            if (node != null) {
+                readNode(this, node);
+            }
         }
 
-        boolean end = false;
-        boolean slices = false;
-        while (reader.hasNext() && !end) {
-            int type = reader.next();
+        @Override
+        protected void commit() {
+            if (id.isEmpty()) {
+                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeid"), Issue.Level.SEVERE));
+                return;
+            }
 
-            switch (type) {
-                case XMLStreamReader.START_ELEMENT:
-                    String name = xmlReader.getLocalName();
-                    if (ATTVALUE.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        readNodeAttValue(reader, node);
-                    } else if (NODE_POSITION.equalsIgnoreCase(name)) {
-                        readNodePosition(reader, node);
-                    } else if (NODE_COLOR.equalsIgnoreCase(name)) {
-                        readNodeColor(reader, node);
-                    } else if (NODE_SIZE.equalsIgnoreCase(name)) {
-                        readNodeSize(reader, node);
-                    } else if (NODE_SPELL.equalsIgnoreCase(name) || NODE_SPELL2.equalsIgnoreCase(name)) {
-                        readNodeSpell(reader, node);
-                        slices = true;
-                    } else if (NODE.equalsIgnoreCase(name)) {
-                        readNode(reader, node);
-                    }
-                    break;
+            if (container.nodeExists(id)) {
+                //Read again into the existing node
+                node = container.getNode(id);
+                clear();
+                readNode(this, node);
+            }
+            commitNodeAttValues(this, node);
+
+            //Parent
+            if (parent != null) {
+                node.setParent(parent.node);
+            } else if (!pid.isEmpty()) {
+                NodeDraft parentNode = container.getNode(pid);
+                if (parentNode == null) {
+                    report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_pid_notfound", pid, id), Issue.Level.SEVERE));
+                } else {
+                    node.setParent(parentNode);
+                }
+            }
 
-                case XMLStreamReader.END_ELEMENT:
-                    if (NODE.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        end = true;
-                    }
-                    break;
+            if (!container.nodeExists(id)) {
+                container.addNode(node);
             }
+            commitIssues(report);
         }
+    }
+
+    private void readNode(NodeElement nodeElement, NodeDraft node) {
+        node.setId(nodeElement.id);
+        node.setLabel(nodeElement.label);
 
+        boolean slices = readNodeChildren(nodeElement, nodeElement.element, node);
 
         //Dynamic
-        if (!slices && (!startDate.isEmpty() || !endDate.isEmpty())) {
+        if (!slices && (!nodeElement.startDate.isEmpty() || !nodeElement.endDate.isEmpty())) {
             try {
-                node.addTimeInterval(startDate, endDate, startOpen, endOpen);
+                node.addTimeInterval(nodeElement.startDate, nodeElement.endDate, nodeElement.startOpen, nodeElement.endOpen);
             } catch (IllegalArgumentException e) {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_node_timeinterval_parseerror", id), Issue.Level.SEVERE));
+                nodeElement.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_node_timeinterval_parseerror", nodeElement.id), Issue.Level.SEVERE));
+            }
+        }
+    }
+
+    private boolean readNodeChildren(ImportPipeline.Element owner, XMLElement element, NodeDraft node) {
+        boolean slices = false;
+        for (XMLElement child : element.getChildren()) {
+            String name = child.getLocalName();
+            if (NODE.equalsIgnoreCase(name)) {
+                //Nested nodes are elements of their own
+                continue;
+            }
+            if (ATTVALUE.equalsIgnoreCase(name)) {
+                readNodeAttValue(owner, child, node);
+            } else if (NODE_POSITION.equalsIgnoreCase(name)) {
+                readNodePosition(owner, child, node);
+            } else if (NODE_COLOR.equalsIgnoreCase(name)) {
+                readNodeColor(owner, child, node);
+            } else if (NODE_SIZE.equalsIgnoreCase(name)) {
+                readNodeSize(owner, child, node);
+            } else if (NODE_SPELL.equalsIgnoreCase(name) || NODE_SPELL2.equalsIgnoreCase(name)) {
+                readNodeSpell(owner, child, node);
+                slices = true;
             }
+            slices |= readNodeChildren(owner, child, node);
         }
+        return slices;
     }
 
-    private void readNodeAttValue(XMLStreamReader reader, NodeDraft node) {
+    private void readNodeAttValue(ImportPipeline.Element owner, XMLElement element, NodeDraft node) {
         String fore = "";
         String value = "";
         String startDate = "";
         String endDate = "";
 
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            String attName = element.getAttributeName(i);
             if (ATTVALUE_FOR.equalsIgnoreCase(attName) || ATTVALUE_FOR2.equalsIgnoreCase(attName)) {
-                fore = reader.getAttributeValue(i);
+                fore = element.getAttributeValue(i);
             } else if (ATTVALUE_VALUE.equalsIgnoreCase(attName)) {
-                value = reader.getAttributeValue(i);
+                value = element.getAttributeValue(i);
             } else if (ATTVALUE_START.equalsIgnoreCase(attName)) {
-                startDate = reader.getAttributeValue(i);
+                startDate = element.getAttributeValue(i);
             } else if (ATTVALUE_END.equalsIgnoreCase(attName)) {
-                endDate = reader.getAttributeValue(i);
+                endDate = element.getAttributeValue(i);
             }
         }
 
         if (fore.isEmpty()) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datakey", node), Issue.Level.SEVERE));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datakey", node), Issue.Level.SEVERE));
             return;
         }
 
@@ -386,23 +437,17 @@ public class ImporterGEXF implements FileImporter, LongTask {
             AttributeColumn column = container.getAttributeModel().getNodeTable().getColumn(fore);
             if (column != null) {
                 if (!startDate.isEmpty() || !endDate.isEmpty()) {
-                    //Dynamic
-                    try {
-                        node.addAttributeValue(column, value, startDate, endDate);
-                    } catch (IllegalArgumentException e) {
-                        report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeattribute_timeinterval_parseerror", node), Issue.Level.SEVERE));
-                    } catch (Exception e) {
-                        report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datavalue", fore, node, column.getTitle()), Issue.Level.SEVERE));
-                    }
+                    //Dynamic, parsed at commit
+                    owner.addAttributeValue(fore, column, value, startDate, endDate);
                 } else {
                     if (column.getType().isDynamicType()) {
-                        node.addAttributeValue(column, value);
+                        owner.addAttributeValue(fore, column, value);
                     } else {
                         try {
                             Object val = column.getType().parse(value);
-                            node.addAttributeValue(column, val);
+                            owner.addAttributeValue(fore, column, val);
                         } catch (Exception e) {
-                            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datavalue", fore, node, column.getTitle()), Issue.Level.SEVERE));
+                            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datavalue", fore, node, column.getTitle()), Issue.Level.SEVERE));
                         }
                     }
                 }
@@ -410,22 +455,42 @@ public class ImporterGEXF implements FileImporter, LongTask {
         }
     }
 
-    private void readNodeColor(XMLStreamReader reader, NodeDraft node) throws Exception {
+    /**
+     * Sets the values queued by the conversion on <code>node</code>, on the
+     * parsing thread.
+     */
+    private void commitNodeAttValues(ImportPipeline.Element owner, NodeDraft node) {
+        for (ImportPipeline.AttributeValueDraft v : owner.getAttributeValues()) {
+            if (v.isDynamic()) {
+                try {
+                    node.addAttributeValue(v.column, v.value, v.startDate, v.endDate);
+                } catch (IllegalArgumentException e) {
+                    owner.logIssue(v, new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeattribute_timeinterval_parseerror", node), Issue.Level.SEVERE));
+                } catch (Exception e) {
+                    owner.logIssue(v, new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datavalue", v.key, node, v.column.getTitle()), Issue.Level.SEVERE));
+                }
+            } else {
+                node.addAttributeValue(v.column, v.value);
+            }
+        }
+    }
+
+    private void readNodeColor(ImportPipeline.Element owner, XMLElement element, NodeDraft node) {
         String rStr = "";
         String gStr = "";
         String bStr = "";
         String aStr = "";
 
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            String attName = element.getAttributeName(i);
             if ("r".equalsIgnoreCase(attName)) {
-                rStr = reader.getAttributeValue(i);
+                rStr = element.getAttributeValue(i);
             } else if ("g".equalsIgnoreCase(attName)) {
-                gStr = reader.getAttributeValue(i);
+                gStr = element.getAttributeValue(i);
             } else if ("b".equalsIgnoreCase(attName)) {
-                bStr = reader.getAttributeValue(i);
+                bStr = element.getAttributeValue(i);
             } else if ("a".equalsIgnoreCase(attName)) {
-                aStr = reader.getAttributeValue(i);
+                aStr = element.getAttributeValue(i);
             }
         }
 
@@ -434,34 +499,34 @@ public class ImporterGEXF implements FileImporter, LongTask {
         int b = (bStr.isEmpty()) ? 0 : Integer.parseInt(bStr);
         float a = (aStr.isEmpty()) ? 0 : Float.parseFloat(aStr); //not used
         if(r < 0 || r > 255) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodecolorvalue", rStr, node, "r"), Issue.Level.WARNING));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodecolorvalue", rStr, node, "r"), Issue.Level.WARNING));
         }
         if(g < 0 || g > 255) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodecolorvalue", gStr, node, "g"), Issue.Level.WARNING));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodecolorvalue", gStr, node, "g"), Issue.Level.WARNING));
         }
         if(b < 0 || b > 255) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodecolorvalue", bStr, node, "b"), Issue.Level.WARNING));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodecolorvalue", bStr, node, "b"), Issue.Level.WARNING));
         }
         if(a < 0f || a > 1f) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeopacityvalue", aStr, node), Issue.Level.WARNING));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeopacityvalue", aStr, node), Issue.Level.WARNING));
         }
 
         node.setColor(new Color(r, g, b));
     }
 
-    private void readNodePosition(XMLStreamReader reader, NodeDraft node) throws Exception {
+    private void readNodePosition(ImportPipeline.Element owner, XMLElement element, NodeDraft node) {
         String xStr = "";
         String yStr = "";
         String zStr = "";
 
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            String attName = element.getAttributeName(i);
             if ("x".equalsIgnoreCase(attName)) {
-                xStr = reader.getAttributeValue(i);
+                xStr = element.getAttributeValue(i);
             } else if ("y".equalsIgnoreCase(attName)) {
-                yStr = reader.getAttributeValue(i);
+                yStr = element.getAttributeValue(i);
             } else if ("z".equalsIgnoreCase(attName)) {
-                zStr = reader.getAttributeValue(i);
+                zStr = element.getAttributeValue(i);
             }
         }
 
@@ -470,7 +535,7 @@ public class ImporterGEXF implements FileImporter, LongTask {
                 float x = Float.parseFloat(xStr);
                 node.setX(x);
             } catch (NumberFormatException e) {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeposition", node, "X"), Issue.Level.WARNING));
+                owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeposition", node, "X"), Issue.Level.WARNING));
             }
         }
         if (!yStr.isEmpty()) {
@@ -478,7 +543,7 @@ public class ImporterGEXF implements FileImporter, LongTask {
                 float y = Float.parseFloat(yStr);
                 node.setY(y);
             } catch (NumberFormatException e) {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeposition", node, "Y"), Issue.Level.WARNING));
+                owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeposition", node, "Y"), Issue.Level.WARNING));
             }
         }
         if (!zStr.isEmpty()) {
@@ -486,43 +551,43 @@ public class ImporterGEXF implements FileImporter, LongTask {
                 float z = Float.parseFloat(zStr);
                 node.setZ(z);
             } catch (NumberFormatException e) {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeposition", node, "Z"), Issue.Level.WARNING));
+                owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodeposition", node, "Z"), Issue.Level.WARNING));
             }
         }
     }
 
-    private void readNodeSize(XMLStreamReader reader, NodeDraft node) throws Exception {
-        String attName = reader.getAttributeName(0).getLocalPart();
+    private void readNodeSize(ImportPipeline.Element owner, XMLElement element, NodeDraft node) {
+        String attName = element.getAttributeName(0);
         if ("value".equalsIgnoreCase(attName)) {
-            String sizeStr = reader.getAttributeValue(0);
+            String sizeStr = element.getAttributeValue(0);
             if (!sizeStr.isEmpty()) {
                 try {
                     float size = Float.parseFloat(sizeStr);
                     node.setSize(size);
                 } catch (NumberFormatException e) {
-                    report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodesize", node), Issue.Level.WARNING));
+                    owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_nodesize", node), Issue.Level.WARNING));
                 }
             }
         }
     }
 
-    private void readNodeSpell(XMLStreamReader reader, NodeDraft node) throws Exception {
+    private void readNodeSpell(ImportPipeline.Element owner, XMLElement element, NodeDraft node) {
         String start = "";
         String end = "";
         boolean startOpen = false;
         boolean endOpen = false;
 
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            String attName = element.getAttributeName(i);
             if (START.equalsIgnoreCase(attName)) {
-                start = reader.getAttributeValue(i);
+                start = element.getAttributeValue(i);
             } else if (END.equalsIgnoreCase(attName)) {
-                end = reader.getAttributeValue(i);
+                end = element.getAttributeValue(i);
             } else if (START_OPEN.equalsIgnoreCase(attName)) {
-                start = reader.getAttributeValue(i);
+                start = element.getAttributeValue(i);
                 startOpen = true;
             } else if (END_OPEN.equalsIgnoreCase(attName)) {
-                end = reader.getAttributeValue(i);
+                end = element.getAttributeValue(i);
                 endOpen = true;
             }
         }
@@ -531,16 +596,55 @@ public class ImporterGEXF implements FileImporter, LongTask {
             try {
                 node.addTimeInterval(start, end, startOpen, endOpen);
             } catch (IllegalArgumentException e) {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_node_timeinterval_parseerror", node), Issue.Level.SEVERE));
+                owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_node_timeinterval_parseerror", node), Issue.Level.SEVERE));
             }
         }
     }
 
-    private void readEdge(XMLStreamReader reader) throws Exception {
+    private class EdgeElement extends ImportPipeline.Element {
+
+        private final EdgeDraft edge;
+        private String source = "";
+        private String target = "";
+
+        public EdgeElement(XMLElement element) {
+            super(element);
+            edge = container.factory().newEdgeDraft();
+        }
+
+        @Override
+        protected void convert() {
+            readEdge(this, edge);
+        }
+
+        @Override
+        protected void commit() {
+            try {
+                NodeDraft nodeSource = container.getNode(source);
+                NodeDraft nodeTarget = container.getNode(target);
+                edge.setSource(nodeSource);
+                edge.setTarget(nodeTarget);
+            } catch (Exception e) {
+                if (source.isEmpty()) {
+                    report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgesource"), Issue.Level.SEVERE));
+                } else if (target.isEmpty()) {
+                    report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgetarget"), Issue.Level.SEVERE));
+                } else {
+                    report.logIssue(new Issue(e.getMessage(), Issue.Level.SEVERE));
+                }
+                return;
+            }
+
+            commitEdgeAttValues(this, edge);
+            container.addEdge(edge);
+            commitIssues(report);
+        }
+    }
+
+    private void readEdge(EdgeElement edgeElement, EdgeDraft edge) {
+        XMLElement element = edgeElement.element;
         String id = "";
         String label = "";
-        String source = "";
-        String target = "";
         String weight = "";
         String edgeType = "";
         String startDate = "";
@@ -549,51 +653,33 @@ public class ImporterGEXF implements FileImporter, LongTask {
         boolean endOpen = false;
 
         //Attributes
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            String attName = element.getAttributeName(i);
             if (EDGE_SOURCE.equalsIgnoreCase(attName)) {
-                source = reader.getAttributeValue(i);
+                edgeElement.source = element.getAttributeValue(i);
             } else if (EDGE_TARGET.equalsIgnoreCase(attName)) {
-                target = reader.getAttributeValue(i);
+                edgeElement.target = element.getAttributeValue(i);
             } else if (EDGE_WEIGHT.equalsIgnoreCase(attName)) {
-                weight = reader.getAttributeValue(i);
+                weight = element.getAttributeValue(i);
             } else if (EDGE_ID.equalsIgnoreCase(attName)) {
-                id = reader.getAttributeValue(i);
+                id = element.getAttributeValue(i);
             } else if (EDGE_TYPE.equalsIgnoreCase(attName)) {
-                edgeType = reader.getAttributeValue(i);
+                edgeType = element.getAttributeValue(i);
             } else if (EDGE_LABEL.equalsIgnoreCase(attName)) {
-                label = reader.getAttributeValue(i);
+                label = element.getAttributeValue(i);
             } else if (START.equalsIgnoreCase(attName)) {
-                startDate = reader.getAttributeValue(i);
+                startDate = element.getAttributeValue(i);
             } else if (END.equalsIgnoreCase(attName)) {
-                endDate = reader.getAttributeValue(i);
+                endDate = element.getAttributeValue(i);
             } else if (START_OPEN.equalsIgnoreCase(attName)) {
-                startDate = reader.getAttributeValue(i);
+                startDate = element.getAttributeValue(i);
                 startOpen = true;
             } else if (END_OPEN.equalsIgnoreCase(attName)) {
-                endDate = reader.getAttributeValue(i);
+                endDate = element.getAttributeValue(i);
                 endOpen = true;
             }
         }
 
-        EdgeDraft edge = container.factory().newEdgeDraft();
-
-        try {
-            NodeDraft nodeSource = container.getNode(source);
-            NodeDraft nodeTarget = container.getNode(target);
-            edge.setSource(nodeSource);
-            edge.setTarget(nodeTarget);
-        } catch (Exception e) {
-            if(source.isEmpty()) {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgesource"), Issue.Level.SEVERE));
-            } else if(target.isEmpty()) {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgetarget"), Issue.Level.SEVERE));
-            } else {
-                report.logIssue(new Issue(e.getMessage(), Issue.Level.SEVERE));
-            }
-            return;
-        }
-
         //Type
         if (!edgeType.isEmpty()) {
             if (edgeType.equalsIgnoreCase("undirected")) {
@@ -603,7 +689,7 @@ public class ImporterGEXF implements FileImporter, LongTask {
             } else if (edgeType.equalsIgnoreCase("mutual")) {
                 edge.setType(EdgeDraft.EdgeType.MUTUAL);
             } else {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgetype", edgeType, edge), Issue.Level.SEVERE));
+                edgeElement.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgetype", edgeType, edge), Issue.Level.SEVERE));
             }
         }
 
@@ -618,7 +704,7 @@ public class ImporterGEXF implements FileImporter, LongTask {
                 float weightNumber = Float.parseFloat(weight);
                 edge.setWeight(weightNumber);
             } catch (NumberFormatException e) {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgeweight", edge), Issue.Level.WARNING));
+                edgeElement.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgeweight", edge), Issue.Level.WARNING));
             }
         }
 
@@ -627,65 +713,56 @@ public class ImporterGEXF implements FileImporter, LongTask {
             edge.setLabel(label);
         }
 
-        container.addEdge(edge);
-
-        boolean end = false;
-        boolean spells = false;
-        while (reader.hasNext() && !end) {
-            int type = reader.next();
-
-            switch (type) {
-                case XMLStreamReader.START_ELEMENT:
-                    if (ATTVALUE.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        readEdgeAttValue(reader, edge);
-                    } else if (EDGE_COLOR.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        readEdgeColor(reader, edge);
-                    } else if (EDGE_SPELL.equalsIgnoreCase(xmlReader.getLocalName()) ||
-                            EDGE_SPELL2.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        readEdgeSpell(reader, edge);
-                        spells = true;
-                    }
-                    break;
-
-                case XMLStreamReader.END_ELEMENT:
-                    if (EDGE.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        end = true;
-                    }
-                    break;
-            }
-        }
+        boolean spells = readEdgeChildren(edgeElement, element, edge);
 
         //Dynamic
         if (!spells && (!startDate.isEmpty() || !endDate.isEmpty())) {
             try {
                 edge.addTimeInterval(startDate, endDate, startOpen, endOpen);
             } catch (IllegalArgumentException e) {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edge_timeinterval_parseerror", edge), Issue.Level.SEVERE));
+                edgeElement.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edge_timeinterval_parseerror", edge), Issue.Level.SEVERE));
             }
         }
     }
 
-    private void readEdgeAttValue(XMLStreamReader reader, EdgeDraft edge) {
+    private boolean readEdgeChildren(ImportPipeline.Element owner, XMLElement element, EdgeDraft edge) {
+        boolean spells = false;
+        for (XMLElement child : element.getChildren()) {
+            String name = child.getLocalName();
+            if (ATTVALUE.equalsIgnoreCase(name)) {
+                readEdgeAttValue(owner, child, edge);
+            } else if (EDGE_COLOR.equalsIgnoreCase(name)) {
+                readEdgeColor(owner, child, edge);
+            } else if (EDGE_SPELL.equalsIgnoreCase(name) || EDGE_SPELL2.equalsIgnoreCase(name)) {
+                readEdgeSpell(owner, child, edge);
+                spells = true;
+            }
+            spells |= readEdgeChildren(owner, child, edge);
+        }
+        return spells;
+    }
+
+    private void readEdgeAttValue(ImportPipeline.Element owner, XMLElement element, EdgeDraft edge) {
         String fore = "";
         String value = "";
         String startDate = "";
         String endDate = "";
 
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            String attName = element.getAttributeName(i);
             if (ATTVALUE_FOR.equalsIgnoreCase(attName) || ATTVALUE_FOR2.equalsIgnoreCase(attName)) {
-                fore = reader.getAttributeValue(i);
+                fore = element.getAttributeValue(i);
             } else if (ATTVALUE_VALUE.equalsIgnoreCase(attName)) {
-                value = reader.getAttributeValue(i);
+                value = element.getAttributeValue(i);
             } else if (ATTVALUE_START.equalsIgnoreCase(attName)) {
-                startDate = reader.getAttributeValue(i);
+                startDate = element.getAttributeValue(i);
             } else if (ATTVALUE_END.equalsIgnoreCase(attName)) {
-                endDate = reader.getAttributeValue(i);
+                endDate = element.getAttributeValue(i);
             }
         }
 
         if (fore.isEmpty()) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datakey", edge), Issue.Level.SEVERE));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datakey", edge), Issue.Level.SEVERE));
             return;
         }
 
@@ -694,23 +771,17 @@ public class ImporterGEXF implements FileImporter, LongTask {
             AttributeColumn column = container.getAttributeModel().getEdgeTable().getColumn(fore);
             if (column != null) {
                 if (!startDate.isEmpty() || !endDate.isEmpty()) {
-                    //Dynamic
-                    try {
-                        edge.addAttributeValue(column, value, startDate, endDate);
-                    } catch (IllegalArgumentException e) {
-                        report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgeattribute_timeinterval_parseerror", edge), Issue.Level.SEVERE));
-                    } catch (Exception e) {
-                        report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datavalue", fore, edge, column.getTitle()), Issue.Level.SEVERE));
-                    }
+                    //Dynamic, parsed at commit
+                    owner.addAttributeValue(fore, column, value, startDate, endDate);
                 } else {
                     if (column.getType().isDynamicType()) {
-                        edge.addAttributeValue(column, value);
+                        owner.addAttributeValue(fore, column, value);
                     } else {
                         try {
                             Object val = column.getType().parse(value);
-                            edge.addAttributeValue(column, val);
+                            owner.addAttributeValue(fore, column, val);
                         } catch (Exception e) {
-                            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datavalue", fore, edge, column.getTitle()), Issue.Level.SEVERE));
+                            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datavalue", fore, edge, column.getTitle()), Issue.Level.SEVERE));
                         }
                     }
                 }
@@ -718,22 +789,42 @@ public class ImporterGEXF implements FileImporter, LongTask {
         }
     }
 
-    private void readEdgeColor(XMLStreamReader reader, EdgeDraft edge) throws Exception {
+    /**
+     * Sets the values queued by the conversion on <code>edge</code>, on the
+     * parsing thread.
+     */
+    private void commitEdgeAttValues(ImportPipeline.Element owner, EdgeDraft edge) {
+        for (ImportPipeline.AttributeValueDraft v : owner.getAttributeValues()) {
+            if (v.isDynamic()) {
+                try {
+                    edge.addAttributeValue(v.column, v.value, v.startDate, v.endDate);
+                } catch (IllegalArgumentException e) {
+                    owner.logIssue(v, new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgeattribute_timeinterval_parseerror", edge), Issue.Level.SEVERE));
+                } catch (Exception e) {
+                    owner.logIssue(v, new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_datavalue", v.key, edge, v.column.getTitle()), Issue.Level.SEVERE));
+                }
+            } else {
+                edge.addAttributeValue(v.column, v.value);
+            }
+        }
+    }
+
+    private void readEdgeColor(ImportPipeline.Element owner, XMLElement element, EdgeDraft edge) {
         String rStr = "";
         String gStr = "";
         String bStr = "";
         String aStr = "";
 
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            String attName = element.getAttributeName(i);
             if ("r".equalsIgnoreCase(attName)) {
-                rStr = reader.getAttributeValue(i);
+                rStr = element.getAttributeValue(i);
             } else if ("g".equalsIgnoreCase(attName)) {
-                gStr = reader.getAttributeValue(i);
+                gStr = element.getAttributeValue(i);
             } else if ("b".equalsIgnoreCase(attName)) {
-                bStr = reader.getAttributeValue(i);
+                bStr = element.getAttributeValue(i);
             } else if ("a".equalsIgnoreCase(attName)) {
-                aStr = reader.getAttributeValue(i);
+                aStr = element.getAttributeValue(i);
             }
         }
 
@@ -742,38 +833,38 @@ public class ImporterGEXF implements FileImporter, LongTask {
         int b = (bStr.isEmpty()) ? 0 : Integer.parseInt(bStr);
         float a = (aStr.isEmpty()) ? 0 : Float.parseFloat(aStr); //not used
         if(r < 0 || r > 255) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgecolorvalue", rStr, edge, "r"), Issue.Level.WARNING));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgecolorvalue", rStr, edge, "r"), Issue.Level.WARNING));
         }
         if(g < 0 || g > 255) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgecolorvalue", gStr, edge, "g"), Issue.Level.WARNING));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgecolorvalue", gStr, edge, "g"), Issue.Level.WARNING));
         }
         if(b < 0 || b > 255) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgecolorvalue", bStr, edge, "b"), Issue.Level.WARNING));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgecolorvalue", bStr, edge, "b"), Issue.Level.WARNING));
         }
         if(a < 0f || a > 1f) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgeopacityvalue", aStr, edge), Issue.Level.WARNING));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edgeopacityvalue", aStr, edge), Issue.Level.WARNING));
         }
 
         edge.setColor(new Color(r, g, b));
     }
 
-    private void readEdgeSpell(XMLStreamReader reader, EdgeDraft edge) throws Exception {
+    private void readEdgeSpell(ImportPipeline.Element owner, XMLElement element, EdgeDraft edge) {
         String start = "";
         String end = "";
         boolean startOpen = false;
         boolean endOpen = false;
 
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            String attName = element.getAttributeName(i);
             if (START.equalsIgnoreCase(attName)) {
-                start = reader.getAttributeValue(i);
+                start = element.getAttributeValue(i);
             } else if (END.equalsIgnoreCase(attName)) {
-                end = reader.getAttributeValue(i);
+                end = element.getAttributeValue(i);
             } else if (START_OPEN.equalsIgnoreCase(attName)) {
-                start = reader.getAttributeValue(i);
+                start = element.getAttributeValue(i);
                 startOpen = true;
             } else if (END_OPEN.equalsIgnoreCase(attName)) {
-                end = reader.getAttributeValue(i);
+                end = element.getAttributeValue(i);
                 endOpen = true;
             }
         }
@@ -782,7 +873,7 @@ public class ImporterGEXF implements FileImporter, LongTask {
             try {
                 edge.addTimeInterval(start, end, startOpen, endOpen);
             } catch (IllegalArgumentException e) {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edge_timeinterval_parseerror", edge), Issue.Level.SEVERE));
+                owner.logIssue(new Issue(NbBundle.getMessage(ImporterGEXF.class, "importerGEXF_error_edge_timeinterval_parseerror", edge), Issue.Level.SEVERE));
             }
         }
     }
@@ -982,4 +1073,21 @@ public class ImporterGEXF implements FileImporter, LongTask {
     public void setProgressTicket(ProgressTicket progressTicket) {
         this.progress = progressTicket;
     }
+
+    /**
+     * Sets the number of threads converting nodes and edges while the file is
+     * read. Default is the number of available processors.
+     * @param threadCount the number of threads, <code>1</code> to convert on the
+     * reading thread
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
 }
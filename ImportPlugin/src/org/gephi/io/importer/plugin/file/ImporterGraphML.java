@@ -100,9 +100,12 @@ public class ImporterGraphML implements FileImporter, LongTask {
     private Report report;
     private ProgressTicket progress;
     private XMLStreamReader xmlReader;
+    private ImportPipeline<ImportPipeline.Element> pipeline;
     private PropertiesAssociations properties = new PropertiesAssociations();
     private HashMap<String, NodeProperties> nodePropertiesAttributes = new HashMap<String, NodeProperties>();
     private HashMap<String, EdgeProperties> edgePropertiesAttributes = new HashMap<String, EdgeProperties>();
+    //Settings
+    private int threadCount = Runtime.getRuntime().availableProcessors();
 
     public ImporterGraphML() {
         //Default node associations
@@ -135,6 +138,7 @@ public class ImporterGraphML implements FileImporter, LongTask {
         this.container = container;
         this.report = new Report();
         Progress.start(progress);
+        pipeline = new ImportPipeline<ImportPipeline.Element>(threadCount);
         try {
 
             XMLInputFactory inputFactory = XMLInputFactory.newInstance();
@@ -157,20 +161,19 @@ public class ImporterGraphML implements FileImporter, LongTask {
                     String name = xmlReader.getLocalName();
                     if (GRAPHML.equalsIgnoreCase(name)) {
                     } else if (GRAPH.equalsIgnoreCase(name)) {
+                        pipeline.flush();
                         readGraph(xmlReader);
                     } else if (NODE.equalsIgnoreCase(name)) {
-                        readNode(xmlReader, null);
+                        addNode(XMLElement.read(xmlReader), null);
                     } else if (EDGE.equalsIgnoreCase(name)) {
-                        readEdge(xmlReader);
+                        addEdge(XMLElement.read(xmlReader));
                     } else if (ATTRIBUTE.equalsIgnoreCase(name)) {
+                        pipeline.flush();
                         readAttribute(xmlReader);
                     }
-                } else if (eventType.equals(XMLStreamReader.END_ELEMENT)) {
-                    String name = xmlReader.getLocalName();
-                    if (NODE.equalsIgnoreCase(name)) {
-                    }
                 }
             }
+            pipeline.flush();
             xmlReader.close();
 
         } catch (Exception e) {
@@ -178,6 +181,9 @@ public class ImporterGraphML implements FileImporter, LongTask {
                 throw (RuntimeException) e;
             }
             throw new RuntimeException(e);
+        } finally {
+            pipeline.shutdown();
+            pipeline = null;
         }
         Progress.finish(progress);
         return !cancel;
@@ -209,96 +215,118 @@ public class ImporterGraphML implements FileImporter, LongTask {
         }
     }
 
-    private void readNode(XMLStreamReader reader, NodeDraft parent) throws Exception {
-        String id = "";
+    private void addNode(XMLElement element, NodeElement parent) throws Exception {
+        NodeElement node = new NodeElement(element, parent);
+        pipeline.add(node);
+        addNestedElements(element, node.id.isEmpty() ? null : node);
+    }
 
-        //Attributes
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
-            if (NODE_ID.equalsIgnoreCase(attName)) {
-                id = reader.getAttributeValue(i);
+    private void addNestedElements(XMLElement element, NodeElement parent) throws Exception {
+        for (XMLElement child : element.getChildren()) {
+            String name = child.getLocalName();
+            if (NODE.equalsIgnoreCase(name)) {
+                addNode(child, parent);
+            } else if (parent != null && ATTVALUE.equalsIgnoreCase(name)) {
+                //Values belong to the node
+            } else if (parent == null && EDGE.equalsIgnoreCase(name)) {
+                //Edges are only read outside of valid nodes
+                addEdge(child);
+            } else {
+                addNestedElements(child, parent);
             }
         }
+    }
 
-        if (id.isEmpty()) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_nodeid"), Issue.Level.SEVERE));
-            return;
-        }
+    private void addEdge(XMLElement element) throws Exception {
+        pipeline.add(new EdgeElement(element));
+    }
 
-        NodeDraft node = null;
-        if (container.nodeExists(id)) {
-            node = container.getNode(id);
-        } else {
-            node = container.factory().newNodeDraft();
-        }
-        node.setId(id);
+    private class NodeElement extends ImportPipeline.Element {
 
-        //Parent
-        if (parent != null) {
-            node.setParent(parent);
+        private final NodeElement parent;
+        private NodeDraft node;
+        private String id = "";
+
+        public NodeElement(XMLElement element, NodeElement parent) {
+            super(element);
+            this.parent = parent;
+
+            //Attributes
+            for (int i = 0; i < element.getAttributeCount(); i++) {
+                String attName = element.getAttributeName(i);
+                if (NODE_ID.equalsIgnoreCase(attName)) {
+                    id = element.getAttributeValue(i);
+                }
+            }
+            if (!id.isEmpty()) {
+                node = container.factory().newNodeDraft();
+            }
         }
 
-        if (!container.nodeExists(id)) {
-            container.addNode(node);
+        @Override
+        protected void convert() {
+            if (node != null) {
+                node.setId(id);
+                readNodeChildren(this, element, node);
+            }
         }
 
-        boolean end = false;
-        while (reader.hasNext() && !end) {
-            int type = reader.next();
+        @Override
+        protected void commit() {
+            if (id.isEmpty()) {
+                report.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_nodeid"), Issue.Level.SEVERE));
+                return;
+            }
 
-            switch (type) {
-                case XMLStreamReader.START_ELEMENT:
-                    String name = xmlReader.getLocalName();
-                    if (ATTVALUE.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        readNodeAttValue(reader, node);
-                    } else if (NODE.equalsIgnoreCase(name)) {
-                        readNode(reader, node);
-                    }
-                    break;
+            if (container.nodeExists(id)) {
+                //Read again into the existing node
+                node = container.getNode(id);
+                clear();
+                node.setId(id);
+                readNodeChildren(this, element, node);
+            }
+            commitAttValues(this, node);
 
-                case XMLStreamReader.END_ELEMENT:
-                    if (NODE.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        end = true;
-                    }
-                    break;
+            //Parent
+            if (parent != null) {
+                node.setParent(parent.node);
+            }
+
+            if (!container.nodeExists(id)) {
+                container.addNode(node);
             }
+            commitIssues(report);
         }
     }
 
-    private void readNodeAttValue(XMLStreamReader reader, NodeDraft node) throws Exception {
+    private void readNodeChildren(ImportPipeline.Element owner, XMLElement element, NodeDraft node) {
+        for (XMLElement child : element.getChildren()) {
+            String name = child.getLocalName();
+            if (ATTVALUE.equalsIgnoreCase(name)) {
+                readNodeAttValue(owner, child, node);
+            } else if (!NODE.equalsIgnoreCase(name)) {
+                //Nested nodes are elements of their own
+                readNodeChildren(owner, child, node);
+            }
+        }
+    }
+
+    private void readNodeAttValue(ImportPipeline.Element owner, XMLElement element, NodeDraft node) {
         String fore = "";
-        String value = "";
 
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            String attName = element.getAttributeName(i);
             if (ATTVALUE_FOR.equalsIgnoreCase(attName)) {
-                fore = reader.getAttributeValue(i);
+                fore = element.getAttributeValue(i);
             }
         }
 
         if (fore.isEmpty()) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datakey", node), Issue.Level.SEVERE));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datakey", node), Issue.Level.SEVERE));
             return;
         }
 
-        boolean end = false;
-        while (reader.hasNext() && !end) {
-            int xmltype = reader.next();
-
-            switch (xmltype) {
-                case XMLStreamReader.CHARACTERS:
-                    if (!xmlReader.isWhiteSpace()) {
-                        value += xmlReader.getText();
-                    }
-                    break;
-                case XMLStreamReader.END_ELEMENT:
-                    if (ATTVALUE.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        end = true;
-                    }
-                    break;
-            }
-        }
-
+        String value = element.getText();
         if (!value.isEmpty()) {
             //Property
             NodeProperties prop = nodePropertiesAttributes.get(fore);
@@ -343,7 +371,7 @@ public class ImporterGraphML implements FileImporter, LongTask {
                             break;
                     }
                 } catch (Exception e) {
-                    report.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datavalue", fore, node, prop.toString()), Issue.Level.SEVERE));
+                    owner.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datavalue", fore, node, prop.toString()), Issue.Level.SEVERE));
                 }
                 return;
             }
@@ -353,41 +381,77 @@ public class ImporterGraphML implements FileImporter, LongTask {
             if (column != null) {
                 try {
                     Object val = column.getType().parse(value);
-                    node.addAttributeValue(column, val);
+                    owner.addAttributeValue(fore, column, val);
                 } catch (Exception e) {
-                    report.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datavalue", fore, node, column.getTitle()), Issue.Level.SEVERE));
+                    owner.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datavalue", fore, node, column.getTitle()), Issue.Level.SEVERE));
                 }
             }
         }
     }
 
-    private void readEdge(XMLStreamReader reader) throws Exception {
+    /**
+     * Sets the values queued by the conversion on <code>node</code>, on the
+     * parsing thread.
+     */
+    private void commitAttValues(ImportPipeline.Element owner, NodeDraft node) {
+        for (ImportPipeline.AttributeValueDraft v : owner.getAttributeValues()) {
+            node.addAttributeValue(v.column, v.value);
+        }
+    }
+
+    private class EdgeElement extends ImportPipeline.Element {
+
+        private final EdgeDraft edge;
+        private String source = "";
+        private String target = "";
+
+        public EdgeElement(XMLElement element) {
+            super(element);
+            edge = container.factory().newEdgeDraft();
+        }
+
+        @Override
+        protected void convert() {
+            readEdge(this, edge);
+        }
+
+        @Override
+        protected void commit() {
+            NodeDraft nodeSource = container.getNode(source);
+            NodeDraft nodeTarget = container.getNode(target);
+            edge.setSource(nodeSource);
+            edge.setTarget(nodeTarget);
+            commitAttValues(this, edge);
+            commitIssues(report);
+            container.addEdge(edge);
+        }
+    }
+
+    private void commitAttValues(ImportPipeline.Element owner, EdgeDraft edge) {
+        for (ImportPipeline.AttributeValueDraft v : owner.getAttributeValues()) {
+            edge.addAttributeValue(v.column, v.value);
+        }
+    }
+
+    private void readEdge(EdgeElement edgeElement, EdgeDraft edge) {
+        XMLElement element = edgeElement.element;
         String id = "";
-        String source = "";
-        String target = "";
         String directed = "";
 
         //Attributes
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            String attName = element.getAttributeName(i);
             if (EDGE_SOURCE.equalsIgnoreCase(attName)) {
-                source = reader.getAttributeValue(i);
+                edgeElement.source = element.getAttributeValue(i);
             } else if (EDGE_TARGET.equalsIgnoreCase(attName)) {
-                target = reader.getAttributeValue(i);
+                edgeElement.target = element.getAttributeValue(i);
             } else if (EDGE_ID.equalsIgnoreCase(attName)) {
-                id = reader.getAttributeValue(i);
+                id = element.getAttributeValue(i);
             } else if (EDGE_DIRECTED.equalsIgnoreCase(attName)) {
-                directed = reader.getAttributeValue(i);
+                directed = element.getAttributeValue(i);
             }
         }
 
-        EdgeDraft edge = container.factory().newEdgeDraft();
-
-        NodeDraft nodeSource = container.getNode(source);
-        NodeDraft nodeTarget = container.getNode(target);
-        edge.setSource(nodeSource);
-        edge.setTarget(nodeTarget);
-
         //Type
         if (!directed.isEmpty()) {
             if (directed.equalsIgnoreCase("true")) {
@@ -395,7 +459,7 @@ public class ImporterGraphML implements FileImporter, LongTask {
             } else if (directed.equalsIgnoreCase("false")) {
                 edge.setType(EdgeDraft.EdgeType.UNDIRECTED);
             } else {
-                report.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_edgetype", directed, edge), Issue.Level.SEVERE));
+                edgeElement.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_edgetype", directed, edge), Issue.Level.SEVERE));
             }
         }
 
@@ -404,61 +468,35 @@ public class ImporterGraphML implements FileImporter, LongTask {
             edge.setId(id);
         }
 
-        boolean end = false;
-        while (reader.hasNext() && !end) {
-            int type = reader.next();
-
-            switch (type) {
-                case XMLStreamReader.START_ELEMENT:
-                    if (ATTVALUE.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        readEdgeAttValue(reader, edge);
-                    }
-                    break;
+        readEdgeChildren(edgeElement, element, edge);
+    }
 
-                case XMLStreamReader.END_ELEMENT:
-                    if (EDGE.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        end = true;
-                    }
-                    break;
+    private void readEdgeChildren(ImportPipeline.Element owner, XMLElement element, EdgeDraft edge) {
+        for (XMLElement child : element.getChildren()) {
+            if (ATTVALUE.equalsIgnoreCase(child.getLocalName())) {
+                readEdgeAttValue(owner, child, edge);
+            } else {
+                readEdgeChildren(owner, child, edge);
             }
         }
-        container.addEdge(edge);
     }
 
-    private void readEdgeAttValue(XMLStreamReader reader, EdgeDraft edge) throws Exception {
+    private void readEdgeAttValue(ImportPipeline.Element owner, XMLElement element, EdgeDraft edge) {
         String fore = "";
-        String value = "";
 
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String attName = reader.getAttributeName(i).getLocalPart();
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            String attName = element.getAttributeName(i);
             if (ATTVALUE_FOR.equalsIgnoreCase(attName)) {
-                fore = reader.getAttributeValue(i);
+                fore = element.getAttributeValue(i);
             }
         }
 
         if (fore.isEmpty()) {
-            report.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datakey", edge), Issue.Level.SEVERE));
+            owner.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datakey", edge), Issue.Level.SEVERE));
             return;
         }
 
-        boolean end = false;
-        while (reader.hasNext() && !end) {
-            int xmltype = reader.next();
-
-            switch (xmltype) {
-                case XMLStreamReader.CHARACTERS:
-                    if (!xmlReader.isWhiteSpace()) {
-                        value += xmlReader.getText();
-                    }
-                    break;
-                case XMLStreamReader.END_ELEMENT:
-                    if (ATTVALUE.equalsIgnoreCase(xmlReader.getLocalName())) {
-                        end = true;
-                    }
-                    break;
-            }
-        }
-
+        String value = element.getText();
         if (!value.isEmpty()) {
             EdgeProperties prop = edgePropertiesAttributes.get(fore);
             if (prop != null) {
@@ -496,7 +534,7 @@ public class ImporterGraphML implements FileImporter, LongTask {
                             break;
                     }
                 } catch (Exception e) {
-                    report.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datavalue", fore, edge, prop.toString()), Issue.Level.SEVERE));
+                    owner.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datavalue", fore, edge, prop.toString()), Issue.Level.SEVERE));
                 }
                 return;
             }
@@ -506,9 +544,9 @@ public class ImporterGraphML implements FileImporter, LongTask {
             if (column != null) {
                 try {
                     Object val = column.getType().parse(value);
-                    edge.addAttributeValue(column, val);
+                    owner.addAttributeValue(fore, column, val);
                 } catch (Exception e) {
-                    report.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datavalue", fore, edge, column.getTitle()), Issue.Level.SEVERE));
+                    owner.logIssue(new Issue(NbBundle.getMessage(ImporterGraphML.class, "importerGraphML_error_datavalue", fore, edge, column.getTitle()), Issue.Level.SEVERE));
                 }
             }
         }
@@ -708,4 +746,21 @@ public class ImporterGraphML implements FileImporter, LongTask {
     public void setProgressTicket(ProgressTicket progressTicket) {
         this.progress = progressTicket;
     }
+
+    /**
+     * Sets the number of threads converting nodes and edges while the file is
+     * read. Default is the number of available processors.
+     * @param threadCount the number of threads, <code>1</code> to convert on the
+     * reading thread
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
 }
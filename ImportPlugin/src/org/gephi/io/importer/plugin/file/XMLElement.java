@@ -0,0 +1,152 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.importer.plugin.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Copy of an XML element and of its subtree, read from a <code>XMLStreamReader</code>
+ * so that it can be converted later, on another thread.
+ *
+ * @author agent
+ */
+final class XMLElement {
+
+    private static final String[] EMPTY = new String[0];
+    private final String localName;
+    private final String[] attributeNames;
+    private final String[] attributeValues;
+    private List<XMLElement> children;
+    private String text;
+
+    private XMLElement(XMLStreamReader reader) {
+        localName = reader.getLocalName();
+        int count = reader.getAttributeCount();
+        if (count == 0) {
+            attributeNames = EMPTY;
+            attributeValues = EMPTY;
+        } else {
+            attributeNames = new String[count];
+            attributeValues = new String[count];
+            for (int i = 0; i < count; i++) {
+                attributeNames[i] = reader.getAttributeName(i).getLocalPart();
+                attributeValues[i] = reader.getAttributeValue(i);
+            }
+        }
+    }
+
+    /**
+     * Reads the element the reader is positioned on, up to its end tag.
+     * @param reader a reader positioned on a <code>START_ELEMENT</code> event
+     * @return the element and its subtree
+     */
+    public static XMLElement read(XMLStreamReader reader) throws XMLStreamException {
+        XMLElement element = new XMLElement(reader);
+        StringBuilder text = null;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamReader.START_ELEMENT:
+                    XMLElement child = read(reader);
+                    if (element.children == null) {
+                        element.children = new ArrayList<XMLElement>(4);
+                    }
+                    element.children.add(child);
+                    if (child.text != null) {
+                        if (text == null) {
+                            text = new StringBuilder();
+                        }
+                        text.append(child.text);
+                    }
+                    break;
+                case XMLStreamReader.CHARACTERS:
+                    if (!reader.isWhiteSpace()) {
+                        if (text == null) {
+                            text = new StringBuilder();
+                        }
+                        text.append(reader.getText());
+                    }
+                    break;
+                case XMLStreamReader.END_ELEMENT:
+                    if (text != null) {
+                        element.text = text.toString();
+                    }
+                    return element;
+            }
+        }
+        return element;
+    }
+
+    public String getLocalName() {
+        return localName;
+    }
+
+    public int getAttributeCount() {
+        return attributeNames.length;
+    }
+
+    public String getAttributeName(int index) {
+        return attributeNames[index];
+    }
+
+    public String getAttributeValue(int index) {
+        return attributeValues[index];
+    }
+
+    public List<XMLElement> getChildren() {
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        return children;
+    }
+
+    /**
+     * Returns the non-whitespace character data of this element and its
+     * descendants, in document order, or an empty string.
+     */
+    public String getText() {
+        return text != null ? text : "";
+    }
+}
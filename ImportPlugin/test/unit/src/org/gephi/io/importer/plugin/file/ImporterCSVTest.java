@@ -0,0 +1,115 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.io.importer.plugin.file;
+
+import java.io.StringReader;
+import org.gephi.io.importer.api.Container;
+import org.gephi.io.importer.api.ContainerFactory;
+import org.gephi.io.importer.api.ContainerLoader;
+import org.gephi.io.importer.api.EdgeDraftGetter;
+import org.gephi.io.importer.api.NodeDraftGetter;
+import org.gephi.io.importer.api.Report;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.openide.util.Lookup;
+
+/**
+ *
+ * @author agent
+ */
+public class ImporterCSVTest {
+
+    private ContainerLoader importString(ImporterCSV importer, String data) {
+        Container container = Lookup.getDefault().lookup(ContainerFactory.class).newContainer();
+        container.setReport(new Report());
+        importer.setReader(new StringReader(data));
+        importer.execute(container.getLoader());
+        return container.getLoader();
+    }
+
+    private EdgeDraftGetter getEdge(ContainerLoader loader, String source, String target) {
+        return (EdgeDraftGetter) loader.getEdge(loader.getNode(source), loader.getNode(target));
+    }
+
+    private boolean edgeExists(ContainerLoader loader, String source, String target) {
+        return loader.nodeExists(source) && loader.nodeExists(target) && getEdge(loader, source, target) != null;
+    }
+
+    @Test
+    public void testEdgeList() {
+        ContainerLoader loader = importString(new ImporterCSV(), "a,b\r\nb;c d\n\n  null , e\nc,a,\n");
+        assertTrue(edgeExists(loader, "a", "b"));
+        assertTrue(edgeExists(loader, "b", "c"));
+        assertTrue(edgeExists(loader, "b", "d"));
+        assertTrue(edgeExists(loader, "c", "a"));
+        assertFalse(loader.nodeExists("null"));
+        assertEquals("a", ((NodeDraftGetter) loader.getNode("a")).getLabel());
+    }
+
+    @Test
+    public void testQuotes() {
+        ContainerLoader loader = importString(new ImporterCSV(), "\"node a\",'node b'\n\"say \"\"hi\"\"\",\"x\\\"y\"\n\"multi\nline\",c\n");
+        assertTrue(edgeExists(loader, "node a", "node b"));
+        assertTrue(edgeExists(loader, "say \"hi\"", "x\"y"));
+        assertTrue(edgeExists(loader, "multi\nline", "c"));
+    }
+
+    @Test
+    public void testDelimiter() {
+        ImporterCSV importer = new ImporterCSV();
+        importer.setFieldDelimiter('\t');
+        importer.setQuoteCharacters("");
+        ContainerLoader loader = importString(importer, "node a\tnode b, c\n'd'\te\n");
+        assertTrue(edgeExists(loader, "node a", "node b, c"));
+        assertTrue(edgeExists(loader, "'d'", "e"));
+    }
+
+    @Test
+    public void testMatrix() {
+        ContainerLoader loader = importString(new ImporterCSV(), ";A;B;C\nA;0;1;0\nB;1;0;2.5\nC;0;0;0\n");
+        assertTrue(edgeExists(loader, "A", "B"));
+        assertTrue(edgeExists(loader, "B", "A"));
+        assertTrue(edgeExists(loader, "B", "C"));
+        assertFalse(edgeExists(loader, "A", "C"));
+        assertEquals(2.5f, getEdge(loader, "B", "C").getWeight(), 0f);
+    }
+}
@@ -44,6 +44,8 @@ package org.gephi.io.importer.plugin.file;
 import java.io.File;
 import java.io.FileReader;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeType;
 import org.gephi.data.attributes.api.AttributeValue;
@@ -53,6 +55,7 @@ import org.gephi.dynamic.DynamicUtilities;
 import org.gephi.io.importer.api.Container;
 import org.gephi.io.importer.api.ContainerFactory;
 import org.gephi.io.importer.api.ContainerUnloader;
+import org.gephi.io.importer.api.EdgeDraftGetter;
 import org.gephi.io.importer.api.NodeDraftGetter;
 import org.gephi.io.importer.api.Report;
 import org.junit.After;
@@ -252,4 +255,51 @@ public class ImporterGEXFTest {
 
         System.out.println(container.getReport().getText());
     }
+
+    @Test
+    public void testThreadCount() throws Exception {
+        importer.setThreadCount(1);
+        ContainerUnloader serial = importTestParser(importer);
+
+        ImporterGEXF pipelined = new ImporterGEXF();
+        pipelined.setThreadCount(4);
+        ContainerUnloader parallel = importTestParser(pipelined);
+
+        List<NodeDraftGetter> serialNodes = new ArrayList<NodeDraftGetter>(serial.getNodes());
+        List<NodeDraftGetter> parallelNodes = new ArrayList<NodeDraftGetter>(parallel.getNodes());
+        assertEquals(serialNodes.size(), parallelNodes.size());
+        for (int i = 0; i < serialNodes.size(); i++) {
+            NodeDraftGetter n1 = serialNodes.get(i);
+            NodeDraftGetter n2 = parallelNodes.get(i);
+            assertEquals(n1.getId(), n2.getId());
+            assertEquals(n1.getLabel(), n2.getLabel());
+            assertEquals(String.valueOf(n1.getTimeInterval()), String.valueOf(n2.getTimeInterval()));
+            assertEquals(n1.getParents() == null, n2.getParents() == null);
+            if (n1.getParents() != null) {
+                assertEquals(n1.getParents()[0].getId(), n2.getParents()[0].getId());
+            }
+            assertArrayEquals(n1.getAttributeRow().getValues(), n2.getAttributeRow().getValues());
+        }
+
+        List<EdgeDraftGetter> serialEdges = new ArrayList<EdgeDraftGetter>(serial.getEdges());
+        List<EdgeDraftGetter> parallelEdges = new ArrayList<EdgeDraftGetter>(parallel.getEdges());
+        assertEquals(serialEdges.size(), parallelEdges.size());
+        for (int i = 0; i < serialEdges.size(); i++) {
+            EdgeDraftGetter e1 = serialEdges.get(i);
+            EdgeDraftGetter e2 = parallelEdges.get(i);
+            assertEquals(e1.getSource().getId(), e2.getSource().getId());
+            assertEquals(e1.getTarget().getId(), e2.getTarget().getId());
+            assertEquals(e1.getWeight(), e2.getWeight(), 0f);
+            assertEquals(String.valueOf(e1.getTimeInterval()), String.valueOf(e2.getTimeInterval()));
+        }
+    }
+
+    private ContainerUnloader importTestParser(ImporterGEXF importer) throws Exception {
+        URL url = getClass().getResource("/org/gephi/io/importer/plugin/file/testparser.gexf");
+        importer.setReader(new FileReader(new File(url.toURI())));
+        Container container = Lookup.getDefault().lookup(ContainerFactory.class).newContainer();
+        container.setReport(new Report());
+        importer.execute(container.getLoader());
+        return container.getUnloader();
+    }
 }
@@ -0,0 +1,242 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.layout.plugin;
+
+import java.util.Arrays;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.HierarchicalGraph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeData;
+
+/**
+ * Node positions and forces of a layout packed in primitive arrays, so iterations
+ * don't read and write <code>NodeData</code> and layout data objects for each
+ * force computed.
+ * <p>
+ * Nodes are designated by their index in <code>getNodes()</code>, and edges by
+ * their index in <code>getEdges()</code>, with <code>edgeSources</code> and
+ * <code>edgeTargets</code> giving the indices of their nodes. Positions are
+ * read from the graph when the buffer is created and with <code>read()</code>,
+ * and written back with <code>write()</code>, typically every few iterations.
+ * <p>
+ * The buffer must be created in a read lock, and recreated when
+ * <code>isUpToDate()</code> returns <code>false</code>.
+ *
+ * @author agent
+ */
+public class LayoutBuffer {
+
+    //Nodes
+    private final Node[] nodes;
+    private final int[] indexById;
+    public final double[] x;
+    public final double[] y;
+    public final double[] dx;
+    public final double[] dy;
+    public final double[] oldDx;
+    public final double[] oldDy;
+    public final double[] mass;
+    public final double[] size;
+    public final boolean[] fixed;
+    //Edges
+    private final Edge[] edges;
+    public final int[] edgeSources;
+    public final int[] edgeTargets;
+    private int[] incidentOffsets;
+    private int[] incidentEdges;
+    //Version
+    private final int viewId;
+    private final int nodeVersion;
+    private final int edgeVersion;
+
+    public LayoutBuffer(HierarchicalGraph graph) {
+        viewId = graph.getView().getViewId();
+        nodeVersion = graph.getNodeVersion();
+        edgeVersion = graph.getEdgeVersion();
+        nodes = graph.getNodes().toArray();
+        edges = graph.getEdgesAndMetaEdges().toArray();
+
+        int nodeCount = nodes.length;
+        x = new double[nodeCount];
+        y = new double[nodeCount];
+        dx = new double[nodeCount];
+        dy = new double[nodeCount];
+        oldDx = new double[nodeCount];
+        oldDy = new double[nodeCount];
+        mass = new double[nodeCount];
+        size = new double[nodeCount];
+        fixed = new boolean[nodeCount];
+        Arrays.fill(mass, 1.0);
+        read();
+
+        int maxId = 0;
+        for (Node n : nodes) {
+            maxId = Math.max(maxId, n.getId());
+        }
+        indexById = new int[maxId + 1];
+        Arrays.fill(indexById, -1);
+        for (int i = 0; i < nodeCount; i++) {
+            indexById[nodes[i].getId()] = i;
+        }
+        edgeSources = new int[edges.length];
+        edgeTargets = new int[edges.length];
+        for (int e = 0; e < edges.length; e++) {
+            edgeSources[e] = indexOf(edges[e].getSource());
+            edgeTargets[e] = indexOf(edges[e].getTarget());
+        }
+    }
+
+    /**
+     * Returns the index of <code>node</code> in the buffer, or <code>-1</code>
+     * if the node is not in the buffer.
+     */
+    public int indexOf(Node node) {
+        int id = node.getId();
+        return id < indexById.length ? indexById[id] : -1;
+    }
+
+    /**
+     * Returns <code>true</code> if the nodes and edges of the buffer are still
+     * those of <code>graph</code>.
+     */
+    public boolean isUpToDate(HierarchicalGraph graph) {
+        return graph.getView().getViewId() == viewId
+                && graph.getNodeVersion() == nodeVersion
+                && graph.getEdgeVersion() == edgeVersion;
+    }
+
+    /**
+     * Reads positions, sizes and fixed states from the nodes.
+     */
+    public void read() {
+        for (int i = 0; i < nodes.length; i++) {
+            NodeData nodeData = nodes[i].getNodeData();
+            x[i] = nodeData.x();
+            y[i] = nodeData.y();
+            size[i] = nodeData.getSize();
+            fixed[i] = nodeData.isFixed();
+        }
+    }
+
+    /**
+     * Writes positions to the nodes, except for fixed nodes.
+     */
+    public void write() {
+        for (int i = 0; i < nodes.length; i++) {
+            NodeData nodeData = nodes[i].getNodeData();
+            if (!fixed[i] && !nodeData.isFixed()) {
+                nodeData.setX((float) x[i]);
+                nodeData.setY((float) y[i]);
+            }
+        }
+    }
+
+    public Node[] getNodes() {
+        return nodes;
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public Edge[] getEdges() {
+        return edges;
+    }
+
+    public int getEdgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * Returns the offsets of each node in <code>getIncidentEdges()</code>,
+     * <code>nodeCount + 1</code> long.
+     */
+    public synchronized int[] getIncidentOffsets() {
+        if (incidentOffsets == null) {
+            indexIncidentEdges();
+        }
+        return incidentOffsets;
+    }
+
+    /**
+     * Returns the indices of edges incident to each node, grouped by node.
+     * Self-loops and edges with a node out of the buffer are excluded.
+     */
+    public synchronized int[] getIncidentEdges() {
+        if (incidentEdges == null) {
+            indexIncidentEdges();
+        }
+        return incidentEdges;
+    }
+
+    private void indexIncidentEdges() {
+        int[] offsets = new int[nodes.length + 1];
+        for (int e = 0; e < edges.length; e++) {
+            if (isProperEdge(e)) {
+                offsets[edgeSources[e] + 1]++;
+                offsets[edgeTargets[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] incident = new int[offsets[nodes.length]];
+        int[] cursor = new int[nodes.length];
+        System.arraycopy(offsets, 0, cursor, 0, nodes.length);
+        for (int e = 0; e < edges.length; e++) {
+            if (isProperEdge(e)) {
+                incident[cursor[edgeSources[e]]++] = e;
+                incident[cursor[edgeTargets[e]]++] = e;
+            }
+        }
+        incidentOffsets = offsets;
+        incidentEdges = incident;
+    }
+
+    /**
+     * Returns <code>true</code> if the edge at <code>index</code> is not a
+     * self-loop and both its nodes are in the buffer.
+     */
+    public boolean isProperEdge(int index) {
+        return edgeSources[index] != -1 && edgeTargets[index] != -1 && edgeSources[index] != edgeTargets[index];
+    }
+}
@@ -42,6 +42,7 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.layout.plugin.force;
 
 import org.gephi.graph.api.NodeData;
+import org.gephi.layout.plugin.LayoutBuffer;
 
 /**
  *
@@ -52,4 +53,6 @@ public interface Displacement {
     public void setStep(float step);
 
     public void moveNode(NodeData node, ForceVector forceData);
+
+    public void moveNode(LayoutBuffer buffer, int index, ForceVector forceData);
 }
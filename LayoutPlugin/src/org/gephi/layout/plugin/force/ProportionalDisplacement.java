@@ -42,6 +42,7 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.layout.plugin.force;
 
 import org.gephi.graph.api.NodeData;
+import org.gephi.layout.plugin.LayoutBuffer;
 
 /**
  *  The movement of the node is in the direction of the force and it's proportional
@@ -79,4 +80,19 @@ public class ProportionalDisplacement implements Displacement {
             node.setY(y);
         }
     }
+
+    public void moveNode(LayoutBuffer buffer, int index, ForceVector forceData) {
+        ForceVector displacement = new ForceVector(forceData);
+        displacement.multiply(step);
+
+        float x = (float) buffer.x[index] + displacement.x();
+        float y = (float) buffer.y[index] + displacement.y();
+
+        if (assertValue(x)) {
+            buffer.x[index] = x;
+        }
+        if (assertValue(y)) {
+            buffer.y[index] = y;
+        }
+    }
 }
@@ -42,6 +42,7 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.layout.plugin.force;
 
 import org.gephi.graph.api.NodeData;
+import org.gephi.layout.plugin.LayoutBuffer;
 
 /**
  *  The node is moved a fixed distance (step) in the direction of the force.
@@ -75,6 +76,21 @@ public class StepDisplacement implements Displacement {
         }
     }
 
+    public void moveNode(LayoutBuffer buffer, int index, ForceVector forceData) {
+        ForceVector displacement = forceData.normalize();
+        displacement.multiply(step);
+
+        float x = (float) buffer.x[index] + displacement.x();
+        float y = (float) buffer.y[index] + displacement.y();
+
+        if (assertValue(x)) {
+            buffer.x[index] = x;
+        }
+        if (assertValue(y)) {
+            buffer.y[index] = y;
+        }
+    }
+
     public void setStep(float step) {
         this.step = step;
     }
@@ -46,6 +46,8 @@ import java.util.List;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.Spatial;
+import org.gephi.layout.plugin.LayoutBuffer;
+import org.gephi.layout.plugin.force.ForceVector;
 
 /**
  * @author Helder Suzuki <heldersuzuki@gephi.org>
@@ -86,6 +88,36 @@ public class QuadTree implements Spatial {
         return tree;
     }
 
+    /**
+     * Builds the tree from the positions of a buffer, without reading the nodes.
+     */
+    public static QuadTree buildTree(LayoutBuffer buffer, int maxLevel) {
+        float minX = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+
+        int nodeCount = buffer.getNodeCount();
+        for (int i = 0; i < nodeCount; i++) {
+            minX = Math.min(minX, (float) buffer.x[i]);
+            maxX = Math.max(maxX, (float) buffer.x[i]);
+            minY = Math.min(minY, (float) buffer.y[i]);
+            maxY = Math.max(maxY, (float) buffer.y[i]);
+        }
+
+        float size = Math.max(maxY - minY, maxX - minX);
+        QuadTree tree = new QuadTree(minX, minY, size, maxLevel);
+        //Nodes are added by position only, so a single point is reused
+        ForceVector point = new ForceVector();
+        for (int i = 0; i < nodeCount; i++) {
+            point.setX((float) buffer.x[i]);
+            point.setY((float) buffer.y[i]);
+            tree.addNode(point);
+        }
+
+        return tree;
+    }
+
     public QuadTree(float posX, float posY, float size, int maxLevel) {
         this.posX = posX;
         this.posY = posY;
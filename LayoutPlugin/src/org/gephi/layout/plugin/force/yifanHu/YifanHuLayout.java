@@ -42,14 +42,13 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.layout.plugin.force.yifanHu;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.HierarchicalGraph;
-import org.gephi.graph.api.Node;
-import org.gephi.graph.api.NodeData;
 import org.gephi.graph.api.Spatial;
 import org.gephi.layout.plugin.AbstractLayout;
 import org.gephi.layout.plugin.GraphUtils;
+import org.gephi.layout.plugin.LayoutBuffer;
 import org.gephi.layout.plugin.force.AbstractForce;
 import org.gephi.layout.plugin.force.Displacement;
 import org.gephi.layout.plugin.force.ForceVector;
@@ -80,6 +79,10 @@ public class YifanHuLayout extends AbstractLayout implements Layout {
     private double energy0;
     private double energy;
     private HierarchicalGraph graph;
+    private int updateInterval;
+    //Positions, written to the nodes every updateInterval iterations
+    private LayoutBuffer buffer;
+    private int iterationsSinceUpdate;
 
     public YifanHuLayout(LayoutBuilder layoutBuilder, Displacement displacement) {
         super(layoutBuilder);
@@ -139,6 +142,7 @@ public class YifanHuLayout extends AbstractLayout implements Layout {
         setBarnesHutTheta(1.2f);
         setAdaptiveCooling(true);
         setConvergenceThreshold(1e-4f);
+        setUpdateInterval(1);
     }
 
     public LayoutProperty[] getProperties() {
@@ -190,6 +194,14 @@ public class YifanHuLayout extends AbstractLayout implements Layout {
                     "YifanHu.convergenceThreshold.name",
                     NbBundle.getMessage(getClass(), "YifanHu.convergenceThreshold.desc"),
                     "getConvergenceThreshold", "setConvergenceThreshold"));
+
+            properties.add(LayoutProperty.createProperty(
+                    this, Integer.class, 
+                    NbBundle.getMessage(getClass(), "YifanHu.updateInterval.name"),
+                    YIFANHU_CATEGORY,
+                    "YifanHu.updateInterval.name",
+                    NbBundle.getMessage(getClass(), "YifanHu.updateInterval.desc"),
+                    "getUpdateInterval", "setUpdateInterval"));
             properties.add(LayoutProperty.createProperty(
                     this, Integer.class, 
                     NbBundle.getMessage(getClass(), "YifanHu.quadTreeMaxLevel.name"),
@@ -217,60 +229,78 @@ public class YifanHuLayout extends AbstractLayout implements Layout {
         }
         graph = graphModel.getHierarchicalGraphVisible();
         energy = Float.POSITIVE_INFINITY;
-        for (Node n : graph.getNodes()) {
-            NodeData data = n.getNodeData();
-            data.setLayoutData(new ForceVector());
-        }
+        graph.readLock();
+        buffer = null;
+        updateBuffer();
+        graph.readUnlock();
         progress = 0;
         setConverged(false);
         setStep(initialStep);
     }
 
     public void endAlgo() {
-        for (Node node : graph.getNodes()) {
-            NodeData data = node.getNodeData();
-            data.setLayoutData(null);
+        if (buffer != null) {
+            buffer.write();
+            buffer = null;
+        }
+    }
+
+    private void updateBuffer() {
+        if (buffer == null || !buffer.isUpToDate(graph)) {
+            if (buffer != null) {
+                buffer.write();
+            }
+            buffer = new LayoutBuffer(graph);
+            iterationsSinceUpdate = 0;
+        } else if (iterationsSinceUpdate == 0) {
+            buffer.read();
         }
     }
 
     public void goAlgo() {
         graph = graphModel.getHierarchicalGraphVisible();
         graph.readLock();
-        Node[] nodes = graph.getNodes().toArray();
-        for (Node n : nodes) {
-            if (n.getNodeData().getLayoutData() == null || !(n.getNodeData().getLayoutData() instanceof ForceVector)) {
-                n.getNodeData().setLayoutData(new ForceVector());
-            }
-        }
+        updateBuffer();
+        LayoutBuffer b = buffer;
+        int nodeCount = b.getNodeCount();
+        Arrays.fill(b.dx, 0);
+        Arrays.fill(b.dy, 0);
+        ForceVector point = new ForceVector();
 
         // Evaluates n^2 inter node forces using BarnesHut.
-        QuadTree tree = QuadTree.buildTree(graph, getQuadTreeMaxLevel());
+        QuadTree tree = QuadTree.buildTree(b, getQuadTreeMaxLevel());
 
 //        double electricEnergy = 0; ///////////////////////
 //        double springEnergy = 0; ///////////////////////
         BarnesHut barnes = new BarnesHut(getNodeForce());
         barnes.setTheta(getBarnesHutTheta());
-        for (Node node : nodes) {
-            NodeData data = node.getNodeData();
-            ForceVector layoutData = data.getLayoutData();
-
-            ForceVector f = barnes.calculateForce(data, tree);
-            layoutData.add(f);
+        for (int i = 0; i < nodeCount; i++) {
+            point.setX((float) b.x[i]);
+            point.setY((float) b.y[i]);
+            ForceVector f = barnes.calculateForce(point, tree);
+            if (f != null) {
+                b.dx[i] += f.x();
+                b.dy[i] += f.y();
+            }
 //            electricEnergy += f.getEnergy();
         }
 
         // Apply edge forces.
-
-        for (Edge e : graph.getEdgesAndMetaEdges()) {
-            if (!e.getSource().equals(e.getTarget())) {
-                NodeData n1 = e.getSource().getNodeData();
-                NodeData n2 = e.getTarget().getNodeData();
-                ForceVector f1 = n1.getLayoutData();
-                ForceVector f2 = n2.getLayoutData();
-
-                ForceVector f = getEdgeForce().calculateForce(n1, n2);
-                f1.add(f);
-                f2.subtract(f);
+        AbstractForce edgeForce = getEdgeForce();
+        ForceVector point2 = new ForceVector();
+        for (int e = 0; e < b.getEdgeCount(); e++) {
+            if (b.isProperEdge(e)) {
+                int n1 = b.edgeSources[e];
+                int n2 = b.edgeTargets[e];
+                point.setX((float) b.x[n1]);
+                point.setY((float) b.y[n1]);
+                point2.setX((float) b.x[n2]);
+                point2.setY((float) b.y[n2]);
+                ForceVector f = edgeForce.calculateForce(point, point2);
+                b.dx[n1] += f.x();
+                b.dy[n1] += f.y();
+                b.dx[n2] -= f.x();
+                b.dy[n2] -= f.y();
             }
         }
 
@@ -278,24 +308,30 @@ public class YifanHuLayout extends AbstractLayout implements Layout {
         energy0 = energy;
         energy = 0;
         double maxForce = 1;
-        for (Node n : nodes) {
-            NodeData data = n.getNodeData();
-            ForceVector force = data.getLayoutData();
-
+        ForceVector force = new ForceVector();
+        for (int i = 0; i < nodeCount; i++) {
+            force.setX((float) b.dx[i]);
+            force.setY((float) b.dy[i]);
             energy += force.getNorm();
             maxForce = Math.max(maxForce, force.getNorm());
         }
 
         // Apply displacements on nodes.
-        for (Node n : nodes) {
-            NodeData data = n.getNodeData();
-            if (!data.isFixed()) {
-                ForceVector force = data.getLayoutData();
+        for (int i = 0; i < nodeCount; i++) {
+            if (!b.fixed[i]) {
+                force.setX((float) b.dx[i]);
+                force.setY((float) b.dy[i]);
 
                 force.multiply((float) (1.0 / maxForce));
-                getDisplacement().moveNode(data, force);
+                getDisplacement().moveNode(b, i, force);
             }
         }
+
+        // Write positions every updateInterval iterations
+        if (++iterationsSinceUpdate >= updateInterval) {
+            b.write();
+            iterationsSinceUpdate = 0;
+        }
         postAlgo();
 //        springEnergy = energy - electricEnergy;
 //        System.out.println("electric: " + electricEnergy + "    spring: " + springEnergy);
@@ -313,6 +349,15 @@ public class YifanHuLayout extends AbstractLayout implements Layout {
         this.quadTreeMaxLevel = quadTreeMaxLevel;
     }
 
+    /* Number of iterations between two updates of the nodes positions */
+    public Integer getUpdateInterval() {
+        return updateInterval;
+    }
+
+    public void setUpdateInterval(Integer updateInterval) {
+        this.updateInterval = Math.max(1, updateInterval);
+    }
+
     /* theta is the parameter for Barnes-Hut opening criteria */
     public Float getBarnesHutTheta() {
         return barnesHutTheta;
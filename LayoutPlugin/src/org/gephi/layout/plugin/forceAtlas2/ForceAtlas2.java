@@ -42,7 +42,9 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.layout.plugin.forceAtlas2;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -56,6 +58,7 @@ import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.NodeData;
+import org.gephi.layout.plugin.LayoutBuffer;
 import org.gephi.layout.plugin.forceAtlas2.ForceFactory.AttractionForce;
 import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
 import org.gephi.layout.spi.Layout;
@@ -89,7 +92,20 @@ public class ForceAtlas2 implements Layout {
     private boolean strongGravityMode;
     private int threadCount;
     private int currentThreadCount;
-    private Region rootRegion;
+    //Positions, written to the nodes every updateInterval iterations with a
+    //packed buffer. Otherwise nodes and their layout data are read and written
+    //at each iteration
+    private boolean packedBuffer;
+    private int updateInterval;
+    private int iterationsSinceUpdate;
+    private LayoutBuffer buffer;
+    //Barnes Hut regions, refit instead of rebuilt while nodes move less than
+    //REGION_REFIT_TOLERANCE times the root region size since the last build
+    private static final double REGION_REFIT_TOLERANCE = 0.01;
+    private RegionTree regionTree;
+    private LayoutBuffer regionTreeBuffer;
+    private double[] regionTreeX;
+    private double[] regionTreeY;
     double outboundAttCompensation = 1;
     //Dynamic Weight
     private TimeInterval timeInterval;
@@ -97,7 +113,7 @@ public class ForceAtlas2 implements Layout {
 
     public ForceAtlas2(ForceAtlas2Builder layoutBuilder) {
         this.layoutBuilder = layoutBuilder;
-        this.threadCount = Math.min(4, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        this.threadCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
     }
 
     @Override
@@ -108,25 +124,68 @@ public class ForceAtlas2 implements Layout {
         this.timeInterval = DynamicUtilities.getVisibleInterval(dynamicModel);
 
         graph.readLock();
-        Node[] nodes = graph.getNodes().toArray();
+        buffer = null;
+        updateBuffer();
 
-        // Initialise layout data
-        for (Node n : nodes) {
-            if (n.getNodeData().getLayoutData() == null || !(n.getNodeData().getLayoutData() instanceof ForceAtlas2LayoutData)) {
+        pool = Executors.newFixedThreadPool(threadCount);
+        currentThreadCount = threadCount;
+        regionTree = null;
+        regionTreeBuffer = null;
+    }
+
+    /**
+     * Creates the buffer when the graph changed, writing the previous one first.
+     * Otherwise reads the nodes again at the beginning of each update interval,
+     * so nodes moved or fixed meanwhile are taken in account. Without packed
+     * buffer, nodes and their <code>ForceAtlas2LayoutData</code> are read at
+     * each iteration.
+     */
+    private void updateBuffer() {
+        if (buffer == null || !buffer.isUpToDate(graph)) {
+            if (buffer != null) {
+                buffer.write();
+            }
+            buffer = new LayoutBuffer(graph);
+            Node[] nodes = buffer.getNodes();
+            for (int i = 0; i < nodes.length; i++) {
+                buffer.mass[i] = 1 + graph.getDegree(nodes[i]);
+            }
+            iterationsSinceUpdate = 0;
+        } else if (!packedBuffer || iterationsSinceUpdate == 0) {
+            buffer.read();
+        }
+        if (!packedBuffer) {
+            readLayoutData();
+        }
+    }
+
+    private void readLayoutData() {
+        Node[] nodes = buffer.getNodes();
+        for (int i = 0; i < nodes.length; i++) {
+            NodeData nData = nodes[i].getNodeData();
+            if (nData.getLayoutData() == null || !(nData.getLayoutData() instanceof ForceAtlas2LayoutData)) {
                 ForceAtlas2LayoutData nLayout = new ForceAtlas2LayoutData();
-                n.getNodeData().setLayoutData(nLayout);
+                nData.setLayoutData(nLayout);
             }
-            NodeData nData = n.getNodeData();
             ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-            nLayout.mass = 1 + graph.getDegree(n);
-            nLayout.old_dx = 0;
-            nLayout.old_dy = 0;
-            nLayout.dx = 0;
-            nLayout.dy = 0;
+            nLayout.mass = 1 + graph.getDegree(nodes[i]);
+            buffer.dx[i] = nLayout.dx;
+            buffer.dy[i] = nLayout.dy;
+            buffer.oldDx[i] = nLayout.old_dx;
+            buffer.oldDy[i] = nLayout.old_dy;
+            buffer.mass[i] = nLayout.mass;
         }
+    }
 
-        pool = Executors.newFixedThreadPool(threadCount);
-        currentThreadCount = threadCount;
+    private void writeLayoutData() {
+        Node[] nodes = buffer.getNodes();
+        for (int i = 0; i < nodes.length; i++) {
+            ForceAtlas2LayoutData nLayout = nodes[i].getNodeData().getLayoutData();
+            nLayout.dx = buffer.dx[i];
+            nLayout.dy = buffer.dy[i];
+            nLayout.old_dx = buffer.oldDx[i];
+            nLayout.old_dy = buffer.oldDy[i];
+        }
     }
 
     @Override
@@ -139,52 +198,41 @@ public class ForceAtlas2 implements Layout {
         this.timeInterval = DynamicUtilities.getVisibleInterval(dynamicModel);
 
         graph.readLock();
-        Node[] nodes = graph.getNodes().toArray();
-        Edge[] edges = graph.getEdgesAndMetaEdges().toArray();
+        updateBuffer();
+        final LayoutBuffer b = buffer;
+        final int nodeCount = b.getNodeCount();
 
         // Initialise layout data
-        for (Node n : nodes) {
-            if (n.getNodeData().getLayoutData() == null || !(n.getNodeData().getLayoutData() instanceof ForceAtlas2LayoutData)) {
-                ForceAtlas2LayoutData nLayout = new ForceAtlas2LayoutData();
-                n.getNodeData().setLayoutData(nLayout);
-            }
-            NodeData nData = n.getNodeData();
-            ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-            nLayout.mass = 1 + graph.getDegree(n);
-            nLayout.old_dx = nLayout.dx;
-            nLayout.old_dy = nLayout.dy;
-            nLayout.dx = 0;
-            nLayout.dy = 0;
-        }
+        System.arraycopy(b.dx, 0, b.oldDx, 0, nodeCount);
+        System.arraycopy(b.dy, 0, b.oldDy, 0, nodeCount);
+        Arrays.fill(b.dx, 0);
+        Arrays.fill(b.dy, 0);
 
         // If Barnes Hut active, initialize root region
         if (isBarnesHutOptimize()) {
-            rootRegion = new Region(nodes);
-            rootRegion.buildSubRegions();
+            updateRegionTree();
         }
 
         // If outboundAttractionDistribution active, compensate.
         if (isOutboundAttractionDistribution()) {
             outboundAttCompensation = 0;
-            for (Node n : nodes) {
-                NodeData nData = n.getNodeData();
-                ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-                outboundAttCompensation += nLayout.mass;
+            for (int i = 0; i < nodeCount; i++) {
+                outboundAttCompensation += b.mass[i];
             }
-            outboundAttCompensation /= nodes.length;
+            outboundAttCompensation /= nodeCount;
         }
 
         // Repulsion (and gravity)
         // NB: Muti-threaded
-        RepulsionForce Repulsion = ForceFactory.builder.buildRepulsion(isAdjustSizes(), getScalingRatio());
+        RepulsionForce Repulsion = ForceFactory.builder.buildRepulsion(b, isAdjustSizes(), getScalingRatio());
 
         int taskCount = 8 * currentThreadCount;  // The threadPool Executor Service will manage the fetching of tasks and threads.
         // We make more tasks than threads because some tasks may need more time to compute.
         ArrayList<Future> threads = new ArrayList();
         for (int t = taskCount; t > 0; t--) {
-            int from = (int) Math.floor(nodes.length * (t - 1) / taskCount);
-            int to = (int) Math.floor(nodes.length * t / taskCount);
-            Future future = pool.submit(new NodesThread(nodes, from, to, isBarnesHutOptimize(), getBarnesHutTheta(), getGravity(), (isStrongGravityMode()) ? (ForceFactory.builder.getStrongGravity(getScalingRatio())) : (Repulsion), getScalingRatio(), rootRegion, Repulsion));
+            int from = (int) Math.floor(nodeCount * (t - 1) / taskCount);
+            int to = (int) Math.floor(nodeCount * t / taskCount);
+            Future future = pool.submit(new NodesThread(from, to, nodeCount, isBarnesHutOptimize(), getBarnesHutTheta(), getGravity(), (isStrongGravityMode()) ? (ForceFactory.builder.getStrongGravity(b, getScalingRatio())) : (Repulsion), getScalingRatio(), regionTree, Repulsion));
             threads.add(future);
         }
         for (Future future : threads) {
@@ -198,33 +246,29 @@ public class ForceAtlas2 implements Layout {
         }
 
         // Attraction
-        AttractionForce Attraction = ForceFactory.builder.buildAttraction(isLinLogMode(), isOutboundAttractionDistribution(), isAdjustSizes(), 1 * ((isOutboundAttractionDistribution()) ? (outboundAttCompensation) : (1)));
-        if (getEdgeWeightInfluence() == 0) {
-            for (Edge e : edges) {
-                Attraction.apply(e.getSource(), e.getTarget(), 1);
-            }
-        } else if (getEdgeWeightInfluence() == 1) {
-            for (Edge e : edges) {
-                Attraction.apply(e.getSource(), e.getTarget(), getWeight(e));
-            }
-        } else {
-            for (Edge e : edges) {
-                Attraction.apply(e.getSource(), e.getTarget(), Math.pow(getWeight(e), getEdgeWeightInfluence()));
-            }
-        }
+        // NB: Muti-threaded, factors are computed by edge then gathered by node
+        final AttractionForce Attraction = ForceFactory.builder.buildAttraction(b, isLinLogMode(), isOutboundAttractionDistribution(), isAdjustSizes(), 1 * ((isOutboundAttractionDistribution()) ? (outboundAttCompensation) : (1)));
+        applyAttraction(Attraction);
 
         // Auto adjust speed
-        double totalSwinging = 0d;  // How much irregular movement
-        double totalEffectiveTraction = 0d;  // Hom much useful movement
-        for (Node n : nodes) {
-            NodeData nData = n.getNodeData();
-            ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-            if (!nData.isFixed()) {
-                double swinging = Math.sqrt(Math.pow(nLayout.old_dx - nLayout.dx, 2) + Math.pow(nLayout.old_dy - nLayout.dy, 2));
-                totalSwinging += nLayout.mass * swinging;   // If the node has a burst change of direction, then it's not converging.
-                totalEffectiveTraction += nLayout.mass * 0.5 * Math.sqrt(Math.pow(nLayout.old_dx + nLayout.dx, 2) + Math.pow(nLayout.old_dy + nLayout.dy, 2));
+        // NB: Muti-threaded, partial sums are added in the order of the tasks
+        double[] totals = runTasks(nodeCount, new RangeTask() {
+
+            public double[] compute(int from, int to) {
+                double totalSwinging = 0d;  // How much irregular movement
+                double totalEffectiveTraction = 0d;  // Hom much useful movement
+                for (int i = from; i < to; i++) {
+                    if (!b.fixed[i]) {
+                        double swinging = Math.sqrt(Math.pow(b.oldDx[i] - b.dx[i], 2) + Math.pow(b.oldDy[i] - b.dy[i], 2));
+                        totalSwinging += b.mass[i] * swinging;   // If the node has a burst change of direction, then it's not converging.
+                        totalEffectiveTraction += b.mass[i] * 0.5 * Math.sqrt(Math.pow(b.oldDx[i] + b.dx[i], 2) + Math.pow(b.oldDy[i] + b.dy[i], 2));
+                    }
+                }
+                return new double[]{totalSwinging, totalEffectiveTraction};
             }
-        }
+        });
+        double totalSwinging = totals != null ? totals[0] : 0d;
+        double totalEffectiveTraction = totals != null ? totals[1] : 0d;
         // We want that swingingMovement < tolerance * convergenceMovement
         double targetSpeed = getJitterTolerance() * getJitterTolerance() * totalEffectiveTraction / totalSwinging;
 
@@ -233,51 +277,184 @@ public class ForceAtlas2 implements Layout {
         speed = speed + Math.min(targetSpeed - speed, maxRise * speed);
 
         // Apply forces
+        // NB: Muti-threaded
+        final double currentSpeed = speed;
         if (isAdjustSizes()) {
             // If nodes overlap prevention is active, it's not possible to trust the swinging mesure.
-            for (Node n : nodes) {
-                NodeData nData = n.getNodeData();
-                ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-                if (!nData.isFixed()) {
+            runTasks(nodeCount, new RangeTask() {
 
-                    // Adaptive auto-speed: the speed of each node is lowered
-                    // when the node swings.
-                    double swinging = Math.sqrt((nLayout.old_dx - nLayout.dx) * (nLayout.old_dx - nLayout.dx) + (nLayout.old_dy - nLayout.dy) * (nLayout.old_dy - nLayout.dy));
-                    double factor = 0.1 * speed / (1f + speed * Math.sqrt(swinging));
+                public double[] compute(int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        if (!b.fixed[i]) {
 
-                    double df = Math.sqrt(Math.pow(nLayout.dx, 2) + Math.pow(nLayout.dy, 2));
-                    factor = Math.min(factor * df, 10.) / df;
+                            // Adaptive auto-speed: the speed of each node is lowered
+                            // when the node swings.
+                            double swinging = Math.sqrt((b.oldDx[i] - b.dx[i]) * (b.oldDx[i] - b.dx[i]) + (b.oldDy[i] - b.dy[i]) * (b.oldDy[i] - b.dy[i]));
+                            double factor = 0.1 * currentSpeed / (1f + currentSpeed * Math.sqrt(swinging));
 
-                    double x = nData.x() + nLayout.dx * factor;
-                    double y = nData.y() + nLayout.dy * factor;
+                            double df = Math.sqrt(Math.pow(b.dx[i], 2) + Math.pow(b.dy[i], 2));
+                            factor = Math.min(factor * df, 10.) / df;
 
-                    nData.setX((float) x);
-                    nData.setY((float) y);
+                            b.x[i] += b.dx[i] * factor;
+                            b.y[i] += b.dy[i] * factor;
+                        }
+                    }
+                    return null;
                 }
-            }
+            });
         } else {
-            for (Node n : nodes) {
-                NodeData nData = n.getNodeData();
-                ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-                if (!nData.isFixed()) {
-
-                    // Adaptive auto-speed: the speed of each node is lowered
-                    // when the node swings.
-                    double swinging = Math.sqrt((nLayout.old_dx - nLayout.dx) * (nLayout.old_dx - nLayout.dx) + (nLayout.old_dy - nLayout.dy) * (nLayout.old_dy - nLayout.dy));
-                    //double factor = speed / (1f + Math.sqrt(speed * swinging));
-                    double factor = speed / (1f + speed * Math.sqrt(swinging));
-
-                    double x = nData.x() + nLayout.dx * factor;
-                    double y = nData.y() + nLayout.dy * factor;
-
-                    nData.setX((float) x);
-                    nData.setY((float) y);
+            runTasks(nodeCount, new RangeTask() {
+
+                public double[] compute(int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        if (!b.fixed[i]) {
+
+                            // Adaptive auto-speed: the speed of each node is lowered
+                            // when the node swings.
+                            double swinging = Math.sqrt((b.oldDx[i] - b.dx[i]) * (b.oldDx[i] - b.dx[i]) + (b.oldDy[i] - b.dy[i]) * (b.oldDy[i] - b.dy[i]));
+                            //double factor = speed / (1f + Math.sqrt(speed * swinging));
+                            double factor = currentSpeed / (1f + currentSpeed * Math.sqrt(swinging));
+
+                            b.x[i] += b.dx[i] * factor;
+                            b.y[i] += b.dy[i] * factor;
+                        }
+                    }
+                    return null;
                 }
-            }
+            });
+        }
+
+        // Write positions every updateInterval iterations, or at each iteration without packed buffer
+        if (!packedBuffer) {
+            writeLayoutData();
+            b.write();
+        } else if (++iterationsSinceUpdate >= updateInterval) {
+            b.write();
+            iterationsSinceUpdate = 0;
         }
         graph.readUnlockAll();
     }
 
+    private void applyAttraction(final AttractionForce Attraction) {
+        final LayoutBuffer b = buffer;
+        final Edge[] edges = b.getEdges();
+        final int[] offsets = b.getIncidentOffsets();
+        final int[] incident = b.getIncidentEdges();
+
+        // Factors, by edge
+        final double[] factors = new double[edges.length];
+        final double edgeWeightInfluence = getEdgeWeightInfluence();
+        runTasks(edges.length, new RangeTask() {
+
+            public double[] compute(int from, int to) {
+                for (int e = from; e < to; e++) {
+                    if (!b.isProperEdge(e)) {
+                        continue;
+                    }
+                    double weight;
+                    if (edgeWeightInfluence == 0) {
+                        weight = 1;
+                    } else if (edgeWeightInfluence == 1) {
+                        weight = getWeight(edges[e]);
+                    } else {
+                        weight = Math.pow(getWeight(edges[e]), edgeWeightInfluence);
+                    }
+                    factors[e] = Attraction.factor(b.edgeSources[e], b.edgeTargets[e], weight);
+                }
+                return null;
+            }
+        });
+
+        // Forces, by node. Both ends of an edge get (own position - other position) * factor
+        runTasks(b.getNodeCount(), new RangeTask() {
+
+            public double[] compute(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    double dx = 0;
+                    double dy = 0;
+                    for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                        int e = incident[k];
+                        int other = b.edgeSources[e] == i ? b.edgeTargets[e] : b.edgeSources[e];
+                        dx += (b.x[i] - b.x[other]) * factors[e];
+                        dy += (b.y[i] - b.y[other]) * factors[e];
+                    }
+                    b.dx[i] += dx;
+                    b.dy[i] += dy;
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Computation on a range of nodes or edges, run by <code>runTasks()</code>.
+     */
+    private interface RangeTask {
+
+        /**
+         * Returns partial sums to add up, or <code>null</code>.
+         */
+        public double[] compute(int from, int to);
+    }
+
+    private double[] runTasks(int size, final RangeTask task) {
+        int taskCount = 8 * currentThreadCount;  // More tasks than threads because some tasks may need more time to compute.
+        List<Future<double[]>> futures = new ArrayList<Future<double[]>>();
+        for (int t = 0; t < taskCount; t++) {
+            final int from = (int) ((long) size * t / taskCount);
+            final int to = (int) ((long) size * (t + 1) / taskCount);
+            if (from == to) {
+                continue;
+            }
+            futures.add(pool.submit(new Callable<double[]>() {
+
+                public double[] call() {
+                    return task.compute(from, to);
+                }
+            }));
+        }
+        double[] sums = null;
+        for (Future<double[]> future : futures) {
+            try {
+                double[] partial = future.get();
+                if (partial != null && sums == null) {
+                    sums = partial.clone();
+                } else if (partial != null) {
+                    for (int i = 0; i < sums.length; i++) {
+                        sums[i] += partial[i];
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Exceptions.printStackTrace(ex);
+            } catch (ExecutionException ex) {
+                Exceptions.printStackTrace(ex);
+            }
+        }
+        return sums;
+    }
+
+    private void updateRegionTree() {
+        final LayoutBuffer b = buffer;
+        int nodeCount = b.getNodeCount();
+        boolean refit = regionTree != null && regionTreeBuffer == b;
+        double maxDisplacement = 0;
+        for (int i = 0; refit && i < nodeCount; i++) {
+            double dx = b.x[i] - regionTreeX[i];
+            double dy = b.y[i] - regionTreeY[i];
+            maxDisplacement = Math.max(maxDisplacement, dx * dx + dy * dy);
+        }
+        if (refit && Math.sqrt(maxDisplacement) <= REGION_REFIT_TOLERANCE * regionTree.getSize()) {
+            regionTree.refit(b.x, b.y, b.mass);
+        } else {
+            if (regionTree == null || regionTree.getNodeCount() != nodeCount) {
+                regionTree = new RegionTree(nodeCount);
+            }
+            regionTree.build(b.x, b.y, b.mass, pool, currentThreadCount);
+            regionTreeBuffer = b;
+            regionTreeX = b.x.clone();
+            regionTreeY = b.y.clone();
+        }
+    }
     @Override
     public boolean canAlgo() {
         return graphModel != null;
@@ -285,10 +462,18 @@ public class ForceAtlas2 implements Layout {
 
     @Override
     public void endAlgo() {
-        for (Node n : graph.getNodes()) {
-            n.getNodeData().setLayoutData(null);
+        if (buffer != null) {
+            buffer.write();
+            if (!packedBuffer) {
+                for (Node n : buffer.getNodes()) {
+                    n.getNodeData().setLayoutData(null);
+                }
+            }
+            buffer = null;
         }
         pool.shutdown();
+        regionTree = null;
+        regionTreeBuffer = null;
         graph.readUnlockAll();
     }
 
@@ -381,6 +566,22 @@ public class ForceAtlas2 implements Layout {
                     NbBundle.getMessage(getClass(), "ForceAtlas2.barnesHutTheta.desc"),
                     "getBarnesHutTheta", "setBarnesHutTheta"));
 
+            properties.add(LayoutProperty.createProperty(
+                    this, Boolean.class,
+                    NbBundle.getMessage(getClass(), "ForceAtlas2.packedBuffer.name"),
+                    FORCEATLAS2_PERFORMANCE,
+                    "ForceAtlas2.packedBuffer.name",
+                    NbBundle.getMessage(getClass(), "ForceAtlas2.packedBuffer.desc"),
+                    "isPackedBuffer", "setPackedBuffer"));
+
+            properties.add(LayoutProperty.createProperty(
+                    this, Integer.class,
+                    NbBundle.getMessage(getClass(), "ForceAtlas2.updateInterval.name"),
+                    FORCEATLAS2_PERFORMANCE,
+                    "ForceAtlas2.updateInterval.name",
+                    NbBundle.getMessage(getClass(), "ForceAtlas2.updateInterval.desc"),
+                    "getUpdateInterval", "setUpdateInterval"));
+
             properties.add(LayoutProperty.createProperty(
                     this, Integer.class,
                     NbBundle.getMessage(getClass(), "ForceAtlas2.threads.name"),
@@ -433,7 +634,9 @@ public class ForceAtlas2 implements Layout {
             setBarnesHutOptimize(false);
         }
         setBarnesHutTheta(1.2);
-        setThreadsCount(2);
+        setPackedBuffer(true);
+        setUpdateInterval(1);
+        setThreadsCount(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
     }
 
     @Override
@@ -521,6 +724,22 @@ public class ForceAtlas2 implements Layout {
         }
     }
 
+    public Boolean isPackedBuffer() {
+        return packedBuffer;
+    }
+
+    public void setPackedBuffer(Boolean packedBuffer) {
+        this.packedBuffer = packedBuffer;
+    }
+
+    public Integer getUpdateInterval() {
+        return updateInterval;
+    }
+
+    public void setUpdateInterval(Integer updateInterval) {
+        this.updateInterval = Math.max(1, updateInterval);
+    }
+
     public Boolean isOutboundAttractionDistribution() {
         return outboundAttractionDistribution;
     }
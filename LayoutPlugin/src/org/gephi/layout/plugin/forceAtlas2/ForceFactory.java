@@ -41,11 +41,11 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.layout.plugin.forceAtlas2;
 
-import org.gephi.graph.api.Node;
-import org.gephi.graph.api.NodeData;
+import org.gephi.layout.plugin.LayoutBuffer;
 
 /**
  * Generates the forces on demand, here are all the formulas for attraction and repulsion.
+ * Forces work on node indices in a {@link LayoutBuffer}.
  * @author Mathieu Jacomy
  */
 public class ForceFactory {
@@ -57,45 +57,45 @@ public class ForceFactory {
 
     ;
 
-    public RepulsionForce buildRepulsion(boolean adjustBySize, double coefficient) {
+    public RepulsionForce buildRepulsion(LayoutBuffer buffer, boolean adjustBySize, double coefficient) {
         if (adjustBySize) {
-            return new linRepulsion_antiCollision(coefficient);
+            return new linRepulsion_antiCollision(buffer, coefficient);
         } else {
-            return new linRepulsion(coefficient);
+            return new linRepulsion(buffer, coefficient);
         }
     }
 
-    public RepulsionForce getStrongGravity(double coefficient) {
-        return new strongGravity(coefficient);
+    public RepulsionForce getStrongGravity(LayoutBuffer buffer, double coefficient) {
+        return new strongGravity(buffer, coefficient);
     }
 
-    public AttractionForce buildAttraction(boolean logAttraction, boolean distributedAttraction, boolean adjustBySize, double coefficient) {
+    public AttractionForce buildAttraction(LayoutBuffer buffer, boolean logAttraction, boolean distributedAttraction, boolean adjustBySize, double coefficient) {
         if (adjustBySize) {
             if (logAttraction) {
                 if (distributedAttraction) {
-                    return new logAttraction_degreeDistributed_antiCollision(coefficient);
+                    return new logAttraction_degreeDistributed_antiCollision(buffer, coefficient);
                 } else {
-                    return new logAttraction_antiCollision(coefficient);
+                    return new logAttraction_antiCollision(buffer, coefficient);
                 }
             } else {
                 if (distributedAttraction) {
-                    return new linAttraction_degreeDistributed_antiCollision(coefficient);
+                    return new linAttraction_degreeDistributed_antiCollision(buffer, coefficient);
                 } else {
-                    return new linAttraction_antiCollision(coefficient);
+                    return new linAttraction_antiCollision(buffer, coefficient);
                 }
             }
         } else {
             if (logAttraction) {
                 if (distributedAttraction) {
-                    return new logAttraction_degreeDistributed(coefficient);
+                    return new logAttraction_degreeDistributed(buffer, coefficient);
                 } else {
-                    return new logAttraction(coefficient);
+                    return new logAttraction(buffer, coefficient);
                 }
             } else {
                 if (distributedAttraction) {
-                    return new linAttraction_massDistributed(coefficient);
+                    return new linAttraction_massDistributed(buffer, coefficient);
                 } else {
-                    return new linAttraction(coefficient);
+                    return new linAttraction(buffer, coefficient);
                 }
             }
         }
@@ -103,16 +103,67 @@ public class ForceFactory {
 
     public abstract class AttractionForce {
 
-        public abstract void apply(Node n1, Node n2, double e); // Model for node-node attraction (e is for edge weight if needed)
+        protected final LayoutBuffer buffer;
+        protected final double coefficient;
+
+        public AttractionForce(LayoutBuffer buffer, double coefficient) {
+            this.buffer = buffer;
+            this.coefficient = coefficient;
+        }
+
+        public abstract double factor(int n1, int n2, double e);  // Model for node-node attraction (e is for edge weight if needed), returns force / distance
+
+        public void apply(int n1, int n2, double e) {
+            double xDist = buffer.x[n1] - buffer.x[n2];
+            double yDist = buffer.y[n1] - buffer.y[n2];
+            double factor = factor(n1, n2, e);
+
+            buffer.dx[n1] += xDist * factor;
+            buffer.dy[n1] += yDist * factor;
+
+            buffer.dx[n2] -= xDist * factor;
+            buffer.dy[n2] -= yDist * factor;
+        }
     }
 
     public abstract class RepulsionForce {
 
-        public abstract void apply(Node n1, Node n2);           // Model for node-node repulsion
+        protected final LayoutBuffer buffer;
+        protected final double coefficient;
+
+        public RepulsionForce(LayoutBuffer buffer, double coefficient) {
+            this.buffer = buffer;
+            this.coefficient = coefficient;
+        }
+
+        public abstract double factor(int n1, int n2);        // Model for node-node repulsion, returns force / distance
+
+        public void apply(int n1, int n2) {
+            double xDist = buffer.x[n1] - buffer.x[n2];
+            double yDist = buffer.y[n1] - buffer.y[n2];
+            double factor = factor(n1, n2);
+
+            buffer.dx[n1] += xDist * factor;
+            buffer.dy[n1] += yDist * factor;
+
+            buffer.dx[n2] -= xDist * factor;
+            buffer.dy[n2] -= yDist * factor;
+        }
 
-        public abstract void apply(Node n, Region r);           // Model for Barnes Hut approximation
+        /**
+         * Applies the repulsion of <code>n2</code> to <code>n1</code> only, so
+         * tasks working on distinct nodes never write the same forces.
+         */
+        public void applyTo(int n1, int n2) {
+            double factor = factor(n1, n2);
 
-        public abstract void apply(Node n, double g);           // Model for gravitation (anti-repulsion)
+            buffer.dx[n1] += (buffer.x[n1] - buffer.x[n2]) * factor;
+            buffer.dy[n1] += (buffer.y[n1] - buffer.y[n2]) * factor;
+        }
+
+        public abstract void apply(int n, double mass, double massCenterX, double massCenterY);    // Model for Barnes Hut approximation
+
+        public abstract void apply(int n, double g);           // Model for gravitation (anti-repulsion)
     }
 
     /*
@@ -120,71 +171,53 @@ public class ForceFactory {
      */
     private class linRepulsion extends RepulsionForce {
 
-        private double coefficient;
-
-        public linRepulsion(double c) {
-            coefficient = c;
+        public linRepulsion(LayoutBuffer buffer, double c) {
+            super(buffer, c);
         }
 
         @Override
-        public void apply(Node n1, Node n2) {
-            NodeData n1Data = n1.getNodeData();
-            ForceAtlas2LayoutData n1Layout = n1Data.getLayoutData();
-            NodeData n2Data = n2.getNodeData();
-            ForceAtlas2LayoutData n2Layout = n2Data.getLayoutData();
-
+        public double factor(int n1, int n2) {
             // Get the distance
-            double xDist = n1Data.x() - n2Data.x();
-            double yDist = n1Data.y() - n2Data.y();
+            double xDist = buffer.x[n1] - buffer.x[n2];
+            double yDist = buffer.y[n1] - buffer.y[n2];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * n1Layout.mass * n2Layout.mass / distance / distance;
-
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
-
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                return coefficient * buffer.mass[n1] * buffer.mass[n2] / distance / distance;
             }
+            return 0;
         }
 
         @Override
-        public void apply(Node n, Region r) {
-            NodeData nData = n.getNodeData();
-            ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-
+        public void apply(int n, double mass, double massCenterX, double massCenterY) {
             // Get the distance
-            double xDist = nData.x() - r.getMassCenterX();
-            double yDist = nData.y() - r.getMassCenterY();
+            double xDist = buffer.x[n] - massCenterX;
+            double yDist = buffer.y[n] - massCenterY;
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * nLayout.mass * r.getMass() / distance / distance;
+                double factor = coefficient * buffer.mass[n] * mass / distance / distance;
 
-                nLayout.dx += xDist * factor;
-                nLayout.dy += yDist * factor;
+                buffer.dx[n] += xDist * factor;
+                buffer.dy[n] += yDist * factor;
             }
         }
 
         @Override
-        public void apply(Node n, double g) {
-            NodeData nData = n.getNodeData();
-            ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-
+        public void apply(int n, double g) {
             // Get the distance
-            double xDist = nData.x();
-            double yDist = nData.y();
+            double xDist = buffer.x[n];
+            double yDist = buffer.y[n];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * nLayout.mass * g / distance;
+                double factor = coefficient * buffer.mass[n] * g / distance;
 
-                nLayout.dx -= xDist * factor;
-                nLayout.dy -= yDist * factor;
+                buffer.dx[n] -= xDist * factor;
+                buffer.dy[n] -= yDist * factor;
             }
         }
     }
@@ -194,123 +227,94 @@ public class ForceFactory {
      */
     private class linRepulsion_antiCollision extends RepulsionForce {
 
-        private double coefficient;
-
-        public linRepulsion_antiCollision(double c) {
-            coefficient = c;
+        public linRepulsion_antiCollision(LayoutBuffer buffer, double c) {
+            super(buffer, c);
         }
 
         @Override
-        public void apply(Node n1, Node n2) {
-            NodeData n1Data = n1.getNodeData();
-            ForceAtlas2LayoutData n1Layout = n1Data.getLayoutData();
-            NodeData n2Data = n2.getNodeData();
-            ForceAtlas2LayoutData n2Layout = n2Data.getLayoutData();
-
+        public double factor(int n1, int n2) {
             // Get the distance
-            double xDist = n1Data.x() - n2Data.x();
-            double yDist = n1Data.y() - n2Data.y();
-            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - n1Data.getSize() - n2Data.getSize();
+            double xDist = buffer.x[n1] - buffer.x[n2];
+            double yDist = buffer.y[n1] - buffer.y[n2];
+            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - buffer.size[n1] - buffer.size[n2];
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * n1Layout.mass * n2Layout.mass / distance / distance;
-
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
-
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
-
+                return coefficient * buffer.mass[n1] * buffer.mass[n2] / distance / distance;
             } else if (distance < 0) {
-                double factor = 100 * coefficient * n1Layout.mass * n2Layout.mass;
-
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
-
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                return 100 * coefficient * buffer.mass[n1] * buffer.mass[n2];
             }
+            return 0;
         }
 
         @Override
-        public void apply(Node n, Region r) {
-            NodeData nData = n.getNodeData();
-            ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-
+        public void apply(int n, double mass, double massCenterX, double massCenterY) {
             // Get the distance
-            double xDist = nData.x() - r.getMassCenterX();
-            double yDist = nData.y() - r.getMassCenterY();
+            double xDist = buffer.x[n] - massCenterX;
+            double yDist = buffer.y[n] - massCenterY;
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * nLayout.mass * r.getMass() / distance / distance;
+                double factor = coefficient * buffer.mass[n] * mass / distance / distance;
 
-                nLayout.dx += xDist * factor;
-                nLayout.dy += yDist * factor;
+                buffer.dx[n] += xDist * factor;
+                buffer.dy[n] += yDist * factor;
             } else if (distance < 0) {
-                double factor = -coefficient * nLayout.mass * r.getMass() / distance;
+                double factor = -coefficient * buffer.mass[n] * mass / distance;
 
-                nLayout.dx += xDist * factor;
-                nLayout.dy += yDist * factor;
+                buffer.dx[n] += xDist * factor;
+                buffer.dy[n] += yDist * factor;
             }
         }
 
         @Override
-        public void apply(Node n, double g) {
-            NodeData nData = n.getNodeData();
-            ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-
+        public void apply(int n, double g) {
             // Get the distance
-            double xDist = nData.x();
-            double yDist = nData.y();
+            double xDist = buffer.x[n];
+            double yDist = buffer.y[n];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * nLayout.mass * g / distance;
+                double factor = coefficient * buffer.mass[n] * g / distance;
 
-                nLayout.dx -= xDist * factor;
-                nLayout.dy -= yDist * factor;
+                buffer.dx[n] -= xDist * factor;
+                buffer.dy[n] -= yDist * factor;
             }
         }
     }
 
     private class strongGravity extends RepulsionForce {
 
-        private double coefficient;
-
-        public strongGravity(double c) {
-            coefficient = c;
+        public strongGravity(LayoutBuffer buffer, double c) {
+            super(buffer, c);
         }
 
         @Override
-        public void apply(Node n1, Node n2) {
+        public double factor(int n1, int n2) {
             // Not Relevant
+            return 0;
         }
 
         @Override
-        public void apply(Node n, Region r) {
+        public void apply(int n, double mass, double massCenterX, double massCenterY) {
             // Not Relevant
         }
 
         @Override
-        public void apply(Node n, double g) {
-            NodeData nData = n.getNodeData();
-            ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-
+        public void apply(int n, double g) {
             // Get the distance
-            double xDist = nData.x();
-            double yDist = nData.y();
+            double xDist = buffer.x[n];
+            double yDist = buffer.y[n];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = coefficient * nLayout.mass * g;
+                double factor = coefficient * buffer.mass[n] * g;
 
-                nLayout.dx -= xDist * factor;
-                nLayout.dy -= yDist * factor;
+                buffer.dx[n] -= xDist * factor;
+                buffer.dy[n] -= yDist * factor;
             }
         }
     }
@@ -320,31 +324,14 @@ public class ForceFactory {
      */
     private class linAttraction extends AttractionForce {
 
-        private double coefficient;
-
-        public linAttraction(double c) {
-            coefficient = c;
+        public linAttraction(LayoutBuffer buffer, double c) {
+            super(buffer, c);
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            NodeData n1Data = n1.getNodeData();
-            ForceAtlas2LayoutData n1Layout = n1Data.getLayoutData();
-            NodeData n2Data = n2.getNodeData();
-            ForceAtlas2LayoutData n2Layout = n2Data.getLayoutData();
-
-            // Get the distance
-            double xDist = n1Data.x() - n2Data.x();
-            double yDist = n1Data.y() - n2Data.y();
-
+        public double factor(int n1, int n2, double e) {
             // NB: factor = force / distance
-            double factor = -coefficient * e;
-
-            n1Layout.dx += xDist * factor;
-            n1Layout.dy += yDist * factor;
-
-            n2Layout.dx -= xDist * factor;
-            n2Layout.dy -= yDist * factor;
+            return -coefficient * e;
         }
     }
 
@@ -353,31 +340,14 @@ public class ForceFactory {
      */
     private class linAttraction_massDistributed extends AttractionForce {
 
-        private double coefficient;
-
-        public linAttraction_massDistributed(double c) {
-            coefficient = c;
+        public linAttraction_massDistributed(LayoutBuffer buffer, double c) {
+            super(buffer, c);
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            NodeData n1Data = n1.getNodeData();
-            ForceAtlas2LayoutData n1Layout = n1Data.getLayoutData();
-            NodeData n2Data = n2.getNodeData();
-            ForceAtlas2LayoutData n2Layout = n2Data.getLayoutData();
-
-            // Get the distance
-            double xDist = n1Data.x() - n2Data.x();
-            double yDist = n1Data.y() - n2Data.y();
-
+        public double factor(int n1, int n2, double e) {
             // NB: factor = force / distance
-            double factor = -coefficient * e / n1Layout.mass;
-
-            n1Layout.dx += xDist * factor;
-            n1Layout.dy += yDist * factor;
-
-            n2Layout.dx -= xDist * factor;
-            n2Layout.dy -= yDist * factor;
+            return -coefficient * e / buffer.mass[n1];
         }
     }
 
@@ -386,35 +356,23 @@ public class ForceFactory {
      */
     private class logAttraction extends AttractionForce {
 
-        private double coefficient;
-
-        public logAttraction(double c) {
-            coefficient = c;
+        public logAttraction(LayoutBuffer buffer, double c) {
+            super(buffer, c);
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            NodeData n1Data = n1.getNodeData();
-            ForceAtlas2LayoutData n1Layout = n1Data.getLayoutData();
-            NodeData n2Data = n2.getNodeData();
-            ForceAtlas2LayoutData n2Layout = n2Data.getLayoutData();
-
+        public double factor(int n1, int n2, double e) {
             // Get the distance
-            double xDist = n1Data.x() - n2Data.x();
-            double yDist = n1Data.y() - n2Data.y();
+            double xDist = buffer.x[n1] - buffer.x[n2];
+            double yDist = buffer.y[n1] - buffer.y[n2];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
 
                 // NB: factor = force / distance
-                double factor = -coefficient * e * Math.log(1 + distance) / distance;
-
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
-
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                return -coefficient * e * Math.log(1 + distance) / distance;
             }
+            return 0;
         }
     }
 
@@ -423,35 +381,23 @@ public class ForceFactory {
      */
     private class logAttraction_degreeDistributed extends AttractionForce {
 
-        private double coefficient;
-
-        public logAttraction_degreeDistributed(double c) {
-            coefficient = c;
+        public logAttraction_degreeDistributed(LayoutBuffer buffer, double c) {
+            super(buffer, c);
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            NodeData n1Data = n1.getNodeData();
-            ForceAtlas2LayoutData n1Layout = n1Data.getLayoutData();
-            NodeData n2Data = n2.getNodeData();
-            ForceAtlas2LayoutData n2Layout = n2Data.getLayoutData();
-
+        public double factor(int n1, int n2, double e) {
             // Get the distance
-            double xDist = n1Data.x() - n2Data.x();
-            double yDist = n1Data.y() - n2Data.y();
+            double xDist = buffer.x[n1] - buffer.x[n2];
+            double yDist = buffer.y[n1] - buffer.y[n2];
             double distance = (float) Math.sqrt(xDist * xDist + yDist * yDist);
 
             if (distance > 0) {
 
                 // NB: factor = force / distance
-                double factor = -coefficient * e * Math.log(1 + distance) / distance / n1Layout.mass;
-
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
-
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                return -coefficient * e * Math.log(1 + distance) / distance / buffer.mass[n1];
             }
+            return 0;
         }
     }
 
@@ -460,34 +406,22 @@ public class ForceFactory {
      */
     private class linAttraction_antiCollision extends AttractionForce {
 
-        private double coefficient;
-
-        public linAttraction_antiCollision(double c) {
-            coefficient = c;
+        public linAttraction_antiCollision(LayoutBuffer buffer, double c) {
+            super(buffer, c);
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            NodeData n1Data = n1.getNodeData();
-            ForceAtlas2LayoutData n1Layout = n1Data.getLayoutData();
-            NodeData n2Data = n2.getNodeData();
-            ForceAtlas2LayoutData n2Layout = n2Data.getLayoutData();
-
+        public double factor(int n1, int n2, double e) {
             // Get the distance
-            double xDist = n1Data.x() - n2Data.x();
-            double yDist = n1Data.y() - n2Data.y();
-            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - n1Data.getSize() - n2Data.getSize();
+            double xDist = buffer.x[n1] - buffer.x[n2];
+            double yDist = buffer.y[n1] - buffer.y[n2];
+            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - buffer.size[n1] - buffer.size[n2];
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = -coefficient * e;
-
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
-
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                return -coefficient * e;
             }
+            return 0;
         }
     }
 
@@ -496,34 +430,22 @@ public class ForceFactory {
      */
     private class linAttraction_degreeDistributed_antiCollision extends AttractionForce {
 
-        private double coefficient;
-
-        public linAttraction_degreeDistributed_antiCollision(double c) {
-            coefficient = c;
+        public linAttraction_degreeDistributed_antiCollision(LayoutBuffer buffer, double c) {
+            super(buffer, c);
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            NodeData n1Data = n1.getNodeData();
-            ForceAtlas2LayoutData n1Layout = n1Data.getLayoutData();
-            NodeData n2Data = n2.getNodeData();
-            ForceAtlas2LayoutData n2Layout = n2Data.getLayoutData();
-
+        public double factor(int n1, int n2, double e) {
             // Get the distance
-            double xDist = n1Data.x() - n2Data.x();
-            double yDist = n1Data.y() - n2Data.y();
-            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - n1Data.getSize() - n2Data.getSize();
+            double xDist = buffer.x[n1] - buffer.x[n2];
+            double yDist = buffer.y[n1] - buffer.y[n2];
+            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - buffer.size[n1] - buffer.size[n2];
 
             if (distance > 0) {
                 // NB: factor = force / distance
-                double factor = -coefficient * e / n1Layout.mass;
-
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
-
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                return -coefficient * e / buffer.mass[n1];
             }
+            return 0;
         }
     }
 
@@ -532,35 +454,23 @@ public class ForceFactory {
      */
     private class logAttraction_antiCollision extends AttractionForce {
 
-        private double coefficient;
-
-        public logAttraction_antiCollision(double c) {
-            coefficient = c;
+        public logAttraction_antiCollision(LayoutBuffer buffer, double c) {
+            super(buffer, c);
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            NodeData n1Data = n1.getNodeData();
-            ForceAtlas2LayoutData n1Layout = n1Data.getLayoutData();
-            NodeData n2Data = n2.getNodeData();
-            ForceAtlas2LayoutData n2Layout = n2Data.getLayoutData();
-
+        public double factor(int n1, int n2, double e) {
             // Get the distance
-            double xDist = n1Data.x() - n2Data.x();
-            double yDist = n1Data.y() - n2Data.y();
-            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - n1Data.getSize() - n2Data.getSize();
+            double xDist = buffer.x[n1] - buffer.x[n2];
+            double yDist = buffer.y[n1] - buffer.y[n2];
+            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - buffer.size[n1] - buffer.size[n2];
 
             if (distance > 0) {
 
                 // NB: factor = force / distance
-                double factor = -coefficient * e * Math.log(1 + distance) / distance;
-
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
-
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                return -coefficient * e * Math.log(1 + distance) / distance;
             }
+            return 0;
         }
     }
 
@@ -569,35 +479,23 @@ public class ForceFactory {
      */
     private class logAttraction_degreeDistributed_antiCollision extends AttractionForce {
 
-        private double coefficient;
-
-        public logAttraction_degreeDistributed_antiCollision(double c) {
-            coefficient = c;
+        public logAttraction_degreeDistributed_antiCollision(LayoutBuffer buffer, double c) {
+            super(buffer, c);
         }
 
         @Override
-        public void apply(Node n1, Node n2, double e) {
-            NodeData n1Data = n1.getNodeData();
-            ForceAtlas2LayoutData n1Layout = n1Data.getLayoutData();
-            NodeData n2Data = n2.getNodeData();
-            ForceAtlas2LayoutData n2Layout = n2Data.getLayoutData();
-
+        public double factor(int n1, int n2, double e) {
             // Get the distance
-            double xDist = n1Data.x() - n2Data.x();
-            double yDist = n1Data.y() - n2Data.y();
-            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - n1Data.getSize() - n2Data.getSize();
+            double xDist = buffer.x[n1] - buffer.x[n2];
+            double yDist = buffer.y[n1] - buffer.y[n2];
+            double distance = Math.sqrt(xDist * xDist + yDist * yDist) - buffer.size[n1] - buffer.size[n2];
 
             if (distance > 0) {
 
                 // NB: factor = force / distance
-                double factor = -coefficient * e * Math.log(1 + distance) / distance / n1Layout.mass;
-
-                n1Layout.dx += xDist * factor;
-                n1Layout.dy += yDist * factor;
-
-                n2Layout.dx -= xDist * factor;
-                n2Layout.dy -= yDist * factor;
+                return -coefficient * e * Math.log(1 + distance) / distance / buffer.mass[n1];
             }
+            return 0;
         }
     }
 }
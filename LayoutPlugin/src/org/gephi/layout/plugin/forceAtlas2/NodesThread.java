@@ -41,7 +41,6 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.layout.plugin.forceAtlas2;
 
-import org.gephi.graph.api.Node;
 import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
 
 /**
@@ -50,10 +49,10 @@ import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
  */
 public class NodesThread implements Runnable {
 
-    private Node[] nodes;
     private int from;
     private int to;
-    private Region rootRegion;
+    private int nodeCount;
+    private RegionTree regionTree;
     private boolean barnesHutOptimize;
     private RepulsionForce Repulsion;
     private double barnesHutTheta;
@@ -61,11 +60,11 @@ public class NodesThread implements Runnable {
     private RepulsionForce GravityForce;
     private double scaling;
 
-    public NodesThread(Node[] nodes, int from, int to, boolean barnesHutOptimize, double barnesHutTheta, double gravity, RepulsionForce GravityForce, double scaling, Region rootRegion, RepulsionForce Repulsion) {
-        this.nodes = nodes;
+    public NodesThread(int from, int to, int nodeCount, boolean barnesHutOptimize, double barnesHutTheta, double gravity, RepulsionForce GravityForce, double scaling, RegionTree regionTree, RepulsionForce Repulsion) {
         this.from = from;
         this.to = to;
-        this.rootRegion = rootRegion;
+        this.nodeCount = nodeCount;
+        this.regionTree = regionTree;
         this.barnesHutOptimize = barnesHutOptimize;
         this.Repulsion = Repulsion;
         this.barnesHutTheta = barnesHutTheta;
@@ -76,26 +75,25 @@ public class NodesThread implements Runnable {
 
     @Override
     public void run() {
-        // Repulsion
+        // Repulsion, only applied to the nodes of this task
         if (barnesHutOptimize) {
+            int[] stack = new int[64];
             for (int nIndex = from; nIndex < to; nIndex++) {
-                Node n = nodes[nIndex];
-                rootRegion.applyForce(n, Repulsion, barnesHutTheta);
+                stack = regionTree.applyForce(nIndex, Repulsion, barnesHutTheta, stack);
             }
         } else {
             for (int n1Index = from; n1Index < to; n1Index++) {
-                Node n1 = nodes[n1Index];
-                for (int n2Index = 0; n2Index < n1Index; n2Index++) {
-                    Node n2 = nodes[n2Index];
-                    Repulsion.apply(n1, n2);
+                for (int n2Index = 0; n2Index < nodeCount; n2Index++) {
+                    if (n2Index != n1Index) {
+                        Repulsion.applyTo(n1Index, n2Index);
+                    }
                 }
             }
         }
 
         // Gravity
         for (int nIndex = from; nIndex < to; nIndex++) {
-            Node n = nodes[nIndex];
-            GravityForce.apply(n, gravity / scaling);
+            GravityForce.apply(nIndex, gravity / scaling);
         }
     }
 }
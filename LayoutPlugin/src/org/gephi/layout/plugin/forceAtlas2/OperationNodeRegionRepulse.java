@@ -47,7 +47,9 @@ import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
 /**
  *
  * @author Mathieu Jacomy
+ * @deprecated ForceAtlas2 applies {@link RegionTree} repulsion in <code>NodesThread</code>
  */
+@Deprecated
 public class OperationNodeRegionRepulse extends Operation {
 
     private final Node n;
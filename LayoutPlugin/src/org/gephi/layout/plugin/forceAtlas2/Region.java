@@ -50,8 +50,14 @@ import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
 
 /**
  * Barnes Hut optimization
+ * <p>
+ * Positions are read from the nodes and masses from their
+ * <code>ForceAtlas2LayoutData</code>. Forces are applied to the nodes at their
+ * index in the buffer of the force.
  * @author Mathieu Jacomy
+ * @deprecated ForceAtlas2 uses {@link RegionTree}, which works on node indices
  */
+@Deprecated
 public class Region {
 
     private double mass;
@@ -80,10 +86,10 @@ public class Region {
             double massSumY = 0;
             for (Node n : nodes) {
                 NodeData nData = n.getNodeData();
-                ForceAtlas2LayoutData nLayout = nData.getLayoutData();
-                mass += nLayout.mass;
-                massSumX += nData.x() * nLayout.mass;
-                massSumY += nData.y() * nLayout.mass;
+                double nMass = getMass(nData);
+                mass += nMass;
+                massSumX += nData.x() * nMass;
+                massSumY += nData.y() * nMass;
             }
             massCenterX = massSumX / mass;
             massCenterY = massSumY / mass;
@@ -98,6 +104,13 @@ public class Region {
         }
     }
 
+    private double getMass(NodeData nData) {
+        if (nData.getLayoutData() instanceof ForceAtlas2LayoutData) {
+            return ((ForceAtlas2LayoutData) nData.getLayoutData()).mass;
+        }
+        return 1;
+    }
+
     public synchronized void buildSubRegions() {
         if (nodes.size() > 1) {
             ArrayList<Node> leftNodes = new ArrayList<Node>();
@@ -185,13 +198,14 @@ public class Region {
 
     public void applyForce(Node n, RepulsionForce Force, double theta) {
         NodeData nData = n.getNodeData();
+        int index = Force.buffer.indexOf(n);
         if (nodes.size() < 2) {
             Node regionNode = nodes.get(0);
-            Force.apply(n, regionNode);
+            Force.apply(index, Force.buffer.indexOf(regionNode));
         } else {
             double distance = Math.sqrt((nData.x() - massCenterX) * (nData.x() - massCenterX) + (nData.y() - massCenterY) * (nData.y() - massCenterY));
             if (distance * theta > size) {
-                Force.apply(n, this);
+                Force.apply(index, mass, massCenterX, massCenterY);
             } else {
                 for (Region subregion : subregions) {
                     subregion.applyForce(n, Force, theta);
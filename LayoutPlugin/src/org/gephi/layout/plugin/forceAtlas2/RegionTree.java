@@ -0,0 +1,353 @@
+/*
+Copyright 2008-2011 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.layout.plugin.forceAtlas2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.gephi.layout.plugin.forceAtlas2.ForceFactory.RepulsionForce;
+
+/**
+ * Barnes Hut optimization, with regions stored in flat arrays.
+ * <p>
+ * Nodes are designated by their index in the position and mass arrays. Each
+ * region covers a contiguous slice of a permutation of the nodes. Regions are
+ * split at their mass center in four subregions. A region
+ * of <code>n</code> nodes and its subregions use at most <code>2n-1</code> ids,
+ * allocated from the region id, so subtrees can be built in parallel.
+ * <p>
+ * When nodes only moved a little since the last build, <code>refit()</code>
+ * updates masses, mass centers and sizes and keeps the subregions.
+ * @author agent
+ */
+public class RegionTree {
+
+    //Nodes
+    private final int nodeCount;
+    private final int[] order;
+    private double[] x;
+    private double[] y;
+    private double[] mass;
+    //Regions
+    private final int[] regionStart;
+    private final int[] regionEnd;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final double[] regionMass;
+    private final double[] massCenterX;
+    private final double[] massCenterY;
+    private final double[] size;
+
+    public RegionTree(int nodeCount) {
+        this.nodeCount = nodeCount;
+        this.order = new int[nodeCount];
+        int capacity = Math.max(1, 2 * nodeCount - 1);
+        regionStart = new int[capacity];
+        regionEnd = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        regionMass = new double[capacity];
+        massCenterX = new double[capacity];
+        massCenterY = new double[capacity];
+        size = new double[capacity];
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Builds the regions. Subregions smaller than <code>nodeCount / (4 * taskCount)</code>
+     * nodes are built as separate tasks in <code>pool</code>, if not <code>null</code>.
+     */
+    public void build(double[] x, double[] y, double[] mass, ExecutorService pool, int taskCount) {
+        this.x = x;
+        this.y = y;
+        this.mass = mass;
+        for (int i = 0; i < nodeCount; i++) {
+            order[i] = i;
+        }
+        for (int r = 0; r < regionStart.length; r++) {
+            regionStart[r] = -1;
+        }
+        if (nodeCount == 0) {
+            return;
+        }
+        nextSibling[0] = -1;
+        if (pool == null || taskCount <= 1) {
+            buildRegion(0, 0, nodeCount, null, 0);
+            return;
+        }
+
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        buildRegion(0, 0, nodeCount, tasks, Math.max(1024, nodeCount / (4 * taskCount)));
+        try {
+            for (Future<Object> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    private void buildRegion(final int region, final int start, final int end, List<Callable<Object>> tasks, int grain) {
+        if (tasks != null && end - start <= grain && region != 0) {
+            tasks.add(new Callable<Object>() {
+
+                public Object call() {
+                    buildRegion(region, start, end, null, 0);
+                    return null;
+                }
+            });
+            return;
+        }
+        regionStart[region] = start;
+        regionEnd[region] = end;
+        firstChild[region] = -1;
+        if (end - start == 1) {
+            int n = order[start];
+            regionMass[region] = mass[n];
+            massCenterX[region] = x[n];
+            massCenterY[region] = y[n];
+            size[region] = 0;
+            return;
+        }
+
+        // Compute Mass
+        double m = 0;
+        double massSumX = 0;
+        double massSumY = 0;
+        for (int i = start; i < end; i++) {
+            int n = order[i];
+            m += mass[n];
+            massSumX += x[n] * mass[n];
+            massSumY += y[n] * mass[n];
+        }
+        double centerX = massSumX / m;
+        double centerY = massSumY / m;
+        regionMass[region] = m;
+        massCenterX[region] = centerX;
+        massCenterY[region] = centerY;
+
+        // Compute size
+        double s = Double.MIN_VALUE;
+        for (int i = start; i < end; i++) {
+            int n = order[i];
+            double distance = Math.sqrt((x[n] - centerX) * (x[n] - centerX) + (y[n] - centerY) * (y[n] - centerY));
+            s = Math.max(s, 2 * distance);
+        }
+        size[region] = s;
+
+        // Subregions in order top left, bottom left, bottom right, top right
+        int right = partition(start, end, true, centerX, true);
+        int bottomLeft = partition(start, right, false, centerY, true);
+        int topRight = partition(right, end, false, centerY, false);
+        int[] bounds = new int[]{start, bottomLeft, right, topRight, end};
+
+        int childId = region + 1;
+        int previous = -1;
+        boolean singletons = false;
+        for (int q = 0; q < 4; q++) {
+            if (bounds[q + 1] - bounds[q] == end - start) {
+                singletons = true;
+            }
+        }
+        if (singletons) {
+            //All nodes in the same subregion, one subregion per node
+            for (int i = start; i < end; i++) {
+                previous = link(region, previous, childId);
+                buildRegion(childId, i, i + 1, null, 0);
+                childId++;
+            }
+        } else {
+            for (int q = 0; q < 4; q++) {
+                int count = bounds[q + 1] - bounds[q];
+                if (count > 0) {
+                    previous = link(region, previous, childId);
+                    buildRegion(childId, bounds[q], bounds[q + 1], tasks, grain);
+                    childId += 2 * count - 1;
+                }
+            }
+        }
+    }
+
+    private int link(int region, int previous, int child) {
+        if (previous == -1) {
+            firstChild[region] = child;
+        } else {
+            nextSibling[previous] = child;
+        }
+        //Set before the child is built, possibly by another task
+        nextSibling[child] = -1;
+        return child;
+    }
+
+    /**
+     * Reorders the slice so nodes lower than <code>pivot</code> come first if
+     * <code>lowerFirst</code>, last otherwise. Returns the index of the first
+     * node of the second group.
+     */
+    private int partition(int start, int end, boolean onX, double pivot, boolean lowerFirst) {
+        double[] coords = onX ? x : y;
+        int i = start;
+        int j = end - 1;
+        while (i <= j) {
+            if ((coords[order[i]] < pivot) == lowerFirst) {
+                i++;
+            } else {
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+                j--;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Updates masses, mass centers and sizes from current positions, keeping
+     * the subregions. Sizes are upper bounds computed from subregions, so the
+     * approximation stays as accurate but gets slower as nodes move away from
+     * the positions the tree has been built with.
+     */
+    public void refit(double[] x, double[] y, double[] mass) {
+        this.x = x;
+        this.y = y;
+        this.mass = mass;
+        //Subregions always have greater ids than their region
+        for (int region = regionStart.length - 1; region >= 0; region--) {
+            if (regionStart[region] < 0) {
+                continue;
+            }
+            if (firstChild[region] == -1) {
+                int n = order[regionStart[region]];
+                regionMass[region] = mass[n];
+                massCenterX[region] = x[n];
+                massCenterY[region] = y[n];
+                size[region] = 0;
+                continue;
+            }
+            double m = 0;
+            double massSumX = 0;
+            double massSumY = 0;
+            for (int c = firstChild[region]; c != -1; c = nextSibling[c]) {
+                m += regionMass[c];
+                massSumX += massCenterX[c] * regionMass[c];
+                massSumY += massCenterY[c] * regionMass[c];
+            }
+            double centerX = massSumX / m;
+            double centerY = massSumY / m;
+            double s = Double.MIN_VALUE;
+            for (int c = firstChild[region]; c != -1; c = nextSibling[c]) {
+                double distance = Math.sqrt((massCenterX[c] - centerX) * (massCenterX[c] - centerX) + (massCenterY[c] - centerY) * (massCenterY[c] - centerY));
+                s = Math.max(s, 2 * distance + size[c]);
+            }
+            regionMass[region] = m;
+            massCenterX[region] = centerX;
+            massCenterY[region] = centerY;
+            size[region] = s;
+        }
+    }
+
+    /**
+     * Applies the repulsion of all regions on the node at <code>index</code>.
+     * @param stack traversal buffer, grown if needed and returned
+     */
+    public int[] applyForce(int index, RepulsionForce Force, double theta, int[] stack) {
+        if (nodeCount == 0) {
+            return stack;
+        }
+        double nx = x[index];
+        double ny = y[index];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int region = stack[--top];
+            if (firstChild[region] == -1) {
+                Force.applyTo(index, order[regionStart[region]]);
+                continue;
+            }
+            double distance = Math.sqrt((nx - massCenterX[region]) * (nx - massCenterX[region]) + (ny - massCenterY[region]) * (ny - massCenterY[region]));
+            if (distance * theta > size[region]) {
+                Force.apply(index, regionMass[region], massCenterX[region], massCenterY[region]);
+            } else {
+                //Pushed in reverse so subregions are visited in order
+                int count = 0;
+                for (int c = firstChild[region]; c != -1; c = nextSibling[c]) {
+                    count++;
+                }
+                if (top + count > stack.length) {
+                    int[] newStack = new int[Math.max(stack.length * 2, top + count)];
+                    System.arraycopy(stack, 0, newStack, 0, top);
+                    stack = newStack;
+                }
+                top += count;
+                int i = top - 1;
+                for (int c = firstChild[region]; c != -1; c = nextSibling[c]) {
+                    stack[i--] = c;
+                }
+            }
+        }
+        return stack;
+    }
+
+    public double getSize() {
+        return nodeCount == 0 ? 0 : size[0];
+    }
+
+    public double getMass() {
+        return nodeCount == 0 ? 0 : regionMass[0];
+    }
+
+    public double getMassCenterX() {
+        return massCenterX[0];
+    }
+
+    public double getMassCenterY() {
+        return massCenterY[0];
+    }
+}
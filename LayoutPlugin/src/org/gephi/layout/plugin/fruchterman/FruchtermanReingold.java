@@ -42,17 +42,19 @@ Portions Copyrighted 2011 Gephi Consortium.
 package org.gephi.layout.plugin.fruchterman;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.Graph;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.gephi.graph.api.HierarchicalGraph;
-import org.gephi.graph.api.Node;
-import org.gephi.graph.api.NodeData;
 import org.gephi.layout.plugin.AbstractLayout;
-import org.gephi.layout.plugin.ForceVectorNodeLayoutData;
+import org.gephi.layout.plugin.LayoutBuffer;
 import org.gephi.layout.spi.Layout;
 import org.gephi.layout.spi.LayoutBuilder;
 import org.gephi.layout.spi.LayoutProperty;
+import org.openide.util.Exceptions;
 import org.openide.util.NbBundle;
 
 /**
@@ -69,6 +71,14 @@ public class FruchtermanReingold extends AbstractLayout implements Layout {
     private float area;
     private double gravity;
     private double speed;
+    private int updateInterval;
+    private boolean gridRepulsion;
+    private int threadCount;
+    private int currentThreadCount;
+    private ExecutorService pool;
+    //Positions, written to the nodes every updateInterval iterations
+    private LayoutBuffer buffer;
+    private int iterationsSinceUpdate;
 
     public FruchtermanReingold(LayoutBuilder layoutBuilder) {
         super(layoutBuilder);
@@ -78,104 +88,211 @@ public class FruchtermanReingold extends AbstractLayout implements Layout {
         speed = 1;
         area = 10000;
         gravity = 10;
+        updateInterval = 1;
+        gridRepulsion = false;
+        threadCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
     }
 
     public void initAlgo() {
         this.graph = graphModel.getHierarchicalGraphVisible();
-        for (Node n : graph.getNodes()) {
-            n.getNodeData().setLayoutData(new ForceVectorNodeLayoutData());
+        graph.readLock();
+        buffer = null;
+        updateBuffer();
+        graph.readUnlock();
+        pool = Executors.newFixedThreadPool(threadCount);
+        currentThreadCount = threadCount;
+    }
+
+    private void updateBuffer() {
+        if (buffer == null || !buffer.isUpToDate(graph)) {
+            if (buffer != null) {
+                buffer.write();
+            }
+            buffer = new LayoutBuffer(graph);
+            iterationsSinceUpdate = 0;
+        } else if (iterationsSinceUpdate == 0) {
+            buffer.read();
         }
     }
 
     public void goAlgo() {
         this.graph = graphModel.getHierarchicalGraphVisible();
         graph.readLock();
-        Node[] nodes = graph.getNodes().toArray();
-        Edge[] edges = graph.getEdgesAndMetaEdges().toArray();
+        updateBuffer();
+        LayoutBuffer b = buffer;
+        int nodeCount = b.getNodeCount();
+        double[] x = b.x;
+        double[] y = b.y;
+        double[] dx = b.dx;
+        double[] dy = b.dy;
 
-        for (Node n : nodes) {
-            if (n.getNodeData().getLayoutData() == null || !(n.getNodeData().getLayoutData() instanceof ForceVectorNodeLayoutData)) {
-                n.getNodeData().setLayoutData(new ForceVectorNodeLayoutData());
-            }
-            ForceVectorNodeLayoutData layoutData = n.getNodeData().getLayoutData();
-            layoutData.dx = 0;
-            layoutData.dy = 0;
-        }
+        Arrays.fill(dx, 0);
+        Arrays.fill(dy, 0);
 
         float maxDisplace = (float) (Math.sqrt(AREA_MULTIPLICATOR * area) / 10f);					// Déplacement limite : on peut le calibrer...
-        float k = (float) Math.sqrt((AREA_MULTIPLICATOR * area) / (1f + nodes.length));		// La variable k, l'idée principale du layout.
-
-        for (Node N1 : nodes) {
-            for (Node N2 : nodes) {	// On fait toutes les paires de noeuds
-                if (N1 != N2) {
-                    float xDist = N1.getNodeData().x() - N2.getNodeData().x();	// distance en x entre les deux noeuds
-                    float yDist = N1.getNodeData().y() - N2.getNodeData().y();
-                    float dist = (float) Math.sqrt(xDist * xDist + yDist * yDist);	// distance tout court
-
-                    if (dist > 0) {
-                        float repulsiveF = k * k / dist;			// Force de répulsion
-                        ForceVectorNodeLayoutData layoutData = N1.getNodeData().getLayoutData();
-                        layoutData.dx += xDist / dist * repulsiveF;		// on l'applique...
-                        layoutData.dy += yDist / dist * repulsiveF;
+        float k = (float) Math.sqrt((AREA_MULTIPLICATOR * area) / (1f + nodeCount));		// La variable k, l'idée principale du layout.
+
+        // Repulsion, on ranges of nodes in parallel. Each node only accumulates its own displacement
+        final RepulsionGrid grid = isGridRepulsion() ? new RepulsionGrid(x, y, nodeCount, 2 * k) : null;
+        final float kf = k;
+        int taskCount = currentThreadCount > 1 ? 8 * currentThreadCount : 1;
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for (int t = 0; t < taskCount; t++) {
+            final int from = (int) ((long) nodeCount * t / taskCount);
+            final int to = (int) ((long) nodeCount * (t + 1) / taskCount);
+            tasks.add(new Callable<Object>() {
+
+                public Object call() {
+                    if (grid != null) {
+                        repulseGrid(from, to, kf, grid);
+                    } else {
+                        repulse(from, to, kf);
                     }
+                    return null;
+                }
+            });
+        }
+        try {
+            if (taskCount == 1) {
+                tasks.get(0).call();
+            } else {
+                for (Future<Object> future : pool.invokeAll(tasks)) {
+                    future.get();
                 }
             }
+        } catch (Exception ex) {
+            Exceptions.printStackTrace(ex);
         }
-        for (Edge E : edges) {
+        for (int e = 0; e < b.getEdgeCount(); e++) {
             // Idem, pour tous les noeuds on applique la force d'attraction
+            if (!b.isProperEdge(e)) {
+                continue;
+            }
+            int nf = b.edgeSources[e];
+            int nt = b.edgeTargets[e];
 
-            Node Nf = E.getSource();
-            Node Nt = E.getTarget();
-
-            float xDist = Nf.getNodeData().x() - Nt.getNodeData().x();
-            float yDist = Nf.getNodeData().y() - Nt.getNodeData().y();
-            float dist = (float) Math.sqrt(xDist * xDist + yDist * yDist);
+            double xDist = x[nf] - x[nt];
+            double yDist = y[nf] - y[nt];
+            double dist = Math.sqrt(xDist * xDist + yDist * yDist);
 
-            float attractiveF = dist * dist / k;
+            double attractiveF = dist * dist / k;
 
             if (dist > 0) {
-                ForceVectorNodeLayoutData sourceLayoutData = Nf.getNodeData().getLayoutData();
-                ForceVectorNodeLayoutData targetLayoutData = Nt.getNodeData().getLayoutData();
-                sourceLayoutData.dx -= xDist / dist * attractiveF;
-                sourceLayoutData.dy -= yDist / dist * attractiveF;
-                targetLayoutData.dx += xDist / dist * attractiveF;
-                targetLayoutData.dy += yDist / dist * attractiveF;
+                dx[nf] -= xDist / dist * attractiveF;
+                dy[nf] -= yDist / dist * attractiveF;
+                dx[nt] += xDist / dist * attractiveF;
+                dy[nt] += yDist / dist * attractiveF;
             }
         }
         // gravity
-        for (Node n : nodes) {
-            NodeData nodeData = n.getNodeData();
-            ForceVectorNodeLayoutData layoutData = nodeData.getLayoutData();
-            float d = (float) Math.sqrt(nodeData.x() * nodeData.x() + nodeData.y() * nodeData.y());
-            float gf = 0.01f * k * (float) gravity * d;
-            layoutData.dx -= gf * nodeData.x() / d;
-            layoutData.dy -= gf * nodeData.y() / d;
+        for (int n = 0; n < nodeCount; n++) {
+            double d = Math.sqrt(x[n] * x[n] + y[n] * y[n]);
+            double gf = 0.01f * k * gravity * d;
+            dx[n] -= gf * x[n] / d;
+            dy[n] -= gf * y[n] / d;
         }
         // speed
-        for (Node n : nodes) {
-            ForceVectorNodeLayoutData layoutData = n.getNodeData().getLayoutData();
-            layoutData.dx *= speed / SPEED_DIVISOR;
-            layoutData.dy *= speed / SPEED_DIVISOR;
+        for (int n = 0; n < nodeCount; n++) {
+            dx[n] *= speed / SPEED_DIVISOR;
+            dy[n] *= speed / SPEED_DIVISOR;
         }
-        for (Node n : nodes) {
+        for (int n = 0; n < nodeCount; n++) {
             // Maintenant on applique le déplacement calculé sur les noeuds.
             // nb : le déplacement à chaque passe "instantanné" correspond à la force : c'est une sorte d'accélération.
-            ForceVectorNodeLayoutData layoutData = n.getNodeData().getLayoutData();
-            float xDist = layoutData.dx;
-            float yDist = layoutData.dy;
-            float dist = (float) Math.sqrt(layoutData.dx * layoutData.dx + layoutData.dy * layoutData.dy);
-            if (dist > 0 && !n.getNodeData().isFixed()) {
-                float limitedDist = Math.min(maxDisplace * ((float) speed / SPEED_DIVISOR), dist);
-                n.getNodeData().setX(n.getNodeData().x() + xDist / dist * limitedDist);
-                n.getNodeData().setY(n.getNodeData().y() + yDist / dist * limitedDist);
+            double xDist = dx[n];
+            double yDist = dy[n];
+            double dist = Math.sqrt(dx[n] * dx[n] + dy[n] * dy[n]);
+            if (dist > 0 && !b.fixed[n]) {
+                double limitedDist = Math.min(maxDisplace * ((float) speed / SPEED_DIVISOR), dist);
+                x[n] += xDist / dist * limitedDist;
+                y[n] += yDist / dist * limitedDist;
             }
         }
+
+        // Write positions every updateInterval iterations
+        if (++iterationsSinceUpdate >= updateInterval) {
+            b.write();
+            iterationsSinceUpdate = 0;
+        }
         graph.readUnlock();
     }
 
+    private void repulse(int from, int to, float k) {
+        LayoutBuffer b = buffer;
+        int nodeCount = b.getNodeCount();
+        double[] x = b.x;
+        double[] y = b.y;
+        for (int n1 = from; n1 < to; n1++) {
+            double dx = 0;
+            double dy = 0;
+            for (int n2 = 0; n2 < nodeCount; n2++) {	// On fait toutes les paires de noeuds
+                if (n1 != n2) {
+                    double xDist = x[n1] - x[n2];	// distance en x entre les deux noeuds
+                    double yDist = y[n1] - y[n2];
+                    double dist = Math.sqrt(xDist * xDist + yDist * yDist);	// distance tout court
+
+                    if (dist > 0) {
+                        double repulsiveF = k * k / dist;			// Force de répulsion
+                        dx += xDist / dist * repulsiveF;		// on l'applique...
+                        dy += yDist / dist * repulsiveF;
+                    }
+                }
+            }
+            b.dx[n1] += dx;
+            b.dy[n1] += dy;
+        }
+    }
+
+    /**
+     * Repulsion between nodes closer than <code>2k</code> only, found in the
+     * cell of each node and the cells around.
+     */
+    private void repulseGrid(int from, int to, float k, RepulsionGrid grid) {
+        LayoutBuffer b = buffer;
+        double[] x = b.x;
+        double[] y = b.y;
+        int[] cellStart = grid.getCellStart();
+        int[] cellNodes = grid.getCellNodes();
+        int columns = grid.getColumnCount();
+        int rows = grid.getRowCount();
+        double cutoff = 2 * k;
+        for (int n1 = from; n1 < to; n1++) {
+            int column = grid.column(x[n1]);
+            int row = grid.row(y[n1]);
+            double dx = 0;
+            double dy = 0;
+            for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                    int cell = r * columns + c;
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        int n2 = cellNodes[i];
+                        if (n1 != n2) {
+                            double xDist = x[n1] - x[n2];
+                            double yDist = y[n1] - y[n2];
+                            double dist = Math.sqrt(xDist * xDist + yDist * yDist);
+
+                            if (dist > 0 && dist < cutoff) {
+                                double repulsiveF = k * k / dist;
+                                dx += xDist / dist * repulsiveF;
+                                dy += yDist / dist * repulsiveF;
+                            }
+                        }
+                    }
+                }
+            }
+            b.dx[n1] += dx;
+            b.dy[n1] += dy;
+        }
+    }
+
     public void endAlgo() {
-        for (Node n : graph.getNodes()) {
-            n.getNodeData().setLayoutData(null);
+        if (buffer != null) {
+            buffer.write();
+            buffer = null;
+        }
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
         }
     }
 
@@ -210,6 +327,27 @@ public class FruchtermanReingold extends AbstractLayout implements Layout {
                     "fruchtermanReingold.speed.name",
                     NbBundle.getMessage(FruchtermanReingold.class, "fruchtermanReingold.speed.desc"),
                     "getSpeed", "setSpeed"));
+            properties.add(LayoutProperty.createProperty(
+                    this, Integer.class,
+                    NbBundle.getMessage(FruchtermanReingold.class, "fruchtermanReingold.updateInterval.name"),
+                    FRUCHTERMAN_REINGOLD,
+                    "fruchtermanReingold.updateInterval.name",
+                    NbBundle.getMessage(FruchtermanReingold.class, "fruchtermanReingold.updateInterval.desc"),
+                    "getUpdateInterval", "setUpdateInterval"));
+            properties.add(LayoutProperty.createProperty(
+                    this, Boolean.class,
+                    NbBundle.getMessage(FruchtermanReingold.class, "fruchtermanReingold.gridRepulsion.name"),
+                    FRUCHTERMAN_REINGOLD,
+                    "fruchtermanReingold.gridRepulsion.name",
+                    NbBundle.getMessage(FruchtermanReingold.class, "fruchtermanReingold.gridRepulsion.desc"),
+                    "isGridRepulsion", "setGridRepulsion"));
+            properties.add(LayoutProperty.createProperty(
+                    this, Integer.class,
+                    NbBundle.getMessage(FruchtermanReingold.class, "fruchtermanReingold.threads.name"),
+                    FRUCHTERMAN_REINGOLD,
+                    "fruchtermanReingold.threads.name",
+                    NbBundle.getMessage(FruchtermanReingold.class, "fruchtermanReingold.threads.desc"),
+                    "getThreadsCount", "setThreadsCount"));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -252,4 +390,46 @@ public class FruchtermanReingold extends AbstractLayout implements Layout {
     public void setSpeed(Double speed) {
         this.speed = speed;
     }
+
+    /**
+     * @return the number of iterations between two updates of the nodes positions
+     */
+    public Integer getUpdateInterval() {
+        return updateInterval;
+    }
+
+    /**
+     * @param updateInterval the number of iterations between two updates of the nodes positions
+     */
+    public void setUpdateInterval(Integer updateInterval) {
+        this.updateInterval = Math.max(1, updateInterval);
+    }
+
+    /**
+     * @return <code>true</code> if repulsion is limited to nodes closer than twice the optimal distance
+     */
+    public Boolean isGridRepulsion() {
+        return gridRepulsion;
+    }
+
+    /**
+     * @param gridRepulsion <code>true</code> to limit repulsion to nodes closer than twice the optimal distance
+     */
+    public void setGridRepulsion(Boolean gridRepulsion) {
+        this.gridRepulsion = gridRepulsion;
+    }
+
+    /**
+     * @return the number of threads computing repulsion
+     */
+    public Integer getThreadsCount() {
+        return threadCount;
+    }
+
+    /**
+     * @param threadCount the number of threads computing repulsion
+     */
+    public void setThreadsCount(Integer threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
 }
@@ -0,0 +1,142 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.layout.plugin.fruchterman;
+
+/**
+ * Uniform grid of square cells over node positions, to find the nodes closer
+ * than a cutoff distance without testing all pairs.
+ * <p>
+ * Cells are at least as large as the cutoff, so neighbors of a node closer than
+ * the cutoff are in the cell of the node or in one of the eight cells around it.
+ * Cells are enlarged when the positions are too spread for the number of nodes.
+ * @author agent
+ */
+public class RepulsionGrid {
+
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellNodes;
+
+    public RepulsionGrid(double[] x, double[] y, int nodeCount, double cutoff) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < nodeCount; i++) {
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        if (nodeCount == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        this.minX = minX;
+        this.minY = minY;
+
+        //No more than about four cells per node
+        double size = cutoff > 0 ? cutoff : 1;
+        long maxCells = 4L * nodeCount + 16;
+        while (((long) ((maxX - minX) / size) + 1) * ((long) ((maxY - minY) / size) + 1) > maxCells) {
+            size *= 2;
+        }
+        this.cellSize = size;
+        this.columns = (int) ((maxX - minX) / size) + 1;
+        this.rows = (int) ((maxY - minY) / size) + 1;
+
+        //Nodes sorted by cell
+        int[] nodeCell = new int[nodeCount];
+        cellStart = new int[columns * rows + 1];
+        for (int i = 0; i < nodeCount; i++) {
+            nodeCell[i] = row(y[i]) * columns + column(x[i]);
+            cellStart[nodeCell[i] + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellNodes = new int[nodeCount];
+        int[] cursor = new int[columns * rows];
+        System.arraycopy(cellStart, 0, cursor, 0, cursor.length);
+        for (int i = 0; i < nodeCount; i++) {
+            cellNodes[cursor[nodeCell[i]]++] = i;
+        }
+    }
+
+    public int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - minX) / cellSize)));
+    }
+
+    public int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - minY) / cellSize)));
+    }
+
+    public int getColumnCount() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Returns the offsets of each cell in <code>getCellNodes()</code>, cells
+     * being numbered <code>row * getColumnCount() + column</code>.
+     */
+    public int[] getCellStart() {
+        return cellStart;
+    }
+
+    /**
+     * Returns node indices, grouped by cell.
+     */
+    public int[] getCellNodes() {
+        return cellNodes;
+    }
+}
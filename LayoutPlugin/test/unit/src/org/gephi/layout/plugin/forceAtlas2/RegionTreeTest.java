@@ -0,0 +1,136 @@
+/*
+Copyright 2008-2011 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.layout.plugin.forceAtlas2;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author agent
+ */
+public class RegionTreeTest {
+
+    public static final double eps = 1e-6;
+
+    private double[][] randomNodes(int count, long seed) {
+        Random random = new Random(seed);
+        double[][] nodes = new double[3][count];
+        for (int i = 0; i < count; i++) {
+            nodes[0][i] = random.nextDouble() * 1000;
+            nodes[1][i] = random.nextDouble() * 1000;
+            nodes[2][i] = 1 + random.nextInt(5);
+        }
+        return nodes;
+    }
+
+    private void checkRoot(RegionTree tree, double[][] nodes) {
+        double mass = 0, x = 0, y = 0;
+        for (int i = 0; i < nodes[0].length; i++) {
+            mass += nodes[2][i];
+            x += nodes[0][i] * nodes[2][i];
+            y += nodes[1][i] * nodes[2][i];
+        }
+        assertEquals(mass, tree.getMass(), eps);
+        assertEquals(x / mass, tree.getMassCenterX(), eps);
+        assertEquals(y / mass, tree.getMassCenterY(), eps);
+        for (int i = 0; i < nodes[0].length; i++) {
+            double distance = Math.sqrt(Math.pow(nodes[0][i] - x / mass, 2) + Math.pow(nodes[1][i] - y / mass, 2));
+            assertTrue(2 * distance <= tree.getSize() + eps);
+        }
+    }
+
+    @Test
+    public void testBuild() {
+        double[][] nodes = randomNodes(5000, 1);
+        RegionTree tree = new RegionTree(5000);
+        tree.build(nodes[0], nodes[1], nodes[2], null, 1);
+        checkRoot(tree, nodes);
+    }
+
+    @Test
+    public void testParallelBuild() {
+        double[][] nodes = randomNodes(20000, 2);
+        RegionTree tree = new RegionTree(20000);
+        RegionTree parallelTree = new RegionTree(20000);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            tree.build(nodes[0], nodes[1], nodes[2], null, 1);
+            parallelTree.build(nodes[0], nodes[1], nodes[2], pool, 4);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(tree.getMass(), parallelTree.getMass(), eps);
+        assertEquals(tree.getMassCenterX(), parallelTree.getMassCenterX(), eps);
+        assertEquals(tree.getSize(), parallelTree.getSize(), eps);
+    }
+
+    @Test
+    public void testRefit() {
+        double[][] nodes = randomNodes(5000, 3);
+        RegionTree tree = new RegionTree(5000);
+        tree.build(nodes[0], nodes[1], nodes[2], null, 1);
+
+        Random random = new Random(4);
+        for (int i = 0; i < 5000; i++) {
+            nodes[0][i] += random.nextDouble() * 10 - 5;
+            nodes[1][i] += random.nextDouble() * 10 - 5;
+        }
+        tree.refit(nodes[0], nodes[1], nodes[2]);
+        checkRoot(tree, nodes);
+    }
+
+    @Test
+    public void testSamePosition() {
+        double[] x = new double[]{1, 1, 1};
+        double[] y = new double[]{2, 2, 2};
+        double[] mass = new double[]{1, 1, 1};
+        RegionTree tree = new RegionTree(3);
+        tree.build(x, y, mass, null, 1);
+        assertEquals(3, tree.getMass(), eps);
+        assertEquals(1, tree.getMassCenterX(), eps);
+        assertEquals(2, tree.getMassCenterY(), eps);
+    }
+}
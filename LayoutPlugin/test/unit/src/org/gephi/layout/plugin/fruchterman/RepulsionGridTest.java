@@ -0,0 +1,100 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.layout.plugin.fruchterman;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author agent
+ */
+public class RepulsionGridTest {
+
+    @Test
+    public void testNeighborsInAdjacentCells() {
+        Random random = new Random(42);
+        int nodeCount = 500;
+        double[] x = new double[nodeCount];
+        double[] y = new double[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            x[i] = random.nextDouble() * 1000 - 500;
+            y[i] = random.nextDouble() * 1000 - 500;
+        }
+        double cutoff = 40;
+        RepulsionGrid grid = new RepulsionGrid(x, y, nodeCount, cutoff);
+        assertTrue(grid.getCellSize() >= cutoff);
+
+        int[] cellStart = grid.getCellStart();
+        int[] cellNodes = grid.getCellNodes();
+        assertEquals(nodeCount, cellStart[grid.getColumnCount() * grid.getRowCount()]);
+        for (int n1 = 0; n1 < nodeCount; n1++) {
+            boolean[] found = new boolean[nodeCount];
+            int column = grid.column(x[n1]);
+            int row = grid.row(y[n1]);
+            for (int r = Math.max(0, row - 1); r <= Math.min(grid.getRowCount() - 1, row + 1); r++) {
+                for (int c = Math.max(0, column - 1); c <= Math.min(grid.getColumnCount() - 1, column + 1); c++) {
+                    int cell = r * grid.getColumnCount() + c;
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        found[cellNodes[i]] = true;
+                    }
+                }
+            }
+            for (int n2 = 0; n2 < nodeCount; n2++) {
+                if (Math.hypot(x[n1] - x[n2], y[n1] - y[n2]) < cutoff) {
+                    assertTrue(found[n2]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSpreadPositions() {
+        double[] x = new double[]{0, 1, 1e9};
+        double[] y = new double[]{0, 1, -1e9};
+        RepulsionGrid grid = new RepulsionGrid(x, y, 3, 10);
+        assertTrue((long) grid.getColumnCount() * grid.getRowCount() <= 4 * 3 + 16);
+        assertEquals(grid.column(x[0]), grid.column(x[1]));
+        assertEquals(grid.row(y[0]), grid.row(y[1]));
+    }
+}
@@ -41,6 +41,8 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.io.processor.plugin;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.gephi.data.attributes.api.AttributeController;
 import org.gephi.dynamic.api.DynamicController;
 import org.gephi.graph.api.Edge;
@@ -123,22 +125,24 @@ public class DefaultProcessor extends AbstractProcessor implements Processor {
             nodeCount++;
         }
 
-        //Push nodes in data structure
+        //Nodes and their parent, only the first parent is used
+        Node[] nodes = new Node[nodeCount];
+        Node[] parents = null;
+        int i = 0;
         for (NodeDraftGetter draftNode : container.getNodes()) {
-            Node n = draftNode.getNode();
-            NodeDraftGetter[] parents = draftNode.getParents();
-            if (parents != null) {
-                for (int i = 0; i < parents.length; i++) {
-                    Node parent = parents[i].getNode();
-                    graph.addNode(n, parent);
+            nodes[i] = draftNode.getNode();
+            NodeDraftGetter[] draftParents = draftNode.getParents();
+            if (draftParents != null && draftParents.length > 0) {
+                if (parents == null) {
+                    parents = new Node[nodeCount];
                 }
-            } else {
-                graph.addNode(n);
+                parents[i] = draftParents[0].getNode();
             }
+            i++;
         }
 
-        //Create all edges and push to data structure
-        int edgeCount = 0;
+        //Create all edges
+        List<Edge> edges = new ArrayList<Edge>();
         for (EdgeDraftGetter edge : container.getEdges()) {
             Node source = edge.getSource().getNode();
             Node target = edge.getTarget().getNode();
@@ -156,9 +160,12 @@ public class DefaultProcessor extends AbstractProcessor implements Processor {
             }
 
             flushToEdge(edge, e);
-            edgeCount++;
-            graph.addEdge(e);
+            edges.add(e);
         }
+        int edgeCount = edges.size();
+
+        //Push nodes and edges in data structure at once
+        graph.addAll(nodes, parents, edges.toArray(new Edge[0]));
 
         System.out.println("# Nodes loaded: " + nodeCount + "\n# Edges loaded: " + edgeCount);
         workspace = null;
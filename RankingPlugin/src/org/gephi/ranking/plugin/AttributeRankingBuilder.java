@@ -49,6 +49,7 @@ import java.util.Comparator;
 import java.util.List;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeController;
+import org.gephi.data.attributes.api.AttributeIndex;
 import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.AttributeUtils;
 import org.gephi.data.attributes.api.Estimator;
@@ -60,6 +61,8 @@ import org.gephi.graph.api.Attributable;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.HierarchicalGraph;
+import org.gephi.graph.api.UndirectedGraph;
 import org.gephi.ranking.api.Ranking;
 import org.gephi.ranking.api.RankingModel;
 import org.gephi.ranking.spi.RankingBuilder;
@@ -218,7 +221,7 @@ public class AttributeRankingBuilder implements RankingBuilder {
         @Override
         public Number getMaximumValue() {
             if (maximum == null) {
-                AbstractRanking.refreshMinMax(this, graph);
+                refreshMinMax();
             }
             return maximum;
         }
@@ -226,11 +229,27 @@ public class AttributeRankingBuilder implements RankingBuilder {
         @Override
         public Number getMinimumValue() {
             if (minimum == null) {
-                AbstractRanking.refreshMinMax(this, graph);
+                refreshMinMax();
             }
             return minimum;
         }
 
+        private void refreshMinMax() {
+            AttributeIndex index = null;
+            if (graph instanceof HierarchicalGraph && ((HierarchicalGraph) graph).getHeight() == 0
+                    && (elementType.equals(Ranking.NODE_ELEMENT) || !(graph instanceof UndirectedGraph))) {
+                index = AttributeUtils.getDefault().getIndex(column, graph);
+            }
+            if (index != null) {
+                Number min = index.getMinimumValue(graph);
+                Number max = index.getMaximumValue(graph);
+                setMinimumValue(min != null ? min : Double.NaN);
+                setMaximumValue(max != null ? max : Double.NaN);
+            } else {
+                AbstractRanking.refreshMinMax(this, graph);
+            }
+        }
+
         @Override
         protected AttributeRanking clone() {
             GraphModel graphModel = graph.getGraphModel();
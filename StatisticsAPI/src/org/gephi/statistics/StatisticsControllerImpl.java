@@ -42,6 +42,12 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.statistics;
 
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.gephi.statistics.spi.StatisticsBuilder;
 import org.gephi.statistics.spi.Statistics;
 import org.gephi.statistics.api.*;
@@ -55,6 +61,7 @@ import org.gephi.dynamic.api.DynamicModel;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.project.api.ProjectController;
 import org.gephi.utils.longtask.spi.LongTask;
@@ -62,7 +69,9 @@ import org.gephi.utils.longtask.api.LongTaskExecutor;
 import org.gephi.utils.longtask.api.LongTaskListener;
 import org.gephi.project.api.Workspace;
 import org.gephi.project.api.WorkspaceListener;
+import org.gephi.statistics.spi.ConcurrentDynamicStatistics;
 import org.gephi.statistics.spi.DynamicStatistics;
+import org.gephi.statistics.spi.IncrementalDynamicStatistics;
 import org.gephi.utils.progress.Progress;
 import org.gephi.utils.progress.ProgressTicket;
 import org.openide.util.Lookup;
@@ -197,13 +206,28 @@ public class StatisticsControllerImpl implements StatisticsController {
         //Init
         statistics.execute(graphModel, attributeModel);
 
+        if (statistics instanceof ConcurrentDynamicStatistics && ((ConcurrentDynamicStatistics) statistics).getThreads() > 1) {
+            if (executeConcurrent((ConcurrentDynamicStatistics) statistics, dynamicGraph, graphModel, bounds, dynamicLongTask)) {
+                statistics.end();
+                model.addReport(statistics);
+            }
+            return;
+        }
+
         //Loop
+        IncrementalDynamicStatistics incrementalStatistics = statistics instanceof IncrementalDynamicStatistics ? (IncrementalDynamicStatistics) statistics : null;
+        boolean first = true;
         for (double low = bounds.getLow(); low <= bounds.getHigh() - window; low += tick) {
             double high = low + window;
 
             Graph g = dynamicGraph.getSnapshotGraph(low, high);
 
-            statistics.loop(g.getView(), new Interval(low, high));
+            Interval interval = new Interval(low, high);
+            if (first || incrementalStatistics == null
+                    || !incrementalStatistics.update(g.getView(), interval, dynamicGraph.getAddedNodes(), dynamicGraph.getRemovedNodes(), dynamicGraph.getAddedEdges(), dynamicGraph.getRemovedEdges())) {
+                statistics.loop(g.getView(), interval);
+            }
+            first = false;
 
             //Cancelled?
             if (dynamicLongTask != null && dynamicLongTask.isCancelled()) {
@@ -216,6 +240,59 @@ public class StatisticsControllerImpl implements StatisticsController {
         model.addReport(statistics);
     }
 
+    private <T> boolean executeConcurrent(final ConcurrentDynamicStatistics<T> statistics, DynamicGraph dynamicGraph, GraphModel graphModel, Interval bounds, DynamicLongTask dynamicLongTask) {
+        double window = statistics.getWindow();
+        double tick = statistics.getTick();
+        int threads = statistics.getThreads();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //Windows being computed, in time order
+        LinkedList<Future<T>> futures = new LinkedList<Future<T>>();
+        LinkedList<GraphView> views = new LinkedList<GraphView>();
+        LinkedList<Interval> intervals = new LinkedList<Interval>();
+        try {
+            double low = bounds.getLow();
+            while (low <= bounds.getHigh() - window || !futures.isEmpty()) {
+                if (low <= bounds.getHigh() - window && futures.size() < 2 * threads) {
+                    final Interval interval = new Interval(low, low + window);
+                    Graph g = dynamicGraph.getSnapshotGraph(interval);
+                    final GraphView view = graphModel.copyView(g.getView());
+                    futures.add(executor.submit(new Callable<T>() {
+
+                        public T call() throws Exception {
+                            return statistics.compute(view, interval);
+                        }
+                    }));
+                    views.add(view);
+                    intervals.add(interval);
+                    low += tick;
+                } else {
+                    T result = futures.removeFirst().get();
+                    graphModel.destroyView(views.removeFirst());
+                    statistics.merge(result, intervals.removeFirst());
+
+                    //Cancelled?
+                    if (dynamicLongTask != null && dynamicLongTask.isCancelled()) {
+                        return false;
+                    } else if (dynamicLongTask != null) {
+                        dynamicLongTask.progress();
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+            for (GraphView view : views) {
+                graphModel.destroyView(view);
+            }
+        }
+        return true;
+    }
+
     public StatisticsBuilder getBuilder(Class<? extends Statistics> statisticsClass) {
         for (StatisticsBuilder b : statisticsBuilders) {
             if (b.getStatisticsClass().equals(statisticsClass)) {
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2008-2010 Gephi
+ * Authors : agent <agent@local>
+ * Website : http://www.gephi.org
+ * 
+ * This file is part of Gephi.
+ *
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.statistics.spi;
+
+import org.gephi.data.attributes.type.Interval;
+import org.gephi.graph.api.GraphView;
+
+/**
+ * Dynamic statistics whose windows can be evaluated concurrently. When
+ * <code>getThreads()</code> is greater than one, windows are given to
+ * <code>compute()</code> on a pool of this size, each on its own copy of the
+ * snapshot view, and <code>loop()</code> is not called.
+ * <p>
+ * Results are then given to <code>merge()</code> in time order, from a single
+ * thread, before <code>end()</code> is called.
+ *
+ * @author agent
+ * @param <T> the type of window results
+ * @see DynamicStatistics
+ */
+public interface ConcurrentDynamicStatistics<T> extends DynamicStatistics {
+
+    /**
+     * Computes the statistics on a window. This method may be called by
+     * several threads at the same time and must neither modify the graph nor
+     * attribute values. The next windows are copied in the meantime, so the
+     * graph should only be locked while it is read, not during the whole
+     * computation.
+     * @param window a snapshot of the graph at <code>interval</code>
+     * @param interval the interval of the snapshot
+     * @return the window results
+     */
+    public T compute(GraphView window, Interval interval);
+
+    /**
+     * Merges the results of a window. Windows are merged in time order.
+     * @param result the results returned by <code>compute()</code>
+     * @param interval the interval of the window
+     */
+    public void merge(T result, Interval interval);
+
+    /**
+     * Returns the number of windows evaluated at the same time. Windows are
+     * given to <code>loop()</code> one after another when it is one.
+     * @return the number of threads
+     */
+    public int getThreads();
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2008-2010 Gephi
+ * Authors : agent <agent@local>
+ * Website : http://www.gephi.org
+ * 
+ * This file is part of Gephi.
+ *
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.statistics.spi;
+
+import org.gephi.data.attributes.type.Interval;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+
+/**
+ * Dynamic statistics which can update their results from the changes between
+ * two consecutive windows instead of recomputing them on the whole window.
+ * <p>
+ * The first window is always given to <code>loop()</code>. For the following
+ * windows, <code>update()</code> is called with the nodes and edges which
+ * entered or left the window since the previous one. If it returns
+ * <code>false</code>, <code>loop()</code> is called instead for this window.
+ *
+ * @author agent
+ * @see DynamicStatistics
+ */
+public interface IncrementalDynamicStatistics extends DynamicStatistics {
+
+    /**
+     * Iteration of the dynamic statistics algorithm on a new interval, given
+     * the changes since the previous interval. Removed edges include edges of
+     * removed nodes.
+     * @param window a snapshot of the graph at the current interval
+     * @param interval the interval of the current snapshot
+     * @param addedNodes nodes which entered the window
+     * @param removedNodes nodes which left the window
+     * @param addedEdges edges which entered the window
+     * @param removedEdges edges which left the window
+     * @return <code>true</code> if results have been updated,
+     * <code>false</code> if the whole window has to be given to <code>loop()</code>
+     */
+    public boolean update(GraphView window, Interval interval, Node[] addedNodes, Node[] removedNodes, Edge[] addedEdges, Edge[] removedEdges);
+}
@@ -412,6 +412,9 @@ public class ClusteringCoefficient implements Statistics, LongTask {
             }
         }
 
+        //The network is a copy of the graph, it is counted without the lock
+        hgraph.readUnlock();
+
         Arrays.sort(network);
         for (int j = 0; j < N; j++) {
             network[j].setID(j);
@@ -443,7 +446,6 @@ public class ClusteringCoefficient implements Statistics, LongTask {
             Progress.progress(progress, ++ProgressCount);
 
             if (isCanceled) {
-                hgraph.readUnlockAll();
                 return;
             }
         }
@@ -465,14 +467,11 @@ public class ClusteringCoefficient implements Statistics, LongTask {
             Progress.progress(progress, ++ProgressCount);
 
             if (isCanceled) {
-                hgraph.readUnlockAll();
                 return;
             }
         }
         totalTriangles /= 3;
         avgClusteringCoeff /= N;
-
-        hgraph.readUnlock();
     }
 
     /*private void bruteForce(HierarchicalGraph hgraph, AttributeModel attributeModel) {
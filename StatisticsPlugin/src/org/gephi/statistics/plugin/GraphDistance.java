@@ -45,10 +45,13 @@ import java.io.IOException;
 import java.util.HashMap;
 import org.gephi.statistics.spi.Statistics;
 import org.gephi.graph.api.*;
-import java.util.LinkedList;
-import java.util.ListIterator;
 import java.util.Map;
-import java.util.Stack;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.gephi.data.attributes.api.AttributeTable;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeModel;
@@ -97,9 +100,16 @@ public class GraphDistance implements Statistics, LongTask {
     /** */
     private ProgressTicket progress;
     /** */
-    private boolean isCanceled;
+    private volatile boolean isCanceled;
     private int shortestPaths;
     private boolean isNormalized;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    //Approximation
+    private boolean approximate;
+    private int sampleSize;
+    private double sampleError = 0.1;
+    private Long seed;
+    private int samples;
 
     public GraphDistance() {
         GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
@@ -150,9 +160,10 @@ public class GraphDistance implements Statistics, LongTask {
             betweenessCol = nodeTable.addColumn(BETWEENNESS, "Betweenness Centrality", AttributeType.DOUBLE, AttributeOrigin.COMPUTED, new Double(0));
         }
 
-        hgraph.readLock();
+        //The snapshot is immutable, no need to hold the read lock while computing
+        AdjacencySnapshot snapshot = hgraph.getAdjacencySnapshot();
 
-        N = hgraph.getNodeCount();
+        N = snapshot.getNodeCount();
 
         betweenness = new double[N];
         eccentricity = new double[N];
@@ -161,119 +172,406 @@ public class GraphDistance implements Statistics, LongTask {
         avgDist = 0;
         shortestPaths = 0;
         radius = Integer.MAX_VALUE;
-        HashMap<Node, Integer> indicies = new HashMap<Node, Integer>();
-        int index = 0;
-        for (Node s : hgraph.getNodes()) {
-            indicies.put(s, index);
-            index++;
+
+        //Sources, all nodes or sampled pivots
+        int[] sources = null;
+        int sourceCount = N;
+        if (approximate) {
+            sourceCount = getSampleSize(N);
+            sources = samplePivots(N, sourceCount);
+        }
+        samples = sourceCount;
+
+        Progress.start(progress, sourceCount);
+        int threads = Math.max(1, Math.min(threadCount, sourceCount));
+        BrandesWorker[] workers = new BrandesWorker[threads];
+        AtomicInteger nextSource = new AtomicInteger();
+        AtomicInteger count = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new BrandesWorker(snapshot, sources, sourceCount, nextSource, count);
+        }
+        if (threads == 1) {
+            workers[0].run();
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                Future[] futures = new Future[threads];
+                for (int i = 0; i < threads; i++) {
+                    futures[i] = pool.submit(workers[i]);
+                }
+                for (int i = 0; i < threads; i++) {
+                    futures[i].get();
+                }
+            } catch (InterruptedException ex) {
+                isCanceled = true;
+            } catch (ExecutionException ex) {
+                throw new RuntimeException(ex.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+        if (isCanceled) {
+            return;
+        }
+
+        //Reduction
+        int[] closenessCount = approximate ? new int[N] : null;
+        for (BrandesWorker worker : workers) {
+            double[] workerBetweenness = worker.betweenness;
+            for (int i = 0; i < N; i++) {
+                betweenness[i] += workerBetweenness[i];
+            }
+            if (approximate) {
+                for (int i = 0; i < N; i++) {
+                    closeness[i] += worker.closenessSum[i];
+                    closenessCount[i] += worker.closenessCount[i];
+                    eccentricity[i] = Math.max(eccentricity[i], worker.pivotEccentricity[i]);
+                }
+            }
+            avgDist += worker.sumDist;
+            shortestPaths += worker.shortestPaths;
+            diameter = Math.max(diameter, worker.diameter);
+            radius = Math.min(radius, worker.radius);
+        }
+
+        avgDist /= shortestPaths;//mN * (mN - 1.0f);
+
+        if (approximate) {
+            //Extrapolate from the pivots, Brandes & Pich (2007)
+            double scale = N / (double) sourceCount;
+            for (int i = 0; i < N; i++) {
+                betweenness[i] *= scale;
+                if (closenessCount[i] != 0) {
+                    closeness[i] /= closenessCount[i];
+                }
+                radius = (int) Math.min(eccentricity[i], radius);
+            }
+            shortestPaths = (int) Math.round(shortestPaths * scale);
+        }
+
+        for (int s_index = 0; s_index < N; s_index++) {
+            AttributeRow row = (AttributeRow) snapshot.getNode(s_index).getNodeData().getAttributes();
+
+            if (!isDirected) {
+                betweenness[s_index] /= 2;
+            }
+            if (isNormalized) {
+                closeness[s_index] = (closeness[s_index] == 0) ? 0 : 1.0 / closeness[s_index];
+                betweenness[s_index] /= isDirected ? (N - 1) * (N - 2) : (N - 1) * (N - 2) / 2;
+            }
+            row.setValue(eccentricityCol, eccentricity[s_index]);
+            row.setValue(closenessCol, closeness[s_index]);
+            row.setValue(betweenessCol, betweenness[s_index]);
         }
+    }
 
-        Progress.start(progress, hgraph.getNodeCount());
-        int count = 0;
-        for (Node s : hgraph.getNodes()) {
-            Stack<Node> S = new Stack<Node>();
+    private int getSampleSize(int nodeCount) {
+        int k = sampleSize;
+        if (k <= 0) {
+            //Eppstein & Wang, log(n) / epsilon^2 pivots
+            k = (int) Math.ceil(Math.log(Math.max(2, nodeCount)) / (sampleError * sampleError));
+        }
+        //No pivot on an empty graph
+        return Math.min(nodeCount, Math.max(1, k));
+    }
 
-            LinkedList<Node>[] P = new LinkedList[N];
-            double[] theta = new double[N];
-            int[] d = new int[N];
+    private int[] samplePivots(int nodeCount, int k) {
+        Random random = seed != null ? new Random(seed) : new Random();
+        int[] indices = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            indices[i] = i;
+        }
+        //Partial Fisher-Yates shuffle
+        int[] pivots = new int[k];
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(nodeCount - i);
+            int tmp = indices[i];
+            indices[i] = indices[j];
+            indices[j] = tmp;
+            pivots[i] = indices[i];
+        }
+        return pivots;
+    }
+
+    /**
+     * Runs Brandes' single-source shortest paths on sources taken from a shared
+     * counter, with primitive buffers reused from one source to the next.
+     * <p>
+     * In exact mode closeness and eccentricity are written directly at the source
+     * index. In approximate mode sources are pivots and each node accumulates its
+     * distance to the pivots locally. Betweenness and global values are always
+     * accumulated locally and reduced once all workers are done.
+     */
+    private class BrandesWorker implements Runnable {
+
+        private final int[] sources;
+        private final int sourceCount;
+        private final AtomicInteger nextSource;
+        private final AtomicInteger count;
+        //Forward (successors) and backward (predecessors) adjacency
+        private final int[][] forwardOffsets;
+        private final int[][] forwardNeighbours;
+        private final int[][] backwardOffsets;
+        private final int[][] backwardNeighbours;
+        private final boolean symmetric;
+        //Buffers
+        private final int[] d;
+        private final double[] theta;
+        private final double[] delta;
+        private final int[] queue;
+        private final int[] reverseD;
+        private final int[] reverseQueue;
+        //Results
+        private final double[] betweenness;
+        private final double[] closenessSum;
+        private final int[] closenessCount;
+        private final int[] pivotEccentricity;
+        private double sumDist;
+        private int shortestPaths;
+        private int diameter;
+        private int radius = Integer.MAX_VALUE;
+
+        public BrandesWorker(AdjacencySnapshot snapshot, int[] sources, int sourceCount, AtomicInteger nextSource, AtomicInteger count) {
+            this.sources = sources;
+            this.sourceCount = sourceCount;
+            this.nextSource = nextSource;
+            this.count = count;
+            if (!snapshot.isDirected()) {
+                forwardOffsets = new int[][]{snapshot.getOutOffsets()};
+                forwardNeighbours = new int[][]{snapshot.getOutTargets()};
+                backwardOffsets = forwardOffsets;
+                backwardNeighbours = forwardNeighbours;
+                symmetric = true;
+            } else if (isDirected) {
+                forwardOffsets = new int[][]{snapshot.getOutOffsets()};
+                forwardNeighbours = new int[][]{snapshot.getOutTargets()};
+                backwardOffsets = new int[][]{snapshot.getInOffsets()};
+                backwardNeighbours = new int[][]{snapshot.getInSources()};
+                symmetric = false;
+            } else {
+                //Directed graph interpreted as undirected, use both directions
+                forwardOffsets = new int[][]{snapshot.getOutOffsets(), snapshot.getInOffsets()};
+                forwardNeighbours = new int[][]{snapshot.getOutTargets(), snapshot.getInSources()};
+                backwardOffsets = new int[][]{snapshot.getInOffsets(), snapshot.getOutOffsets()};
+                backwardNeighbours = new int[][]{snapshot.getInSources(), snapshot.getOutTargets()};
+                symmetric = true;
+            }
+            int n = snapshot.getNodeCount();
+            d = new int[n];
+            theta = new double[n];
+            delta = new double[n];
+            queue = new int[n];
+            betweenness = new double[n];
+            if (sources != null) {
+                reverseD = symmetric ? d : new int[n];
+                reverseQueue = symmetric ? null : new int[n];
+                closenessSum = new double[n];
+                closenessCount = new int[n];
+                pivotEccentricity = new int[n];
+            } else {
+                reverseD = null;
+                reverseQueue = null;
+                closenessSum = null;
+                closenessCount = null;
+                pivotEccentricity = null;
+            }
+        }
+
+        public void run() {
+            int i;
+            while (!isCanceled && (i = nextSource.getAndIncrement()) < sourceCount) {
+                execute(sources != null ? sources[i] : i);
+                Progress.progress(progress, count.incrementAndGet());
+            }
+        }
+
+        private void execute(int s_index) {
             for (int j = 0; j < N; j++) {
-                P[j] = new LinkedList<Node>();
                 theta[j] = 0;
                 d[j] = -1;
+                delta[j] = 0;
             }
 
-            int s_index = indicies.get(s);
-
             theta[s_index] = 1;
             d[s_index] = 0;
 
-            LinkedList<Node> Q = new LinkedList<Node>();
-            Q.addLast(s);
-            while (!Q.isEmpty()) {
-                Node v = Q.removeFirst();
-                S.push(v);
-                int v_index = indicies.get(v);
-
-                EdgeIterable edgeIter = null;
-                if (isDirected) {
-                    edgeIter = ((HierarchicalDirectedGraph) hgraph).getOutEdgesAndMetaOutEdges(v);
-                } else {
-                    edgeIter = hgraph.getEdgesAndMetaEdges(v);
-                }
-
-                for (Edge edge : edgeIter) {
-                    Node reachable = hgraph.getOpposite(v, edge);
-
-                    int r_index = indicies.get(reachable);
-                    if (d[r_index] < 0) {
-                        Q.addLast(reachable);
-                        d[r_index] = d[v_index] + 1;
-                    }
-                    if (d[r_index] == (d[v_index] + 1)) {
-                        theta[r_index] = theta[r_index] + theta[v_index];
-                        P[r_index].addLast(v);
+            //BFS, the queue array is also the order in which nodes are settled
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = s_index;
+            while (head < tail) {
+                int v_index = queue[head++];
+                for (int k = 0; k < forwardOffsets.length; k++) {
+                    int[] offsets = forwardOffsets[k];
+                    int[] neighbours = forwardNeighbours[k];
+                    for (int e = offsets[v_index]; e < offsets[v_index + 1]; e++) {
+                        int r_index = neighbours[e];
+                        if (d[r_index] < 0) {
+                            queue[tail++] = r_index;
+                            d[r_index] = d[v_index] + 1;
+                        }
+                        if (d[r_index] == (d[v_index] + 1)) {
+                            theta[r_index] = theta[r_index] + theta[v_index];
+                        }
                     }
                 }
             }
+
             double reachable = 0;
+            double sourceEccentricity = 0;
             for (int i = 0; i < N; i++) {
                 if (d[i] > 0) {
-                    avgDist += d[i];
-                    eccentricity[s_index] = (int) Math.max(eccentricity[s_index], d[i]);
-                    closeness[s_index] += d[i];
+                    sumDist += d[i];
+                    sourceEccentricity = Math.max(sourceEccentricity, d[i]);
                     diameter = Math.max(diameter, d[i]);
                     reachable++;
                 }
             }
+            shortestPaths += reachable;
 
-            radius = (int) Math.min(eccentricity[s_index], radius);
-
-            if (reachable != 0) {
-                closeness[s_index] /= reachable;
+            if (sources == null) {
+                for (int i = 0; i < N; i++) {
+                    if (d[i] > 0) {
+                        closeness[s_index] += d[i];
+                    }
+                }
+                eccentricity[s_index] = sourceEccentricity;
+                radius = (int) Math.min(eccentricity[s_index], radius);
+                if (reachable != 0) {
+                    closeness[s_index] /= reachable;
+                }
+            } else {
+                //Distances from every node to the pivot
+                if (!symmetric) {
+                    reverseBFS(s_index);
+                }
+                for (int i = 0; i < N; i++) {
+                    if (reverseD[i] > 0) {
+                        closenessSum[i] += reverseD[i];
+                        closenessCount[i]++;
+                        pivotEccentricity[i] = Math.max(pivotEccentricity[i], reverseD[i]);
+                    }
+                }
             }
 
-            shortestPaths += reachable;
-
-            double[] delta = new double[N];
-            while (!S.empty()) {
-                Node w = S.pop();
-                int w_index = indicies.get(w);
-                ListIterator<Node> iter1 = P[w_index].listIterator();
-                while (iter1.hasNext()) {
-                    Node u = iter1.next();
-                    int u_index = indicies.get(u);
-                    delta[u_index] += (theta[u_index] / theta[w_index]) * (1 + delta[w_index]);
+            //Dependencies, in reverse BFS order. Predecessors are the neighbours one step closer
+            for (int i = tail - 1; i >= 0; i--) {
+                int w_index = queue[i];
+                for (int k = 0; k < backwardOffsets.length; k++) {
+                    int[] offsets = backwardOffsets[k];
+                    int[] neighbours = backwardNeighbours[k];
+                    for (int e = offsets[w_index]; e < offsets[w_index + 1]; e++) {
+                        int u_index = neighbours[e];
+                        if (d[u_index] == d[w_index] - 1) {
+                            delta[u_index] += (theta[u_index] / theta[w_index]) * (1 + delta[w_index]);
+                        }
+                    }
                 }
-                if (w != s) {
+                if (w_index != s_index) {
                     betweenness[w_index] += delta[w_index];
                 }
             }
-            count++;
-            if (isCanceled) {
-                hgraph.readUnlockAll();
-                return;
+        }
+
+        private void reverseBFS(int s_index) {
+            for (int j = 0; j < N; j++) {
+                reverseD[j] = -1;
+            }
+            reverseD[s_index] = 0;
+            int head = 0;
+            int tail = 0;
+            reverseQueue[tail++] = s_index;
+            while (head < tail) {
+                int v_index = reverseQueue[head++];
+                for (int k = 0; k < backwardOffsets.length; k++) {
+                    int[] offsets = backwardOffsets[k];
+                    int[] neighbours = backwardNeighbours[k];
+                    for (int e = offsets[v_index]; e < offsets[v_index + 1]; e++) {
+                        int r_index = neighbours[e];
+                        if (reverseD[r_index] < 0) {
+                            reverseQueue[tail++] = r_index;
+                            reverseD[r_index] = reverseD[v_index] + 1;
+                        }
+                    }
+                }
             }
-            Progress.progress(progress, count);
         }
+    }
 
-        avgDist /= shortestPaths;//mN * (mN - 1.0f);
+    /**
+     * Sets the number of threads shortest paths are computed with. Sources
+     * are distributed among threads, results are identical to the single-thread
+     * computation up to the floating-point summation order of betweenness.
+     * Default is the number of available processors.
+     * @param threadCount the number of threads, <code>1</code> for a serial computation
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
 
-        for (Node s : hgraph.getNodes()) {
-            AttributeRow row = (AttributeRow) s.getNodeData().getAttributes();
-            int s_index = indicies.get(s);
+    public int getThreadCount() {
+        return threadCount;
+    }
 
-            if (!isDirected) {
-                betweenness[s_index] /= 2;
-            }
-            if (isNormalized) {
-                closeness[s_index] = (closeness[s_index] == 0) ? 0 : 1.0 / closeness[s_index];
-                betweenness[s_index] /= isDirected ? (N - 1) * (N - 2) : (N - 1) * (N - 2) / 2;
-            }
-            row.setValue(eccentricityCol, eccentricity[s_index]);
-            row.setValue(closenessCol, closeness[s_index]);
-            row.setValue(betweenessCol, betweenness[s_index]);
+    /**
+     * Sets whether betweenness and closeness are estimated from a random sample
+     * of pivot sources instead of all nodes. Betweenness is extrapolated from the
+     * pivots dependencies and closeness is the average distance to the pivots.
+     * Eccentricity, diameter and radius are then lower bounds.
+     * @param approximate <code>true</code> to sample pivots, <code>false</code> for
+     * the exact computation
+     */
+    public void setApproximate(boolean approximate) {
+        this.approximate = approximate;
+    }
+
+    public boolean isApproximate() {
+        return approximate;
+    }
+
+    /**
+     * Sets the number of pivots sampled in approximate mode. If zero or negative,
+     * the number of pivots is derived from the sample error.
+     * @param sampleSize the number of pivots
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * Sets the error target used to derive the number of pivots when no sample
+     * size is set, <code>log(n) / error<sup>2</sup></code> pivots are sampled.
+     * @param sampleError the error target, strictly positive
+     */
+    public void setSampleError(double sampleError) {
+        if (sampleError <= 0) {
+            throw new IllegalArgumentException("Sample error must be positive");
         }
-        hgraph.readUnlock();
+        this.sampleError = sampleError;
+    }
+
+    public double getSampleError() {
+        return sampleError;
+    }
+
+    /**
+     * Sets the seed of the pivot sampling, for reproducible results. If
+     * <code>null</code>, pivots are different at each execution.
+     * @param seed the random seed or <code>null</code>
+     */
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public Long getSeed() {
+        return seed;
     }
 
     public void setNormalized(boolean isNormalized) {
@@ -348,6 +646,7 @@ public class GraphDistance implements Statistics, LongTask {
                 + "<br>"
                 + "<h2> Parameters: </h2>"
                 + "Network Interpretation:  " + (isDirected ? "directed" : "undirected") + "<br />"
+                + (approximate ? "Approximation: " + samples + " sampled pivots out of " + N + " nodes<br />" : "")
                 + "<br /> <h2> Results: </h2>"
                 + "Diameter: " + diameter + "<br />"
                 + "Radius: " + radius + "<br />"
@@ -358,6 +657,7 @@ public class GraphDistance implements Statistics, LongTask {
                 + htmlIMG3
                 + "<br /><br />" + "<h2> Algorithm: </h2>"
                 + "Ulrik Brandes, <i>A Faster Algorithm for Betweenness Centrality</i>, in Journal of Mathematical Sociology 25(2):163-177, (2001)<br />"
+                + (approximate ? "Ulrik Brandes, Christian Pich, <i>Centrality Estimation in Large Networks</i>, in International Journal of Bifurcation and Chaos 17(7):2303-2318, (2007)<br />" : "")
                 + "</BODY> </HTML>";
 
         return report;
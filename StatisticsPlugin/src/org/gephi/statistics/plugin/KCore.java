@@ -0,0 +1,253 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+ */
+package org.gephi.statistics.plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.data.attributes.api.AttributeModel;
+import org.gephi.data.attributes.api.AttributeOrigin;
+import org.gephi.data.attributes.api.AttributeRow;
+import org.gephi.data.attributes.api.AttributeTable;
+import org.gephi.data.attributes.api.AttributeType;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.HierarchicalGraph;
+import org.gephi.graph.api.Node;
+import org.gephi.statistics.spi.Statistics;
+import org.gephi.utils.longtask.spi.LongTask;
+import org.gephi.utils.progress.Progress;
+import org.gephi.utils.progress.ProgressTicket;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+
+/**
+ * Computes the core number of every node, i.e. the largest <code>k</code> such
+ * that the node belongs to the k-core of the graph. The k-core is the maximal
+ * subgraph in which every node has a degree of at least <code>k</code>.
+ * <p>
+ * Nodes are bucket-sorted by degree and peeled by increasing degree, so all core
+ * numbers are obtained in a single <code>O(n + m)</code> pass. Degrees are the
+ * ones returned by {@link Graph#getDegree(org.gephi.graph.api.Node)}.
+ *
+ * @author agent
+ */
+public class KCore implements Statistics, LongTask {
+
+    public static final String CORENESS = "coreness";
+    private boolean isDirected;
+    private boolean isCanceled;
+    private ProgressTicket progress;
+    private int maxCore;
+    private Map<Integer, Integer> coreDist;
+
+    public void execute(GraphModel graphModel, AttributeModel attributeModel) {
+        HierarchicalGraph graph = graphModel.getHierarchicalGraphVisible();
+        execute(graph, attributeModel);
+    }
+
+    public void execute(HierarchicalGraph graph, AttributeModel attributeModel) {
+        isDirected = graph instanceof DirectedGraph;
+        isCanceled = false;
+        maxCore = 0;
+        coreDist = new HashMap<Integer, Integer>();
+
+        AttributeTable nodeTable = attributeModel.getNodeTable();
+        AttributeColumn coreCol = nodeTable.getColumn(CORENESS);
+        if (coreCol == null) {
+            coreCol = nodeTable.addColumn(CORENESS, "Coreness", AttributeType.INT, AttributeOrigin.COMPUTED, 0);
+        }
+
+        graph.readLock();
+
+        Node[] nodes = graph.getNodes().toArray();
+        Progress.start(progress, nodes.length);
+        int[] cores = computeCoreness(graph, nodes);
+        if (cores != null) {
+            for (int i = 0; i < nodes.length; i++) {
+                AttributeRow row = (AttributeRow) nodes[i].getNodeData().getAttributes();
+                row.setValue(coreCol, cores[i]);
+                maxCore = Math.max(maxCore, cores[i]);
+                if (!coreDist.containsKey(cores[i])) {
+                    coreDist.put(cores[i], 0);
+                }
+                coreDist.put(cores[i], coreDist.get(cores[i]) + 1);
+            }
+        }
+
+        graph.readUnlockAll();
+    }
+
+    /**
+     * Returns the core number of each node of <code>nodes</code>, in the same
+     * order. The array must contain all the nodes of <code>graph</code> and the
+     * graph must be read-locked by the caller. Returns <code>null</code> if
+     * the task has been canceled.
+     * @param graph the graph the degrees and edges are read from
+     * @param nodes the nodes of <code>graph</code>
+     * @return the core numbers, indexed like <code>nodes</code>
+     */
+    public int[] computeCoreness(Graph graph, Node[] nodes) {
+        int n = nodes.length;
+        int maxId = 0;
+        for (Node node : nodes) {
+            maxId = Math.max(maxId, node.getId());
+        }
+        int[] indices = new int[maxId + 1];
+        int[] deg = new int[n];
+        int maxDeg = 0;
+        for (int i = 0; i < n; i++) {
+            indices[nodes[i].getId()] = i;
+            deg[i] = graph.getDegree(nodes[i]);
+            maxDeg = Math.max(maxDeg, deg[i]);
+        }
+
+        //Bucket sort nodes by degree, bin[d] is the position of the first node of degree d
+        int[] bin = new int[maxDeg + 1];
+        for (int i = 0; i < n; i++) {
+            bin[deg[i]]++;
+        }
+        int start = 0;
+        for (int d = 0; d <= maxDeg; d++) {
+            int num = bin[d];
+            bin[d] = start;
+            start += num;
+        }
+        int[] pos = new int[n];
+        int[] vert = new int[n];
+        for (int i = 0; i < n; i++) {
+            pos[i] = bin[deg[i]];
+            vert[pos[i]] = i;
+            bin[deg[i]]++;
+        }
+        for (int d = maxDeg; d > 0; d--) {
+            bin[d] = bin[d - 1];
+        }
+        bin[0] = 0;
+
+        //Peel nodes by increasing degree, moving neighbours one bucket down
+        for (int i = 0; i < n; i++) {
+            if (isCanceled) {
+                return null;
+            }
+            int v = vert[i];
+            Node node = nodes[v];
+            for (Edge edge : graph.getEdges(node)) {
+                Node opposite = graph.getOpposite(node, edge);
+                if (opposite == node) {
+                    continue;
+                }
+                int u = indices[opposite.getId()];
+                if (deg[u] > deg[v]) {
+                    int du = deg[u];
+                    int pu = pos[u];
+                    int pw = bin[du];
+                    int w = vert[pw];
+                    if (u != w) {
+                        pos[u] = pw;
+                        vert[pu] = w;
+                        pos[w] = pu;
+                        vert[pw] = u;
+                    }
+                    bin[du]++;
+                    deg[u]--;
+                }
+            }
+            Progress.progress(progress, i);
+        }
+        return deg;
+    }
+
+    public int getMaxCore() {
+        return maxCore;
+    }
+
+    public String getReport() {
+        //Distribution series
+        XYSeries dSeries = ChartUtils.createXYSeries(coreDist, "Coreness Distribution");
+
+        XYSeriesCollection dataset1 = new XYSeriesCollection();
+        dataset1.addSeries(dSeries);
+
+        JFreeChart chart = ChartFactory.createXYLineChart(
+                "Coreness Distribution",
+                "Value",
+                "Count",
+                dataset1,
+                PlotOrientation.VERTICAL,
+                true,
+                false,
+                false);
+        chart.removeLegend();
+        ChartUtils.decorateChart(chart);
+        ChartUtils.scaleChart(chart, dSeries, false);
+        String imageFile = ChartUtils.renderChart(chart, "coreness-distribution.png");
+
+        String report = "<HTML> <BODY> <h1>K-Core Report </h1> "
+                + "<hr>"
+                + "<br>"
+                + "<h2> Parameters: </h2>"
+                + "Network Interpretation:  " + (isDirected ? "directed" : "undirected") + "<br>"
+                + "<br> <h2> Results: </h2>"
+                + "Maximum Core Number: " + maxCore + "<br>"
+                + "<br /><br />" + imageFile
+                + "<br />" + "<h2> Algorithm: </h2>"
+                + "Vladimir Batagelj, Matjaz Zaversnik, <i>An O(m) Algorithm for Cores Decomposition of Networks</i>, arXiv:cs/0310049 (2003)<br />"
+                + "</BODY> </HTML>";
+
+        return report;
+    }
+
+    public boolean cancel() {
+        isCanceled = true;
+        return true;
+    }
+
+    public void setProgressTicket(ProgressTicket progressTicket) {
+        progress = progressTicket;
+    }
+}
@@ -43,20 +43,25 @@ package org.gephi.statistics.plugin;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.gephi.data.attributes.api.AttributeTable;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.AttributeOrigin;
 import org.gephi.data.attributes.api.AttributeRow;
 import org.gephi.data.attributes.api.AttributeType;
+import org.gephi.graph.api.AdjacencySnapshot;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.HierarchicalUndirectedGraph;
-import org.gephi.graph.api.Node;
 import org.gephi.statistics.spi.Statistics;
 import org.gephi.utils.longtask.spi.LongTask;
 import org.gephi.utils.progress.Progress;
@@ -75,10 +80,15 @@ public class Modularity implements Statistics, LongTask {
 
     public static final String MODULARITY_CLASS = "modularity_class";
     private ProgressTicket progress;
-    private boolean isCanceled;
-    private CommunityStructure structure;
+    private volatile boolean isCanceled;
     private double modularity;
+    private double modularityResolution;
     private boolean isRandomized = false;
+    private double resolution = 1.0;
+    private int threadCount = 1;
+    //Results
+    private int communityCount;
+    private int[] communitySizes;
 
     public void setRandom(boolean isRandomized) {
         this.isRandomized = isRandomized;
@@ -88,291 +98,222 @@ public class Modularity implements Statistics, LongTask {
         return isRandomized;
     }
 
-    public boolean cancel() {
-        this.isCanceled = true;
-        return true;
+    /**
+     * Sets the resolution parameter, which weights the null model of modularity.
+     * Values higher than <code>1.0</code> give more and smaller communities,
+     * values lower than <code>1.0</code> give fewer and larger communities. Default is <code>1.0</code>, the standard
+     * modularity.
+     * @param resolution the resolution, strictly positive
+     */
+    public void setResolution(double resolution) {
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("Resolution must be positive");
+        }
+        this.resolution = resolution;
     }
 
-    public void setProgressTicket(ProgressTicket progressTicket) {
-        this.progress = progressTicket;
+    public double getResolution() {
+        return resolution;
     }
 
-    class ModEdge {
-
-        int source;
-        int target;
-        int weight;
-
-        public ModEdge(int s, int t, int w) {
-            source = s;
-            target = t;
-            weight = w;
+    /**
+     * Sets the number of threads for the local moving phase. With more than
+     * one thread, best moves of all nodes are evaluated in parallel on the
+     * current partition and applied together, which may end in a slightly different
+     * partition than the sequential phase. Default is <code>1</code>.
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
         }
+        this.threadCount = threadCount;
     }
 
-    class CommunityStructure {
-
-        HashMap<Community, Integer>[] nodeConnections;
-        HashMap<Node, Integer> map;
-        Community[] nodeCommunities;
-        HierarchicalUndirectedGraph graph;
-        double[] weights;
-        double graphWeightSum;
-        LinkedList<ModEdge>[] topology;
-        LinkedList<Community> communities;
-        int N;
-        HashMap<Integer, Community> invMap;
-
-        
-        CommunityStructure(HierarchicalUndirectedGraph hgraph) {
-            this.graph = hgraph;
-            N = hgraph.getNodeCount();
-            invMap = new HashMap<Integer, Community>();
-            nodeConnections = new HashMap[N];
-            nodeCommunities = new Community[N];
-            map = new HashMap<Node, Integer>();
-            topology = new LinkedList[N];
-            communities = new LinkedList<Community>();
-            int index = 0;
-            weights = new double[N];
-            for (Node node : hgraph.getNodes()) {
-                map.put(node, index);
-                nodeCommunities[index] = new Community(this);
-                nodeConnections[index] = new HashMap<Community, Integer>();
-                weights[index] = hgraph.getTotalDegree(node);
-                nodeCommunities[index].seed(index);
-                Community hidden = new Community(structure);
-                hidden.nodes.add(index);
-                invMap.put(index, hidden);
-                communities.add(nodeCommunities[index]);               
-                index++;
-                if (isCanceled) {
-                    return;
-                }
-            }
+    public int getThreadCount() {
+        return threadCount;
+    }
 
-            for (Node node : hgraph.getNodes()) {
-                int node_index = map.get(node);
-                topology[node_index] = new LinkedList<ModEdge>();
+    public boolean cancel() {
+        this.isCanceled = true;
+        return true;
+    }
 
-                for (Node neighbor : hgraph.getNeighbors(node)) {
-                    if (node == neighbor) {
-                        continue;
-                    }
-                    int neighbor_index = map.get(neighbor);
-                    ModEdge me = new ModEdge(node_index, neighbor_index, 1);
-                    topology[node_index].add(me);
-                    Community adjCom = nodeCommunities[neighbor_index];
-                    nodeConnections[node_index].put(adjCom, 1);
-                    nodeCommunities[node_index].connections.put(adjCom, 1);
-                    nodeConnections[neighbor_index].put(nodeCommunities[node_index], 1);
-                    nodeCommunities[neighbor_index].connections.put(nodeCommunities[node_index], 1);
-                    graphWeightSum++;//WARNING : may be an issue with self_loop
-                }
+    public void setProgressTicket(ProgressTicket progressTicket) {
+        this.progress = progressTicket;
+    }
 
-                if (isCanceled) {
-                    return;
+    /**
+     * Graph of one aggregation level, in compressed-sparse-row form. Arcs are
+     * stored in both directions. Self-loops of aggregated nodes carry the weight
+     * of arcs inside the community they stand for.
+     */
+    static class LevelGraph {
+
+        final int nodeCount;
+        final int[] offsets;
+        final int[] targets;
+        final double[] weights;
+        //Sum of arc weights per node, and for the whole graph (2m)
+        final double[] nodeWeights;
+        final double totalWeight;
+
+        LevelGraph(int nodeCount, int[] offsets, int[] targets, double[] weights) {
+            this.nodeCount = nodeCount;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.nodeWeights = new double[nodeCount];
+            double total = 0;
+            for (int i = 0; i < nodeCount; i++) {
+                for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                    nodeWeights[i] += weights[e];
                 }
+                total += nodeWeights[i];
             }
-            graphWeightSum /= 2.0;
+            this.totalWeight = total;
         }
 
-        private void addNodeTo(int node, Community to) {
-            to.add(new Integer(node));
-            nodeCommunities[node] = to;
-
-            for (ModEdge e : topology[node]) {
-                int neighbor = e.target;
-
-                ////////
-                //Remove Node Connection to this community
-                Integer neighEdgesTo = nodeConnections[neighbor].get(to);
-                if (neighEdgesTo == null) {
-                    nodeConnections[neighbor].put(to, e.weight);
-                } else {
-                    nodeConnections[neighbor].put(to, neighEdgesTo + e.weight);
-                }
-
-
-
+        /**
+         * Aggregates nodes of this graph by community.
+         */
+        LevelGraph aggregate(int[] community, int communities) {
+            //Nodes grouped by community
+            int[] start = new int[communities + 1];
+            for (int i = 0; i < nodeCount; i++) {
+                start[community[i] + 1]++;
+            }
+            for (int c = 0; c < communities; c++) {
+                start[c + 1] += start[c];
+            }
+            int[] members = new int[nodeCount];
+            int[] cursor = new int[communities];
+            System.arraycopy(start, 0, cursor, 0, communities);
+            for (int i = 0; i < nodeCount; i++) {
+                members[cursor[community[i]]++] = i;
+            }
 
-                ///////////////////
-                Community adjCom = nodeCommunities[neighbor];
-                Integer oEdgesto = adjCom.connections.get(to);
-                if (oEdgesto == null) {
-                    adjCom.connections.put(to, e.weight);
-                } else {
-                    adjCom.connections.put(to, oEdgesto + e.weight);
+            int[] newOffsets = new int[communities + 1];
+            int[] newTargets = new int[Math.max(communities, 16)];
+            double[] newWeights = new double[newTargets.length];
+            double[] links = new double[communities];
+            int[] stamp = new int[communities];
+            int[] touched = new int[communities];
+            int arcs = 0;
+            for (int c = 0; c < communities; c++) {
+                int touchedCount = 0;
+                for (int m = start[c]; m < start[c + 1]; m++) {
+                    int i = members[m];
+                    for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                        int d = community[targets[e]];
+                        if (stamp[d] != c + 1) {
+                            stamp[d] = c + 1;
+                            links[d] = 0;
+                            touched[touchedCount++] = d;
+                        }
+                        links[d] += weights[e];
+                    }
                 }
-
-                Integer nodeEdgesTo = nodeConnections[node].get(adjCom);
-                if (nodeEdgesTo == null) {
-                    nodeConnections[node].put(adjCom, e.weight);
-                } else {
-                    nodeConnections[node].put(adjCom, nodeEdgesTo + e.weight);
+                if (arcs + touchedCount > newTargets.length) {
+                    int capacity = Math.max(newTargets.length * 2, arcs + touchedCount);
+                    int[] t = new int[capacity];
+                    System.arraycopy(newTargets, 0, t, 0, arcs);
+                    newTargets = t;
+                    double[] w = new double[capacity];
+                    System.arraycopy(newWeights, 0, w, 0, arcs);
+                    newWeights = w;
                 }
-
-                if (to != adjCom) {
-                    Integer comEdgesto = to.connections.get(adjCom);
-                    if (comEdgesto == null) {
-                        to.connections.put(adjCom, e.weight);
-                    } else {
-                        to.connections.put(adjCom, comEdgesto + e.weight);
-                    }
+                for (int k = 0; k < touchedCount; k++) {
+                    newTargets[arcs] = touched[k];
+                    newWeights[arcs] = links[touched[k]];
+                    arcs++;
                 }
+                newOffsets[c + 1] = arcs;
             }
+            int[] t = new int[arcs];
+            System.arraycopy(newTargets, 0, t, 0, arcs);
+            double[] w = new double[arcs];
+            System.arraycopy(newWeights, 0, w, 0, arcs);
+            return new LevelGraph(communities, newOffsets, t, w);
         }
 
-        private void removeNodeFrom(int node, Community from) {
-            Community community = nodeCommunities[node];
-            for (ModEdge e : topology[node]) {
-                int neighbor = e.target;
-
-                ////////
-                //Remove Node Connection to this community
-                Integer edgesTo = nodeConnections[neighbor].get(community);
-                if (edgesTo - e.weight == 0) {
-                    nodeConnections[neighbor].remove(community);
-                } else {
-                    nodeConnections[neighbor].put(community, edgesTo - e.weight);
-                }
-
-                ///////////////////
-                //Remove Adjacency Community's connetion to this community
-                Community adjCom = nodeCommunities[neighbor];
-                Integer oEdgesto = adjCom.connections.get(community);
-                if (oEdgesto - e.weight == 0) {
-                    adjCom.connections.remove(community);
-                } else {
-                    adjCom.connections.put(community, oEdgesto - e.weight);
-                }
-
-                if (node == neighbor) {
-                    continue;
-                }
-
-                if (adjCom != community) {
-                    Integer comEdgesto = community.connections.get(adjCom);
-                    if (comEdgesto - e.weight == 0) {
-                        community.connections.remove(adjCom);
-                    } else {
-                        community.connections.put(adjCom, comEdgesto - e.weight);
+        /**
+         * Returns the modularity of <code>community</code> on this graph.
+         */
+        double modularity(int[] community, double resolution) {
+            if (totalWeight == 0) {
+                return 0;
+            }
+            double internal = 0;
+            double[] tot = new double[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                tot[community[i]] += nodeWeights[i];
+                for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                    if (community[targets[e]] == community[i]) {
+                        internal += weights[e];
                     }
                 }
-
-                Integer nodeEgesTo = nodeConnections[node].get(adjCom);
-                if (nodeEgesTo - e.weight == 0) {
-                    nodeConnections[node].remove(adjCom);
-                } else {
-                    nodeConnections[node].put(adjCom, nodeEgesTo - e.weight);
-                }
-
-
             }
-            from.remove(new Integer(node));
+            double res = internal / totalWeight;
+            for (int c = 0; c < nodeCount; c++) {
+                res -= resolution * (tot[c] / totalWeight) * (tot[c] / totalWeight);
+            }
+            return res;
         }
+    }
 
-        private void moveNodeTo(int node, Community to) {
-            Community from = nodeCommunities[node];
-            removeNodeFrom(node, from);
-            addNodeTo(node, to);
+    /**
+     * Finds the community with the best modularity gain for a node, on a partition
+     * shared read-only by several callers. Buffers are owned by the instance.
+     */
+    class MoveEvaluator {
+
+        private final double[] links;
+        private final int[] stamp;
+        private final int[] touched;
+        private int currentStamp;
+
+        MoveEvaluator(int nodeCount) {
+            links = new double[nodeCount];
+            stamp = new int[nodeCount];
+            touched = new int[nodeCount];
         }
 
-        private void zoomOut() {
-            int M = communities.size();
-            LinkedList<ModEdge>[] newTopology = new LinkedList[M];
-            int index = 0;
-            nodeCommunities = new Community[M];
-            nodeConnections = new HashMap[M];
-            HashMap<Integer, Community> newInvMap = new HashMap<Integer, Community>();
-            for (int i = 0; i < communities.size(); i++) {//Community com : mCommunities) {
-                Community com = communities.get(i);
-                nodeConnections[index] = new HashMap<Community, Integer>();
-                newTopology[index] = new LinkedList<ModEdge>();
-                nodeCommunities[index] = new Community(com);
-                Set<Community> iter = com.connections.keySet();
-                double weightSum = 0;
-
-                Community hidden = new Community(structure);
-                for (Integer nodeInt : com.nodes) {
-                    Community oldHidden = invMap.get(nodeInt);
-                    hidden.nodes.addAll(oldHidden.nodes);
+        int bestCommunity(LevelGraph graph, int node, int[] community, double[] tot) {
+            int nodeCommunity = community[node];
+            double k = graph.nodeWeights[node];
+            currentStamp++;
+            int touchedCount = 0;
+            for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+                int neighbour = graph.targets[e];
+                if (neighbour == node) {
+                    continue;
                 }
-                newInvMap.put(index, hidden);
-                for(Community adjCom : iter) {
-                    int target = communities.indexOf(adjCom);
-                    int weight = com.connections.get(adjCom);
-                    if(target == index)
-                        weightSum += 2*weight;
-                    else
-                        weightSum += weight;
-                    ModEdge e = new ModEdge(index, target, weight);
-                    newTopology[index].add(e);
+                int c = community[neighbour];
+                if (stamp[c] != currentStamp) {
+                    stamp[c] = currentStamp;
+                    links[c] = 0;
+                    touched[touchedCount++] = c;
                 }
-                weights[index] = weightSum;
-                nodeCommunities[index].seed(index);
-
-                index++;
+                links[c] += graph.weights[e];
             }
-            communities.clear();
-
-            for (int i = 0; i < M; i++) {
-                Community com = nodeCommunities[i];
-                communities.add(com);
-                for (ModEdge e : newTopology[i]) {
-                    nodeConnections[i].put(nodeCommunities[e.target], e.weight);
-                    com.connections.put(nodeCommunities[e.target], e.weight);
-                }
-
-            }
-
-            N = M;
-            topology = newTopology;
-            invMap = newInvMap;
-        }
-    }
 
-    class Community {
-        double weightSum;
-        CommunityStructure structure;
-        LinkedList<Integer> nodes;
-        HashMap<Community, Integer> connections;
-
-        public int size() {
-            return nodes.size();
-        }
-
-        public Community(Community com) {
-            structure = com.structure;
-            connections = new HashMap<Community, Integer>();
-            nodes = new LinkedList<Integer>();
-            //mHidden = pCom.mHidden;
-        }
-
-        public Community(CommunityStructure structure) {
-            this.structure = structure;
-            connections = new HashMap<Community, Integer>();
-            nodes = new LinkedList<Integer>();
-        }
-
-        public void seed(int node) {
-            nodes.add(node);
-            weightSum += structure.weights[node];
-        }
-
-        public boolean add(int node) {
-            nodes.addLast(new Integer(node));
-            weightSum += structure.weights[node];
-            return true;
-        }
-
-        public boolean remove(int node) {
-            boolean result = nodes.remove(new Integer(node));
-            weightSum -= structure.weights[node];
-            if (nodes.size() == 0) {
-                structure.communities.remove(this);
+            //Gain of the node own community, once the node is removed
+            double ownLinks = stamp[nodeCommunity] == currentStamp ? links[nodeCommunity] : 0;
+            double best = ownLinks - resolution * (tot[nodeCommunity] - k) * k / graph.totalWeight;
+            int bestCommunity = nodeCommunity;
+            for (int i = 0; i < touchedCount; i++) {
+                int c = touched[i];
+                if (c == nodeCommunity) {
+                    continue;
+                }
+                double qValue = links[c] - resolution * tot[c] * k / graph.totalWeight;
+                if (qValue > best) {
+                    best = qValue;
+                    bestCommunity = c;
+                }
             }
-            return result;
+            return bestCommunity;
         }
     }
 
@@ -385,124 +326,259 @@ public class Modularity implements Statistics, LongTask {
         isCanceled = false;
         Progress.start(progress);
         Random rand = new Random();
-        hgraph.readLock();
-        structure = new CommunityStructure(hgraph);
-        if (isCanceled) {
-            hgraph.readUnlockAll();
-            return;
+
+        //The snapshot is immutable, no need to hold the read lock while computing
+        AdjacencySnapshot snapshot = hgraph.getAdjacencySnapshot();
+        int N = snapshot.getNodeCount();
+        LevelGraph graph = createGraph(snapshot);
+        LevelGraph firstLevel = graph;
+
+        int[] membership = new int[N];
+        for (int i = 0; i < N; i++) {
+            membership[i] = i;
         }
-        boolean someChange = true;
-        while (someChange) {
-            someChange = false;
-            boolean localChange = true;
-            while (localChange) {
-                localChange = false;
-                int start = 0;
-                if (isRandomized) {
-                    start = Math.abs(rand.nextInt()) % structure.N;
+
+        ExecutorService pool = threadCount > 1 ? Executors.newFixedThreadPool(threadCount) : null;
+        try {
+            while (graph.totalWeight > 0) {
+                int n = graph.nodeCount;
+                int[] community = new int[n];
+                double[] tot = new double[n];
+                for (int i = 0; i < n; i++) {
+                    community[i] = i;
+                    tot[i] = graph.nodeWeights[i];
                 }
-                int step = 0;
-                for (int i = start; step < structure.N; i = (i + 1) % structure.N) {
-                    step++;
-                    double best = 0.;
-                    Community bestCommunity = null;
-                    Community nodecom = structure.nodeCommunities[i];
-                    Set<Community> iter = structure.nodeConnections[i].keySet();
-                    for(Community com : iter) {
-                        double qValue = q(i, com);
-                        if (qValue > best) {
-                            best = qValue;
-                            bestCommunity = com;
-                        } 
-                    }
-                    if ((structure.nodeCommunities[i] != bestCommunity) && (bestCommunity != null)) {
-                        structure.moveNodeTo(i, bestCommunity);
-                        localChange = true;
-                    }
-                    if (isCanceled) {
-                        hgraph.readUnlockAll();
-                        return;
-                    }
+                boolean moved;
+                if (pool != null) {
+                    moved = moveNodesParallel(graph, community, tot, pool);
+                } else {
+                    moved = moveNodes(graph, community, tot, rand);
                 }
-                someChange = localChange || someChange;
                 if (isCanceled) {
-                    hgraph.readUnlockAll();
                     return;
                 }
-            }
+                if (!moved) {
+                    break;
+                }
 
-            if (someChange) {
-                structure.zoomOut();
+                //Renumber communities and zoom out
+                int[] renumber = new int[n];
+                for (int i = 0; i < n; i++) {
+                    renumber[i] = -1;
+                }
+                int communities = 0;
+                for (int i = 0; i < n; i++) {
+                    if (renumber[community[i]] == -1) {
+                        renumber[community[i]] = communities++;
+                    }
+                    community[i] = renumber[community[i]];
+                }
+                for (int i = 0; i < N; i++) {
+                    membership[i] = community[membership[i]];
+                }
+                if (communities == n) {
+                    break;
+                }
+                graph = graph.aggregate(community, communities);
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
             }
         }
 
-        int[] comStructure = new int[hgraph.getNodeCount()];
-        int count = 0;
-        double[] degreeCount = new double[structure.communities.size()];
-        for (Community com : structure.communities) {
-            for (Integer node : com.nodes) {
-                Community hidden = structure.invMap.get(node);
-                for (Integer nodeInt : hidden.nodes) {
-                    comStructure[nodeInt] = count;
-                }
+        //Community ids in order of appearance
+        int[] renumber = new int[N];
+        for (int i = 0; i < N; i++) {
+            renumber[i] = -1;
+        }
+        communityCount = 0;
+        for (int i = 0; i < N; i++) {
+            if (renumber[membership[i]] == -1) {
+                renumber[membership[i]] = communityCount++;
             }
-            count++;
+            membership[i] = renumber[membership[i]];
         }
-        for (Node node : hgraph.getNodes()) {
-            int index = structure.map.get(node);
-            degreeCount[comStructure[index]] += hgraph.getTotalDegree(node);
+        communitySizes = new int[communityCount];
+        for (int i = 0; i < N; i++) {
+            communitySizes[membership[i]]++;
         }
 
-        modularity = finalQ(comStructure, degreeCount, hgraph, attributeModel);
-
-        hgraph.readUnlock();
-    }
+        modularity = firstLevel.modularity(membership, 1.0);
+        modularityResolution = firstLevel.modularity(membership, resolution);
 
-    private double finalQ(int[] struct, double[] degrees, HierarchicalUndirectedGraph hgraph, AttributeModel attributeModel) {
         AttributeTable nodeTable = attributeModel.getNodeTable();
         AttributeColumn modCol = nodeTable.getColumn(MODULARITY_CLASS);
         if (modCol == null) {
             modCol = nodeTable.addColumn(MODULARITY_CLASS, "Modularity Class", AttributeType.INT, AttributeOrigin.COMPUTED, new Integer(0));
         }
+        for (int i = 0; i < N; i++) {
+            AttributeRow row = (AttributeRow) snapshot.getNode(i).getNodeData().getAttributes();
+            row.setValue(modCol, membership[i]);
+        }
+    }
 
-        double res = 0;
-        double[] internal = new double[degrees.length];
-        for (Node n : hgraph.getNodes()) {
-            int n_index = structure.map.get(n);
-            AttributeRow row = (AttributeRow) n.getNodeData().getAttributes();
-            row.setValue(modCol, struct[n_index]);
-            for (Node neighbor : hgraph.getNeighbors(n)) {
-                if (n == neighbor) {
-                    continue;
+    private LevelGraph createGraph(AdjacencySnapshot snapshot) {
+        //Unweighted, self-loops are ignored
+        int N = snapshot.getNodeCount();
+        int[] outOffsets = snapshot.getOutOffsets();
+        int[] outTargets = snapshot.getOutTargets();
+        int[] offsets = new int[N + 1];
+        int[] targets = new int[outTargets.length];
+        int arcs = 0;
+        for (int i = 0; i < N; i++) {
+            for (int e = outOffsets[i]; e < outOffsets[i + 1]; e++) {
+                if (outTargets[e] != i) {
+                    targets[arcs++] = outTargets[e];
+                }
+            }
+            offsets[i + 1] = arcs;
+        }
+        double[] weights = new double[arcs];
+        for (int e = 0; e < arcs; e++) {
+            weights[e] = 1.0;
+        }
+        return new LevelGraph(N, offsets, targets, weights);
+    }
+
+    /**
+     * Sequential local moving phase, until no node moves.
+     * @return <code>true</code> if at least one node moved
+     */
+    private boolean moveNodes(LevelGraph graph, int[] community, double[] tot, Random rand) {
+        int n = graph.nodeCount;
+        MoveEvaluator evaluator = new MoveEvaluator(n);
+        boolean someChange = false;
+        boolean localChange = true;
+        while (localChange) {
+            localChange = false;
+            int start = 0;
+            if (isRandomized) {
+                start = Math.abs(rand.nextInt()) % n;
+            }
+            int step = 0;
+            for (int i = start; step < n; i = (i + 1) % n) {
+                step++;
+                int bestCommunity = evaluator.bestCommunity(graph, i, community, tot);
+                if (bestCommunity != community[i]) {
+                    tot[community[i]] -= graph.nodeWeights[i];
+                    tot[bestCommunity] += graph.nodeWeights[i];
+                    community[i] = bestCommunity;
+                    localChange = true;
                 }
-                int neigh_index = structure.map.get(neighbor);
-                if (struct[neigh_index] == struct[n_index]) {
-                    internal[struct[neigh_index]]++;
+                if (isCanceled) {
+                    return false;
                 }
             }
+            someChange = localChange || someChange;
+        }
+        return someChange;
+    }
+
+    /**
+     * Parallel local moving phase. Best moves are evaluated for all nodes on the
+     * current partition and applied together, a singleton never moves to a singleton
+     * community with a higher id to avoid swaps. Stops when a round doesn't increase
+     * modularity, in which case the round is reverted.
+     * @return <code>true</code> if at least one node moved
+     */
+    private boolean moveNodesParallel(final LevelGraph graph, final int[] community, final double[] tot, ExecutorService pool) {
+        final int n = graph.nodeCount;
+        final int[] proposed = new int[n];
+        final int[] size = new int[n];
+        for (int i = 0; i < n; i++) {
+            size[community[i]]++;
         }
-        for (int i = 0; i < degrees.length; i++) {
-            internal[i] /= 2.0;
-            res += (internal[i] / hgraph.getTotalEdgeCount()) - Math.pow(degrees[i] / (2 * hgraph.getTotalEdgeCount()), 2);
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for (int t = 0; t < threadCount; t++) {
+            final int from = (int) ((long) n * t / threadCount);
+            final int to = (int) ((long) n * (t + 1) / threadCount);
+            tasks.add(new Callable<Object>() {
+
+                public Object call() {
+                    MoveEvaluator evaluator = new MoveEvaluator(n);
+                    for (int i = from; i < to && !isCanceled; i++) {
+                        int c = evaluator.bestCommunity(graph, i, community, tot);
+                        if (c != community[i] && size[community[i]] == 1 && size[c] == 1 && c > community[i]) {
+                            c = community[i];
+                        }
+                        proposed[i] = c;
+                    }
+                    return null;
+                }
+            });
         }
-        return res;
+
+        boolean someChange = false;
+        double q = graph.modularity(community, resolution);
+        int[] previous = new int[n];
+        while (!isCanceled) {
+            try {
+                for (Future<Object> future : pool.invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                isCanceled = true;
+                return false;
+            } catch (ExecutionException ex) {
+                throw new RuntimeException(ex.getCause());
+            }
+            System.arraycopy(community, 0, previous, 0, n);
+            int moves = 0;
+            for (int i = 0; i < n; i++) {
+                if (proposed[i] != community[i]) {
+                    moves++;
+                    move(graph, i, proposed[i], community, tot, size);
+                }
+            }
+            if (moves == 0) {
+                break;
+            }
+            double newQ = graph.modularity(community, resolution);
+            if (newQ <= q) {
+                for (int i = 0; i < n; i++) {
+                    if (previous[i] != community[i]) {
+                        move(graph, i, previous[i], community, tot, size);
+                    }
+                }
+                break;
+            }
+            q = newQ;
+            someChange = true;
+        }
+        return someChange;
+    }
+
+    private void move(LevelGraph graph, int node, int to, int[] community, double[] tot, int[] size) {
+        int from = community[node];
+        tot[from] -= graph.nodeWeights[node];
+        size[from]--;
+        tot[to] += graph.nodeWeights[node];
+        size[to]++;
+        community[node] = to;
     }
 
     public double getModularity() {
         return modularity;
     }
 
+    /**
+     * Returns the modularity of the last execution computed with the resolution
+     * parameter, equal to <code>getModularity()</code> when the resolution is
+     * <code>1.0</code>.
+     * @return the modularity with resolution
+     */
+    public double getModularityResolution() {
+        return modularityResolution;
+    }
+
     public String getReport() {
         //Distribution series
         Map<Integer, Integer> sizeDist = new HashMap<Integer, Integer>();
-        for(Node n : structure.graph.getNodes()) {
-            Integer v = (Integer) n.getNodeData().getAttributes().getValue(MODULARITY_CLASS);
-            if(!sizeDist.containsKey(v)) {
-                sizeDist.put(v, 0);
-            }
-            sizeDist.put(v, sizeDist.get(v) + 1);
+        for (int i = 0; i < communityCount; i++) {
+            sizeDist.put(i, communitySizes[i]);
         }
-        
+
         XYSeries dSeries = ChartUtils.createXYSeries(sizeDist, "Size Distribution");
 
         XYSeriesCollection dataset1 = new XYSeriesCollection();
@@ -529,9 +605,11 @@ public class Modularity implements Statistics, LongTask {
                 + "<hr>"
                 + "<h2> Parameters: </h2>"
                 + "Randomize:  " + (isRandomized ? "On" : "Off") + "<br>"
+                + "Resolution:  " + resolution + "<br>"
                 + "<br> <h2> Results: </h2>"
                 + "Modularity: " + f.format(modularity) + "<br>"
-                + "Number of Communities: " + structure.communities.size()
+                + (resolution != 1.0 ? "Modularity with resolution: " + f.format(modularityResolution) + "<br>" : "")
+                + "Number of Communities: " + communityCount
                 + "<br /><br />"+imageFile
                 + "<br /><br />" + "<h2> Algorithm: </h2>"
                 + "Vincent D Blondel, Jean-Loup Guillaume, Renaud Lambiotte, Etienne Lefebvre, <i>Fast unfolding of communities in large networks</i>, in Journal of Statistical Mechanics: Theory and Experiment 2008 (10), P1000<br />"
@@ -539,23 +617,4 @@ public class Modularity implements Statistics, LongTask {
 
         return report;
     }
-
-    private double q(int node, Community community) {
-
-        Integer edgesToInt = structure.nodeConnections[node].get(community);
-        double edgesTo = 0;
-        if (edgesToInt != null) {
-            edgesTo = edgesToInt.doubleValue();
-        }
-        double weightSum = community.weightSum;
-        double nodeWeight = structure.weights[node];
-        double qValue = edgesTo - (nodeWeight * weightSum) / (2.0 * structure.graphWeightSum);
-        if ((structure.nodeCommunities[node] == community) && (structure.nodeCommunities[node].size() > 1)) {
-            qValue = edgesTo - (nodeWeight * (weightSum - nodeWeight)) / (2.0 * structure.graphWeightSum);
-        }
-        if ((structure.nodeCommunities[node] == community) && (structure.nodeCommunities[node].size() == 1)) {
-            qValue = 0.;
-        }
-        return qValue;
-    }
 }
@@ -41,22 +41,25 @@ Portions Copyrighted 2011 Gephi Consortium.
  */
 package org.gephi.statistics.plugin;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.gephi.data.attributes.api.AttributeTable;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.AttributeOrigin;
 import org.gephi.data.attributes.api.AttributeRow;
 import org.gephi.data.attributes.api.AttributeType;
-import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.AdjacencySnapshot;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
-import org.gephi.graph.api.HierarchicalDirectedGraph;
 import org.gephi.graph.api.HierarchicalGraph;
-import org.gephi.graph.api.HierarchicalUndirectedGraph;
-import org.gephi.graph.api.Node;
 import org.gephi.statistics.spi.Statistics;
 import org.gephi.utils.longtask.spi.LongTask;
 import org.gephi.utils.progress.Progress;
@@ -80,12 +83,14 @@ public class PageRank implements Statistics, LongTask {
     /** */
     private ProgressTicket progress;
     /** */
-    private boolean isCanceled;
+    private volatile boolean isCanceled;
     /** */
     private double epsilon = 0.001;
     /** */
     private double probability = 0.85;
     private boolean useEdgeWeight = false;
+    private boolean warmStart = false;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
     /** */
     private double[] pageranks;
     /** */
@@ -123,122 +128,228 @@ public class PageRank implements Statistics, LongTask {
     public void execute(HierarchicalGraph hgraph, AttributeModel attributeModel) {
         isCanceled = false;
 
-        hgraph.readLock();
+        AttributeTable nodeTable = attributeModel.getNodeTable();
+        AttributeColumn pangeRanksCol = nodeTable.getColumn(PAGERANK);
 
-        int N = hgraph.getNodeCount();
-        pageranks = new double[N];
-        double[] temp = new double[N];
-        HashMap<Node, Integer> indicies = new HashMap<Node, Integer>();
-        int index = 0;
+        //The snapshot is immutable, no need to hold the read lock while computing
+        AdjacencySnapshot snapshot = hgraph.getAdjacencySnapshot();
+        final int N = snapshot.getNodeCount();
 
         Progress.start(progress);
-        double[] weights = null;
-        if (useEdgeWeight) {
-            weights = new double[N];
-        }
 
-        for (Node s : hgraph.getNodes()) {
-            indicies.put(s, index);
-            pageranks[index] = 1.0f / N;
+        //Transposed CSR: incoming arcs, with outgoing normalization of their source
+        int[] inOffsets = snapshot.getInOffsets();
+        int[] inSources = snapshot.getInSources();
+        float[] inWeights = snapshot.getInWeights();
+        boolean[] hasOut = new boolean[N];
+        double[] outNormalization = new double[N];
+        int[] outOffsets = snapshot.getOutOffsets();
+        float[] outWeights = snapshot.getOutWeights();
+        for (int i = 0; i < N; i++) {
+            int degree = outOffsets[i + 1] - outOffsets[i];
+            hasOut[i] = degree > 0;
             if (useEdgeWeight) {
                 double sum = 0;
-                EdgeIterable eIter;
-                if (isDirected) {
-                    eIter = ((HierarchicalDirectedGraph) hgraph).getOutEdgesAndMetaOutEdges(s);
-                } else {
-                    eIter = ((HierarchicalUndirectedGraph) hgraph).getEdgesAndMetaEdges(s);
+                for (int e = outOffsets[i]; e < outOffsets[i + 1]; e++) {
+                    sum += outWeights[e];
                 }
-                for (Edge edge : eIter) {
-                    sum += edge.getWeight();
+                outNormalization[i] = sum;
+            } else {
+                outNormalization[i] = degree;
+                if (!snapshot.isDirected()) {
+                    //Self-loops count twice in the undirected degree
+                    int[] outTargets = snapshot.getOutTargets();
+                    for (int e = outOffsets[i]; e < outOffsets[i + 1]; e++) {
+                        if (outTargets[e] == i) {
+                            outNormalization[i]++;
+                        }
+                    }
                 }
-                weights[index] = sum;
             }
-            index++;
         }
 
-        while (true) {
-            double r = 0;
-            for (Node s : hgraph.getNodes()) {
-                int s_index = indicies.get(s);
-                boolean out;
-                if (isDirected) {
-                    out = ((HierarchicalDirectedGraph) hgraph).getTotalOutDegree(s) > 0;
-                } else {
-                    out = hgraph.getTotalDegree(s) > 0;
-                }
+        //Initial values
+        pageranks = new double[N];
+        boolean warm = false;
+        if (warmStart && pangeRanksCol != null) {
+            double sum = 0;
+            for (int i = 0; i < N; i++) {
+                Object value = ((AttributeRow) snapshot.getNode(i).getNodeData().getAttributes()).getValue(pangeRanksCol);
+                double pr = value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+                pageranks[i] = pr > 0 ? pr : 1.0 / N;
+                sum += pageranks[i];
+            }
+            for (int i = 0; i < N; i++) {
+                pageranks[i] /= sum;
+            }
+            warm = true;
+        }
+        if (!warm) {
+            for (int i = 0; i < N; i++) {
+                pageranks[i] = 1.0f / N;
+            }
+        }
 
-                if (out) {
-                    r += (1.0 - probability) * (pageranks[s_index] / N);
-                } else {
-                    r += (pageranks[s_index] / N);
+        int threads = Math.max(1, Math.min(threadCount, N));
+        PageRankChunk[] chunks = new PageRankChunk[threads];
+        for (int i = 0; i < threads; i++) {
+            int from = (int) ((long) N * i / threads);
+            int to = (int) ((long) N * (i + 1) / threads);
+            chunks[i] = new PageRankChunk(from, to, inOffsets, inSources, inWeights, hasOut, outNormalization, N);
+        }
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        double[] temp = new double[N];
+        double[] contribution = new double[N];
+        try {
+            while (true) {
+                //Teleportation and dangling nodes, and contribution of each node to its neighbours
+                for (PageRankChunk chunk : chunks) {
+                    chunk.setPhase(pageranks, temp, contribution, 0.0, true);
+                }
+                run(pool, chunks);
+                double r = 0;
+                for (PageRankChunk chunk : chunks) {
+                    r += chunk.r;
                 }
                 if (isCanceled) {
-                    hgraph.readUnlockAll();
                     return;
                 }
-            }
-
-            boolean done = true;
-            for (Node s : hgraph.getNodes()) {
-                int s_index = indicies.get(s);
-                temp[s_index] = r;
-
-                EdgeIterable eIter;
-                if (isDirected) {
-                    eIter = ((HierarchicalDirectedGraph) hgraph).getInEdgesAndMetaInEdges(s);
-                } else {
-                    eIter = ((HierarchicalUndirectedGraph) hgraph).getEdgesAndMetaEdges(s);
-                }
-
-                for (Edge edge : eIter) {
-                    Node neighbor = hgraph.getOpposite(s, edge);
-                    int neigh_index = indicies.get(neighbor);
-                    int normalize;
-                    if (isDirected) {
-                        normalize = ((HierarchicalDirectedGraph) hgraph).getTotalOutDegree(neighbor);
-                    } else {
-                        normalize = ((HierarchicalUndirectedGraph) hgraph).getTotalDegree(neighbor);
-                    }
-                    if (useEdgeWeight) {
-                        double weight = edge.getWeight() / weights[neigh_index];
-                        temp[s_index] += probability * pageranks[neigh_index] * weight;
-                    } else {
-                        temp[s_index] += probability * (pageranks[neigh_index] / normalize);
-                    }
 
+                for (PageRankChunk chunk : chunks) {
+                    chunk.setPhase(pageranks, temp, contribution, r, false);
                 }
-
-                if ((temp[s_index] - pageranks[s_index]) / pageranks[s_index] >= epsilon) {
-                    done = false;
+                run(pool, chunks);
+                boolean done = true;
+                for (PageRankChunk chunk : chunks) {
+                    done &= chunk.done;
                 }
 
-                if (isCanceled) {
-                    hgraph.readUnlockAll();
-                    return;
+                double[] swap = pageranks;
+                pageranks = temp;
+                temp = swap;
+                if ((done) || (isCanceled)) {
+                    break;
                 }
-
             }
-            pageranks = temp;
-            temp = new double[N];
-            if ((done) || (isCanceled)) {
-                break;
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
             }
-
+        }
+        if (isCanceled) {
+            return;
         }
 
-        AttributeTable nodeTable = attributeModel.getNodeTable();
-        AttributeColumn pangeRanksCol = nodeTable.getColumn(PAGERANK);
         if (pangeRanksCol == null) {
             pangeRanksCol = nodeTable.addColumn(PAGERANK, "PageRank", AttributeType.DOUBLE, AttributeOrigin.COMPUTED, new Double(0));
         }
 
-        for (Node s : hgraph.getNodes()) {
-            int s_index = indicies.get(s);
-            AttributeRow row = (AttributeRow) s.getNodeData().getAttributes();
+        for (int s_index = 0; s_index < N; s_index++) {
+            AttributeRow row = (AttributeRow) snapshot.getNode(s_index).getNodeData().getAttributes();
             row.setValue(pangeRanksCol, pageranks[s_index]);
         }
+    }
 
-        hgraph.readUnlockAll();
+    private void run(ExecutorService pool, PageRankChunk[] chunks) {
+        if (pool == null) {
+            for (PageRankChunk chunk : chunks) {
+                chunk.call();
+            }
+            return;
+        }
+        try {
+            List<Future<Object>> futures = pool.invokeAll(Arrays.asList(chunks));
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            isCanceled = true;
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    /**
+     * Power iteration on a contiguous range of node indices. Each iteration runs
+     * in two phases, first the teleportation sum and the contribution of each node
+     * to its neighbours, then the new value of each node from its incoming arcs.
+     */
+    private class PageRankChunk implements Callable<Object> {
+
+        private final int from;
+        private final int to;
+        private final int[] inOffsets;
+        private final int[] inSources;
+        private final float[] inWeights;
+        private final boolean[] hasOut;
+        private final double[] outNormalization;
+        private final int N;
+        //Phase
+        private double[] pageranks;
+        private double[] temp;
+        private double[] contribution;
+        private boolean firstPhase;
+        //Results
+        private double r;
+        private boolean done;
+
+        public PageRankChunk(int from, int to, int[] inOffsets, int[] inSources, float[] inWeights, boolean[] hasOut, double[] outNormalization, int N) {
+            this.from = from;
+            this.to = to;
+            this.inOffsets = inOffsets;
+            this.inSources = inSources;
+            this.inWeights = inWeights;
+            this.hasOut = hasOut;
+            this.outNormalization = outNormalization;
+            this.N = N;
+        }
+
+        public void setPhase(double[] pageranks, double[] temp, double[] contribution, double r, boolean firstPhase) {
+            this.pageranks = pageranks;
+            this.temp = temp;
+            this.contribution = contribution;
+            this.r = r;
+            this.firstPhase = firstPhase;
+        }
+
+        public Object call() {
+            if (firstPhase) {
+                double sum = 0;
+                for (int s_index = from; s_index < to; s_index++) {
+                    if (hasOut[s_index]) {
+                        sum += (1.0 - probability) * (pageranks[s_index] / N);
+                        contribution[s_index] = pageranks[s_index] / outNormalization[s_index];
+                    } else {
+                        sum += (pageranks[s_index] / N);
+                        contribution[s_index] = 0;
+                    }
+                }
+                r = sum;
+            } else {
+                done = true;
+                for (int s_index = from; s_index < to; s_index++) {
+                    double sum = 0;
+                    if (useEdgeWeight) {
+                        for (int e = inOffsets[s_index]; e < inOffsets[s_index + 1]; e++) {
+                            sum += contribution[inSources[e]] * inWeights[e];
+                        }
+                    } else {
+                        for (int e = inOffsets[s_index]; e < inOffsets[s_index + 1]; e++) {
+                            sum += contribution[inSources[e]];
+                        }
+                    }
+                    temp[s_index] = r + probability * sum;
+
+                    if ((temp[s_index] - pageranks[s_index]) / pageranks[s_index] >= epsilon) {
+                        done = false;
+                    }
+                    if (isCanceled) {
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
     }
 
     /**
@@ -349,4 +460,35 @@ public class PageRank implements Statistics, LongTask {
     public void setUseEdgeWeight(boolean useEdgeWeight) {
         this.useEdgeWeight = useEdgeWeight;
     }
+
+    /**
+     * Sets whether iterations start from the values of the existing PageRank
+     * column, instead of a uniform distribution. When the graph changed only a
+     * little since the last execution this converges in fewer iterations. Nodes
+     * without previous value start at <code>1/N</code>.
+     * @param warmStart <code>true</code> to start from the previous values
+     */
+    public void setWarmStart(boolean warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    public boolean isWarmStart() {
+        return warmStart;
+    }
+
+    /**
+     * Sets the number of threads iterations are split on. Default is the number
+     * of available processors.
+     * @param threadCount the number of threads, <code>1</code> for a serial computation
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
 }
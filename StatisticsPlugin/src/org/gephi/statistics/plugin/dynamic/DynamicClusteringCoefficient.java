@@ -43,8 +43,12 @@ package org.gephi.statistics.plugin.dynamic;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.AttributeOrigin;
@@ -54,6 +58,7 @@ import org.gephi.data.attributes.type.DynamicDouble;
 import org.gephi.data.attributes.type.Interval;
 import org.gephi.dynamic.api.DynamicController;
 import org.gephi.dynamic.api.DynamicModel;
+import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphView;
@@ -61,7 +66,8 @@ import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
 import org.gephi.statistics.plugin.ChartUtils;
 import org.gephi.statistics.plugin.ClusteringCoefficient;
-import org.gephi.statistics.spi.DynamicStatistics;
+import org.gephi.statistics.spi.ConcurrentDynamicStatistics;
+import org.gephi.statistics.spi.IncrementalDynamicStatistics;
 import org.gephi.utils.longtask.spi.LongTask;
 import org.gephi.utils.progress.ProgressTicket;
 import org.jfree.chart.ChartFactory;
@@ -75,7 +81,7 @@ import org.openide.util.Lookup;
  *
  * @author Mathieu Bastian
  */
-public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask {
+public class DynamicClusteringCoefficient implements IncrementalDynamicStatistics, ConcurrentDynamicStatistics<DynamicClusteringCoefficient.WindowCoefficients>, LongTask {
 
     public static final String DYNAMIC_CLUSTERING_COEFFICIENT = "dynamic_clustering";
     //Data
@@ -87,12 +93,16 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
     private boolean isDirected;
     private boolean averageOnly;
     private boolean cancel = false;
+    private int threads = 1;
     private ClusteringCoefficient clusteringCoefficientStat;
+    private TriangleCounter triangleCounter;
     //Cols
     private AttributeColumn dynamicCoefficientColumn;
     //Result
     //private List<Interval<Double>> averages;
     private Map<Double, Double> coefficientTs;
+    //Values of merged windows, set at the end
+    private Map<Node, List<Interval<Double>>> mergedCoefficients;
 
     public DynamicClusteringCoefficient() {
         GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
@@ -105,6 +115,7 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
         this.graphModel = graphModel;
         //this.averages = new ArrayList<Interval<Double>>();
         this.coefficientTs = new HashMap<Double, Double>();
+        this.mergedCoefficients = new HashMap<Node, List<Interval<Double>>>();
         this.isDirected = graphModel.isDirected();
         this.dynamicModel = Lookup.getDefault().lookup(DynamicController.class).getModel(graphModel.getWorkspace());
         this.clusteringCoefficientStat = new ClusteringCoefficient();
@@ -169,6 +180,17 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
 
         graph.readLock();
 
+        //Triangles are counted incrementally on simple undirected graphs
+        triangleCounter = null;
+        if (graphModel.isUndirected() && !graphModel.isHierarchical()) {
+            triangleCounter = TriangleCounter.build(graph);
+        }
+        if (triangleCounter != null) {
+            writeResults(graph, interval);
+            graph.readUnlockAll();
+            return;
+        }
+
         clusteringCoefficientStat.triangles(graph);
 
         //Columns
@@ -177,14 +199,7 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
             int i = 0;
             for (Node n : graph.getNodes()) {
                 double coef = coefficients[i++];
-                Interval<Double> valInterval = new Interval<Double>(interval, coef);
-                DynamicDouble val = (DynamicDouble) n.getAttributes().getValue(dynamicCoefficientColumn.getIndex());
-                if (val == null) {
-                    val = new DynamicDouble(valInterval);
-                } else {
-                    val = new DynamicDouble(val, valInterval);
-                }
-                n.getAttributes().setValue(dynamicCoefficientColumn.getIndex(), val);
+                setCoefficient(n, interval, coef);
                 if (cancel) {
                     break;
                 }
@@ -198,8 +213,144 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
         coefficientTs.put(interval.getHigh(), avg);
     }
 
+    public boolean update(GraphView window, Interval interval, Node[] addedNodes, Node[] removedNodes, Edge[] addedEdges, Edge[] removedEdges) {
+        if (triangleCounter == null) {
+            return false;
+        }
+        for (Edge e : addedEdges) {
+            if (e.isSelfLoop()) {
+                triangleCounter = null;
+                return false;
+            }
+        }
+
+        for (Edge e : removedEdges) {
+            triangleCounter.removeEdge(e.getSource().getId(), e.getTarget().getId());
+        }
+        for (Node n : removedNodes) {
+            triangleCounter.removeNode(n.getId());
+        }
+        for (Node n : addedNodes) {
+            triangleCounter.addNode(n.getId());
+        }
+        for (Edge e : addedEdges) {
+            triangleCounter.addEdge(e.getSource().getId(), e.getTarget().getId());
+        }
+
+        HierarchicalGraph graph = graphModel.getHierarchicalUndirectedGraph(window);
+        graph.readLock();
+        writeResults(graph, interval);
+        graph.readUnlockAll();
+        return true;
+    }
+
+    private void writeResults(HierarchicalGraph graph, Interval interval) {
+        if (!averageOnly) {
+            for (Node n : graph.getNodes()) {
+                setCoefficient(n, interval, triangleCounter.getCoefficient(n.getId()));
+                if (cancel) {
+                    break;
+                }
+            }
+        }
+        coefficientTs.put(interval.getHigh(), triangleCounter.getAverage());
+    }
+
+    public WindowCoefficients compute(GraphView window, Interval interval) {
+        HierarchicalGraph graph = null;
+        if (isDirected) {
+            graph = graphModel.getHierarchicalDirectedGraph(window);
+        } else {
+            graph = graphModel.getHierarchicalUndirectedGraph(window);
+        }
+
+        //Copy what is needed and release the lock, the next windows are copied meanwhile
+        WindowCoefficients result = new WindowCoefficients();
+        TriangleCounter counter = null;
+        if (graphModel.isUndirected() && !graphModel.isHierarchical()) {
+            graph.readLock();
+            result.nodes = graph.getNodes().toArray();
+            Edge[] edges = graph.getEdges().toArray();
+            graph.readUnlock();
+
+            int[] nodeIds = new int[result.nodes.length];
+            for (int i = 0; i < nodeIds.length; i++) {
+                nodeIds[i] = result.nodes[i].getId();
+            }
+            int[] sources = new int[edges.length];
+            int[] targets = new int[edges.length];
+            for (int i = 0; i < edges.length; i++) {
+                sources[i] = edges[i].getSource().getId();
+                targets[i] = edges[i].getTarget().getId();
+            }
+            counter = TriangleCounter.build(nodeIds, sources, targets);
+        }
+        if (counter != null) {
+            result.average = counter.getAverage();
+            if (!averageOnly) {
+                result.coefficients = new double[result.nodes.length];
+                for (int i = 0; i < result.nodes.length; i++) {
+                    result.coefficients[i] = counter.getCoefficient(result.nodes[i].getId());
+                }
+            }
+        } else {
+            graph.readLock();
+            result.nodes = graph.getNodes().toArray();
+            graph.readUnlock();
+
+            //triangles() only holds the lock while the network is copied
+            ClusteringCoefficient clusteringCoefficient = new ClusteringCoefficient();
+            clusteringCoefficient.setDirected(isDirected);
+            clusteringCoefficient.triangles(graph);
+            result.average = clusteringCoefficient.getAverageClusteringCoefficient();
+            if (!averageOnly) {
+                result.coefficients = clusteringCoefficient.getCoefficientReuslts();
+            }
+        }
+        return result;
+    }
+
+    public void merge(WindowCoefficients result, Interval interval) {
+        if (result.coefficients != null) {
+            for (int i = 0; i < result.nodes.length; i++) {
+                Node node = result.nodes[i].getNodeData().getRootNode();
+                List<Interval<Double>> values = mergedCoefficients.get(node);
+                if (values == null) {
+                    values = new ArrayList<Interval<Double>>();
+                    mergedCoefficients.put(node, values);
+                }
+                values.add(new Interval<Double>(interval, result.coefficients[i]));
+            }
+        }
+        coefficientTs.put(interval.getHigh(), result.average);
+    }
+
+    private void setCoefficient(Node n, Interval interval, double coef) {
+        Interval<Double> valInterval = new Interval<Double>(interval, coef);
+        DynamicDouble val = (DynamicDouble) n.getAttributes().getValue(dynamicCoefficientColumn.getIndex());
+        if (val == null) {
+            val = new DynamicDouble(valInterval);
+        } else {
+            val = new DynamicDouble(val, valInterval);
+        }
+        n.getAttributes().setValue(dynamicCoefficientColumn.getIndex(), val);
+    }
+
     public void end() {
+        //Merged windows values
+        for (Map.Entry<Node, List<Interval<Double>>> entry : mergedCoefficients.entrySet()) {
+            Node n = entry.getKey();
+            DynamicDouble val = (DynamicDouble) n.getAttributes().getValue(dynamicCoefficientColumn.getIndex());
+            if (val == null) {
+                val = new DynamicDouble(entry.getValue());
+            } else {
+                val = new DynamicDouble(val, entry.getValue());
+            }
+            n.getAttributes().setValue(dynamicCoefficientColumn.getIndex(), val);
+        }
+        mergedCoefficients = null;
         clusteringCoefficientStat = null;
+        triangleCounter = null;
     }
 
     public void setBounds(Interval bounds) {
@@ -242,6 +393,18 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
         return averageOnly;
     }
 
+    Map<Double, Double> getTimeSeries() {
+        return coefficientTs;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
     public boolean cancel() {
         cancel = true;
         return true;
@@ -249,4 +412,172 @@ public class DynamicClusteringCoefficient implements DynamicStatistics, LongTask
 
     public void setProgressTicket(ProgressTicket progressTicket) {
     }
+
+    /**
+     * Results of a window evaluated by <code>compute()</code>.
+     */
+    static class WindowCoefficients {
+
+        private Node[] nodes;
+        private double[] coefficients;
+        private double average;
+    }
+
+    /**
+     * Triangles and clustering coefficients of a simple undirected graph,
+     * updated edge by edge. Adding or removing the edge (u, v) only changes the
+     * triangles of u, v and their common neighbours.
+     */
+    private static class TriangleCounter {
+
+        private final Map<Integer, Map<Integer, Integer>> adjacency = new HashMap<Integer, Map<Integer, Integer>>();
+        private final Map<Integer, Integer> triangles = new HashMap<Integer, Integer>();
+        private double coefficientSum;
+        private int updates;
+        private long triangleCount;
+
+        public static TriangleCounter build(HierarchicalGraph graph) {
+            TriangleCounter counter = new TriangleCounter();
+            for (Node n : graph.getNodes()) {
+                counter.addNode(n.getId());
+            }
+            for (Edge e : graph.getEdges()) {
+                if (e.isSelfLoop()) {
+                    return null;
+                }
+                counter.addEdge(e.getSource().getId(), e.getTarget().getId());
+            }
+            counter.sumCoefficients();
+            return counter;
+        }
+
+        public static TriangleCounter build(int[] nodes, int[] sources, int[] targets) {
+            TriangleCounter counter = new TriangleCounter();
+            for (int i = 0; i < nodes.length; i++) {
+                counter.addNode(nodes[i]);
+            }
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i] == targets[i]) {
+                    return null;
+                }
+                counter.addEdge(sources[i], targets[i]);
+            }
+            counter.sumCoefficients();
+            return counter;
+        }
+
+        private void sumCoefficients() {
+            coefficientSum = 0;
+            for (Integer id : adjacency.keySet()) {
+                coefficientSum += getCoefficient(id);
+            }
+            updates = 0;
+        }
+
+        public void addNode(int id) {
+            if (!adjacency.containsKey(id)) {
+                adjacency.put(id, new HashMap<Integer, Integer>());
+                triangles.put(id, 0);
+            }
+        }
+
+        public void removeNode(int id) {
+            Map<Integer, Integer> neighbours = adjacency.get(id);
+            if (neighbours != null) {
+                for (Integer neighbour : neighbours.keySet().toArray(new Integer[0])) {
+                    while (adjacency.get(id).containsKey(neighbour)) {
+                        removeEdge(id, neighbour);
+                    }
+                }
+                coefficientSum -= getCoefficient(id);
+                adjacency.remove(id);
+                triangles.remove(id);
+            }
+        }
+
+        public void addEdge(int u, int v) {
+            addNode(u);
+            addNode(v);
+            Integer count = adjacency.get(u).get(v);
+            if (count != null) {
+                adjacency.get(u).put(v, count + 1);
+                adjacency.get(v).put(u, count + 1);
+            } else {
+                link(u, v, 1);
+            }
+        }
+
+        public void removeEdge(int u, int v) {
+            Map<Integer, Integer> neighbours = adjacency.get(u);
+            Integer count = neighbours != null ? neighbours.get(v) : null;
+            if (count == null) {
+                return;
+            }
+            if (count > 1) {
+                adjacency.get(u).put(v, count - 1);
+                adjacency.get(v).put(u, count - 1);
+            } else {
+                link(u, v, -1);
+            }
+        }
+
+        private void link(int u, int v, int delta) {
+            Map<Integer, Integer> neighboursU = adjacency.get(u);
+            Map<Integer, Integer> neighboursV = adjacency.get(v);
+
+            //Common neighbours close a triangle with (u, v)
+            Set<Integer> touched = new HashSet<Integer>();
+            Map<Integer, Integer> smallest = neighboursU.size() < neighboursV.size() ? neighboursU : neighboursV;
+            Map<Integer, Integer> largest = smallest == neighboursU ? neighboursV : neighboursU;
+            for (Integer w : smallest.keySet()) {
+                if (largest.containsKey(w)) {
+                    touched.add(w);
+                }
+            }
+            int common = touched.size();
+            triangleCount += delta * common;
+            updates++;
+            touched.add(u);
+            touched.add(v);
+
+            for (Integer w : touched) {
+                coefficientSum -= getCoefficient(w);
+            }
+            if (delta > 0) {
+                neighboursU.put(v, 1);
+                neighboursV.put(u, 1);
+            } else {
+                neighboursU.remove(v);
+                neighboursV.remove(u);
+            }
+            for (Integer w : touched) {
+                if (w == u || w == v) {
+                    triangles.put(w, triangles.get(w) + delta * common);
+                } else {
+                    triangles.put(w, triangles.get(w) + delta);
+                }
+                coefficientSum += getCoefficient(w);
+            }
+        }
+
+        public double getCoefficient(int id) {
+            Map<Integer, Integer> neighbours = adjacency.get(id);
+            if (neighbours == null || neighbours.size() < 2) {
+                return 0.0;
+            }
+            int k = neighbours.size();
+            return 2.0 * triangles.get(id) / (k * (double) (k - 1));
+        }
+
+        public double getAverage() {
+            if (triangleCount == 0) {
+                return 0.0;
+            }
+            if (updates > adjacency.size()) {
+                //Sum again now and then so rounding errors don't accumulate
+                sumCoefficients();
+            }
+            return adjacency.isEmpty() ? 0.0 : coefficientSum / adjacency.size();
+        }
+    }
 }
@@ -43,8 +43,12 @@ package org.gephi.statistics.plugin.dynamic;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.gephi.data.attributes.api.AttributeColumn;
 import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.api.AttributeOrigin;
@@ -54,6 +58,7 @@ import org.gephi.data.attributes.type.DynamicInteger;
 import org.gephi.data.attributes.type.Interval;
 import org.gephi.dynamic.api.DynamicController;
 import org.gephi.dynamic.api.DynamicModel;
+import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.GraphController;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphView;
@@ -61,7 +66,8 @@ import org.gephi.graph.api.HierarchicalDirectedGraph;
 import org.gephi.graph.api.HierarchicalGraph;
 import org.gephi.graph.api.Node;
 import org.gephi.statistics.plugin.ChartUtils;
-import org.gephi.statistics.spi.DynamicStatistics;
+import org.gephi.statistics.spi.ConcurrentDynamicStatistics;
+import org.gephi.statistics.spi.IncrementalDynamicStatistics;
 import org.gephi.utils.longtask.spi.LongTask;
 import org.gephi.utils.progress.ProgressTicket;
 import org.jfree.chart.ChartFactory;
@@ -75,7 +81,7 @@ import org.openide.util.Lookup;
  *
  * @author Mathieu Bastian
  */
-public class DynamicDegree implements DynamicStatistics, LongTask {
+public class DynamicDegree implements IncrementalDynamicStatistics, ConcurrentDynamicStatistics<DynamicDegree.WindowDegrees>, LongTask {
 
     public static final String DYNAMIC_INDEGREE = "dynamic_indegree";
     public static final String DYNAMIC_OUTDEGREE = "dynamic_outdegree";
@@ -89,6 +95,7 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
     private boolean isDirected;
     private boolean averageOnly;
     private boolean cancel = false;
+    private int threads = 1;
     //Cols
     private AttributeColumn dynamicInDegreeColumn;
     private AttributeColumn dynamicOutDegreeColumn;
@@ -96,6 +103,13 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
     //Result
     //private List<Interval<Double>> averages;
     private Map<Double, Double> degreeTs;
+    //Values of merged windows, set at the end
+    private Map<Node, List<Interval<Integer>>> mergedDegrees;
+    private Map<Node, List<Interval<Integer>>> mergedInDegrees;
+    private Map<Node, List<Interval<Integer>>> mergedOutDegrees;
+    //Incremental
+    private Map<Integer, Integer> degrees;
+    private long degreeSum;
 
     public DynamicDegree() {
         GraphController graphController = Lookup.getDefault().lookup(GraphController.class);
@@ -108,6 +122,9 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
         this.graphModel = graphModel;
         //this.averages = new ArrayList<Interval<Double>>();
         this.degreeTs = new HashMap<Double, Double>();
+        this.mergedDegrees = new HashMap<Node, List<Interval<Integer>>>();
+        this.mergedInDegrees = new HashMap<Node, List<Interval<Integer>>>();
+        this.mergedOutDegrees = new HashMap<Node, List<Interval<Integer>>>();
         this.isDirected = graphModel.isDirected();
         this.dynamicModel = Lookup.getDefault().lookup(DynamicController.class).getModel(graphModel.getWorkspace());
 
@@ -178,8 +195,12 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
         }
 
         long sum = 0;
+        degrees = averageOnly ? new HashMap<Integer, Integer>() : null;
         for (Node n : graph.getNodes().toArray()) {
             int degree = graph.getTotalDegree(n);
+            if (averageOnly) {
+                degrees.put(n.getId(), degree);
+            }
 
             if (!averageOnly) {
                 Interval<Integer> degreeInInterval = new Interval<Integer>(interval, degree);
@@ -222,9 +243,137 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
         double average = sum / (double) graph.getNodeCount();
         //averages.add(new Interval<Double>(interval, average));
         degreeTs.put(interval.getHigh(), average);
+        degreeSum = sum;
+    }
+
+    public boolean update(GraphView window, Interval interval, Node[] addedNodes, Node[] removedNodes, Edge[] addedEdges, Edge[] removedEdges) {
+        if (!averageOnly || degrees == null || graphModel.isHierarchical()) {
+            //Every node gets a new value in the window, or the deltas don't match the visible hierarchy
+            return false;
+        }
+        HierarchicalGraph graph = graphModel.getHierarchicalGraph(window);
+
+        //Nodes whose degree may have changed
+        Set<Integer> touchedNodes = new HashSet<Integer>();
+        for (Node n : removedNodes) {
+            touchedNodes.add(n.getId());
+        }
+        for (Node n : addedNodes) {
+            touchedNodes.add(n.getId());
+        }
+        for (Edge e : removedEdges) {
+            touchedNodes.add(e.getSource().getId());
+            touchedNodes.add(e.getTarget().getId());
+        }
+        for (Edge e : addedEdges) {
+            touchedNodes.add(e.getSource().getId());
+            touchedNodes.add(e.getTarget().getId());
+        }
+
+        for (Integer id : touchedNodes) {
+            Integer oldDegree = degrees.remove(id);
+            if (oldDegree != null) {
+                degreeSum -= oldDegree;
+            }
+            Node n = graph.getNode(id);
+            if (n != null && graph.contains(n)) {
+                int degree = graph.getTotalDegree(n);
+                degrees.put(id, degree);
+                degreeSum += degree;
+            }
+        }
+
+        double average = degreeSum / (double) graph.getNodeCount();
+        degreeTs.put(interval.getHigh(), average);
+        return true;
+    }
+
+    public WindowDegrees compute(GraphView window, Interval interval) {
+        HierarchicalGraph graph = graphModel.getHierarchicalGraph(window);
+        HierarchicalDirectedGraph directedGraph = null;
+        if (isDirected) {
+            directedGraph = graphModel.getHierarchicalDirectedGraph(window);
+        }
+
+        //Only the degrees are read under the lock, the next windows are copied meanwhile
+        graph.readLock();
+
+        WindowDegrees result = new WindowDegrees();
+        result.nodes = graph.getNodes().toArray();
+        if (!averageOnly) {
+            result.degrees = new int[result.nodes.length];
+            if (isDirected) {
+                result.inDegrees = new int[result.nodes.length];
+                result.outDegrees = new int[result.nodes.length];
+            }
+        }
+        long sum = 0;
+        for (int i = 0; i < result.nodes.length; i++) {
+            Node n = result.nodes[i];
+            int degree = graph.getTotalDegree(n);
+            if (!averageOnly) {
+                result.degrees[i] = degree;
+                if (isDirected) {
+                    result.inDegrees[i] = directedGraph.getTotalInDegree(n);
+                    result.outDegrees[i] = directedGraph.getTotalOutDegree(n);
+                }
+            }
+            sum += degree;
+        }
+        graph.readUnlock();
+
+        result.average = sum / (double) result.nodes.length;
+        return result;
+    }
+
+    public void merge(WindowDegrees result, Interval interval) {
+        if (result.degrees != null) {
+            for (int i = 0; i < result.nodes.length; i++) {
+                Node node = result.nodes[i].getNodeData().getRootNode();
+                mergeValue(mergedDegrees, node, interval, result.degrees[i]);
+                if (result.inDegrees != null) {
+                    mergeValue(mergedInDegrees, node, interval, result.inDegrees[i]);
+                    mergeValue(mergedOutDegrees, node, interval, result.outDegrees[i]);
+                }
+            }
+        }
+        degreeTs.put(interval.getHigh(), result.average);
+    }
+
+    private void mergeValue(Map<Node, List<Interval<Integer>>> merged, Node node, Interval interval, int value) {
+        List<Interval<Integer>> values = merged.get(node);
+        if (values == null) {
+            values = new ArrayList<Interval<Integer>>();
+            merged.put(node, values);
+        }
+        values.add(new Interval<Integer>(interval, value));
     }
 
     public void end() {
+        //Merged windows values
+        if (!averageOnly) {
+            setMergedValues(mergedDegrees, dynamicDegreeColumn);
+            if (isDirected) {
+                setMergedValues(mergedInDegrees, dynamicInDegreeColumn);
+                setMergedValues(mergedOutDegrees, dynamicOutDegreeColumn);
+            }
+        }
+        mergedDegrees = null;
+        mergedInDegrees = null;
+        mergedOutDegrees = null;
+    }
+
+    private void setMergedValues(Map<Node, List<Interval<Integer>>> merged, AttributeColumn column) {
+        for (Map.Entry<Node, List<Interval<Integer>>> entry : merged.entrySet()) {
+            Node n = entry.getKey();
+            DynamicInteger val = (DynamicInteger) n.getAttributes().getValue(column.getIndex());
+            if (val == null) {
+                val = new DynamicInteger(entry.getValue());
+            } else {
+                val = new DynamicInteger(val, entry.getValue());
+            }
+            n.getAttributes().setValue(column.getIndex(), val);
+        }
     }
 
     public void setBounds(Interval bounds) {
@@ -251,6 +400,10 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
         return bounds;
     }
 
+    Map<Double, Double> getTimeSeries() {
+        return degreeTs;
+    }
+
     public void setDirected(boolean isDirected) {
         this.isDirected = isDirected;
     }
@@ -267,6 +420,14 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
         return averageOnly;
     }
 
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
     public boolean cancel() {
         cancel = true;
         return true;
@@ -274,4 +435,16 @@ public class DynamicDegree implements DynamicStatistics, LongTask {
 
     public void setProgressTicket(ProgressTicket progressTicket) {
     }
+
+    /**
+     * Results of a window evaluated by <code>compute()</code>.
+     */
+    static class WindowDegrees {
+
+        private Node[] nodes;
+        private int[] degrees;
+        private int[] inDegrees;
+        private int[] outDegrees;
+        private double average;
+    }
 }
@@ -49,11 +49,13 @@ import org.gephi.data.attributes.api.AttributeModel;
 import org.gephi.data.attributes.type.Interval;
 import org.gephi.dynamic.api.DynamicController;
 import org.gephi.dynamic.api.DynamicModel;
+import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.HierarchicalGraph;
+import org.gephi.graph.api.Node;
 import org.gephi.statistics.plugin.ChartUtils;
-import org.gephi.statistics.spi.DynamicStatistics;
+import org.gephi.statistics.spi.IncrementalDynamicStatistics;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.PlotOrientation;
@@ -65,7 +67,7 @@ import org.openide.util.Lookup;
  *
  * @author Sébastien Heymann
  */
-public class DynamicNbEdges implements DynamicStatistics {
+public class DynamicNbEdges implements IncrementalDynamicStatistics {
 
     //Data
     private GraphModel graphModel;
@@ -76,6 +78,7 @@ public class DynamicNbEdges implements DynamicStatistics {
     //Result
     //private List<Interval<Integer>> counts;
     private Map<Double, Integer> countTs;
+    private int count;
 
     public void execute(GraphModel graphModel, AttributeModel model) {
         this.graphModel = graphModel;
@@ -126,11 +129,21 @@ public class DynamicNbEdges implements DynamicStatistics {
     public void loop(GraphView window, Interval interval) {
         HierarchicalGraph graph = graphModel.getHierarchicalGraph(window);
 
-        int count = graph.getEdgeCount();
+        count = graph.getEdgeCount();
         //counts.add(new Interval<Integer>(interval, count));
         countTs.put(interval.getHigh(), count);
     }
 
+    public boolean update(GraphView window, Interval interval, Node[] addedNodes, Node[] removedNodes, Edge[] addedEdges, Edge[] removedEdges) {
+        if (graphModel.isHierarchical()) {
+            //Deltas include nodes hidden by the hierarchy
+            return false;
+        }
+        count += addedEdges.length - removedEdges.length;
+        countTs.put(interval.getHigh(), count);
+        return true;
+    }
+
     public void end() {
     }
 
@@ -157,4 +170,8 @@ public class DynamicNbEdges implements DynamicStatistics {
     public Interval getBounds() {
         return bounds;
     }
+
+    Map<Double, Integer> getTimeSeries() {
+        return countTs;
+    }
 }
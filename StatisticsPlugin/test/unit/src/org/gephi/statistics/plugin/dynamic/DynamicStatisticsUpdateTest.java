@@ -0,0 +1,246 @@
+/*
+Copyright 2008-2010 Gephi
+Authors : agent <agent@local>
+Website : http://www.gephi.org
+
+This file is part of Gephi.
+
+DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+
+Copyright 2011 Gephi Consortium. All rights reserved.
+
+The contents of this file are subject to the terms of either the GNU
+General Public License Version 3 only ("GPL") or the Common
+Development and Distribution License("CDDL") (collectively, the
+"License"). You may not use this file except in compliance with the
+License. You can obtain a copy of the License at
+http://gephi.org/about/legal/license-notice/
+or /cddl-1.0.txt and /gpl-3.0.txt. See the License for the
+specific language governing permissions and limitations under the
+License.  When distributing the software, include this License Header
+Notice in each file and include the License files at
+/cddl-1.0.txt and /gpl-3.0.txt. If applicable, add the following below the
+License Header, with the fields enclosed by brackets [] replaced by
+your own identifying information:
+"Portions Copyrighted [year] [name of copyright owner]"
+
+If you wish your version of this file to be governed by only the CDDL
+or only the GPL Version 3, indicate your decision by adding
+"[Contributor] elects to include this software in this distribution
+under the [CDDL or GPL Version 3] license." If you do not indicate a
+single choice of license, a recipient has the option to distribute
+your version of this file under either the CDDL, the GPL Version 3 or
+to extend the choice of license to its licensees as provided above.
+However, if you add GPL Version 3 code and therefore, elected the GPL
+Version 3 license, then the option applies only if the new code is
+made subject to such option by the copyright holder.
+
+Contributor(s):
+
+Portions Copyrighted 2011 Gephi Consortium.
+*/
+package org.gephi.statistics.plugin.dynamic;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.data.attributes.api.AttributeController;
+import org.gephi.data.attributes.api.AttributeModel;
+import org.gephi.data.attributes.api.AttributeType;
+import org.gephi.data.attributes.type.Interval;
+import org.gephi.data.attributes.type.TimeInterval;
+import org.gephi.dynamic.api.DynamicController;
+import org.gephi.dynamic.api.DynamicGraph;
+import org.gephi.dynamic.api.DynamicModel;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphController;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
+import org.gephi.project.api.ProjectController;
+import org.gephi.statistics.api.StatisticsController;
+import org.gephi.statistics.spi.DynamicStatistics;
+import org.gephi.statistics.spi.IncrementalDynamicStatistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openide.util.Lookup;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that statistics updated from window deltas, or computed on several
+ * windows at once, give the same results as statistics recomputed with
+ * <code>loop()</code> on every window.
+ *
+ * @author agent
+ */
+public class DynamicStatisticsUpdateTest {
+
+    private static final double[][] NODES = {{0, 10}, {0, 4}, {2, 7}, {3, 10}, {5, 9}, {6, 10}};
+    private static final int[][] EDGES = {{0, 1}, {0, 2}, {1, 2}, {2, 3}, {3, 4}, {0, 4}, {4, 5}, {3, 5}};
+    private static final double[][] EDGE_INTERVALS = {{0, 3}, {2, 6}, {2, 4}, {3, 7}, {5, 9}, {6, 10}, {6, 8}, {7, 10}};
+    private static final Interval BOUNDS = new Interval(0, 10);
+    private static final double WINDOW = 2;
+    private static final double TICK = 1;
+    private GraphModel graphModel;
+    private AttributeModel attributeModel;
+    private DynamicModel dynamicModel;
+
+    @Before
+    public void setUp() {
+        ProjectController projectController = Lookup.getDefault().lookup(ProjectController.class);
+        projectController.newProject();
+        attributeModel = Lookup.getDefault().lookup(AttributeController.class).getModel();
+        graphModel = Lookup.getDefault().lookup(GraphController.class).getModel();
+        dynamicModel = Lookup.getDefault().lookup(DynamicController.class).getModel();
+
+        AttributeColumn nodeColumn = attributeModel.getNodeTable().addColumn(DynamicModel.TIMEINTERVAL_COLUMN, AttributeType.TIME_INTERVAL);
+        AttributeColumn edgeColumn = attributeModel.getEdgeTable().addColumn(DynamicModel.TIMEINTERVAL_COLUMN, AttributeType.TIME_INTERVAL);
+
+        UndirectedGraph graph = graphModel.getUndirectedGraph();
+        Node[] nodes = new Node[NODES.length];
+        for (int i = 0; i < NODES.length; i++) {
+            nodes[i] = graphModel.factory().newNode();
+            graph.addNode(nodes[i]);
+            nodes[i].getNodeData().getAttributes().setValue(nodeColumn.getIndex(), new TimeInterval(NODES[i][0], NODES[i][1]));
+        }
+        for (int i = 0; i < EDGES.length; i++) {
+            Edge edge = graphModel.factory().newEdge(nodes[EDGES[i][0]], nodes[EDGES[i][1]], 1f, false);
+            graph.addEdge(edge);
+            edge.getEdgeData().getAttributes().setValue(edgeColumn.getIndex(), new TimeInterval(EDGE_INTERVALS[i][0], EDGE_INTERVALS[i][1]));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        Lookup.getDefault().lookup(ProjectController.class).closeCurrentProject();
+        graphModel = null;
+        attributeModel = null;
+        dynamicModel = null;
+    }
+
+    @Test
+    public void testNbNodes() {
+        DynamicNbNodes looped = new DynamicNbNodes();
+        DynamicNbNodes updated = new DynamicNbNodes();
+        run(looped, false);
+        run(updated, true);
+        assertEquals(looped.getTimeSeries(), updated.getTimeSeries());
+    }
+
+    @Test
+    public void testNbEdges() {
+        DynamicNbEdges looped = new DynamicNbEdges();
+        DynamicNbEdges updated = new DynamicNbEdges();
+        run(looped, false);
+        run(updated, true);
+        assertEquals(looped.getTimeSeries(), updated.getTimeSeries());
+    }
+
+    @Test
+    public void testDegree() {
+        DynamicDegree looped = new DynamicDegree();
+        looped.setAverageOnly(true);
+        DynamicDegree updated = new DynamicDegree();
+        updated.setAverageOnly(true);
+        run(looped, false);
+        int updates = run(updated, true);
+        assertTrue(updates > 0);
+        assertEquals(looped.getTimeSeries().keySet(), updated.getTimeSeries().keySet());
+        for (Map.Entry<Double, Double> entry : looped.getTimeSeries().entrySet()) {
+            assertEquals(entry.getValue(), updated.getTimeSeries().get(entry.getKey()), 1e-9);
+        }
+    }
+
+    @Test
+    public void testHierarchicalGraphIsLooped() {
+        Graph graph = graphModel.getGraph();
+        Node[] nodes = graph.getNodes().toArray();
+        graphModel.getHierarchicalGraph().groupNodes(new Node[]{nodes[0], nodes[1]});
+        assertTrue(graphModel.isHierarchical());
+
+        assertEquals(0, run(new DynamicNbNodes(), true));
+        assertEquals(0, run(new DynamicNbEdges(), true));
+        DynamicDegree degree = new DynamicDegree();
+        degree.setAverageOnly(true);
+        assertEquals(0, run(degree, true));
+    }
+
+    @Test
+    public void testConcurrentDegree() {
+        DynamicDegree sequential = new DynamicDegree();
+        DynamicDegree concurrent = new DynamicDegree();
+        concurrent.setThreads(3);
+        Map<Integer, String> sequentialValues = execute(sequential, DynamicDegree.DYNAMIC_DEGREE);
+        Map<Integer, String> concurrentValues = execute(concurrent, DynamicDegree.DYNAMIC_DEGREE);
+        assertEquals(sequentialValues, concurrentValues);
+        assertEquals(sequential.getTimeSeries().keySet(), concurrent.getTimeSeries().keySet());
+        for (Map.Entry<Double, Double> entry : sequential.getTimeSeries().entrySet()) {
+            assertEquals(entry.getValue(), concurrent.getTimeSeries().get(entry.getKey()), 1e-9);
+        }
+    }
+
+    @Test
+    public void testConcurrentClusteringCoefficient() {
+        DynamicClusteringCoefficient sequential = new DynamicClusteringCoefficient();
+        DynamicClusteringCoefficient concurrent = new DynamicClusteringCoefficient();
+        concurrent.setThreads(3);
+        Map<Integer, String> sequentialValues = execute(sequential, DynamicClusteringCoefficient.DYNAMIC_CLUSTERING_COEFFICIENT);
+        Map<Integer, String> concurrentValues = execute(concurrent, DynamicClusteringCoefficient.DYNAMIC_CLUSTERING_COEFFICIENT);
+        assertEquals(sequentialValues, concurrentValues);
+        assertEquals(sequential.getTimeSeries().keySet(), concurrent.getTimeSeries().keySet());
+        for (Map.Entry<Double, Double> entry : sequential.getTimeSeries().entrySet()) {
+            assertEquals(entry.getValue(), concurrent.getTimeSeries().get(entry.getKey()), 1e-9);
+        }
+    }
+
+    /**
+     * Runs the statistics with the statistics controller and returns the node
+     * values of <code>column</code>, which are then cleared for the next run.
+     */
+    private Map<Integer, String> execute(DynamicStatistics statistics, String column) {
+        statistics.setBounds(BOUNDS);
+        statistics.setWindow(WINDOW);
+        statistics.setTick(TICK);
+        Lookup.getDefault().lookup(StatisticsController.class).execute(statistics);
+
+        AttributeColumn attributeColumn = attributeModel.getNodeTable().getColumn(column);
+        Map<Integer, String> values = new HashMap<Integer, String>();
+        for (Node node : graphModel.getGraph().getNodes().toArray()) {
+            Object value = node.getNodeData().getAttributes().getValue(attributeColumn.getIndex());
+            values.put(node.getId(), value != null ? value.toString() : null);
+            node.getNodeData().getAttributes().setValue(attributeColumn.getIndex(), null);
+        }
+        return values;
+    }
+
+    /**
+     * Slides the window over the bounds the way the statistics controller
+     * does and returns how many windows were handled by <code>update()</code>.
+     */
+    private int run(IncrementalDynamicStatistics statistics, boolean incremental) {
+        statistics.setBounds(BOUNDS);
+        statistics.setWindow(WINDOW);
+        statistics.setTick(TICK);
+        statistics.execute(graphModel, attributeModel);
+
+        DynamicGraph dynamicGraph = dynamicModel.createDynamicGraph(graphModel.getHierarchicalGraphVisible(), BOUNDS);
+        int updates = 0;
+        boolean first = true;
+        for (double low = BOUNDS.getLow(); low <= BOUNDS.getHigh() - WINDOW; low += TICK) {
+            Interval interval = new Interval(low, low + WINDOW);
+            Graph snapshot = dynamicGraph.getSnapshotGraph(interval);
+            if (incremental && !first && statistics.update(snapshot.getView(), interval,
+                    dynamicGraph.getAddedNodes(), dynamicGraph.getRemovedNodes(),
+                    dynamicGraph.getAddedEdges(), dynamicGraph.getRemovedEdges())) {
+                updates++;
+            } else {
+                statistics.loop(snapshot.getView(), interval);
+            }
+            first = false;
+        }
+        statistics.end();
+        return updates;
+    }
+}
@@ -80,6 +80,14 @@ public class DynamicClusteringCoefficientPanel extends javax.swing.JPanel {
         averageOnlyCheckbox.setSelected(averageOnly);
     }
 
+    public int getThreads() {
+        return (Integer) threadsSpinner.getValue();
+    }
+
+    public void setThreads(int threads) {
+        threadsSpinner.setValue(threads);
+    }
+
     /** This method is called from within the constructor to
      * initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is
@@ -94,6 +102,8 @@ public class DynamicClusteringCoefficientPanel extends javax.swing.JPanel {
         directedRadioButton = new javax.swing.JRadioButton();
         undirectedRadioButton = new javax.swing.JRadioButton();
         averageOnlyCheckbox = new javax.swing.JCheckBox();
+        threadsLabel = new javax.swing.JLabel();
+        threadsSpinner = new javax.swing.JSpinner();
 
         header.setDescription(org.openide.util.NbBundle.getMessage(DynamicClusteringCoefficientPanel.class, "DynamicClusteringCoefficientPanel.header.description")); // NOI18N
         header.setTitle(org.openide.util.NbBundle.getMessage(DynamicClusteringCoefficientPanel.class, "DynamicClusteringCoefficientPanel.header.title")); // NOI18N
@@ -106,6 +116,10 @@ public class DynamicClusteringCoefficientPanel extends javax.swing.JPanel {
 
         averageOnlyCheckbox.setText(org.openide.util.NbBundle.getMessage(DynamicClusteringCoefficientPanel.class, "DynamicClusteringCoefficientPanel.averageOnlyCheckbox.text")); // NOI18N
 
+        threadsLabel.setText(org.openide.util.NbBundle.getMessage(DynamicClusteringCoefficientPanel.class, "DynamicClusteringCoefficientPanel.threadsLabel.text")); // NOI18N
+
+        threadsSpinner.setModel(new javax.swing.SpinnerNumberModel(Integer.valueOf(1), Integer.valueOf(1), null, Integer.valueOf(1)));
+
         org.jdesktop.layout.GroupLayout layout = new org.jdesktop.layout.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -115,7 +129,11 @@ public class DynamicClusteringCoefficientPanel extends javax.swing.JPanel {
                 .add(layout.createParallelGroup(org.jdesktop.layout.GroupLayout.LEADING)
                     .add(undirectedRadioButton)
                     .add(directedRadioButton)
-                    .add(averageOnlyCheckbox))
+                    .add(averageOnlyCheckbox)
+                    .add(layout.createSequentialGroup()
+                        .add(threadsLabel)
+                        .addPreferredGap(org.jdesktop.layout.LayoutStyle.RELATED)
+                        .add(threadsSpinner, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE, 65, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE)))
                 .addContainerGap(241, Short.MAX_VALUE))
             .add(header, org.jdesktop.layout.GroupLayout.DEFAULT_SIZE, 400, Short.MAX_VALUE)
         );
@@ -129,6 +147,10 @@ public class DynamicClusteringCoefficientPanel extends javax.swing.JPanel {
                 .add(undirectedRadioButton)
                 .add(18, 18, 18)
                 .add(averageOnlyCheckbox)
+                .add(18, 18, 18)
+                .add(layout.createParallelGroup(org.jdesktop.layout.GroupLayout.BASELINE)
+                    .add(threadsLabel)
+                    .add(threadsSpinner, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE, org.jdesktop.layout.GroupLayout.DEFAULT_SIZE, org.jdesktop.layout.GroupLayout.PREFERRED_SIZE))
                 .addContainerGap(org.jdesktop.layout.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
     }// </editor-fold>//GEN-END:initComponents
@@ -137,6 +159,8 @@ public class DynamicClusteringCoefficientPanel extends javax.swing.JPanel {
     private javax.swing.ButtonGroup directedButtonGroup;
     protected javax.swing.JRadioButton directedRadioButton;
     private org.jdesktop.swingx.JXHeader header;
+    private javax.swing.JLabel threadsLabel;
+    private javax.swing.JSpinner threadsSpinner;
     protected javax.swing.JRadioButton undirectedRadioButton;
     // End of variables declaration//GEN-END:variables
 }
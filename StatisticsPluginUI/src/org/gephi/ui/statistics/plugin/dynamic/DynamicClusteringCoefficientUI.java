@@ -70,6 +70,7 @@ public class DynamicClusteringCoefficientUI implements StatisticsUI {
             settings.load(clusetingCoefficient);
             panel.setDirected(clusetingCoefficient.isDirected());
             panel.setAverageOnly(clusetingCoefficient.isAverageOnly());
+            panel.setThreads(clusetingCoefficient.getThreads());
         }
     }
 
@@ -77,6 +78,7 @@ public class DynamicClusteringCoefficientUI implements StatisticsUI {
         if (panel != null) {
             clusetingCoefficient.setDirected(panel.isDirected());
             clusetingCoefficient.setAverageOnly(panel.isAverageOnly());
+            clusetingCoefficient.setThreads(panel.getThreads());
             settings.save(clusetingCoefficient);
         }
         clusetingCoefficient = null;
@@ -107,17 +109,20 @@ public class DynamicClusteringCoefficientUI implements StatisticsUI {
         private boolean averageOnly = false;
         private double window = 0.0;
         private double tick = 0.0;
+        private int threads = 1;
 
         private void save(DynamicClusteringCoefficient stat) {
             this.averageOnly = stat.isAverageOnly();
             this.window = stat.getWindow();
             this.tick = stat.getTick();
+            this.threads = stat.getThreads();
         }
 
         private void load(DynamicClusteringCoefficient stat) {
             stat.setAverageOnly(averageOnly);
             stat.setWindow(window);
             stat.setTick(tick);
+            stat.setThreads(threads);
         }
     }
 }
@@ -80,6 +80,14 @@ public class DynamicDegreePanel extends javax.swing.JPanel {
         averageOnlyCheckbox.setSelected(averageOnly);
     }
 
+    public int getThreads() {
+        return (Integer) threadsSpinner.getValue();
+    }
+
+    public void setThreads(int threads) {
+        threadsSpinner.setValue(threads);
+    }
+
     /** This method is called from within the constructor to
      * initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is
@@ -94,6 +102,8 @@ public class DynamicDegreePanel extends javax.swing.JPanel {
         directedRadioButton = new javax.swing.JRadioButton();
         undirectedRadioButton = new javax.swing.JRadioButton();
         averageOnlyCheckbox = new javax.swing.JCheckBox();
+        threadsLabel = new javax.swing.JLabel();
+        threadsSpinner = new javax.swing.JSpinner();
 
         header.setDescription(org.openide.util.NbBundle.getMessage(DynamicDegreePanel.class, "DynamicDegreePanel.header.description")); // NOI18N
         header.setTitle(org.openide.util.NbBundle.getMessage(DynamicDegreePanel.class, "DynamicDegreePanel.header.title")); // NOI18N
@@ -106,6 +116,10 @@ public class DynamicDegreePanel extends javax.swing.JPanel {
 
         averageOnlyCheckbox.setText(org.openide.util.NbBundle.getMessage(DynamicDegreePanel.class, "DynamicDegreePanel.averageOnlyCheckbox.text")); // NOI18N
 
+        threadsLabel.setText(org.openide.util.NbBundle.getMessage(DynamicDegreePanel.class, "DynamicDegreePanel.threadsLabel.text")); // NOI18N
+
+        threadsSpinner.setModel(new javax.swing.SpinnerNumberModel(Integer.valueOf(1), Integer.valueOf(1), null, Integer.valueOf(1)));
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -121,6 +135,12 @@ public class DynamicDegreePanel extends javax.swing.JPanel {
                 .addContainerGap()
                 .addComponent(averageOnlyCheckbox)
                 .addContainerGap(241, Short.MAX_VALUE))
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addComponent(threadsLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(threadsSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, 65, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
         layout.setVerticalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
@@ -132,6 +152,10 @@ public class DynamicDegreePanel extends javax.swing.JPanel {
                 .addComponent(undirectedRadioButton)
                 .addGap(18, 18, 18)
                 .addComponent(averageOnlyCheckbox)
+                .addGap(18, 18, 18)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(threadsLabel)
+                    .addComponent(threadsSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
     }// </editor-fold>//GEN-END:initComponents
@@ -140,6 +164,8 @@ public class DynamicDegreePanel extends javax.swing.JPanel {
     private javax.swing.ButtonGroup directedButtonGroup;
     protected javax.swing.JRadioButton directedRadioButton;
     private org.jdesktop.swingx.JXHeader header;
+    private javax.swing.JLabel threadsLabel;
+    private javax.swing.JSpinner threadsSpinner;
     protected javax.swing.JRadioButton undirectedRadioButton;
     // End of variables declaration//GEN-END:variables
 }
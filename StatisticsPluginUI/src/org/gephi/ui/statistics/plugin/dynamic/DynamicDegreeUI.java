@@ -70,6 +70,7 @@ public class DynamicDegreeUI implements StatisticsUI {
             settings.load(degree);
             panel.setDirected(degree.isDirected());
             panel.setAverageOnly(degree.isAverageOnly());
+            panel.setThreads(degree.getThreads());
         }
     }
 
@@ -77,6 +78,7 @@ public class DynamicDegreeUI implements StatisticsUI {
         if (panel != null) {
             degree.setDirected(panel.isDirected());
             degree.setAverageOnly(panel.isAverageOnly());
+            degree.setThreads(panel.getThreads());
             settings.save(degree);
         }
         degree = null;
@@ -108,17 +110,20 @@ public class DynamicDegreeUI implements StatisticsUI {
         private boolean averageOnly = false;
         private double window = 0.0;
         private double tick = 0.0;
+        private int threads = 1;
 
         private void save(DynamicDegree stat) {
             this.averageOnly = stat.isAverageOnly();
             this.window = stat.getWindow();
             this.tick = stat.getTick();
+            this.threads = stat.getThreads();
         }
 
         private void load(DynamicDegree stat) {
             stat.setAverageOnly(averageOnly);
             stat.setWindow(window);
             stat.setTick(tick);
+            stat.setThreads(threads);
         }
     }
 }